@@ -49,13 +49,14 @@ create table tree_path_enumeration
 -- ----------------------------
 -- 3. 嵌套集模型 (Nested Set Model)
 -- 使用左值和右值表示节点在树中的位置
+-- 左右值之间留有间隙，插入只写一行，间隙用完时只重排局部子树
 -- ----------------------------
 create table tree_nested_set
 (
     id          bigint       not null auto_increment comment '节点ID',
     name        varchar(100) not null comment '节点名称',
-    lft         int          not null comment '左值',
-    rgt         int          not null comment '右值',
+    lft         bigint       not null comment '左值，相邻值之间留有间隙',
+    rgt         bigint       not null comment '右值，相邻值之间留有间隙',
     level       int          not null comment '节点层级，根节点为0',
     description varchar(200) comment '节点描述',
     disabled_flag tinyint not null default 0 comment '是否禁用',
@@ -109,4 +110,16 @@ create table tree_materialized_path
     create_time datetime not null default current_timestamp comment '创建时间',
     primary key (id),
     index idx_path (path)
-) engine=innodb comment = '物化路径模型';
\ No newline at end of file
+) engine=innodb comment = '物化路径模型';
+
+-- ----------------------------
+-- 6. 树索引版本表
+-- 每个模型每次写入版本号加一，各实例定期比较版本号，判断本地内存索引是否需要重新加载
+-- ----------------------------
+create table tree_index_version
+(
+    model       varchar(50) not null comment '树模型名称',
+    version     bigint      not null default 0 comment '版本号',
+    update_time datetime    not null default current_timestamp on update current_timestamp comment '更新时间',
+    primary key (model)
+) engine=innodb comment = '树索引版本表';
@@ -1,8 +1,10 @@
 package io.github.lizhifuabc.tree;
 
+import io.github.lizhifuabc.tree.index.TreeIndexProperties;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 /**
  * 树形结构应用启动类
@@ -12,6 +14,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  */
 @SpringBootApplication
 @MapperScan("io.github.lizhifuabc.tree.mapper")
+@EnableConfigurationProperties(TreeIndexProperties.class)
 public class TreeApplication {
     public static void main(String[] args) {
         SpringApplication.run(TreeApplication.class, args);
@@ -0,0 +1,40 @@
+package io.github.lizhifuabc.tree.common;
+
+import lombok.Data;
+
+/**
+ * 扁平化的树行
+ * 按先序（深度优先）排列，前端根据深度缩进、根据是否叶子节点显示展开图标，适合虚拟滚动
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+@Data
+public class TreeRow<T> {
+    /**
+     * 节点
+     */
+    private T node;
+
+    /**
+     * 父节点ID，根节点为null
+     */
+    private Long parentId;
+
+    /**
+     * 深度，根节点为0
+     */
+    private int depth;
+
+    /**
+     * 是否叶子节点
+     */
+    private boolean leaf;
+
+    public TreeRow(T node, Long parentId, int depth, boolean leaf) {
+        this.node = node;
+        this.parentId = parentId;
+        this.depth = depth;
+        this.leaf = leaf;
+    }
+}
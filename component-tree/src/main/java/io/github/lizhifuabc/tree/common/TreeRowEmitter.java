@@ -0,0 +1,66 @@
+package io.github.lizhifuabc.tree.common;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 按先序逐个输出扁平化的树行
+ * 是否叶子节点要看下一个节点：下一个节点更深则当前节点有子节点，因此输出延迟一行，内存占用与树的大小无关
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+public final class TreeRowEmitter<T> {
+    private final Consumer<TreeRow<T>> consumer;
+
+    /**
+     * 尚未确定是否叶子节点的上一行
+     */
+    private TreeRow<T> pending;
+
+    public TreeRowEmitter(Consumer<TreeRow<T>> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * 输出一个节点，节点必须按先序到达
+     *
+     * @param node     节点
+     * @param parentId 父节点ID，根节点为null
+     * @param depth    深度，根节点为0
+     */
+    public void emit(T node, Long parentId, int depth) {
+        if (pending != null) {
+            pending.setLeaf(depth <= pending.getDepth());
+            consumer.accept(pending);
+        }
+        pending = new TreeRow<>(node, parentId, depth, true);
+    }
+
+    /**
+     * 输出最后一行，最后一行一定是叶子节点
+     */
+    public void finish() {
+        if (pending != null) {
+            consumer.accept(pending);
+            pending = null;
+        }
+    }
+
+    /**
+     * 只收集 [offset, offset + limit) 范围内的行
+     *
+     * @param offset 起始行
+     * @param limit  最多行数
+     * @param target 收集结果
+     * @return 行消费者
+     */
+    public static <T> Consumer<TreeRow<T>> window(int offset, int limit, List<TreeRow<T>> target) {
+        int[] seen = {0};
+        return row -> {
+            if (seen[0]++ >= offset && target.size() < limit) {
+                target.add(row);
+            }
+        };
+    }
+}
@@ -57,6 +57,18 @@ public class AdjacencyNodeController {
         return Result.success(adjacencyNodeService.deleteNode(id));
     }
 
+    /**
+     * 移动子树
+     *
+     * @param id       节点ID
+     * @param parentId 新父节点ID
+     * @return 移动后的节点
+     */
+    @PutMapping("/node/{id}/move/{parentId}")
+    public Result<AdjacencyNode> moveSubtree(@PathVariable Long id, @PathVariable Long parentId) {
+        return Result.success(adjacencyNodeService.moveSubtree(id, parentId));
+    }
+
     /**
      * 获取节点
      *
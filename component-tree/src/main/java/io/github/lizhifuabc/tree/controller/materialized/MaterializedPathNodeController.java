@@ -1,6 +1,7 @@
 package io.github.lizhifuabc.tree.controller.materialized;
 
 import io.github.lizhifuabc.tree.common.Result;
+import io.github.lizhifuabc.tree.common.TreeRow;
 import io.github.lizhifuabc.tree.domain.materialized.MaterializedPathNode;
 import io.github.lizhifuabc.tree.service.materialized.MaterializedPathNodeService;
 import io.github.lizhifuabc.tree.service.materialized.MaterializedPathNodeTree;
@@ -58,6 +59,18 @@ public class MaterializedPathNodeController {
         return Result.success(materializedPathNodeService.deleteNode(id));
     }
 
+    /**
+     * 移动子树
+     *
+     * @param id       节点ID
+     * @param parentId 新父节点ID
+     * @return 移动后的节点
+     */
+    @PutMapping("/node/{id}/move/{parentId}")
+    public Result<MaterializedPathNode> moveSubtree(@PathVariable Long id, @PathVariable Long parentId) {
+        return Result.success(materializedPathNodeService.moveSubtree(id, parentId));
+    }
+
     /**
      * 获取节点
      *
@@ -121,4 +134,17 @@ public class MaterializedPathNodeController {
     public Result<List<MaterializedPathNodeTree>> buildTree() {
         return Result.success(materializedPathNodeService.buildTree());
     }
+
+    /**
+     * 获取扁平化的树行
+     *
+     * @param offset 起始行
+     * @param limit  最多行数
+     * @return 树行列表
+     */
+    @GetMapping("/rows")
+    public Result<List<TreeRow<MaterializedPathNode>>> getRows(@RequestParam(defaultValue = "0") int offset,
+                                              @RequestParam(defaultValue = "100") int limit) {
+        return Result.success(materializedPathNodeService.getRows(offset, limit));
+    }
 }
\ No newline at end of file
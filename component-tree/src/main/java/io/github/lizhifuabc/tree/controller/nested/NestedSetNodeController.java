@@ -1,6 +1,7 @@
 package io.github.lizhifuabc.tree.controller.nested;
 
 import io.github.lizhifuabc.tree.common.Result;
+import io.github.lizhifuabc.tree.common.TreeRow;
 import io.github.lizhifuabc.tree.domain.nested.NestedSetNode;
 import io.github.lizhifuabc.tree.service.nested.NestedSetNodeService;
 import io.github.lizhifuabc.tree.service.nested.NestedSetNodeTree;
@@ -69,6 +70,18 @@ public class NestedSetNodeController {
         return Result.success(nestedSetNodeService.deleteNode(id));
     }
 
+    /**
+     * 移动子树
+     *
+     * @param id       节点ID
+     * @param parentId 新父节点ID
+     * @return 移动后的节点
+     */
+    @PutMapping("/node/{id}/move/{parentId}")
+    public Result<NestedSetNode> moveSubtree(@PathVariable Long id, @PathVariable Long parentId) {
+        return Result.success(nestedSetNodeService.moveSubtree(id, parentId));
+    }
+
     /**
      * 获取节点
      *
@@ -132,4 +145,17 @@ public class NestedSetNodeController {
     public Result<List<NestedSetNodeTree>> buildTree() {
         return Result.success(nestedSetNodeService.buildTree());
     }
+
+    /**
+     * 获取扁平化的树行
+     *
+     * @param offset 起始行
+     * @param limit  最多行数
+     * @return 树行列表
+     */
+    @GetMapping("/rows")
+    public Result<List<TreeRow<NestedSetNode>>> getRows(@RequestParam(defaultValue = "0") int offset,
+                                              @RequestParam(defaultValue = "100") int limit) {
+        return Result.success(nestedSetNodeService.getRows(offset, limit));
+    }
 }
\ No newline at end of file
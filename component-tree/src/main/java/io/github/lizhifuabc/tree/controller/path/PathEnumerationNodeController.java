@@ -58,6 +58,18 @@ public class PathEnumerationNodeController {
         return Result.success(pathEnumerationNodeService.deleteNode(id));
     }
 
+    /**
+     * 移动子树
+     *
+     * @param id       节点ID
+     * @param parentId 新父节点ID
+     * @return 移动后的节点
+     */
+    @PutMapping("/node/{id}/move/{parentId}")
+    public Result<PathEnumerationNode> moveSubtree(@PathVariable Long id, @PathVariable Long parentId) {
+        return Result.success(pathEnumerationNodeService.moveSubtree(id, parentId));
+    }
+
     /**
      * 获取节点
      *
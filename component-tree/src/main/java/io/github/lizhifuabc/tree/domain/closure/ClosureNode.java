@@ -17,6 +17,11 @@ public class ClosureNode {
      */
     private Long id;
 
+    /**
+     * 父节点ID，非表字段，由路径表中距离为1的路径关联查询得出，根节点为null
+     */
+    private Long parentId;
+
     /**
      * 节点名称
      */
@@ -0,0 +1,29 @@
+package io.github.lizhifuabc.tree.domain.index;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 树索引版本实体类
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+@Data
+public class TreeIndexVersion {
+    /**
+     * 树模型名称
+     */
+    private String model;
+
+    /**
+     * 版本号，模型每次写入加一
+     */
+    private Long version;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -20,12 +20,12 @@ public class NestedSetNode {
     /**
      * 左值
      */
-    private Integer lft;
+    private Long lft;
 
     /**
      * 右值
      */
-    private Integer rgt;
+    private Long rgt;
 
     /**
      * 节点名称
@@ -0,0 +1,693 @@
+package io.github.lizhifuabc.tree.index;
+
+import io.github.lizhifuabc.tree.common.TreeRow;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 内存树索引
+ * <p>
+ * 层级关系按槽位（slot）保存在基本类型数组中：parent / firstChild / lastChild / nextSibling / prevSibling，
+ * 槽位 0 是虚拟根，所有根节点都挂在它下面。在指针数组之上维护先序遍历（欧拉序）的进入/离开时间 tin / tout：
+ * <ul>
+ *     <li>a 是 b 的祖先，当且仅当 tin[a] &lt; tin[b] &lt;= tout[a]，O(1) 判断</li>
+ *     <li>a 的所有子孙恰好是先序数组 order 中 (tin[a], tout[a]] 这一段，按段复制即可</li>
+ * </ul>
+ * 新增、移动只调整指针数组（O(1)），删除子树为 O(子树大小)；写入后欧拉序标记为失效，
+ * 在下一次读取时 O(n) 重新计算一次，连续多次写入只计算一次。
+ * <p>
+ * 读写通过读写锁隔离。返回的实体是索引内共享的对象，调用方不应修改。
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+@Slf4j
+public final class TreeIndex<T> {
+    private static final int NONE = -1;
+
+    /**
+     * 虚拟根槽位
+     */
+    private static final int ROOT = 0;
+
+    private final ToLongFunction<T> idOf;
+    private final LongIntMap slots;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids;
+    private Object[] nodes;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] nextSibling;
+    private int[] prevSibling;
+
+    /**
+     * 欧拉序：进入时间、子树最后一个节点的进入时间、先序数组，以及随遍历得到的深度
+     */
+    private int[] tin;
+    private int[] tout;
+    private int[] order;
+    private int[] depth;
+    private int tourLength;
+    private boolean tourValid;
+
+    /**
+     * 已分配过的槽位上界，空闲槽位通过 nextSibling 串成链表复用
+     */
+    private int slotLimit = 1;
+    private int freeSlot = NONE;
+    private int size;
+
+    private TreeIndex(ToLongFunction<T> idOf, int capacity) {
+        this.idOf = idOf;
+        this.slots = new LongIntMap(capacity);
+        int length = Math.max(capacity + 1, 16);
+        this.ids = new long[length];
+        this.nodes = new Object[length];
+        this.parent = filled(length);
+        this.firstChild = filled(length);
+        this.lastChild = filled(length);
+        this.nextSibling = filled(length);
+        this.prevSibling = filled(length);
+        this.tin = filled(length);
+        this.tout = filled(length);
+        this.order = new int[length];
+        this.depth = new int[length];
+    }
+
+    /**
+     * 由节点列表构建索引，同一父节点下的子节点保持列表中的顺序
+     * <p>
+     * 父节点不存在或处于环中、无法从根到达的节点不进入索引，与按父子关系组装树时的结果一致
+     *
+     * @param nodes      全部节点
+     * @param idOf       节点ID
+     * @param parentIdOf 父节点ID，根节点返回 null
+     * @return 索引
+     */
+    public static <T> TreeIndex<T> build(List<T> nodes, ToLongFunction<T> idOf, Function<T, Long> parentIdOf) {
+        TreeIndex<T> index = new TreeIndex<>(idOf, nodes.size());
+        int[] nodeSlots = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            nodeSlots[i] = index.allocate(nodes.get(i));
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            Long parentId = parentIdOf.apply(nodes.get(i));
+            int parentSlot = parentId == null ? ROOT : index.slots.get(parentId);
+            if (parentSlot != NONE && parentSlot != nodeSlots[i]) {
+                index.link(nodeSlots[i], parentSlot);
+            }
+        }
+
+        // 先序遍历没有访问到的节点即为孤儿或环上的节点
+        index.rebuildTour();
+        int unreachable = 0;
+        for (int slot = 1; slot < index.slotLimit; slot++) {
+            if (index.nodes[slot] != null && index.tin[slot] == NONE) {
+                index.release(slot);
+                unreachable++;
+            }
+        }
+        if (unreachable > 0) {
+            log.warn("树索引构建时忽略了 {} 个无法从根节点到达的节点", unreachable);
+        }
+        return index;
+    }
+
+    /**
+     * 节点数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 是否包含节点
+     */
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return slots.get(id) != NONE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取节点
+     *
+     * @param id 节点ID
+     * @return 节点，不存在时返回 null
+     */
+    public T get(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(id);
+            return slot == NONE ? null : node(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 根节点列表
+     */
+    public List<T> roots() {
+        lock.readLock().lock();
+        try {
+            return childrenOf(ROOT);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 直接子节点
+     *
+     * @param id 父节点ID
+     * @return 子节点列表，节点不存在时为空
+     */
+    public List<T> children(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(id);
+            return slot == NONE ? new ArrayList<>() : childrenOf(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 所有子孙节点，按先序（深度优先）排列，不包含自身
+     *
+     * @param id 节点ID
+     * @return 子孙节点列表，节点不存在时为空
+     */
+    public List<T> descendants(long id) {
+        lockForTour();
+        try {
+            int slot = slots.get(id);
+            if (slot == NONE) {
+                return new ArrayList<>();
+            }
+            List<T> result = new ArrayList<>(tout[slot] - tin[slot]);
+            for (int i = tin[slot] + 1; i <= tout[slot]; i++) {
+                result.add(node(order[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 所有祖先节点，从根节点开始排列，不包含自身
+     *
+     * @param id 节点ID
+     * @return 祖先节点列表，节点不存在时为空
+     */
+    public List<T> ancestors(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(id);
+            List<T> result = new ArrayList<>();
+            if (slot == NONE) {
+                return result;
+            }
+            for (int current = parent[slot]; current != ROOT; current = parent[current]) {
+                result.add(node(current));
+            }
+            Collections.reverse(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 判断 ancestorId 是否为 descendantId 的祖先（不含自身），O(1)
+     */
+    public boolean isAncestor(long ancestorId, long descendantId) {
+        lockForTour();
+        try {
+            int ancestor = slots.get(ancestorId);
+            int descendant = slots.get(descendantId);
+            if (ancestor == NONE || descendant == NONE) {
+                return false;
+            }
+            return tin[ancestor] < tin[descendant] && tin[descendant] <= tout[ancestor];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 子树节点数量（包含自身），节点不存在时返回 0
+     */
+    public int subtreeSize(long id) {
+        lockForTour();
+        try {
+            int slot = slots.get(id);
+            return slot == NONE ? 0 : tout[slot] - tin[slot] + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按先序一次遍历组装树，父节点总是先于子节点转换，O(n)
+     *
+     * @param converter  实体转换为树节点
+     * @param childrenOf 树节点的子节点列表
+     * @return 根节点列表
+     */
+    @SuppressWarnings("unchecked")
+    public <R> List<R> buildTree(Function<? super T, R> converter, Function<R, List<R>> childrenOf) {
+        lockForTour();
+        try {
+            Object[] trees = new Object[slotLimit];
+            List<R> roots = new ArrayList<>();
+            for (int i = 1; i < tourLength; i++) {
+                int slot = order[i];
+                R tree = converter.apply(node(slot));
+                trees[slot] = tree;
+                if (parent[slot] == ROOT) {
+                    roots.add(tree);
+                } else {
+                    childrenOf.apply((R) trees[parent[slot]]).add(tree);
+                }
+            }
+            return roots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 扁平化的树行，按先序取 [offset, offset + limit) 这一段，只复制这一段，适合虚拟滚动
+     *
+     * @param offset 起始行
+     * @param limit  最多行数
+     * @return 树行列表
+     */
+    public List<TreeRow<T>> rows(int offset, int limit) {
+        lockForTour();
+        try {
+            int from = offset + 1;
+            int to = (int) Math.min((long) from + limit, tourLength);
+            List<TreeRow<T>> result = new ArrayList<>(Math.max(to - from, 0));
+            for (int i = from; i < to; i++) {
+                int slot = order[i];
+                Long parentId = parent[slot] == ROOT ? null : ids[parent[slot]];
+                result.add(new TreeRow<>(node(slot), parentId, depth[slot], firstChild[slot] == NONE));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 新增节点，或替换已有节点并在父节点变化时移动到新父节点下（作为最后一个子节点）
+     *
+     * @param node     节点
+     * @param parentId 父节点ID，根节点为 null
+     * @return 父节点不在索引中，或移动会形成环时返回 false，索引不做修改
+     */
+    public boolean put(T node, Long parentId) {
+        lock.writeLock().lock();
+        try {
+            int parentSlot = parentId == null ? ROOT : slots.get(parentId);
+            if (parentSlot == NONE) {
+                return false;
+            }
+            int slot = slots.get(idOf.applyAsLong(node));
+            if (slot == NONE) {
+                link(allocate(node), parentSlot);
+                tourValid = false;
+                return true;
+            }
+            if (parent[slot] != parentSlot) {
+                if (inSubtree(parentSlot, slot)) {
+                    return false;
+                }
+                unlink(slot);
+                link(slot, parentSlot);
+                tourValid = false;
+            }
+            nodes[slot] = node;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 只替换节点数据，位置不变
+     *
+     * @param node 节点
+     * @return 节点不在索引中时返回 false
+     */
+    public boolean replace(T node) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(idOf.applyAsLong(node));
+            if (slot == NONE) {
+                return false;
+            }
+            nodes[slot] = node;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除节点及其整棵子树，节点不存在时忽略
+     *
+     * @param id 节点ID
+     * @return 删除的节点数量
+     */
+    public int remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(id);
+            if (slot == NONE) {
+                return 0;
+            }
+            unlink(slot);
+            // 先收集整棵子树再释放，释放会复用 nextSibling 作为空闲链表
+            int[] stack = new int[16];
+            int top = 0;
+            int removed = 0;
+            stack[top++] = slot;
+            int[] subtree = new int[16];
+            while (top > 0) {
+                int current = stack[--top];
+                if (removed == subtree.length) {
+                    subtree = Arrays.copyOf(subtree, removed * 2);
+                }
+                subtree[removed++] = current;
+                for (int child = firstChild[current]; child != NONE; child = nextSibling[child]) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = child;
+                }
+            }
+            for (int i = 0; i < removed; i++) {
+                release(subtree[i]);
+            }
+            tourValid = false;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T node(int slot) {
+        return (T) nodes[slot];
+    }
+
+    private List<T> childrenOf(int slot) {
+        List<T> result = new ArrayList<>();
+        for (int child = firstChild[slot]; child != NONE; child = nextSibling[child]) {
+            result.add(node(child));
+        }
+        return result;
+    }
+
+    /**
+     * 加读锁，欧拉序失效时先在写锁下重新计算，再降级为读锁
+     */
+    private void lockForTour() {
+        lock.readLock().lock();
+        if (tourValid) {
+            return;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (!tourValid) {
+                rebuildTour();
+            }
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从虚拟根开始非递归先序遍历，计算 tin / tout / order
+     */
+    private void rebuildTour() {
+        Arrays.fill(tin, 0, slotLimit, NONE);
+        int time = 0;
+        int current = ROOT;
+        tin[ROOT] = time;
+        order[time++] = ROOT;
+        depth[ROOT] = -1;
+        while (true) {
+            int child = firstChild[current];
+            if (child != NONE) {
+                tin[child] = time;
+                order[time++] = child;
+                depth[child] = depth[current] + 1;
+                current = child;
+                continue;
+            }
+            // 叶子节点：关闭当前子树，向上回溯直到找到下一个兄弟节点
+            while (true) {
+                tout[current] = time - 1;
+                if (current == ROOT) {
+                    tourLength = time;
+                    tourValid = true;
+                    return;
+                }
+                int next = nextSibling[current];
+                if (next != NONE) {
+                    tin[next] = time;
+                    order[time++] = next;
+                    depth[next] = depth[current];
+                    current = next;
+                    break;
+                }
+                current = parent[current];
+            }
+        }
+    }
+
+    /**
+     * slot 是否位于 root 的子树中（包含 root 自身），沿父指针向上查找，不依赖欧拉序
+     */
+    private boolean inSubtree(int slot, int root) {
+        for (int current = slot; current != ROOT && current != NONE; current = parent[current]) {
+            if (current == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int allocate(T node) {
+        int slot;
+        if (freeSlot != NONE) {
+            slot = freeSlot;
+            freeSlot = nextSibling[slot];
+        } else {
+            if (slotLimit == ids.length) {
+                grow();
+            }
+            slot = slotLimit++;
+        }
+        long id = idOf.applyAsLong(node);
+        ids[slot] = id;
+        nodes[slot] = node;
+        parent[slot] = NONE;
+        firstChild[slot] = NONE;
+        lastChild[slot] = NONE;
+        nextSibling[slot] = NONE;
+        prevSibling[slot] = NONE;
+        slots.put(id, slot);
+        size++;
+        return slot;
+    }
+
+    private void release(int slot) {
+        slots.remove(ids[slot]);
+        nodes[slot] = null;
+        parent[slot] = NONE;
+        firstChild[slot] = NONE;
+        lastChild[slot] = NONE;
+        prevSibling[slot] = NONE;
+        nextSibling[slot] = freeSlot;
+        freeSlot = slot;
+        size--;
+    }
+
+    /**
+     * 作为最后一个子节点挂到父节点下
+     */
+    private void link(int slot, int parentSlot) {
+        int last = lastChild[parentSlot];
+        parent[slot] = parentSlot;
+        prevSibling[slot] = last;
+        nextSibling[slot] = NONE;
+        if (last == NONE) {
+            firstChild[parentSlot] = slot;
+        } else {
+            nextSibling[last] = slot;
+        }
+        lastChild[parentSlot] = slot;
+    }
+
+    private void unlink(int slot) {
+        int parentSlot = parent[slot];
+        int prev = prevSibling[slot];
+        int next = nextSibling[slot];
+        if (prev == NONE) {
+            firstChild[parentSlot] = next;
+        } else {
+            nextSibling[prev] = next;
+        }
+        if (next == NONE) {
+            lastChild[parentSlot] = prev;
+        } else {
+            prevSibling[next] = prev;
+        }
+        parent[slot] = NONE;
+        prevSibling[slot] = NONE;
+        nextSibling[slot] = NONE;
+    }
+
+    private void grow() {
+        int length = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, length);
+        nodes = Arrays.copyOf(nodes, length);
+        parent = grow(parent, length);
+        firstChild = grow(firstChild, length);
+        lastChild = grow(lastChild, length);
+        nextSibling = grow(nextSibling, length);
+        prevSibling = grow(prevSibling, length);
+        tin = grow(tin, length);
+        tout = grow(tout, length);
+        order = Arrays.copyOf(order, length);
+        depth = Arrays.copyOf(depth, length);
+    }
+
+    private static int[] grow(int[] array, int length) {
+        int oldLength = array.length;
+        int[] result = Arrays.copyOf(array, length);
+        Arrays.fill(result, oldLength, length, NONE);
+        return result;
+    }
+
+    private static int[] filled(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, NONE);
+        return array;
+    }
+
+    /**
+     * 节点ID到槽位的开放寻址哈希表（线性探测），避免 500k 级别的 Long / Integer 装箱
+     */
+    private static final class LongIntMap {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+
+        private LongIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            allocate(capacity);
+        }
+
+        private int get(long key) {
+            for (int i = index(key); ; i = (i + 1) & mask) {
+                long current = keys[i];
+                if (current == key) {
+                    return values[i];
+                }
+                if (current == EMPTY) {
+                    return NONE;
+                }
+            }
+        }
+
+        private void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int i = index(key);
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void remove(long key) {
+            int gap = index(key);
+            while (keys[gap] != key) {
+                if (keys[gap] == EMPTY) {
+                    return;
+                }
+                gap = (gap + 1) & mask;
+            }
+            // 向后移动删除：把探测链上可以前移的元素填进空位，保证查找不会提前遇到空槽
+            for (int i = (gap + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                int home = index(keys[i]);
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            keys[gap] = EMPTY;
+            size--;
+        }
+
+        private int index(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate(oldKeys.length << 1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            mask = capacity - 1;
+            size = 0;
+        }
+    }
+}
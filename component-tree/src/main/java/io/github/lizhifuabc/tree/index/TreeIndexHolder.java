@@ -0,0 +1,205 @@
+package io.github.lizhifuabc.tree.index;
+
+import io.github.lizhifuabc.tree.mapper.index.TreeIndexVersionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 单个树模型的内存索引及其版本
+ * <p>
+ * 版本号保存在 tree_index_version 表中：
+ * <ul>
+ *     <li>本实例写入时，业务事务提交后在一个独立的短事务中把版本号加一，再把同样的修改应用到本地索引；
+ *     只有本地版本恰好是上一个版本时才增量应用，否则说明中间有其他实例的写入，直接丢弃本地索引。
+ *     版本号行锁只在短事务内持有，不会让同一模型的业务写事务互相等待</li>
+ *     <li>其他实例写入后，{@link TreeIndexManager} 定期比较版本号，发现落后时在后台重新加载，
+ *     加载完成前继续使用旧索引，因此跨实例的可见性延迟为检查间隔加一次加载时间</li>
+ * </ul>
+ * 首次读取或本地索引被丢弃后，由读取线程同步加载。
+ * <p>
+ * 业务事务提交后、版本号推进前实例宕机（或推进失败）时，其他实例要到该模型的下一次写入才会重新加载。
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+@Slf4j
+public final class TreeIndexHolder<T> {
+    private final String model;
+    private final boolean enabled;
+    private final Supplier<TreeIndex<T>> loader;
+    private final TreeIndexVersionMapper versionMapper;
+
+    /**
+     * 推进版本号使用的独立事务（REQUIRES_NEW）
+     */
+    private final TransactionOperations versionTransaction;
+
+    private volatile TreeIndex<T> index;
+
+    /**
+     * 本地索引对应的版本号，读写都在 this 锁内
+     */
+    private long version;
+
+    TreeIndexHolder(String model, boolean enabled, Supplier<TreeIndex<T>> loader, TreeIndexVersionMapper versionMapper,
+                    TransactionOperations versionTransaction) {
+        this.model = model;
+        this.enabled = enabled;
+        this.loader = loader;
+        this.versionMapper = versionMapper;
+        this.versionTransaction = versionTransaction;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * 是否启用索引，未启用时调用方应直接查询数据库
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取索引，未加载时同步加载
+     */
+    public TreeIndex<T> get() {
+        TreeIndex<T> current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null) {
+                long loadedVersion = currentVersion();
+                index = load();
+                version = loadedVersion;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 记录一次写入，应在写入事务中调用
+     * <p>
+     * 事务提交后推进版本号，并把 change 应用到本地索引，change 返回 false 或抛出异常时丢弃本地索引；
+     * 事务回滚时不做任何事
+     *
+     * @param change 对本地索引的增量修改
+     */
+    public void onWrite(Predicate<TreeIndex<T>> change) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> bumpAndApply(change));
+    }
+
+    /**
+     * 记录一次无法增量应用的写入，事务提交后丢弃本地索引，下次读取时重新加载
+     */
+    public void invalidateOnWrite() {
+        onWrite(null);
+    }
+
+    /**
+     * 丢弃本地索引
+     */
+    public synchronized void invalidate() {
+        index = null;
+    }
+
+    /**
+     * 数据库版本号领先于本地索引时重新加载，由版本检查线程调用
+     *
+     * @param latestVersion 数据库中的版本号
+     */
+    void refresh(long latestVersion) {
+        synchronized (this) {
+            if (index == null || version >= latestVersion) {
+                return;
+            }
+        }
+        long loadedVersion = currentVersion();
+        TreeIndex<T> loaded = load();
+        synchronized (this) {
+            // 加载期间本地写入可能已经推进了版本，只用更新的结果覆盖
+            if (index == null || version < loadedVersion) {
+                index = loaded;
+                version = loadedVersion;
+            }
+        }
+    }
+
+    /**
+     * 在独立事务中推进版本号，并读到本次推进后的值；持有 this 锁，本实例的写入按版本号顺序应用
+     */
+    private synchronized void bumpAndApply(Predicate<TreeIndex<T>> change) {
+        Long newVersion;
+        try {
+            newVersion = versionTransaction.execute(status -> {
+                versionMapper.increment(model);
+                return currentVersion();
+            });
+        } catch (RuntimeException e) {
+            log.error("树索引[{}]版本号推进失败，其他实例要到下一次写入才会重新加载", model, e);
+            index = null;
+            return;
+        }
+        apply(newVersion, change);
+    }
+
+    private void apply(long newVersion, Predicate<TreeIndex<T>> change) {
+        TreeIndex<T> current = index;
+        if (current == null || version >= newVersion) {
+            // 尚未加载，或加载时已经包含了这次写入
+            return;
+        }
+        if (change == null || version != newVersion - 1) {
+            index = null;
+            return;
+        }
+        try {
+            if (change.test(current)) {
+                version = newVersion;
+            } else {
+                log.warn("树索引[{}]增量更新失败，丢弃本地索引", model);
+                index = null;
+            }
+        } catch (RuntimeException e) {
+            log.warn("树索引[{}]增量更新异常，丢弃本地索引", model, e);
+            index = null;
+        }
+    }
+
+    private TreeIndex<T> load() {
+        long start = System.nanoTime();
+        TreeIndex<T> loaded = loader.get();
+        log.info("树索引[{}]加载完成，节点数: {}，耗时: {}ms",
+                model, loaded.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return loaded;
+    }
+
+    private long currentVersion() {
+        Long current = versionMapper.selectVersion(model);
+        return current == null ? 0 : current;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
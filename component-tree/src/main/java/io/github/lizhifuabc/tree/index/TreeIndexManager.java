@@ -0,0 +1,95 @@
+package io.github.lizhifuabc.tree.index;
+
+import io.github.lizhifuabc.tree.domain.index.TreeIndexVersion;
+import io.github.lizhifuabc.tree.mapper.index.TreeIndexVersionMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 内存树索引管理
+ * <p>
+ * 各模型的服务在构造时注册自己的索引；启用索引时，后台线程按 versionCheckInterval 一次查询所有模型的版本号，
+ * 发现其他实例写入后重新加载对应的索引
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+@Slf4j
+@Component
+public class TreeIndexManager {
+    private final TreeIndexProperties properties;
+    private final TreeIndexVersionMapper versionMapper;
+    private final TransactionTemplate versionTransaction;
+    private final Map<String, TreeIndexHolder<?>> holders = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService versionChecker;
+
+    public TreeIndexManager(TreeIndexProperties properties, TreeIndexVersionMapper versionMapper,
+                            PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.versionMapper = versionMapper;
+        // 版本号在业务事务提交后推进，此时旧事务的资源仍绑定在线程上，必须开启新事务
+        this.versionTransaction = new TransactionTemplate(transactionManager);
+        this.versionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.versionChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tree-index-version-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 注册树模型的索引，索引在第一次读取时加载
+     *
+     * @param model  树模型名称，对应 tree_index_version.model
+     * @param loader 从数据库加载完整索引
+     * @return 索引
+     */
+    public <T> TreeIndexHolder<T> register(String model, Supplier<TreeIndex<T>> loader) {
+        TreeIndexHolder<T> holder = new TreeIndexHolder<>(model, properties.isEnabled(), loader, versionMapper,
+                versionTransaction);
+        if (holders.putIfAbsent(model, holder) != null) {
+            throw new IllegalStateException("树索引重复注册: " + model);
+        }
+        return holder;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("内存树索引未启用");
+            return;
+        }
+        long interval = properties.getVersionCheckInterval().toMillis();
+        versionChecker.scheduleWithFixedDelay(this::checkVersions, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        versionChecker.shutdownNow();
+    }
+
+    private void checkVersions() {
+        try {
+            for (TreeIndexVersion version : versionMapper.selectAll()) {
+                TreeIndexHolder<?> holder = holders.get(version.getModel());
+                if (holder != null) {
+                    holder.refresh(version.getVersion());
+                }
+            }
+        } catch (Exception e) {
+            log.error("树索引版本检查异常", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.lizhifuabc.tree.index;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 内存树索引配置
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+@Data
+@ConfigurationProperties(prefix = "tree.index")
+public class TreeIndexProperties {
+    /**
+     * 是否启用内存树索引，关闭后所有查询直接访问数据库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 检查其他实例写入（版本号变化）的间隔
+     */
+    private Duration versionCheckInterval = Duration.ofSeconds(1);
+}
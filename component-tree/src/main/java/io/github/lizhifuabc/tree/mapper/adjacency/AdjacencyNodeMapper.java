@@ -66,4 +66,22 @@ public interface AdjacencyNodeMapper {
      * @return 子孙节点列表
      */
     List<AdjacencyNode> selectDescendants(@Param("id") Long id);
+
+    /**
+     * 统计 ancestorId 是否为节点自身或其祖先节点，从节点向上递归，只访问祖先链
+     *
+     * @param id         节点ID
+     * @param ancestorId 待检查的节点ID
+     * @return 大于0表示是自身或祖先
+     */
+    int countAncestorOrSelf(@Param("id") Long id, @Param("ancestorId") Long ancestorId);
+
+    /**
+     * 调整所有子孙节点的层级
+     *
+     * @param id         节点ID
+     * @param levelDelta 层级增量（可为负数）
+     * @return 影响行数
+     */
+    int updateDescendantLevels(@Param("id") Long id, @Param("levelDelta") Integer levelDelta);
 }
\ No newline at end of file
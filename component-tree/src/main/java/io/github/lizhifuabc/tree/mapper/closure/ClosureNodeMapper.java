@@ -37,7 +37,7 @@ public interface ClosureNodeMapper {
     int delete(@Param("id") Long id);
 
     /**
-     * 根据ID查询节点
+     * 根据ID查询节点，父节点ID由距离为1的路径关联得出
      *
      * @param id 节点ID
      * @return 节点
@@ -45,9 +45,43 @@ public interface ClosureNodeMapper {
     ClosureNode selectById(@Param("id") Long id);
 
     /**
-     * 查询所有节点
+     * 查询所有节点及其父节点ID
+     * 与路径表中距离为1的路径左关联，一条语句得到完整的父子关系
      *
      * @return 节点列表
      */
     List<ClosureNode> selectAll();
+
+    /**
+     * 查询直接子节点
+     *
+     * @param parentId 父节点ID
+     * @return 子节点列表
+     */
+    List<ClosureNode> selectChildren(@Param("parentId") Long parentId);
+
+    /**
+     * 查询所有子孙节点（不包含自身），按距离、ID排序
+     *
+     * @param id 节点ID
+     * @return 子孙节点列表
+     */
+    List<ClosureNode> selectDescendants(@Param("id") Long id);
+
+    /**
+     * 查询所有祖先节点（不包含自身），从根节点开始排列
+     *
+     * @param id 节点ID
+     * @return 祖先节点列表
+     */
+    List<ClosureNode> selectAncestors(@Param("id") Long id);
+
+    /**
+     * 调整节点及其所有子孙节点的层级
+     *
+     * @param id         节点ID
+     * @param levelDelta 层级增量（可为负数）
+     * @return 影响行数
+     */
+    int updateSubtreeLevels(@Param("id") Long id, @Param("levelDelta") Integer levelDelta);
 }
\ No newline at end of file
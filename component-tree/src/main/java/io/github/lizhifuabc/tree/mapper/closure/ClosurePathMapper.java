@@ -61,6 +61,15 @@ public interface ClosurePathMapper {
      */
     List<Long> selectChildIds(@Param("parentId") Long parentId);
 
+    /**
+     * 复制父节点的所有祖先路径（含父节点自身）到新节点，距离加一
+     *
+     * @param nodeId   新节点ID
+     * @param parentId 父节点ID
+     * @return 影响行数
+     */
+    int insertFromParent(@Param("nodeId") Long nodeId, @Param("parentId") Long parentId);
+
     /**
      * 批量插入路径
      *
@@ -68,4 +77,21 @@ public interface ClosurePathMapper {
      * @return 影响行数
      */
     int batchInsert(List<ClosurePath> paths);
+
+    /**
+     * 删除子树与子树外祖先之间的路径，子树内部的路径保留
+     *
+     * @param nodeId 子树根节点ID
+     * @return 影响行数
+     */
+    int deleteOuterPaths(@Param("nodeId") Long nodeId);
+
+    /**
+     * 新父节点的每个祖先（含新父节点自身）与子树的每个节点交叉连接，生成新的路径
+     *
+     * @param nodeId   子树根节点ID
+     * @param parentId 新父节点ID
+     * @return 影响行数
+     */
+    int insertSubtreePaths(@Param("nodeId") Long nodeId, @Param("parentId") Long parentId);
 }
\ No newline at end of file
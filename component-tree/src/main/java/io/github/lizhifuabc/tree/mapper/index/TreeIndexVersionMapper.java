@@ -0,0 +1,38 @@
+package io.github.lizhifuabc.tree.mapper.index;
+
+import io.github.lizhifuabc.tree.domain.index.TreeIndexVersion;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 树索引版本Mapper接口
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+public interface TreeIndexVersionMapper {
+    /**
+     * 版本号加一，记录不存在时插入
+     * 在业务事务提交后的独立短事务中执行，行锁不会延续到业务事务
+     *
+     * @param model 树模型名称
+     * @return 影响行数
+     */
+    int increment(@Param("model") String model);
+
+    /**
+     * 查询模型的版本号
+     *
+     * @param model 树模型名称
+     * @return 版本号，记录不存在时返回null
+     */
+    Long selectVersion(@Param("model") String model);
+
+    /**
+     * 查询所有模型的版本号
+     *
+     * @return 版本列表
+     */
+    List<TreeIndexVersion> selectAll();
+}
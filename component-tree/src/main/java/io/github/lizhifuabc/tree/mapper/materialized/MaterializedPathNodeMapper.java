@@ -3,6 +3,7 @@ package io.github.lizhifuabc.tree.mapper.materialized;
 import io.github.lizhifuabc.tree.domain.materialized.MaterializedPathNode;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 
@@ -53,6 +54,13 @@ public interface MaterializedPathNodeMapper {
      */
     List<MaterializedPathNode> selectAll();
 
+    /**
+     * 按路径顺序流式查询所有节点，逐行交给处理器，不在内存中保留结果列表
+     *
+     * @param handler 结果处理器，可以通过 ResultContext#stop 提前结束
+     */
+    void streamAll(ResultHandler<MaterializedPathNode> handler);
+
     /**
      * 根据父节点ID查询子节点
      *
@@ -76,4 +84,23 @@ public interface MaterializedPathNodeMapper {
      * @return 祖先节点列表
      */
     List<MaterializedPathNode> selectAncestorsByPath(@Param("path") String path);
+
+    /**
+     * 查询最后一个子节点的路径，子节点的路径前缀相同，编码至少三位，路径最长且最大的即为最后一个
+     *
+     * @param parentId 父节点ID
+     * @return 最后一个子节点的路径，没有子节点时返回null
+     */
+    String selectLastChildPath(@Param("parentId") Long parentId);
+
+    /**
+     * 替换子树的路径前缀，节点及其所有子孙节点的路径和层级一起改写
+     *
+     * @param oldPath    节点原路径
+     * @param newPath    节点新路径
+     * @param levelDelta 层级增量（可为负数）
+     * @return 影响行数
+     */
+    int updatePathPrefix(@Param("oldPath") String oldPath, @Param("newPath") String newPath,
+                         @Param("levelDelta") Integer levelDelta);
 }
\ No newline at end of file
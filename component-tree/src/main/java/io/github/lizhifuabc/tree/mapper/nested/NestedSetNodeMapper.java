@@ -2,6 +2,7 @@ package io.github.lizhifuabc.tree.mapper.nested;
 
 import io.github.lizhifuabc.tree.domain.nested.NestedSetNode;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 
@@ -51,6 +52,13 @@ public interface NestedSetNodeMapper {
      */
     List<NestedSetNode> selectAll();
 
+    /**
+     * 按左值顺序流式查询所有节点，逐行交给处理器，不在内存中保留结果列表
+     *
+     * @param handler 结果处理器，可以通过 ResultContext#stop 提前结束
+     */
+    void streamAll(ResultHandler<NestedSetNode> handler);
+
     /**
      * 查询子节点
      * 子节点的左值在父节点的左值和右值之间，且层级比父节点大1
@@ -79,22 +87,64 @@ public interface NestedSetNodeMapper {
     List<NestedSetNode> selectAncestors(@Param("id") Long id);
     
     /**
-     * 更新节点的左值和右值
-     * 用于在插入和删除节点时调整其他节点的左右值
+     * 根据ID查询节点并加行锁，同一父节点下的插入依次分配区间
+     *
+     * @param id 节点ID
+     * @return 节点
+     */
+    NestedSetNode selectByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 查询最后一个子节点（左值最大的子节点），新节点分配在它的右值和父节点右值之间
+     *
+     * @param parentId 父节点ID
+     * @return 最后一个子节点，没有子节点时返回null
+     */
+    NestedSetNode selectLastChild(@Param("parentId") Long parentId);
+
+    /**
+     * 按左值倒序查询最后几个子节点，用于取得最后一个子节点前面的间隙
+     *
+     * @param parentId 父节点ID
+     * @param limit    最多返回的数量
+     * @return 子节点列表，第一个为最后一个子节点
+     */
+    List<NestedSetNode> selectLastChildren(@Param("parentId") Long parentId, @Param("limit") int limit);
+
+    /**
+     * 查询节点及其所有子孙节点并加行锁，按左值排序，第一个为节点自身
+     *
+     * @param id 节点ID
+     * @return 子树节点列表
+     */
+    List<NestedSetNode> selectSubtreeForUpdate(@Param("id") Long id);
+
+    /**
+     * 批量改写节点的左右值，用于局部重排
      *
-     * @param lft 左值起点
-     * @param increment 增量值（可为负数）
+     * @param nodes 节点列表，使用其中的ID、左值和右值
      * @return 影响行数
      */
-    int updateLeftValues(@Param("lft") Integer lft, @Param("increment") Integer increment);
-    
+    int updateBounds(@Param("nodes") List<NestedSetNode> nodes);
+
+    /**
+     * 删除左右值区间内的所有节点（逻辑删除），区间留作空隙，不移动其他节点
+     *
+     * @param lft 左值
+     * @param rgt 右值
+     * @return 影响行数
+     */
+    int deleteRange(@Param("lft") Long lft, @Param("rgt") Long rgt);
+
     /**
-     * 更新节点的右值
-     * 用于在插入和删除节点时调整其他节点的右值
+     * 平移左右值区间内的所有节点，用于移动子树
      *
-     * @param rgt 右值起点
-     * @param increment 增量值（可为负数）
+     * @param lft        左值
+     * @param rgt        右值
+     * @param offset     左右值增量（可为负数）
+     * @param levelDelta 层级增量（可为负数）
      * @return 影响行数
      */
-    int updateRightValues(@Param("rgt") Integer rgt, @Param("increment") Integer increment);
+    int moveRange(@Param("lft") Long lft, @Param("rgt") Long rgt,
+                  @Param("offset") Long offset, @Param("levelDelta") Integer levelDelta);
 }
\ No newline at end of file
@@ -76,4 +76,17 @@ public interface PathEnumerationNodeMapper {
      * @return 节点
      */
     PathEnumerationNode selectByPath(@Param("path") String path);
+
+    /**
+     * 替换子树的路径前缀，节点及其所有子孙节点的路径和层级一起改写
+     * 子孙节点的路径以 节点原路径 + 节点ID + / 开头
+     *
+     * @param id         节点ID
+     * @param oldPath    节点原路径
+     * @param newPath    节点新路径
+     * @param levelDelta 层级增量（可为负数）
+     * @return 影响行数
+     */
+    int updatePathPrefix(@Param("id") Long id, @Param("oldPath") String oldPath,
+                         @Param("newPath") String newPath, @Param("levelDelta") Integer levelDelta);
 }
\ No newline at end of file
@@ -35,6 +35,16 @@ public interface AdjacencyNodeService {
      */
     boolean deleteNode(Long id);
 
+    /**
+     * 移动子树，节点及其所有子孙节点一起挂到新父节点下，作为最后一个子节点
+     * 节点已经是新父节点的子节点时不做修改，在兄弟节点中的位置不变（与内存索引的 put 一致）
+     *
+     * @param id       节点ID
+     * @param parentId 新父节点ID，不能是节点自身或其子孙节点
+     * @return 移动后的节点
+     */
+    AdjacencyNode moveSubtree(Long id, Long parentId);
+
     /**
      * 获取节点
      *
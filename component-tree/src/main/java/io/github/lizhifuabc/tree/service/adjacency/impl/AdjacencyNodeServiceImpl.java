@@ -2,6 +2,9 @@ package io.github.lizhifuabc.tree.service.adjacency.impl;
 
 import io.github.lizhifuabc.tree.common.TreeException;
 import io.github.lizhifuabc.tree.domain.adjacency.AdjacencyNode;
+import io.github.lizhifuabc.tree.index.TreeIndex;
+import io.github.lizhifuabc.tree.index.TreeIndexHolder;
+import io.github.lizhifuabc.tree.index.TreeIndexManager;
 import io.github.lizhifuabc.tree.mapper.adjacency.AdjacencyNodeMapper;
 import io.github.lizhifuabc.tree.service.adjacency.AdjacencyNodeService;
 import io.github.lizhifuabc.tree.service.adjacency.AdjacencyNodeTree;
@@ -25,8 +28,14 @@ public class AdjacencyNodeServiceImpl implements AdjacencyNodeService {
 
     private final AdjacencyNodeMapper adjacencyNodeMapper;
 
-    public AdjacencyNodeServiceImpl(AdjacencyNodeMapper adjacencyNodeMapper) {
+    /**
+     * 内存树索引，未启用时查询数据库
+     */
+    private final TreeIndexHolder<AdjacencyNode> nodeIndex;
+
+    public AdjacencyNodeServiceImpl(AdjacencyNodeMapper adjacencyNodeMapper, TreeIndexManager treeIndexManager) {
         this.adjacencyNodeMapper = adjacencyNodeMapper;
+        this.nodeIndex = treeIndexManager.register("adjacency", this::loadIndex);
     }
 
     @Override
@@ -48,6 +57,10 @@ public class AdjacencyNodeServiceImpl implements AdjacencyNodeService {
 
         // 插入节点
         adjacencyNodeMapper.insert(node);
+
+        // 事务提交后加入内存索引
+        AdjacencyNode saved = adjacencyNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.put(saved, saved.getParentId()));
         return node;
     }
 
@@ -60,17 +73,9 @@ public class AdjacencyNodeServiceImpl implements AdjacencyNodeService {
             throw new TreeException("节点不存在");
         }
 
-        // 如果修改了父节点，需要重新计算层级
+        // 如果修改了父节点，整棵子树一起移动，子孙节点的层级随之调整
         if (node.getParentId() != null && !node.getParentId().equals(oldNode.getParentId())) {
-            // 查询新父节点
-            AdjacencyNode parentNode = adjacencyNodeMapper.selectById(node.getParentId());
-            if (parentNode == null) {
-                throw new TreeException("父节点不存在");
-            }
-            // 子节点层级 = 父节点层级 + 1
-            node.setLevel(parentNode.getLevel() + 1);
-
-            // TODO: 如果有子节点，需要递归更新子节点的层级
+            node.setLevel(moveSubtree(node.getId(), node.getParentId()).getLevel());
         } else {
             // 保持原层级
             node.setLevel(oldNode.getLevel());
@@ -78,6 +83,10 @@ public class AdjacencyNodeServiceImpl implements AdjacencyNodeService {
 
         // 更新节点
         adjacencyNodeMapper.update(node);
+
+        // 事务提交后更新内存索引，父节点变化时整棵子树随之移动
+        AdjacencyNode saved = adjacencyNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.put(saved, saved.getParentId()));
         return node;
     }
 
@@ -91,7 +100,51 @@ public class AdjacencyNodeServiceImpl implements AdjacencyNodeService {
         }
 
         // 删除节点
-        return adjacencyNodeMapper.delete(id) > 0;
+        boolean deleted = adjacencyNodeMapper.delete(id) > 0;
+        if (deleted) {
+            nodeIndex.onWrite(index -> {
+                index.remove(id);
+                return true;
+            });
+        }
+        return deleted;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public AdjacencyNode moveSubtree(Long id, Long parentId) {
+        AdjacencyNode node = adjacencyNodeMapper.selectById(id);
+        if (node == null) {
+            throw new TreeException("节点不存在");
+        }
+        AdjacencyNode parentNode = adjacencyNodeMapper.selectById(parentId);
+        if (parentNode == null) {
+            throw new TreeException("父节点不存在");
+        }
+        if (parentId.equals(node.getParentId())) {
+            return node;
+        }
+
+        // 新父节点不能是节点自身或其子孙节点，从新父节点向上查找即可判断
+        if (adjacencyNodeMapper.countAncestorOrSelf(parentId, id) > 0) {
+            throw new TreeException("不能移动到自身或子孙节点下");
+        }
+
+        // 只改写节点自身的父节点，子孙节点的层级用一条语句整体调整
+        int levelDelta = parentNode.getLevel() + 1 - node.getLevel();
+        node.setParentId(parentId);
+        node.setLevel(parentNode.getLevel() + 1);
+        adjacencyNodeMapper.update(node);
+        if (levelDelta != 0) {
+            adjacencyNodeMapper.updateDescendantLevels(id, levelDelta);
+        }
+
+        // 事务提交后在内存索引中移动子树，并替换层级变化的子孙节点
+        AdjacencyNode saved = adjacencyNodeMapper.selectById(id);
+        List<AdjacencyNode> descendants = levelDelta != 0 && nodeIndex.isEnabled()
+                ? adjacencyNodeMapper.selectDescendants(id) : List.of();
+        nodeIndex.onWrite(index -> index.put(saved, parentId) && descendants.stream().allMatch(index::replace));
+        return saved;
     }
 
     @Override
@@ -106,16 +159,26 @@ public class AdjacencyNodeServiceImpl implements AdjacencyNodeService {
 
     @Override
     public List<AdjacencyNode> getChildNodes(Long parentId) {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().children(parentId);
+        }
         return adjacencyNodeMapper.selectByParentId(parentId);
     }
 
     @Override
     public List<AdjacencyNode> getDescendants(Long id) {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().descendants(id);
+        }
         return adjacencyNodeMapper.selectDescendants(id);
     }
 
     @Override
     public List<AdjacencyNodeTree> buildTree() {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().buildTree(AdjacencyNodeTree::fromEntity, AdjacencyNodeTree::getChildren);
+        }
+
         // 获取所有节点
         List<AdjacencyNode> allNodes = adjacencyNodeMapper.selectAll();
         
@@ -147,4 +210,11 @@ public class AdjacencyNodeServiceImpl implements AdjacencyNodeService {
         
         return rootNodes;
     }
+
+    /**
+     * 从数据库加载内存索引
+     */
+    private TreeIndex<AdjacencyNode> loadIndex() {
+        return TreeIndex.build(adjacencyNodeMapper.selectAll(), AdjacencyNode::getId, AdjacencyNode::getParentId);
+    }
 }
\ No newline at end of file
@@ -3,6 +3,9 @@ package io.github.lizhifuabc.tree.service.closure.impl;
 import io.github.lizhifuabc.tree.common.TreeException;
 import io.github.lizhifuabc.tree.domain.closure.ClosureNode;
 import io.github.lizhifuabc.tree.domain.closure.ClosurePath;
+import io.github.lizhifuabc.tree.index.TreeIndex;
+import io.github.lizhifuabc.tree.index.TreeIndexHolder;
+import io.github.lizhifuabc.tree.index.TreeIndexManager;
 import io.github.lizhifuabc.tree.mapper.closure.ClosureNodeMapper;
 import io.github.lizhifuabc.tree.mapper.closure.ClosurePathMapper;
 import io.github.lizhifuabc.tree.service.closure.ClosureNodeService;
@@ -27,9 +30,16 @@ public class ClosureNodeServiceImpl implements ClosureNodeService {
     private final ClosureNodeMapper closureNodeMapper;
     private final ClosurePathMapper closurePathMapper;
 
-    public ClosureNodeServiceImpl(ClosureNodeMapper closureNodeMapper, ClosurePathMapper closurePathMapper) {
+    /**
+     * 内存树索引，未启用时查询数据库
+     */
+    private final TreeIndexHolder<ClosureNode> nodeIndex;
+
+    public ClosureNodeServiceImpl(ClosureNodeMapper closureNodeMapper, ClosurePathMapper closurePathMapper,
+                                  TreeIndexManager treeIndexManager) {
         this.closureNodeMapper = closureNodeMapper;
         this.closurePathMapper = closurePathMapper;
+        this.nodeIndex = treeIndexManager.register("closure", this::loadIndex);
     }
 
     @Override
@@ -53,44 +63,22 @@ public class ClosureNodeServiceImpl implements ClosureNodeService {
         closureNodeMapper.insert(node);
 
         // 插入路径关系
-        List<ClosurePath> paths = new ArrayList<>();
-
         // 1. 自身到自身的路径，距离为0
         ClosurePath selfPath = new ClosurePath();
         selfPath.setAncestorId(node.getId());
         selfPath.setDescendantId(node.getId());
         selfPath.setDistance(0);
-        paths.add(selfPath);
+        closurePathMapper.insert(selfPath);
 
+        // 2. 父节点的每条祖先路径（含父节点自身）复制给新节点，距离 = 祖先到父节点的距离 + 1
         if (parentId != null) {
-            // 2. 获取父节点的所有祖先节点ID
-            List<Long> ancestorIds = closurePathMapper.selectAncestorIds(parentId);
-            
-            // 3. 为每个祖先节点创建到新节点的路径
-            for (Long ancestorId : ancestorIds) {
-                // 查询祖先到父节点的距离
-                int distance = 0;
-                for (ClosurePath path : paths) {
-                    if (path.getAncestorId().equals(ancestorId) && path.getDescendantId().equals(parentId)) {
-                        distance = path.getDistance();
-                        break;
-                    }
-                }
-                
-                // 创建祖先到新节点的路径，距离 = 祖先到父节点的距离 + 1
-                ClosurePath ancestorPath = new ClosurePath();
-                ancestorPath.setAncestorId(ancestorId);
-                ancestorPath.setDescendantId(node.getId());
-                ancestorPath.setDistance(distance + 1);
-                paths.add(ancestorPath);
-            }
-        }
-
-        // 批量插入路径
-        if (!paths.isEmpty()) {
-            closurePathMapper.batchInsert(paths);
+            closurePathMapper.insertFromParent(node.getId(), parentId);
         }
+        node.setParentId(parentId);
 
+        // 事务提交后加入内存索引
+        ClosureNode saved = closureNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.put(saved, saved.getParentId()));
         return node;
     }
 
@@ -105,6 +93,10 @@ public class ClosureNodeServiceImpl implements ClosureNodeService {
 
         // 更新节点信息（不改变层级和路径关系）
         closureNodeMapper.update(node);
+
+        // 事务提交后替换内存索引中的节点数据
+        ClosureNode saved = closureNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.replace(saved));
         return node;
     }
 
@@ -123,9 +115,53 @@ public class ClosureNodeServiceImpl implements ClosureNodeService {
         // 删除与该节点相关的所有路径
         closurePathMapper.deleteByNodeId(id);
 
+        nodeIndex.onWrite(index -> {
+            index.remove(id);
+            return true;
+        });
         return true;
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public ClosureNode moveSubtree(Long id, Long parentId) {
+        ClosureNode node = closureNodeMapper.selectById(id);
+        if (node == null) {
+            throw new TreeException("节点不存在");
+        }
+        ClosureNode parentNode = closureNodeMapper.selectById(parentId);
+        if (parentNode == null) {
+            throw new TreeException("父节点不存在");
+        }
+        if (parentId.equals(node.getParentId())) {
+            return node;
+        }
+
+        // 新父节点的祖先（含自身）中出现了该节点，说明新父节点在子树内
+        if (closurePathMapper.selectAncestorIds(parentId).contains(id)) {
+            throw new TreeException("不能移动到自身或子孙节点下");
+        }
+
+        // 1. 断开子树与原祖先之间的路径
+        closurePathMapper.deleteOuterPaths(id);
+
+        // 2. 新父节点的祖先路径与子树内部路径交叉连接，生成子树与新祖先之间的路径
+        closurePathMapper.insertSubtreePaths(id, parentId);
+
+        // 3. 整棵子树的层级一起调整
+        int levelDelta = parentNode.getLevel() + 1 - node.getLevel();
+        if (levelDelta != 0) {
+            closureNodeMapper.updateSubtreeLevels(id, levelDelta);
+        }
+
+        // 事务提交后在内存索引中移动子树，并替换层级变化的子孙节点
+        ClosureNode saved = closureNodeMapper.selectById(id);
+        List<ClosureNode> descendants = levelDelta != 0 && nodeIndex.isEnabled()
+                ? closureNodeMapper.selectDescendants(id) : List.of();
+        nodeIndex.onWrite(index -> index.put(saved, parentId) && descendants.stream().allMatch(index::replace));
+        return saved;
+    }
+
     @Override
     public ClosureNode getNode(Long id) {
         return closureNodeMapper.selectById(id);
@@ -138,107 +174,68 @@ public class ClosureNodeServiceImpl implements ClosureNodeService {
 
     @Override
     public List<ClosureNode> getChildNodes(Long parentId) {
-        // 获取直接子节点ID
-        List<Long> childIds = closurePathMapper.selectChildIds(parentId);
-        if (childIds.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        // 查询子节点信息
-        List<ClosureNode> childNodes = new ArrayList<>();
-        for (Long childId : childIds) {
-            ClosureNode childNode = closureNodeMapper.selectById(childId);
-            if (childNode != null) {
-                childNodes.add(childNode);
-            }
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().children(parentId);
         }
-
-        return childNodes;
+        return closureNodeMapper.selectChildren(parentId);
     }
 
     @Override
     public List<ClosureNode> getDescendants(Long id) {
-        // 获取所有后代节点ID
-        List<Long> descendantIds = closurePathMapper.selectDescendantIds(id);
-        if (descendantIds.isEmpty()) {
-            return new ArrayList<>();
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().descendants(id);
         }
-
-        // 查询后代节点信息
-        List<ClosureNode> descendants = new ArrayList<>();
-        for (Long descendantId : descendantIds) {
-            if (!descendantId.equals(id)) { // 排除自身
-                ClosureNode descendant = closureNodeMapper.selectById(descendantId);
-                if (descendant != null) {
-                    descendants.add(descendant);
-                }
-            }
-        }
-
-        return descendants;
+        return closureNodeMapper.selectDescendants(id);
     }
 
     @Override
     public List<ClosureNode> getAncestors(Long id) {
-        // 获取所有祖先节点ID
-        List<Long> ancestorIds = closurePathMapper.selectAncestorIds(id);
-        if (ancestorIds.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        // 查询祖先节点信息
-        List<ClosureNode> ancestors = new ArrayList<>();
-        for (Long ancestorId : ancestorIds) {
-            if (!ancestorId.equals(id)) { // 排除自身
-                ClosureNode ancestor = closureNodeMapper.selectById(ancestorId);
-                if (ancestor != null) {
-                    ancestors.add(ancestor);
-                }
-            }
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().ancestors(id);
         }
-
-        return ancestors;
+        return closureNodeMapper.selectAncestors(id);
     }
 
     @Override
     public List<ClosureNodeTree> buildTree() {
-        // 获取所有节点
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().buildTree(ClosureNodeTree::fromEntity, ClosureNodeTree::getChildren);
+        }
+
+        // 一条关联查询得到所有节点及其父节点ID
         List<ClosureNode> allNodes = closureNodeMapper.selectAll();
         if (allNodes.isEmpty()) {
             return new ArrayList<>();
         }
 
         // 转换为树节点
-        Map<Long, ClosureNodeTree> treeMap = new HashMap<>();
+        Map<Long, ClosureNodeTree> treeMap = new HashMap<>(allNodes.size() * 2);
         for (ClosureNode node : allNodes) {
             treeMap.put(node.getId(), ClosureNodeTree.fromEntity(node));
         }
 
-        // 构建树结构
+        // 按父子关系一次遍历组装，O(n)
         List<ClosureNodeTree> rootNodes = new ArrayList<>();
         for (ClosureNode node : allNodes) {
-            if (node.getLevel() == 0) {
+            ClosureNodeTree treeNode = treeMap.get(node.getId());
+            if (node.getParentId() == null) {
                 // 根节点
-                rootNodes.add(treeMap.get(node.getId()));
+                rootNodes.add(treeNode);
             } else {
-                // 非根节点，查找其父节点
-                List<Long> parentIds = closurePathMapper.selectAncestorIds(node.getId());
-                for (Long parentId : parentIds) {
-                    if (!parentId.equals(node.getId())) { // 排除自身
-                        ClosureNodeTree parentTree = treeMap.get(parentId);
-                        ClosureNodeTree childTree = treeMap.get(node.getId());
-                        if (parentTree != null && childTree != null) {
-                            // 检查是否为直接父子关系（距离为1）
-                            // 这里简化处理，通过层级判断
-                            if (parentTree.getLevel() == childTree.getLevel() - 1) {
-                                parentTree.getChildren().add(childTree);
-                            }
-                        }
-                    }
+                ClosureNodeTree parentTree = treeMap.get(node.getParentId());
+                if (parentTree != null) {
+                    parentTree.getChildren().add(treeNode);
                 }
             }
         }
 
         return rootNodes;
     }
+
+    /**
+     * 从数据库加载内存索引
+     */
+    private TreeIndex<ClosureNode> loadIndex() {
+        return TreeIndex.build(closureNodeMapper.selectAll(), ClosureNode::getId, ClosureNode::getParentId);
+    }
 }
\ No newline at end of file
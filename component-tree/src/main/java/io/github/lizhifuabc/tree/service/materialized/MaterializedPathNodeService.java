@@ -1,5 +1,6 @@
 package io.github.lizhifuabc.tree.service.materialized;
 
+import io.github.lizhifuabc.tree.common.TreeRow;
 import io.github.lizhifuabc.tree.domain.materialized.MaterializedPathNode;
 
 import java.util.List;
@@ -36,6 +37,16 @@ public interface MaterializedPathNodeService {
      */
     boolean deleteNode(Long id);
 
+    /**
+     * 移动子树，节点及其所有子孙节点一起挂到新父节点下，作为最后一个子节点
+     * 节点已经是新父节点的子节点时不做修改，在兄弟节点中的位置不变（与内存索引的 put 一致）
+     *
+     * @param id       节点ID
+     * @param parentId 新父节点ID，不能是节点自身或其子孙节点
+     * @return 移动后的节点
+     */
+    MaterializedPathNode moveSubtree(Long id, Long parentId);
+
     /**
      * 获取节点
      *
@@ -81,4 +92,13 @@ public interface MaterializedPathNodeService {
      * @return 树结构
      */
     List<MaterializedPathNodeTree> buildTree();
+
+    /**
+     * 获取扁平化的树行，按先序排列，用于前端虚拟滚动
+     *
+     * @param offset 起始行
+     * @param limit  最多行数
+     * @return 树行列表
+     */
+    List<TreeRow<MaterializedPathNode>> getRows(int offset, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package io.github.lizhifuabc.tree.service.materialized;
+
+import io.github.lizhifuabc.tree.common.TreeRow;
+import io.github.lizhifuabc.tree.common.TreeRowEmitter;
+import io.github.lizhifuabc.tree.domain.materialized.MaterializedPathNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 物化路径模型流式树构建器
+ * <p>
+ * 父节点路径就是去掉最后一段编码后的路径，通过路径到节点的哈希表一次查找，O(n)：
+ * <ul>
+ *     <li>{@link #tree()}：哈希表保存所有已组装的树节点，节点顺序任意，只要父节点先于子节点传入</li>
+ *     <li>{@link #rows(Consumer)}：节点必须按路径排序（即先序），哈希表只保留当前节点的祖先链，
+ *     不保留已输出的节点，内存占用只与树的深度有关</li>
+ * </ul>
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+public final class MaterializedPathTreeBuilder {
+    private static final char SEPARATOR = '.';
+
+    private final List<MaterializedPathNodeTree> roots;
+    private final Map<String, MaterializedPathNodeTree> trees;
+
+    private final TreeRowEmitter<MaterializedPathNode> emitter;
+    private final Map<String, Long> ancestorIds;
+    private final List<String> ancestorPaths;
+
+    private MaterializedPathTreeBuilder(boolean tree, Consumer<TreeRow<MaterializedPathNode>> consumer) {
+        this.roots = tree ? new ArrayList<>() : null;
+        this.trees = tree ? new HashMap<>() : null;
+        this.emitter = consumer == null ? null : new TreeRowEmitter<>(consumer);
+        this.ancestorIds = consumer == null ? null : new HashMap<>();
+        this.ancestorPaths = consumer == null ? null : new ArrayList<>();
+    }
+
+    /**
+     * 组装树的构建器，传入完成后通过 {@link #getRoots()} 获取根节点
+     */
+    public static MaterializedPathTreeBuilder tree() {
+        return new MaterializedPathTreeBuilder(true, null);
+    }
+
+    /**
+     * 输出扁平化树行的构建器，传入完成后必须调用 {@link #finish()}
+     *
+     * @param consumer 树行消费者
+     */
+    public static MaterializedPathTreeBuilder rows(Consumer<TreeRow<MaterializedPathNode>> consumer) {
+        return new MaterializedPathTreeBuilder(false, consumer);
+    }
+
+    /**
+     * 传入下一个节点
+     *
+     * @param node 节点
+     */
+    public void accept(MaterializedPathNode node) {
+        String path = node.getPath();
+        String parentPath = parentPath(path);
+        if (trees != null) {
+            MaterializedPathNodeTree tree = MaterializedPathNodeTree.fromEntity(node);
+            trees.put(path, tree);
+            if (parentPath == null) {
+                roots.add(tree);
+            } else {
+                MaterializedPathNodeTree parent = trees.get(parentPath);
+                if (parent != null) {
+                    parent.getChildren().add(tree);
+                }
+            }
+        }
+        if (emitter != null) {
+            emitRow(node, path, parentPath);
+        }
+    }
+
+    /**
+     * 结束传入，输出最后一行
+     */
+    public void finish() {
+        if (emitter != null) {
+            emitter.finish();
+        }
+    }
+
+    /**
+     * 根节点列表，只对 {@link #tree()} 创建的构建器有效
+     */
+    public List<MaterializedPathNodeTree> getRoots() {
+        return roots;
+    }
+
+    private void emitRow(MaterializedPathNode node, String path, String parentPath) {
+        Long parentId = null;
+        int depth = 0;
+        if (parentPath != null) {
+            parentId = ancestorIds.get(parentPath);
+            if (parentId == null) {
+                // 父节点不存在，与组装树时一致，不输出
+                return;
+            }
+            depth = ancestorPaths.indexOf(parentPath) + 1;
+        }
+        // 先序下，同深度及更深的路径已经不再是祖先
+        while (ancestorPaths.size() > depth) {
+            ancestorIds.remove(ancestorPaths.remove(ancestorPaths.size() - 1));
+        }
+        ancestorPaths.add(path);
+        ancestorIds.put(path, node.getId());
+        emitter.emit(node, parentId, depth);
+    }
+
+    private static String parentPath(String path) {
+        int lastSeparator = path.lastIndexOf(SEPARATOR);
+        return lastSeparator < 0 ? null : path.substring(0, lastSeparator);
+    }
+}
@@ -1,10 +1,16 @@
 package io.github.lizhifuabc.tree.service.materialized.impl;
 
 import io.github.lizhifuabc.tree.common.TreeException;
+import io.github.lizhifuabc.tree.common.TreeRow;
+import io.github.lizhifuabc.tree.common.TreeRowEmitter;
 import io.github.lizhifuabc.tree.domain.materialized.MaterializedPathNode;
+import io.github.lizhifuabc.tree.index.TreeIndex;
+import io.github.lizhifuabc.tree.index.TreeIndexHolder;
+import io.github.lizhifuabc.tree.index.TreeIndexManager;
 import io.github.lizhifuabc.tree.mapper.materialized.MaterializedPathNodeMapper;
 import io.github.lizhifuabc.tree.service.materialized.MaterializedPathNodeService;
 import io.github.lizhifuabc.tree.service.materialized.MaterializedPathNodeTree;
+import io.github.lizhifuabc.tree.service.materialized.MaterializedPathTreeBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,7 +18,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * 物化路径模型服务实现
@@ -23,10 +28,21 @@ import java.util.stream.Collectors;
 @Service
 public class MaterializedPathNodeServiceImpl implements MaterializedPathNodeService {
 
+    /**
+     * 扁平化树行每次最多查询的行数
+     */
+    private static final int MAX_ROWS = 1000;
+
     private final MaterializedPathNodeMapper materializedPathNodeMapper;
 
-    public MaterializedPathNodeServiceImpl(MaterializedPathNodeMapper materializedPathNodeMapper) {
+    /**
+     * 内存树索引，未启用时查询数据库
+     */
+    private final TreeIndexHolder<MaterializedPathNode> nodeIndex;
+
+    public MaterializedPathNodeServiceImpl(MaterializedPathNodeMapper materializedPathNodeMapper, TreeIndexManager treeIndexManager) {
         this.materializedPathNodeMapper = materializedPathNodeMapper;
+        this.nodeIndex = treeIndexManager.register("materialized", this::loadIndex);
     }
 
     @Override
@@ -44,15 +60,8 @@ public class MaterializedPathNodeServiceImpl implements MaterializedPathNodeServ
                 throw new TreeException("父节点不存在");
             }
             
-            // 查询同级节点数量，用于生成新节点的路径
-            List<MaterializedPathNode> siblings = materializedPathNodeMapper.selectByParentId(parentId);
-            int siblingCount = siblings.size() + 1;
-            
-            // 生成新节点的路径编码（三位数，不足补0）
-            String childCode = String.format("%03d", siblingCount);
-            
             // 子节点路径 = 父节点路径 + . + 子节点编码
-            node.setPath(parentNode.getPath() + "." + childCode);
+            node.setPath(nextChildPath(parentNode));
             
             // 子节点层级 = 父节点层级 + 1
             node.setLevel(parentNode.getLevel() + 1);
@@ -60,6 +69,10 @@ public class MaterializedPathNodeServiceImpl implements MaterializedPathNodeServ
 
         // 插入节点
         materializedPathNodeMapper.insert(node);
+
+        // 事务提交后加入内存索引
+        MaterializedPathNode saved = materializedPathNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.put(saved, parentId));
         return node;
     }
 
@@ -78,6 +91,10 @@ public class MaterializedPathNodeServiceImpl implements MaterializedPathNodeServ
 
         // 更新节点
         materializedPathNodeMapper.update(node);
+
+        // 事务提交后替换内存索引中的节点数据
+        MaterializedPathNode saved = materializedPathNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.replace(saved));
         return node;
     }
 
@@ -97,7 +114,48 @@ public class MaterializedPathNodeServiceImpl implements MaterializedPathNodeServ
         }
 
         // 删除节点
-        return materializedPathNodeMapper.delete(id) > 0;
+        boolean deleted = materializedPathNodeMapper.delete(id) > 0;
+        if (deleted) {
+            nodeIndex.onWrite(index -> {
+                index.remove(id);
+                return true;
+            });
+        }
+        return deleted;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public MaterializedPathNode moveSubtree(Long id, Long parentId) {
+        MaterializedPathNode node = materializedPathNodeMapper.selectById(id);
+        if (node == null) {
+            throw new TreeException("节点不存在");
+        }
+        MaterializedPathNode parentNode = materializedPathNodeMapper.selectById(parentId);
+        if (parentNode == null) {
+            throw new TreeException("父节点不存在");
+        }
+        String oldPath = node.getPath();
+        if (oldPath.startsWith(parentNode.getPath() + ".") && node.getLevel() == parentNode.getLevel() + 1) {
+            return node;
+        }
+
+        // 新父节点的路径以该节点路径开头，说明新父节点在子树内
+        if (parentNode.getPath().equals(oldPath) || parentNode.getPath().startsWith(oldPath + ".")) {
+            throw new TreeException("不能移动到自身或子孙节点下");
+        }
+
+        // 一条语句替换整棵子树的路径前缀和层级
+        String newPath = nextChildPath(parentNode);
+        int levelDelta = parentNode.getLevel() + 1 - node.getLevel();
+        materializedPathNodeMapper.updatePathPrefix(oldPath, newPath, levelDelta);
+
+        // 事务提交后在内存索引中移动子树，并替换路径变化的子孙节点
+        MaterializedPathNode saved = materializedPathNodeMapper.selectById(id);
+        List<MaterializedPathNode> descendants = nodeIndex.isEnabled()
+                ? materializedPathNodeMapper.selectByPathPrefix(newPath + ".") : List.of();
+        nodeIndex.onWrite(index -> index.put(saved, parentId) && descendants.stream().allMatch(index::replace));
+        return saved;
     }
 
     @Override
@@ -112,11 +170,22 @@ public class MaterializedPathNodeServiceImpl implements MaterializedPathNodeServ
 
     @Override
     public List<MaterializedPathNode> getChildNodes(Long parentId) {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().children(parentId);
+        }
         return materializedPathNodeMapper.selectByParentId(parentId);
     }
 
     @Override
     public List<MaterializedPathNode> getDescendants(Long id) {
+        if (nodeIndex.isEnabled()) {
+            TreeIndex<MaterializedPathNode> index = nodeIndex.get();
+            if (!index.contains(id)) {
+                throw new TreeException("节点不存在");
+            }
+            return index.descendants(id);
+        }
+
         // 查询节点
         MaterializedPathNode node = materializedPathNodeMapper.selectById(id);
         if (node == null) {
@@ -129,6 +198,14 @@ public class MaterializedPathNodeServiceImpl implements MaterializedPathNodeServ
 
     @Override
     public List<MaterializedPathNode> getAncestors(Long id) {
+        if (nodeIndex.isEnabled()) {
+            TreeIndex<MaterializedPathNode> index = nodeIndex.get();
+            if (!index.contains(id)) {
+                throw new TreeException("节点不存在");
+            }
+            return index.ancestors(id);
+        }
+
         // 查询节点
         MaterializedPathNode node = materializedPathNodeMapper.selectById(id);
         if (node == null) {
@@ -141,43 +218,64 @@ public class MaterializedPathNodeServiceImpl implements MaterializedPathNodeServ
 
     @Override
     public List<MaterializedPathNodeTree> buildTree() {
-        // 获取所有节点并按路径排序
-        List<MaterializedPathNode> allNodes = materializedPathNodeMapper.selectAll();
-        
-        // 如果没有节点，返回空列表
-        if (allNodes.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        // 转换为树节点
-        List<MaterializedPathNodeTree> treeNodes = allNodes.stream()
-                .map(MaterializedPathNodeTree::fromEntity)
-                .collect(Collectors.toList());
-        
-        // 构建节点ID到树节点的映射
-        Map<Long, MaterializedPathNodeTree> nodeMap = new HashMap<>();
-        for (MaterializedPathNodeTree treeNode : treeNodes) {
-            nodeMap.put(treeNode.getId(), treeNode);
-        }
-        
-        // 构建树结构
-        List<MaterializedPathNodeTree> rootNodes = new ArrayList<>();
-        for (MaterializedPathNodeTree treeNode : treeNodes) {
-            if (treeNode.getLevel() == 0) {
-                // 根节点
-                rootNodes.add(treeNode);
-            } else {
-                // 非根节点，找到父节点
-                String parentPath = treeNode.getPath().substring(0, treeNode.getPath().lastIndexOf("."));
-                for (MaterializedPathNodeTree potentialParent : treeNodes) {
-                    if (potentialParent.getPath().equals(parentPath)) {
-                        potentialParent.getChildren().add(treeNode);
-                        break;
-                    }
-                }
-            }
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().buildTree(MaterializedPathNodeTree::fromEntity, MaterializedPathNodeTree::getChildren);
+        }
+
+        // 按路径顺序流式读取，逐个挂到父节点下，O(n)
+        MaterializedPathTreeBuilder builder = MaterializedPathTreeBuilder.tree();
+        materializedPathNodeMapper.streamAll(context -> builder.accept(context.getResultObject()));
+        return builder.getRoots();
+    }
+
+    @Override
+    public List<TreeRow<MaterializedPathNode>> getRows(int offset, int limit) {
+        if (offset < 0 || limit <= 0 || limit > MAX_ROWS) {
+            throw new TreeException("分页参数不合法，每次最多查询" + MAX_ROWS + "行");
         }
-        
-        return rootNodes;
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().rows(offset, limit);
+        }
+
+        // 流式读取，只保留窗口内的行，窗口填满后停止读取
+        List<TreeRow<MaterializedPathNode>> rows = new ArrayList<>(limit);
+        MaterializedPathTreeBuilder builder = MaterializedPathTreeBuilder.rows(TreeRowEmitter.window(offset, limit, rows));
+        materializedPathNodeMapper.streamAll(context -> {
+            builder.accept(context.getResultObject());
+            if (rows.size() >= limit) {
+                context.stop();
+            }
+        });
+        builder.finish();
+        return rows;
+    }
+
+    /**
+     * 生成新子节点的路径，编码为最后一个子节点的编码加一（至少三位，不足补0，超过999后位数增加）
+     * 子树移走后编码会留下空缺，按数量生成会与已有的编码重复
+     *
+     * @param parentNode 父节点
+     * @return 子节点路径
+     */
+    private String nextChildPath(MaterializedPathNode parentNode) {
+        String lastChildPath = materializedPathNodeMapper.selectLastChildPath(parentNode.getId());
+        int childCode = lastChildPath == null ? 1 : Integer.parseInt(lastChildPath.substring(lastChildPath.lastIndexOf('.') + 1)) + 1;
+        return parentNode.getPath() + "." + String.format("%03d", childCode);
+    }
+
+    /**
+     * 从数据库加载内存索引，父子关系由路径得出
+     */
+    private TreeIndex<MaterializedPathNode> loadIndex() {
+        // 父节点不存在的节点不会输出，不进入索引
+        List<MaterializedPathNode> nodes = new ArrayList<>();
+        Map<Long, Long> parentIds = new HashMap<>();
+        MaterializedPathTreeBuilder builder = MaterializedPathTreeBuilder.rows(row -> {
+            nodes.add(row.getNode());
+            parentIds.put(row.getNode().getId(), row.getParentId());
+        });
+        materializedPathNodeMapper.streamAll(context -> builder.accept(context.getResultObject()));
+        builder.finish();
+        return TreeIndex.build(nodes, MaterializedPathNode::getId, node -> parentIds.get(node.getId()));
     }
 }
\ No newline at end of file
@@ -22,12 +22,12 @@ public class NestedSetNodeTree {
     /**
      * 左值
      */
-    private Integer lft;
+    private Long lft;
 
     /**
      * 右值
      */
-    private Integer rgt;
+    private Long rgt;
 
     /**
      * 节点名称
@@ -0,0 +1,108 @@
+package io.github.lizhifuabc.tree.service.nested;
+
+import io.github.lizhifuabc.tree.common.TreeRow;
+import io.github.lizhifuabc.tree.common.TreeRowEmitter;
+import io.github.lizhifuabc.tree.domain.nested.NestedSetNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 嵌套集模型流式树构建器
+ * <p>
+ * 节点必须按左值升序逐个传入（即先序）。栈中保存当前节点的祖先链：
+ * 弹出右值小于当前左值的节点后，栈顶就是父节点，栈深度就是节点深度，每个节点只入栈出栈一次，O(n)。
+ * <ul>
+ *     <li>{@link #tree()}：组装完整的树</li>
+ *     <li>{@link #rows(Consumer)}：只输出扁平化的树行，不保留已输出的节点，内存占用只与树的深度有关</li>
+ * </ul>
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+public final class NestedSetTreeBuilder {
+    private final Deque<Frame> ancestors = new ArrayDeque<>();
+    private final List<NestedSetNodeTree> roots;
+    private final TreeRowEmitter<NestedSetNode> emitter;
+
+    private NestedSetTreeBuilder(List<NestedSetNodeTree> roots, TreeRowEmitter<NestedSetNode> emitter) {
+        this.roots = roots;
+        this.emitter = emitter;
+    }
+
+    /**
+     * 组装树的构建器，传入完成后通过 {@link #getRoots()} 获取根节点
+     */
+    public static NestedSetTreeBuilder tree() {
+        return new NestedSetTreeBuilder(new ArrayList<>(), null);
+    }
+
+    /**
+     * 输出扁平化树行的构建器，传入完成后必须调用 {@link #finish()}
+     *
+     * @param consumer 树行消费者
+     */
+    public static NestedSetTreeBuilder rows(Consumer<TreeRow<NestedSetNode>> consumer) {
+        return new NestedSetTreeBuilder(null, new TreeRowEmitter<>(consumer));
+    }
+
+    /**
+     * 传入下一个节点
+     *
+     * @param node 节点，左值不小于上一个节点
+     */
+    public void accept(NestedSetNode node) {
+        while (!ancestors.isEmpty() && ancestors.peek().rgt < node.getLft()) {
+            ancestors.pop();
+        }
+        Frame parent = ancestors.peek();
+
+        NestedSetNodeTree tree = null;
+        if (roots != null) {
+            tree = NestedSetNodeTree.fromEntity(node);
+            if (parent == null) {
+                roots.add(tree);
+            } else {
+                parent.tree.getChildren().add(tree);
+            }
+        }
+        if (emitter != null) {
+            emitter.emit(node, parent == null ? null : parent.id, ancestors.size());
+        }
+        ancestors.push(new Frame(node.getId(), node.getRgt(), tree));
+    }
+
+    /**
+     * 结束传入，输出最后一行
+     */
+    public void finish() {
+        if (emitter != null) {
+            emitter.finish();
+        }
+    }
+
+    /**
+     * 根节点列表，只对 {@link #tree()} 创建的构建器有效
+     */
+    public List<NestedSetNodeTree> getRoots() {
+        return roots;
+    }
+
+    /**
+     * 祖先链上的节点
+     */
+    private static final class Frame {
+        private final Long id;
+        private final long rgt;
+        private final NestedSetNodeTree tree;
+
+        private Frame(Long id, long rgt, NestedSetNodeTree tree) {
+            this.id = id;
+            this.rgt = rgt;
+            this.tree = tree;
+        }
+    }
+}
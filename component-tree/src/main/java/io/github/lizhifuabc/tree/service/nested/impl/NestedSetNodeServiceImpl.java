@@ -1,18 +1,25 @@
 package io.github.lizhifuabc.tree.service.nested.impl;
 
 import io.github.lizhifuabc.tree.common.TreeException;
+import io.github.lizhifuabc.tree.common.TreeRow;
+import io.github.lizhifuabc.tree.common.TreeRowEmitter;
 import io.github.lizhifuabc.tree.domain.nested.NestedSetNode;
+import io.github.lizhifuabc.tree.index.TreeIndex;
+import io.github.lizhifuabc.tree.index.TreeIndexHolder;
+import io.github.lizhifuabc.tree.index.TreeIndexManager;
 import io.github.lizhifuabc.tree.mapper.nested.NestedSetNodeMapper;
 import io.github.lizhifuabc.tree.service.nested.NestedSetNodeService;
 import io.github.lizhifuabc.tree.service.nested.NestedSetNodeTree;
+import io.github.lizhifuabc.tree.service.nested.NestedSetTreeBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * 嵌套集模型服务实现
@@ -23,10 +30,42 @@ import java.util.stream.Collectors;
 @Service
 public class NestedSetNodeServiceImpl implements NestedSetNodeService {
 
+    /**
+     * 扁平化树行每次最多查询的行数
+     */
+    private static final int MAX_ROWS = 1000;
+
+    /**
+     * 根节点的右值，根节点占满整个取值范围，子节点在其中按间隙分配
+     */
+    private static final long MAX_RIGHT = 1L << 62;
+
+    /**
+     * 新节点占用的最大区间宽度，也是与前一个兄弟节点之间的最大间隙
+     */
+    private static final long GAP = 1L << 20;
+
+    /**
+     * 局部重排后相邻左右值之间的最小间隙，达不到时向上换更大的祖先区间重排
+     */
+    private static final long MIN_REBALANCE_STEP = 64;
+
+    /**
+     * 父节点末尾至少能容纳的新节点数量：第一个子节点按此划分剩余区间，局部重排时也至少预留这么多
+     */
+    private static final int MIN_HEADROOM = 4;
+
     private final NestedSetNodeMapper nestedSetNodeMapper;
 
-    public NestedSetNodeServiceImpl(NestedSetNodeMapper nestedSetNodeMapper) {
+    /**
+     * 内存树索引，未启用时查询数据库
+     * 插入、删除和移动只改写涉及的节点，索引按节点增量维护；局部重排改写了整棵子树的左右值，之后重新加载索引
+     */
+    private final TreeIndexHolder<NestedSetNode> nodeIndex;
+
+    public NestedSetNodeServiceImpl(NestedSetNodeMapper nestedSetNodeMapper, TreeIndexManager treeIndexManager) {
         this.nestedSetNodeMapper = nestedSetNodeMapper;
+        this.nodeIndex = treeIndexManager.register("nested", this::loadIndex);
     }
 
     @Override
@@ -42,41 +81,48 @@ public class NestedSetNodeServiceImpl implements NestedSetNodeService {
             }
         }
         
-        // 设置根节点的左右值和层级
-        node.setLft(1);
-        node.setRgt(2);
+        // 设置根节点的左右值和层级，右值取最大值，为子节点留出间隙
+        node.setLft(1L);
+        node.setRgt(MAX_RIGHT);
         node.setLevel(0);
         
         // 插入节点
         nestedSetNodeMapper.insert(node);
+        NestedSetNode saved = nestedSetNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.put(saved, null));
         return node;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public NestedSetNode createChildNode(NestedSetNode node, Long parentId) {
-        // 查询父节点
-        NestedSetNode parentNode = nestedSetNodeMapper.selectById(parentId);
+        // 查询父节点并加锁，同一父节点下的插入依次分配区间
+        NestedSetNode parentNode = nestedSetNodeMapper.selectByIdForUpdate(parentId);
         if (parentNode == null) {
             throw new TreeException("父节点不存在");
         }
         
-        // 获取父节点的右值
-        int parentRgt = parentNode.getRgt();
-        
-        // 更新所有右值大于等于父节点右值的节点的右值（右移2个位置）
-        nestedSetNodeMapper.updateRightValues(parentRgt, 2);
-        
-        // 更新所有左值大于父节点右值的节点的左值（右移2个位置）
-        nestedSetNodeMapper.updateLeftValues(parentRgt, 2);
-        
-        // 设置新节点的左右值和层级
-        node.setLft(parentRgt); // 新节点的左值等于原父节点的右值
-        node.setRgt(parentRgt + 1); // 新节点的右值等于左值+1
+        // 在最后一个子节点之后的间隙中分配区间，只写入新节点一行
+        boolean rebalanced = false;
+        if (!allocate(parentNode, node)) {
+            // 间隙用完，局部重排后重新分配
+            rebalance(parentNode, List.of());
+            parentNode = nestedSetNodeMapper.selectById(parentId);
+            if (!allocate(parentNode, node)) {
+                throw new TreeException("左右值空间不足");
+            }
+            rebalanced = true;
+        }
         node.setLevel(parentNode.getLevel() + 1); // 层级为父节点层级+1
         
         // 插入节点
         nestedSetNodeMapper.insert(node);
+        if (rebalanced) {
+            nodeIndex.invalidateOnWrite();
+        } else {
+            NestedSetNode saved = nestedSetNodeMapper.selectById(node.getId());
+            nodeIndex.onWrite(index -> index.put(saved, parentId));
+        }
         return node;
     }
 
@@ -96,6 +142,10 @@ public class NestedSetNodeServiceImpl implements NestedSetNodeService {
         
         // 更新节点
         nestedSetNodeMapper.update(node);
+
+        // 事务提交后替换内存索引中的节点数据
+        NestedSetNode saved = nestedSetNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.replace(saved));
         return node;
     }
 
@@ -108,25 +158,60 @@ public class NestedSetNodeServiceImpl implements NestedSetNodeService {
             throw new TreeException("节点不存在");
         }
         
-        // 计算节点包含的元素个数（包括自身）
-        int width = node.getRgt() - node.getLft() + 1;
-        
-        // 删除节点及其所有子节点
-        List<NestedSetNode> descendants = nestedSetNodeMapper.selectDescendants(id);
-        for (NestedSetNode descendant : descendants) {
-            nestedSetNodeMapper.delete(descendant.getId());
-        }
-        nestedSetNodeMapper.delete(id);
-        
-        // 更新右值大于被删除节点右值的节点的右值（左移width个位置）
-        nestedSetNodeMapper.updateRightValues(node.getRgt(), -width);
-        
-        // 更新左值大于被删除节点右值的节点的左值（左移width个位置）
-        nestedSetNodeMapper.updateLeftValues(node.getRgt(), -width);
+        // 删除节点及其所有子节点，空出的区间留作间隙，其他节点的左右值不变
+        nestedSetNodeMapper.deleteRange(node.getLft(), node.getRgt());
         
+        nodeIndex.onWrite(index -> {
+            index.remove(id);
+            return true;
+        });
         return true;
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public NestedSetNode moveSubtree(Long id, Long parentId) {
+        NestedSetNode node = nestedSetNodeMapper.selectByIdForUpdate(id);
+        if (node == null) {
+            throw new TreeException("节点不存在");
+        }
+        NestedSetNode parentNode = nestedSetNodeMapper.selectByIdForUpdate(parentId);
+        if (parentNode == null) {
+            throw new TreeException("父节点不存在");
+        }
+
+        // 新父节点的区间落在子树区间内，说明新父节点在子树内
+        if (parentNode.getLft() >= node.getLft() && parentNode.getRgt() <= node.getRgt()) {
+            throw new TreeException("不能移动到自身或子孙节点下");
+        }
+        // 已经是新父节点的子节点，不移动到最后，位置保持不变
+        if (parentNode.getLft() < node.getLft() && parentNode.getRgt() > node.getRgt()
+                && node.getLevel() == parentNode.getLevel() + 1) {
+            return node;
+        }
+
+        int levelDelta = parentNode.getLevel() + 1 - node.getLevel();
+        long target = place(parentNode, node.getRgt() - node.getLft());
+        if (target < 0) {
+            // 间隙不够：子树先整体平移到根节点区间之外并调整层级，再和新父节点附近的节点一起局部重排
+            nestedSetNodeMapper.moveRange(node.getLft(), node.getRgt(), MAX_RIGHT + 1 - node.getLft(), levelDelta);
+            rebalance(parentNode, nestedSetNodeMapper.selectSubtreeForUpdate(id));
+        } else {
+            // 一条语句平移整棵子树的左右值和层级
+            nestedSetNodeMapper.moveRange(node.getLft(), node.getRgt(), target - node.getLft(), levelDelta);
+        }
+
+        NestedSetNode saved = nestedSetNodeMapper.selectById(id);
+        if (target < 0) {
+            nodeIndex.invalidateOnWrite();
+        } else {
+            // 事务提交后在内存索引中移动子树，并替换左右值变化的子孙节点
+            List<NestedSetNode> descendants = nodeIndex.isEnabled() ? nestedSetNodeMapper.selectDescendants(id) : List.of();
+            nodeIndex.onWrite(index -> index.put(saved, parentId) && descendants.stream().allMatch(index::replace));
+        }
+        return saved;
+    }
+
     @Override
     public NestedSetNode getNode(Long id) {
         return nestedSetNodeMapper.selectById(id);
@@ -139,60 +224,222 @@ public class NestedSetNodeServiceImpl implements NestedSetNodeService {
 
     @Override
     public List<NestedSetNode> getChildNodes(Long parentId) {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().children(parentId);
+        }
         return nestedSetNodeMapper.selectByParentId(parentId);
     }
 
     @Override
     public List<NestedSetNode> getDescendants(Long id) {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().descendants(id);
+        }
         return nestedSetNodeMapper.selectDescendants(id);
     }
 
     @Override
     public List<NestedSetNode> getAncestors(Long id) {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().ancestors(id);
+        }
         return nestedSetNodeMapper.selectAncestors(id);
     }
 
     @Override
     public List<NestedSetNodeTree> buildTree() {
-        // 获取所有节点并按左值排序
-        List<NestedSetNode> allNodes = nestedSetNodeMapper.selectAll();
-        
-        // 如果没有节点，返回空列表
-        if (allNodes.isEmpty()) {
-            return new ArrayList<>();
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().buildTree(NestedSetNodeTree::fromEntity, NestedSetNodeTree::getChildren);
         }
-        
-        // 转换为树节点
-        List<NestedSetNodeTree> treeNodes = allNodes.stream()
-                .map(NestedSetNodeTree::fromEntity)
-                .collect(Collectors.toList());
-        
-        // 构建节点ID到树节点的映射
-        Map<Long, NestedSetNodeTree> nodeMap = new HashMap<>();
-        for (NestedSetNodeTree treeNode : treeNodes) {
-            nodeMap.put(treeNode.getId(), treeNode);
+
+        // 按左值顺序流式读取，逐个挂到父节点下，O(n)
+        NestedSetTreeBuilder builder = NestedSetTreeBuilder.tree();
+        nestedSetNodeMapper.streamAll(context -> builder.accept(context.getResultObject()));
+        return builder.getRoots();
+    }
+
+    @Override
+    public List<TreeRow<NestedSetNode>> getRows(int offset, int limit) {
+        if (offset < 0 || limit <= 0 || limit > MAX_ROWS) {
+            throw new TreeException("分页参数不合法，每次最多查询" + MAX_ROWS + "行");
         }
-        
-        // 构建树结构
-        List<NestedSetNodeTree> rootNodes = new ArrayList<>();
-        for (NestedSetNodeTree treeNode : treeNodes) {
-            if (treeNode.getLevel() == 0) {
-                // 根节点
-                rootNodes.add(treeNode);
-            } else {
-                // 非根节点，找到父节点
-                for (NestedSetNodeTree potentialParent : treeNodes) {
-                    // 父节点的左值小于当前节点的左值，右值大于当前节点的右值，且层级比当前节点小1
-                    if (potentialParent.getLft() < treeNode.getLft() && 
-                        potentialParent.getRgt() > treeNode.getRgt() && 
-                        potentialParent.getLevel() == treeNode.getLevel() - 1) {
-                        potentialParent.getChildren().add(treeNode);
-                        break;
-                    }
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().rows(offset, limit);
+        }
+
+        // 流式读取，只保留窗口内的行，窗口填满后停止读取
+        List<TreeRow<NestedSetNode>> rows = new ArrayList<>(limit);
+        NestedSetTreeBuilder builder = NestedSetTreeBuilder.rows(TreeRowEmitter.window(offset, limit, rows));
+        nestedSetNodeMapper.streamAll(context -> {
+            builder.accept(context.getResultObject());
+            if (rows.size() >= limit) {
+                context.stop();
+            }
+        });
+        builder.finish();
+        return rows;
+    }
+
+    /**
+     * 在父节点最后一个子节点的右值和父节点右值之间分配新节点的区间
+     * 步长沿用最后一个子节点前面的间隙（局部重排后即重排的步长），不超过 {@link #GAP}，
+     * 每次追加消耗固定的两个步长，父节点末尾的空间可以容纳的新节点数量与剩余宽度成正比；
+     * 没有子节点时把剩余区间按 {@link #MIN_HEADROOM} 个新节点划分
+     *
+     * @param parent 父节点
+     * @param node   新节点，分配成功时写入左右值
+     * @return 间隙不足时返回false
+     */
+    private boolean allocate(NestedSetNode parent, NestedSetNode node) {
+        List<NestedSetNode> lastChildren = nestedSetNodeMapper.selectLastChildren(parent.getId(), 2);
+        long step;
+        long start;
+        if (lastChildren.isEmpty()) {
+            start = parent.getLft();
+            step = Math.min(GAP, (parent.getRgt() - start) / (2L * MIN_HEADROOM + 1));
+        } else {
+            NestedSetNode lastChild = lastChildren.get(0);
+            long previous = lastChildren.size() > 1 ? lastChildren.get(1).getRgt() : parent.getLft();
+            start = lastChild.getRgt();
+            step = Math.min(GAP, lastChild.getLft() - previous);
+        }
+        if (step < 1 || start + 2 * step >= parent.getRgt()) {
+            return false;
+        }
+        node.setLft(start + step);
+        node.setRgt(start + 2 * step);
+        return true;
+    }
+
+    /**
+     * 在父节点最后一个子节点的右值和父节点右值之间为移入的子树分配位置，子树前面留出不超过 {@link #GAP} 的间隙
+     *
+     * @param parent 父节点
+     * @param width  子树的右值减左值
+     * @return 子树新的左值，间隙不足时返回-1
+     */
+    private long place(NestedSetNode parent, long width) {
+        NestedSetNode lastChild = nestedSetNodeMapper.selectLastChild(parent.getId());
+        long start = lastChild == null ? parent.getLft() : lastChild.getRgt();
+        long step = Math.min(GAP, (parent.getRgt() - start - width) / 2);
+        return step < 1 ? -1 : start + step;
+    }
+
+    /**
+     * 局部重排：从父节点开始向上找到区间足够大的最近祖先，只把这棵子树的左右值在它的区间内均匀铺开，
+     * 移入的子树排在父节点的最后一个子节点之后，再预留新节点的位置。子树之外的节点不受影响
+     * <p>
+     * 预留的新节点数量等于父节点现有的子节点数量（至少 {@link #MIN_HEADROOM} 个），
+     * 同一父节点下连续追加时子节点数每翻一倍才重排一次，重排的开销均摊到每次追加为 O(1)
+     *
+     * @param parent 需要插入新节点或移入子树的父节点
+     * @param moved  移入的子树节点，按左值排序，已移出根节点区间；插入新节点时为空
+     */
+    private void rebalance(NestedSetNode parent, List<NestedSetNode> moved) {
+        List<NestedSetNode> candidates = new ArrayList<>(nestedSetNodeMapper.selectAncestors(parent.getId()));
+        candidates.add(parent);
+        long headroom = 0;
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            List<NestedSetNode> subtree = nestedSetNodeMapper.selectSubtreeForUpdate(candidates.get(i).getId());
+            NestedSetNode root = subtree.get(0);
+            if (i == 0 && root.getLevel() == 0 && root.getRgt() < MAX_RIGHT) {
+                // 根节点右侧没有其他节点，直接扩到最大值，兼容旧的连续编号数据
+                root.setRgt(MAX_RIGHT);
+                nestedSetNodeMapper.updateBounds(List.of(root));
+            }
+
+            if (i == candidates.size() - 1) {
+                headroom = Math.max(MIN_HEADROOM, children(subtree) + (moved.isEmpty() ? 0 : 1));
+            }
+
+            // 子孙节点和移入的节点各占两个位置，预留的新节点各占两个位置，子树根的右值前再留一个
+            long slots = 2L * (subtree.size() - 1 + moved.size() + headroom) + 1;
+            long step = (root.getRgt() - root.getLft()) / slots;
+            if (step >= MIN_REBALANCE_STEP || (i == 0 && step >= 1)) {
+                List<NestedSetNode> changed = new ArrayList<>(subtree.size() + moved.size());
+                long position = renumber(subtree.subList(1, subtree.size()), root.getLft(), step, parent.getId(),
+                        moved, headroom, changed);
+                if (root.getId().equals(parent.getId())) {
+                    reserve(position, step, moved, headroom, changed);
+                }
+                for (int from = 0; from < changed.size(); from += MAX_ROWS) {
+                    nestedSetNodeMapper.updateBounds(changed.subList(from, Math.min(from + MAX_ROWS, changed.size())));
                 }
+                return;
             }
         }
-        
-        return rootNodes;
+        throw new TreeException("左右值空间不足");
+    }
+
+    /**
+     * 子树根（列表第一个节点）的直接子节点数量
+     */
+    private static int children(List<NestedSetNode> subtree) {
+        int level = subtree.get(0).getLevel() + 1;
+        return (int) subtree.stream().filter(node -> node.getLevel() == level).count();
+    }
+
+    /**
+     * 按左值顺序重新编号，相邻左右值相差 step，节点之间的嵌套关系按原来的左右值判断
+     *
+     * @param nodes    按左值排序的节点
+     * @param position 起始位置
+     * @param step     相邻左右值的间隙
+     * @param parentId 需要预留位置的父节点，为null时不预留
+     * @param moved    排在父节点最后一个子节点之后的移入子树
+     * @param headroom 在父节点末尾预留的新节点数量
+     * @param changed  收集左右值被改写的节点
+     * @return 最后一个右值
+     */
+    private static long renumber(List<NestedSetNode> nodes, long position, long step, Long parentId,
+                                 List<NestedSetNode> moved, long headroom, List<NestedSetNode> changed) {
+        // 尚未闭合的节点和它们原来的右值
+        Deque<NestedSetNode> open = new ArrayDeque<>();
+        Deque<Long> openRgt = new ArrayDeque<>();
+        for (NestedSetNode node : nodes) {
+            while (!openRgt.isEmpty() && openRgt.peek() < node.getLft()) {
+                openRgt.pop();
+                position = close(open.pop(), position, step, parentId, moved, headroom, changed);
+            }
+            openRgt.push(node.getRgt());
+            position += step;
+            node.setLft(position);
+            open.push(node);
+            changed.add(node);
+        }
+        while (!open.isEmpty()) {
+            position = close(open.pop(), position, step, parentId, moved, headroom, changed);
+        }
+        return position;
+    }
+
+    private static long close(NestedSetNode node, long position, long step, Long parentId,
+                              List<NestedSetNode> moved, long headroom, List<NestedSetNode> changed) {
+        if (node.getId().equals(parentId)) {
+            position = reserve(position, step, moved, headroom, changed);
+        }
+        position += step;
+        node.setRgt(position);
+        return position;
+    }
+
+    /**
+     * 在父节点的最后一个子节点之后排入移入的子树，再为每个预留的新节点留出两个位置
+     */
+    private static long reserve(long position, long step, List<NestedSetNode> moved, long headroom,
+                                List<NestedSetNode> changed) {
+        return renumber(moved, position, step, null, List.of(), 0, changed) + 2 * step * headroom;
+    }
+
+    /**
+     * 从数据库加载内存索引，父子关系由左值顺序上的栈得出
+     */
+    private TreeIndex<NestedSetNode> loadIndex() {
+        List<NestedSetNode> allNodes = nestedSetNodeMapper.selectAll();
+        Map<Long, Long> parentIds = new HashMap<>(allNodes.size() * 2);
+        NestedSetTreeBuilder builder = NestedSetTreeBuilder.rows(row -> parentIds.put(row.getNode().getId(), row.getParentId()));
+        allNodes.forEach(builder::accept);
+        builder.finish();
+        return TreeIndex.build(allNodes, NestedSetNode::getId, node -> parentIds.get(node.getId()));
     }
 }
\ No newline at end of file
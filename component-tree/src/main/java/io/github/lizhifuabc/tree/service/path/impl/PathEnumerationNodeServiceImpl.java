@@ -2,6 +2,9 @@ package io.github.lizhifuabc.tree.service.path.impl;
 
 import io.github.lizhifuabc.tree.common.TreeException;
 import io.github.lizhifuabc.tree.domain.path.PathEnumerationNode;
+import io.github.lizhifuabc.tree.index.TreeIndex;
+import io.github.lizhifuabc.tree.index.TreeIndexHolder;
+import io.github.lizhifuabc.tree.index.TreeIndexManager;
 import io.github.lizhifuabc.tree.mapper.path.PathEnumerationNodeMapper;
 import io.github.lizhifuabc.tree.service.path.PathEnumerationNodeService;
 import io.github.lizhifuabc.tree.service.path.PathEnumerationNodeTree;
@@ -25,8 +28,14 @@ public class PathEnumerationNodeServiceImpl implements PathEnumerationNodeServic
 
     private final PathEnumerationNodeMapper pathEnumerationNodeMapper;
 
-    public PathEnumerationNodeServiceImpl(PathEnumerationNodeMapper pathEnumerationNodeMapper) {
+    /**
+     * 内存树索引，未启用时查询数据库
+     */
+    private final TreeIndexHolder<PathEnumerationNode> nodeIndex;
+
+    public PathEnumerationNodeServiceImpl(PathEnumerationNodeMapper pathEnumerationNodeMapper, TreeIndexManager treeIndexManager) {
         this.pathEnumerationNodeMapper = pathEnumerationNodeMapper;
+        this.nodeIndex = treeIndexManager.register("path", this::loadIndex);
     }
 
     @Override
@@ -51,6 +60,10 @@ public class PathEnumerationNodeServiceImpl implements PathEnumerationNodeServic
 
         // 插入节点
         pathEnumerationNodeMapper.insert(node);
+
+        // 事务提交后加入内存索引
+        PathEnumerationNode saved = pathEnumerationNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.put(saved, parentId));
         return node;
     }
 
@@ -69,6 +82,10 @@ public class PathEnumerationNodeServiceImpl implements PathEnumerationNodeServic
 
         // 更新节点
         pathEnumerationNodeMapper.update(node);
+
+        // 事务提交后替换内存索引中的节点数据
+        PathEnumerationNode saved = pathEnumerationNodeMapper.selectById(node.getId());
+        nodeIndex.onWrite(index -> index.replace(saved));
         return node;
     }
 
@@ -82,7 +99,48 @@ public class PathEnumerationNodeServiceImpl implements PathEnumerationNodeServic
         }
 
         // 删除节点
-        return pathEnumerationNodeMapper.delete(id) > 0;
+        boolean deleted = pathEnumerationNodeMapper.delete(id) > 0;
+        if (deleted) {
+            nodeIndex.onWrite(index -> {
+                index.remove(id);
+                return true;
+            });
+        }
+        return deleted;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public PathEnumerationNode moveSubtree(Long id, Long parentId) {
+        PathEnumerationNode node = pathEnumerationNodeMapper.selectById(id);
+        if (node == null) {
+            throw new TreeException("节点不存在");
+        }
+        PathEnumerationNode parentNode = pathEnumerationNodeMapper.selectById(parentId);
+        if (parentNode == null) {
+            throw new TreeException("父节点不存在");
+        }
+        if (parentId.equals(parentIdOf(node.getPath()))) {
+            return node;
+        }
+
+        // 新父节点的路径以 节点路径 + 节点ID + / 开头，说明新父节点在子树内
+        String oldPath = node.getPath();
+        if (parentId.equals(id) || parentNode.getPath().startsWith(oldPath + id + "/")) {
+            throw new TreeException("不能移动到自身或子孙节点下");
+        }
+
+        // 一条语句替换整棵子树的路径前缀和层级
+        String newPath = parentNode.getPath() + parentId + "/";
+        int levelDelta = parentNode.getLevel() + 1 - node.getLevel();
+        pathEnumerationNodeMapper.updatePathPrefix(id, oldPath, newPath, levelDelta);
+
+        // 事务提交后在内存索引中移动子树，并替换路径变化的子孙节点
+        PathEnumerationNode saved = pathEnumerationNodeMapper.selectById(id);
+        List<PathEnumerationNode> descendants = nodeIndex.isEnabled()
+                ? pathEnumerationNodeMapper.selectDescendants(id) : List.of();
+        nodeIndex.onWrite(index -> index.put(saved, parentId) && descendants.stream().allMatch(index::replace));
+        return saved;
     }
 
     @Override
@@ -97,16 +155,26 @@ public class PathEnumerationNodeServiceImpl implements PathEnumerationNodeServic
 
     @Override
     public List<PathEnumerationNode> getChildNodes(Long parentId) {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().children(parentId);
+        }
         return pathEnumerationNodeMapper.selectByParentId(parentId);
     }
 
     @Override
     public List<PathEnumerationNode> getDescendants(Long id) {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().descendants(id);
+        }
         return pathEnumerationNodeMapper.selectDescendants(id);
     }
 
     @Override
     public List<PathEnumerationNodeTree> buildTree() {
+        if (nodeIndex.isEnabled()) {
+            return nodeIndex.get().buildTree(PathEnumerationNodeTree::fromEntity, PathEnumerationNodeTree::getChildren);
+        }
+
         // 获取所有节点
         List<PathEnumerationNode> allNodes = pathEnumerationNodeMapper.selectAll();
         
@@ -129,12 +197,7 @@ public class PathEnumerationNodeServiceImpl implements PathEnumerationNodeServic
                 rootNodes.add(treeNode);
             } else {
                 // 非根节点，找到父节点并添加到父节点的子节点列表
-                String path = treeNode.getPath();
-                // 从路径中提取父节点ID
-                int lastSlashIndex = path.lastIndexOf('/', path.length() - 2);
-                String parentIdStr = path.substring(lastSlashIndex + 1, path.length() - 1);
-                Long parentId = Long.parseLong(parentIdStr);
-                
+                Long parentId = parentIdOf(treeNode.getPath());
                 PathEnumerationNodeTree parentNode = nodeMap.get(parentId);
                 if (parentNode != null) {
                     parentNode.getChildren().add(treeNode);
@@ -144,4 +207,26 @@ public class PathEnumerationNodeServiceImpl implements PathEnumerationNodeServic
         
         return rootNodes;
     }
+
+    /**
+     * 从数据库加载内存索引
+     */
+    private TreeIndex<PathEnumerationNode> loadIndex() {
+        return TreeIndex.build(pathEnumerationNodeMapper.selectAll(), PathEnumerationNode::getId,
+                node -> parentIdOf(node.getPath()));
+    }
+
+    /**
+     * 从路径中提取父节点ID，路径的最后一段即为父节点ID，根节点路径为 / 返回 null
+     *
+     * @param path 路径，如 /1/2/
+     * @return 父节点ID
+     */
+    private static Long parentIdOf(String path) {
+        if (path.length() <= 1) {
+            return null;
+        }
+        int lastSlashIndex = path.lastIndexOf('/', path.length() - 2);
+        return Long.parseLong(path.substring(lastSlashIndex + 1, path.length() - 1));
+    }
 }
\ No newline at end of file
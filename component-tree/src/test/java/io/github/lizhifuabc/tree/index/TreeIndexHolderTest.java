@@ -0,0 +1,166 @@
+package io.github.lizhifuabc.tree.index;
+
+import io.github.lizhifuabc.tree.domain.index.TreeIndexVersion;
+import io.github.lizhifuabc.tree.mapper.index.TreeIndexVersionMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TreeIndexHolder 测试类
+ * <p>
+ * 版本号表用内存实现代替，事务提交通过手动触发事务同步回调模拟
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+class TreeIndexHolderTest {
+
+    private final InMemoryVersionMapper versionMapper = new InMemoryVersionMapper();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private TreeIndexHolder<Long> holder(TransactionOperations versionTransaction) {
+        return new TreeIndexHolder<>("test", true, () -> {
+            loads.incrementAndGet();
+            return TreeIndex.build(List.of(1L), id -> id, id -> null);
+        }, versionMapper, versionTransaction);
+    }
+
+    @Test
+    void testOnWriteAppliesIncrementally() {
+        TreeIndexHolder<Long> holder = holder(TransactionOperations.withoutTransaction());
+        holder.get();
+
+        holder.onWrite(index -> index.put(2L, 1L));
+
+        assertEquals(1, versionMapper.version);
+        assertTrue(holder.get().contains(2L), "本实例的写入应该增量应用");
+        assertEquals(1, loads.get(), "增量应用后不应该重新加载");
+    }
+
+    @Test
+    void testVersionBumpedAfterCommit() {
+        TreeIndexHolder<Long> holder = holder(TransactionOperations.withoutTransaction());
+        holder.get();
+        TransactionSynchronizationManager.initSynchronization();
+
+        holder.onWrite(index -> index.put(2L, 1L));
+
+        assertEquals(0, versionMapper.version, "业务事务提交前不应该推进版本号");
+        assertFalse(holder.get().contains(2L));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, versionMapper.version);
+        assertTrue(holder.get().contains(2L));
+    }
+
+    @Test
+    void testRollbackLeavesVersion() {
+        TreeIndexHolder<Long> holder = holder(TransactionOperations.withoutTransaction());
+        holder.get();
+        TransactionSynchronizationManager.initSynchronization();
+
+        holder.onWrite(index -> index.put(2L, 1L));
+        // 回滚时不触发 afterCommit
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(0, versionMapper.version);
+        assertFalse(holder.get().contains(2L));
+    }
+
+    @Test
+    void testOtherInstanceWriteDiscardsIndex() {
+        TreeIndexHolder<Long> holder = holder(TransactionOperations.withoutTransaction());
+        holder.get();
+        // 其他实例的写入
+        versionMapper.increment("test");
+
+        holder.onWrite(index -> index.put(2L, 1L));
+
+        assertEquals(2, versionMapper.version);
+        holder.get();
+        assertEquals(2, loads.get(), "版本号不连续时应该丢弃本地索引并重新加载");
+    }
+
+    @Test
+    void testFailedChangeDiscardsIndex() {
+        TreeIndexHolder<Long> holder = holder(TransactionOperations.withoutTransaction());
+        holder.get();
+
+        holder.onWrite(index -> index.put(3L, 100L));
+
+        holder.get();
+        assertEquals(2, loads.get(), "增量修改失败时应该重新加载");
+    }
+
+    @Test
+    void testBumpFailureDiscardsIndex() {
+        TreeIndexHolder<Long> holder = holder(new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                throw new IllegalStateException("数据库不可用");
+            }
+        });
+        holder.get();
+
+        holder.onWrite(index -> index.put(2L, 1L));
+
+        holder.get();
+        assertEquals(2, loads.get(), "版本号推进失败时应该丢弃本地索引");
+    }
+
+    @Test
+    void testRefreshReloadsWhenBehind() {
+        TreeIndexHolder<Long> holder = holder(TransactionOperations.withoutTransaction());
+        TreeIndex<Long> first = holder.get();
+
+        holder.refresh(0);
+        assertSame(first, holder.get(), "版本号没有变化时不应该重新加载");
+
+        versionMapper.increment("test");
+        holder.refresh(1);
+        assertNotSame(first, holder.get());
+        assertEquals(2, loads.get());
+    }
+
+    private static final class InMemoryVersionMapper implements TreeIndexVersionMapper {
+        private long version;
+
+        @Override
+        public int increment(String model) {
+            version++;
+            return 1;
+        }
+
+        @Override
+        public Long selectVersion(String model) {
+            return version == 0 ? null : version;
+        }
+
+        @Override
+        public List<TreeIndexVersion> selectAll() {
+            TreeIndexVersion row = new TreeIndexVersion();
+            row.setModel("test");
+            row.setVersion(version);
+            return List.of(row);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package io.github.lizhifuabc.tree.index;
+
+import io.github.lizhifuabc.tree.common.TreeRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TreeIndex 测试类
+ * <p>
+ * 测试树：
+ * <pre>
+ * 1
+ * ├── 2
+ * │   ├── 4
+ * │   └── 5
+ * │       └── 7
+ * └── 3
+ *     └── 6
+ * 8
+ * </pre>
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+class TreeIndexTest {
+
+    private TreeIndex<Node> index;
+
+    @BeforeEach
+    void setUp() {
+        // 子节点排在父节点之前，并混入孤儿节点和环
+        index = TreeIndex.build(List.of(
+                new Node(7, 5L), new Node(4, 2L), new Node(5, 2L), new Node(2, 1L),
+                new Node(3, 1L), new Node(6, 3L), new Node(1, null), new Node(8, null),
+                new Node(99, 100L), new Node(20, 21L), new Node(21, 20L)), Node::getId, Node::getParentId);
+    }
+
+    @Test
+    void testBuild() {
+        assertEquals(8, index.size(), "孤儿节点和环上的节点不应该进入索引");
+        assertFalse(index.contains(99));
+        assertFalse(index.contains(20));
+        assertEquals(List.of(1L, 8L), ids(index.roots()));
+        assertEquals(List.of(2L, 3L), ids(index.children(1)), "子节点应该保持列表中的顺序");
+        assertEquals(List.of(4L, 5L), ids(index.children(2)));
+        assertTrue(index.children(100).isEmpty());
+        assertEquals(7, index.get(7).getId());
+        assertNull(index.get(99));
+    }
+
+    @Test
+    void testDescendants() {
+        assertEquals(List.of(2L, 4L, 5L, 7L, 3L, 6L), ids(index.descendants(1)), "子孙节点应该按先序排列");
+        assertEquals(List.of(7L), ids(index.descendants(5)));
+        assertTrue(index.descendants(7).isEmpty());
+        assertTrue(index.descendants(100).isEmpty());
+    }
+
+    @Test
+    void testAncestors() {
+        assertEquals(List.of(1L, 2L, 5L), ids(index.ancestors(7)), "祖先节点应该从根节点开始排列");
+        assertTrue(index.ancestors(1).isEmpty());
+        assertTrue(index.ancestors(100).isEmpty());
+    }
+
+    @Test
+    void testIsAncestor() {
+        assertTrue(index.isAncestor(1, 7));
+        assertTrue(index.isAncestor(2, 7));
+        assertFalse(index.isAncestor(7, 7), "节点不是自身的祖先");
+        assertFalse(index.isAncestor(7, 1));
+        assertFalse(index.isAncestor(2, 6));
+        assertFalse(index.isAncestor(8, 7));
+        assertFalse(index.isAncestor(100, 7));
+    }
+
+    @Test
+    void testSubtreeSize() {
+        assertEquals(7, index.subtreeSize(1));
+        assertEquals(4, index.subtreeSize(2));
+        assertEquals(1, index.subtreeSize(8));
+        assertEquals(0, index.subtreeSize(100));
+    }
+
+    @Test
+    void testPutNewNode() {
+        assertTrue(index.put(new Node(9, 6L), 6L));
+
+        assertEquals(9, index.size());
+        assertEquals(List.of(6L, 9L), ids(index.descendants(3)));
+        assertTrue(index.isAncestor(1, 9), "写入后欧拉序应该重新计算");
+        assertEquals(8, index.subtreeSize(1));
+
+        assertTrue(index.put(new Node(10, null), null));
+        assertEquals(List.of(1L, 8L, 10L), ids(index.roots()), "新的根节点应该排在最后");
+    }
+
+    @Test
+    void testPutMissingParent() {
+        assertFalse(index.put(new Node(9, 100L), 100L));
+
+        assertEquals(8, index.size());
+        assertFalse(index.contains(9));
+    }
+
+    @Test
+    void testPutMove() {
+        assertTrue(index.put(new Node(5, 3L), 3L));
+
+        assertEquals(List.of(4L), ids(index.descendants(2)));
+        assertEquals(List.of(6L, 5L, 7L), ids(index.descendants(3)), "移动的节点应该作为最后一个子节点");
+        assertEquals(List.of(1L, 3L, 5L), ids(index.ancestors(7)));
+        assertEquals(2, index.subtreeSize(2));
+        assertFalse(index.isAncestor(2, 7));
+        assertTrue(index.isAncestor(3, 7));
+        assertEquals(8, index.size());
+    }
+
+    @Test
+    void testPutRejectsCycle() {
+        assertFalse(index.put(new Node(2, 7L), 7L), "移动到自己的子孙节点下应该失败");
+
+        assertEquals(List.of(1L, 2L, 5L), ids(index.ancestors(7)), "失败时索引不应该被修改");
+        assertEquals(List.of(2L, 4L, 5L, 7L, 3L, 6L), ids(index.descendants(1)));
+    }
+
+    @Test
+    void testReplace() {
+        assertTrue(index.replace(new Node(4, 2L, "renamed")));
+
+        assertEquals("renamed", index.get(4).getName());
+        assertEquals(List.of(4L, 5L), ids(index.children(2)), "替换不应该改变位置");
+        assertFalse(index.replace(new Node(100, null)));
+    }
+
+    @Test
+    void testRemoveSubtree() {
+        assertEquals(4, index.remove(2), "应该删除整棵子树");
+
+        assertEquals(4, index.size());
+        assertFalse(index.contains(2));
+        assertFalse(index.contains(7));
+        assertEquals(List.of(3L, 6L), ids(index.descendants(1)));
+        assertEquals(3, index.subtreeSize(1));
+        assertEquals(0, index.remove(2));
+
+        // 释放的槽位被复用后索引仍然正确
+        assertTrue(index.put(new Node(10, 3L), 3L));
+        assertTrue(index.put(new Node(11, 10L), 10L));
+        assertEquals(List.of(6L, 10L, 11L), ids(index.descendants(3)));
+        assertEquals(List.of(1L, 3L, 10L), ids(index.ancestors(11)));
+        assertTrue(index.isAncestor(1, 11));
+    }
+
+    @Test
+    void testRows() {
+        List<TreeRow<Node>> rows = index.rows(0, 100);
+
+        assertEquals(8, rows.size());
+        assertEquals(List.of(1L, 2L, 4L, 5L, 7L, 3L, 6L, 8L), rows.stream().map(row -> row.getNode().getId()).toList());
+        TreeRow<Node> root = rows.get(0);
+        assertNull(root.getParentId());
+        assertEquals(0, root.getDepth());
+        assertFalse(root.isLeaf());
+        TreeRow<Node> leaf = rows.get(4);
+        assertEquals(5L, leaf.getParentId());
+        assertEquals(3, leaf.getDepth());
+        assertTrue(leaf.isLeaf());
+
+        assertEquals(List.of(4L, 5L, 7L), index.rows(2, 3).stream().map(row -> row.getNode().getId()).toList());
+        assertTrue(index.rows(8, 10).isEmpty());
+    }
+
+    @Test
+    void testBuildTree() {
+        List<Tree> roots = index.buildTree(node -> new Tree(node.getId()), Tree::getChildren);
+
+        assertEquals(2, roots.size());
+        Tree root = roots.get(0);
+        assertEquals(List.of(2L, 3L), root.getChildren().stream().map(Tree::getId).toList());
+        Tree node5 = root.getChildren().get(0).getChildren().get(1);
+        assertEquals(5L, node5.getId());
+        assertEquals(7L, node5.getChildren().get(0).getId());
+    }
+
+    @Test
+    void testGrowDeepChain() {
+        TreeIndex<Node> chain = TreeIndex.build(List.of(), Node::getId, Node::getParentId);
+        Long parentId = null;
+        for (long id = 1; id <= 1000; id++) {
+            assertTrue(chain.put(new Node(id, parentId), parentId));
+            parentId = id;
+        }
+
+        assertEquals(1000, chain.size());
+        assertEquals(1000, chain.subtreeSize(1));
+        assertEquals(999, chain.ancestors(1000).size());
+        assertTrue(chain.isAncestor(1, 1000));
+        assertEquals(999, chain.rows(999, 1).get(0).getDepth());
+    }
+
+    private static List<Long> ids(List<Node> nodes) {
+        return nodes.stream().map(Node::getId).toList();
+    }
+
+    private static final class Node {
+        private final long id;
+        private final Long parentId;
+        private final String name;
+
+        private Node(long id, Long parentId) {
+            this(id, parentId, "node" + id);
+        }
+
+        private Node(long id, Long parentId, String name) {
+            this.id = id;
+            this.parentId = parentId;
+            this.name = name;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        Long getParentId() {
+            return parentId;
+        }
+
+        String getName() {
+            return name;
+        }
+    }
+
+    private static final class Tree {
+        private final long id;
+        private final List<Tree> children = new ArrayList<>();
+
+        private Tree(long id) {
+            this.id = id;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        List<Tree> getChildren() {
+            return children;
+        }
+    }
+}
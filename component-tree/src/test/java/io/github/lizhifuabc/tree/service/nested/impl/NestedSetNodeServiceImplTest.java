@@ -0,0 +1,335 @@
+package io.github.lizhifuabc.tree.service.nested.impl;
+
+import io.github.lizhifuabc.tree.domain.nested.NestedSetNode;
+import io.github.lizhifuabc.tree.index.TreeIndexManager;
+import io.github.lizhifuabc.tree.index.TreeIndexProperties;
+import io.github.lizhifuabc.tree.mapper.nested.NestedSetNodeMapper;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NestedSetNodeServiceImpl 左右值分配测试类
+ * <p>
+ * Mapper 用内存实现代替，关闭内存树索引，只验证左右值的分配和局部重排
+ *
+ * @author lizhifu
+ * @since 2023/7/1
+ */
+class NestedSetNodeServiceImplTest {
+
+    private InMemoryNestedSetNodeMapper mapper;
+    private NestedSetNodeServiceImpl service;
+    private Long rootId;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new InMemoryNestedSetNodeMapper();
+        TreeIndexProperties properties = new TreeIndexProperties();
+        properties.setEnabled(false);
+        service = new NestedSetNodeServiceImpl(mapper, new TreeIndexManager(properties, null, null));
+        rootId = service.createRootNode(node("root")).getId();
+    }
+
+    private static NestedSetNode node(String name) {
+        NestedSetNode node = new NestedSetNode();
+        node.setName(name);
+        return node;
+    }
+
+    @Test
+    void testAppendUnderRootWithoutRebalance() {
+        for (int i = 0; i < 1000; i++) {
+            service.createChildNode(node("child" + i), rootId);
+        }
+
+        assertEquals(0, mapper.rebalances, "根节点下按固定步长追加，不应该重排");
+        assertEquals(1000, service.getChildNodes(rootId).size());
+        assertValid();
+    }
+
+    @Test
+    void testAppendManyChildrenAmortized() {
+        Long parentId = service.createChildNode(node("parent"), rootId).getId();
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            service.createChildNode(node("child" + i), parentId);
+        }
+
+        // 每次重排后预留的位置与子节点数量相同，子节点数每翻一倍才重排一次
+        assertTrue(mapper.rebalances <= 16, "重排次数应该随子节点数量对数增长，实际: " + mapper.rebalances);
+        assertTrue(mapper.rewritten <= 3L * count, "重排改写的总行数应该与追加次数成正比，实际: " + mapper.rewritten);
+        assertTrue(mapper.rootRebalances <= 1, "重排不应该反复扩大到根节点，实际: " + mapper.rootRebalances);
+
+        List<NestedSetNode> children = service.getChildNodes(parentId);
+        assertEquals(count, children.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("child" + i, children.get(i).getName(), "子节点应该保持追加顺序");
+        }
+        assertValid();
+    }
+
+    @Test
+    void testAppendDeepChain() {
+        Long parentId = rootId;
+        for (int i = 0; i < 200; i++) {
+            parentId = service.createChildNode(node("level" + i), parentId).getId();
+        }
+
+        assertEquals(200, service.getAncestors(parentId).size());
+        assertEquals(200, mapper.selectById(parentId).getLevel());
+        assertValid();
+    }
+
+    @Test
+    void testAppendAfterDeepChainRebalance() {
+        Long parentId = rootId;
+        List<Long> chain = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            parentId = service.createChildNode(node("level" + i), parentId).getId();
+            chain.add(parentId);
+        }
+        // 在链中间的节点下追加，间隙来自重排前后不同的步长
+        for (Long id : chain) {
+            for (int i = 0; i < 20; i++) {
+                service.createChildNode(node(id + "-" + i), id);
+            }
+        }
+
+        for (Long id : chain) {
+            assertTrue(service.getChildNodes(id).size() >= 20);
+        }
+        assertValid();
+    }
+
+    @Test
+    void testMoveSubtreeWithRebalance() {
+        Long sourceId = service.createChildNode(node("source"), rootId).getId();
+        for (int i = 0; i < 10; i++) {
+            service.createChildNode(node("source" + i), sourceId);
+        }
+        Long targetId = service.createChildNode(node("target"), rootId).getId();
+        for (int i = 0; i < 4; i++) {
+            service.createChildNode(node("target" + i), targetId);
+        }
+
+        int rebalances = mapper.rebalances;
+
+        // 目标节点末尾的间隙放不下宽度为 GAP 的子树，需要局部重排
+        service.moveSubtree(sourceId, targetId);
+
+        assertEquals(rebalances + 1, mapper.rebalances);
+        List<NestedSetNode> children = service.getChildNodes(targetId);
+        assertEquals(5, children.size());
+        assertEquals("source", children.get(4).getName(), "移入的子树应该作为最后一个子节点");
+        assertEquals(10, service.getChildNodes(sourceId).size());
+        assertEquals(2, mapper.selectById(sourceId).getLevel());
+        assertValid();
+
+        // 重排后预留的位置可以继续追加
+        for (int i = 4; i < 9; i++) {
+            service.createChildNode(node("target" + i), targetId);
+        }
+        assertEquals(rebalances + 1, mapper.rebalances, "重排预留的位置应该容纳与子节点数量相同的新节点");
+        assertValid();
+    }
+
+    @Test
+    void testMoveToSameParentKeepsPosition() {
+        NestedSetNode first = service.createChildNode(node("first"), rootId);
+        service.createChildNode(node("second"), rootId);
+
+        NestedSetNode moved = service.moveSubtree(first.getId(), rootId);
+
+        assertEquals(first.getLft(), moved.getLft(), "已经是新父节点的子节点时不应该移动");
+        assertEquals(List.of("first", "second"), service.getChildNodes(rootId).stream().map(NestedSetNode::getName).toList());
+    }
+
+    /**
+     * 校验所有节点的区间合法：左值小于右值，兄弟节点的区间互不相交，子节点的区间在父节点区间内，层级正确
+     */
+    private void assertValid() {
+        List<NestedSetNode> nodes = mapper.selectAll();
+        List<NestedSetNode> open = new ArrayList<>();
+        long previous = 0;
+        Set<Long> bounds = new HashSet<>();
+        for (NestedSetNode node : nodes) {
+            assertTrue(node.getLft() < node.getRgt(), "左值应该小于右值: " + node.getName());
+            assertTrue(bounds.add(node.getLft()) && bounds.add(node.getRgt()), "左右值不应该重复: " + node.getName());
+            while (!open.isEmpty() && open.get(open.size() - 1).getRgt() < node.getLft()) {
+                open.remove(open.size() - 1);
+            }
+            if (!open.isEmpty()) {
+                NestedSetNode parent = open.get(open.size() - 1);
+                assertTrue(node.getRgt() < parent.getRgt(), "子节点的区间应该在父节点区间内: " + node.getName());
+            }
+            assertEquals(open.size(), node.getLevel(), "层级应该等于祖先数量: " + node.getName());
+            assertTrue(node.getLft() > previous);
+            previous = node.getLft();
+            open.add(node);
+        }
+    }
+
+    /**
+     * 内存中的 Mapper 实现，返回的实体都是副本，与数据库一样不会被调用方的修改影响
+     * 统计局部重排的次数（查询子树之后的多批改写按一次重排计）、扩大到根节点的次数和改写的行数
+     */
+    private static final class InMemoryNestedSetNodeMapper implements NestedSetNodeMapper {
+        private final Map<Long, NestedSetNode> rows = new LinkedHashMap<>();
+        private long nextId = 1;
+        private int rebalances;
+        private int rootRebalances;
+        private long rewritten;
+        private boolean rebalancing;
+        private NestedSetNode lastSubtreeRoot;
+
+        private static NestedSetNode copy(NestedSetNode node) {
+            NestedSetNode copy = new NestedSetNode();
+            copy.setId(node.getId());
+            copy.setName(node.getName());
+            copy.setLft(node.getLft());
+            copy.setRgt(node.getRgt());
+            copy.setLevel(node.getLevel());
+            copy.setDescription(node.getDescription());
+            return copy;
+        }
+
+        private List<NestedSetNode> select(Predicate<NestedSetNode> filter) {
+            return rows.values().stream().filter(filter).sorted(Comparator.comparing(NestedSetNode::getLft))
+                    .map(InMemoryNestedSetNodeMapper::copy).toList();
+        }
+
+        @Override
+        public int insert(NestedSetNode node) {
+            node.setId(nextId++);
+            rows.put(node.getId(), copy(node));
+            return 1;
+        }
+
+        @Override
+        public int update(NestedSetNode node) {
+            NestedSetNode row = rows.get(node.getId());
+            row.setName(node.getName());
+            row.setDescription(node.getDescription());
+            return 1;
+        }
+
+        @Override
+        public int delete(Long id) {
+            return rows.remove(id) == null ? 0 : 1;
+        }
+
+        @Override
+        public NestedSetNode selectById(Long id) {
+            NestedSetNode row = rows.get(id);
+            return row == null ? null : copy(row);
+        }
+
+        @Override
+        public List<NestedSetNode> selectAll() {
+            return select(node -> true);
+        }
+
+        @Override
+        public void streamAll(ResultHandler<NestedSetNode> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<NestedSetNode> selectByParentId(Long parentId) {
+            NestedSetNode parent = rows.get(parentId);
+            return select(node -> node.getLft() > parent.getLft() && node.getRgt() < parent.getRgt()
+                    && node.getLevel() == parent.getLevel() + 1);
+        }
+
+        @Override
+        public List<NestedSetNode> selectDescendants(Long id) {
+            NestedSetNode parent = rows.get(id);
+            return select(node -> node.getLft() > parent.getLft() && node.getRgt() < parent.getRgt());
+        }
+
+        @Override
+        public List<NestedSetNode> selectAncestors(Long id) {
+            NestedSetNode child = rows.get(id);
+            return select(node -> child.getLft() > node.getLft() && child.getRgt() < node.getRgt());
+        }
+
+        @Override
+        public NestedSetNode selectByIdForUpdate(Long id) {
+            return selectById(id);
+        }
+
+        @Override
+        public NestedSetNode selectLastChild(Long parentId) {
+            List<NestedSetNode> children = selectLastChildren(parentId, 1);
+            return children.isEmpty() ? null : children.get(0);
+        }
+
+        @Override
+        public List<NestedSetNode> selectLastChildren(Long parentId, int limit) {
+            List<NestedSetNode> children = new ArrayList<>(selectByParentId(parentId));
+            Collections.reverse(children);
+            return children.subList(0, Math.min(limit, children.size()));
+        }
+
+        @Override
+        public List<NestedSetNode> selectSubtreeForUpdate(Long id) {
+            NestedSetNode parent = rows.get(id);
+            rebalancing = false;
+            lastSubtreeRoot = parent;
+            return select(node -> node.getLft() >= parent.getLft() && node.getRgt() <= parent.getRgt());
+        }
+
+        @Override
+        public int updateBounds(List<NestedSetNode> nodes) {
+            if (!rebalancing) {
+                // 同一次重排分批写入时只计一次，最后一次查询的子树根即为重排的范围
+                rebalancing = true;
+                rebalances++;
+                if (lastSubtreeRoot.getLevel() == 0) {
+                    rootRebalances++;
+                }
+            }
+            for (NestedSetNode node : nodes) {
+                NestedSetNode row = rows.get(node.getId());
+                row.setLft(node.getLft());
+                row.setRgt(node.getRgt());
+            }
+            rewritten += nodes.size();
+            return nodes.size();
+        }
+
+        @Override
+        public int deleteRange(Long lft, Long rgt) {
+            int before = rows.size();
+            rows.values().removeIf(node -> node.getLft() >= lft && node.getRgt() <= rgt);
+            return before - rows.size();
+        }
+
+        @Override
+        public int moveRange(Long lft, Long rgt, Long offset, Integer levelDelta) {
+            int moved = 0;
+            for (NestedSetNode node : rows.values()) {
+                if (node.getLft() >= lft && node.getRgt() <= rgt) {
+                    node.setLft(node.getLft() + offset);
+                    node.setRgt(node.getRgt() + offset);
+                    node.setLevel(node.getLevel() + levelDelta);
+                    moved++;
+                }
+            }
+            return moved;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.lizhifuabc.redis.bench;
+
+import io.github.lizhifuabc.redis.cache.model.User;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.Duration;
+
+/**
+ * 缓存策略基准测试的公共状态
+ * <p>
+ * 每组参数在独立的 fork 中启动一套 Redis 和应用上下文，key 按 Zipfian 分布生成，
+ * 数据库延迟由 {@link LatencyUserRepository} 注入。写操作每次创建新的 {@link User}，避免线程间共享可变对象。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractCacheBenchmark {
+
+    @Param({"CACHE_ASIDE", "WRITE_THROUGH", "WRITE_BEHIND"})
+    public CacheStrategy strategy;
+
+    /**
+     * key 的数量
+     */
+    @Param("100000")
+    public int keySpace;
+
+    /**
+     * Zipfian 倾斜度
+     */
+    @Param("0.99")
+    public double theta;
+
+    /**
+     * 模拟数据库单次调用的延迟（微秒），实际延迟在 [latency, 1.5 * latency) 之间
+     */
+    @Param("500")
+    public int dbLatencyMicros;
+
+    private BenchmarkEnvironment environment;
+    private CacheStrategy.Operations operations;
+    private ZipfianGenerator keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Duration latency = Duration.ofNanos(dbLatencyMicros * 1000L);
+        environment = BenchmarkEnvironment.start(keySpace, latency, latency.dividedBy(2));
+        operations = strategy.bind(environment);
+        keys = new ZipfianGenerator(keySpace, theta);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    protected User readOne() {
+        return operations.read(keys.next());
+    }
+
+    protected User writeOne() {
+        long id = keys.next();
+        return operations.write(new User(id, "user" + id, "user" + id + "@example.com"));
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.lizhifuabc.redis.bench;
+
+import io.github.lizhifuabc.redis.cache.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+/**
+ * 基准测试环境的 Spring 配置，用注入延迟的 {@link LatencyUserRepository} 替换模拟数据库
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Configuration
+public class BenchmarkConfiguration {
+
+    @Bean
+    @Primary
+    public UserRepository latencyUserRepository(@Value("${bench.user-count}") int userCount,
+                                                @Value("${bench.db-latency}") Duration latency,
+                                                @Value("${bench.db-jitter}") Duration jitter) {
+        return new LatencyUserRepository(userCount, latency, jitter);
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.lizhifuabc.redis.bench;
+
+import io.github.lizhifuabc.redis.SpringBootRedisApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 基准测试运行环境：Redis + spring-boot-redis 应用上下文
+ * <p>
+ * 默认在随机端口启动内嵌 Redis，不依赖外部环境；指定系统属性 {@code bench.redis.host}（以及可选的
+ * {@code bench.redis.port}）时改为连接外部 Redis 的 0 号库，用于测量真实网络下的表现，该库应当专用于基准测试。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public final class BenchmarkEnvironment implements AutoCloseable {
+    private final RedisServer redisServer;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkEnvironment(RedisServer redisServer, ConfigurableApplicationContext context) {
+        this.redisServer = redisServer;
+        this.context = context;
+    }
+
+    /**
+     * 启动 Redis 和应用上下文
+     *
+     * @param userCount 预置的用户数量
+     * @param dbLatency 模拟数据库单次调用的基础延迟
+     * @param dbJitter  模拟数据库延迟的随机抖动上限
+     */
+    public static BenchmarkEnvironment start(int userCount, Duration dbLatency, Duration dbJitter) {
+        String host = System.getProperty("bench.redis.host");
+        RedisServer redisServer = null;
+        int port;
+        try {
+            if (host == null) {
+                host = "127.0.0.1";
+                port = freePort();
+                redisServer = new RedisServer(port);
+                redisServer.start();
+            } else {
+                port = Integer.getInteger("bench.redis.port", 6379);
+            }
+            Path journalDirectory = Files.createTempDirectory("write-behind-bench");
+
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                    SpringBootRedisApplication.class, BenchmarkConfiguration.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "spring.data.redis.host=" + host,
+                            "spring.data.redis.port=" + port,
+                            "spring.data.redis.password=",
+                            "spring.data.redis.database=0",
+                            "cache.write-behind.journal.directory=" + journalDirectory,
+                            "logging.level.io.github.lizhifuabc=WARN",
+                            "bench.user-count=" + userCount,
+                            "bench.db-latency=" + dbLatency,
+                            "bench.db-jitter=" + dbJitter)
+                    .run();
+            return new BenchmarkEnvironment(redisServer, context);
+        } catch (IOException e) {
+            stopQuietly(redisServer);
+            throw new UncheckedIOException("启动基准测试环境失败", e);
+        } catch (RuntimeException e) {
+            stopQuietly(redisServer);
+            throw e;
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        stopQuietly(redisServer);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void stopQuietly(RedisServer redisServer) {
+        if (redisServer == null) {
+            return;
+        }
+        try {
+            redisServer.stop();
+        } catch (IOException ignored) {
+            // 进程退出时内嵌 Redis 会随之结束
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.lizhifuabc.redis.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 基准测试入口
+ * <p>
+ * 结果以 JSON 格式写入 {@code target/jmh/<版本>.json}，版本取系统属性 {@code bench.revision}，
+ * 未指定时为 {@code local}；在不同提交上分别运行后用 {@link BenchmarkReportComparator} 对比。
+ * 命令行参数与 JMH 相同，例如只运行混合读写：{@code java -jar target/benchmarks.jar CacheMixedBenchmark}。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Path output = Path.of("target", "jmh", System.getProperty("bench.revision", "local") + ".json");
+        try {
+            Files.createDirectories(output.getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建结果目录失败: " + output.getParent(), e);
+        }
+
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(AbstractCacheBenchmark.class.getPackageName() + ".Cache.*Benchmark");
+        }
+        Options options = builder
+                .parent(commandLine)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output.toString())
+                .build();
+        new Runner(options).run();
+    }
+}
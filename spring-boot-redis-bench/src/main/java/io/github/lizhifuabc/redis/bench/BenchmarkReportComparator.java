@@ -0,0 +1,85 @@
+package io.github.lizhifuabc.redis.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次基准测试的 JSON 结果
+ * <p>
+ * 按 基准方法 + 模式 + 参数 匹配，输出两次的得分和变化比例；SampleTime 模式额外对比 p99。
+ * 用法：{@code java -cp target/benchmarks.jar io.github.lizhifuabc.redis.bench.BenchmarkReportComparator 基线.json 当前.json}
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public final class BenchmarkReportComparator {
+    private static final String P99 = "99.0";
+
+    private BenchmarkReportComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: BenchmarkReportComparator <基线.json> <当前.json>");
+            System.exit(1);
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(mapper.readTree(Path.of(args[0]).toFile()));
+        Map<String, JsonNode> current = index(mapper.readTree(Path.of(args[1]).toFile()));
+
+        System.out.printf("%-100s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            print(entry.getKey() + " [" + unit + "]", before == null ? Double.NaN : score(before), score(after));
+            if ("sample".equals(after.path("mode").asText())) {
+                print(entry.getKey() + " p99 [" + unit + "]",
+                        before == null ? Double.NaN : p99(before), p99(after));
+            }
+        }
+    }
+
+    /**
+     * 以 基准方法 + 模式 + 参数 为 key 建立索引
+     */
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> index = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder()
+                    .append(result.path("benchmark").asText())
+                    .append(' ').append(result.path("mode").asText());
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            index.put(key.toString(), result);
+        }
+        return index;
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble(Double.NaN);
+    }
+
+    private static double p99(JsonNode result) {
+        return result.path("primaryMetric").path("scorePercentiles").path(P99).asDouble(Double.NaN);
+    }
+
+    private static void print(String name, double before, double after) {
+        String change = Double.isNaN(before) || before == 0
+                ? "n/a"
+                : String.format("%+.1f%%", (after - before) / before * 100);
+        System.out.printf("%-100s %14.3f %14.3f %9s%n", name, before, after, change);
+    }
+}
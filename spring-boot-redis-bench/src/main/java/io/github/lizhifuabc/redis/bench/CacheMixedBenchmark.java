@@ -0,0 +1,41 @@
+package io.github.lizhifuabc.redis.bench;
+
+import io.github.lizhifuabc.redis.cache.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各缓存策略在不同读写比例下的吞吐量和延迟分位数
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class CacheMixedBenchmark extends AbstractCacheBenchmark {
+
+    /**
+     * 读操作占比
+     */
+    @Param({"0.95", "0.8", "0.5"})
+    public double readRatio;
+
+    @Benchmark
+    public User mixed() {
+        return ThreadLocalRandom.current().nextDouble() < readRatio ? readOne() : writeOne();
+    }
+}
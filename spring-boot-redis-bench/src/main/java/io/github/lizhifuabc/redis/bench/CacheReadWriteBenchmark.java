@@ -0,0 +1,40 @@
+package io.github.lizhifuabc.redis.bench;
+
+import io.github.lizhifuabc.redis.cache.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各缓存策略的纯读、纯写吞吐量和延迟分位数
+ * <p>
+ * SampleTime 模式输出 p50 ~ p99.99 延迟，Throughput 模式输出每秒操作数。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class CacheReadWriteBenchmark extends AbstractCacheBenchmark {
+
+    @Benchmark
+    public User read() {
+        return readOne();
+    }
+
+    @Benchmark
+    public User write() {
+        return writeOne();
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.lizhifuabc.redis.bench;
+
+import io.github.lizhifuabc.redis.cache.model.User;
+import io.github.lizhifuabc.redis.cache.service.CacheAsideService;
+import io.github.lizhifuabc.redis.cache.service.WriteBehindService;
+import io.github.lizhifuabc.redis.cache.service.WriteThroughService;
+
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * 参与对比的缓存策略
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public enum CacheStrategy {
+    CACHE_ASIDE {
+        @Override
+        Operations bind(BenchmarkEnvironment environment) {
+            CacheAsideService service = environment.getBean(CacheAsideService.class);
+            return new Operations(service::getUser, service::updateUser);
+        }
+    },
+    WRITE_THROUGH {
+        @Override
+        Operations bind(BenchmarkEnvironment environment) {
+            WriteThroughService service = environment.getBean(WriteThroughService.class);
+            return new Operations(service::getUser, service::updateUser);
+        }
+    },
+    WRITE_BEHIND {
+        @Override
+        Operations bind(BenchmarkEnvironment environment) {
+            WriteBehindService service = environment.getBean(WriteBehindService.class);
+            return new Operations(service::getUser, service::updateUser);
+        }
+    };
+
+    /**
+     * 取出对应的服务，绑定读写操作
+     */
+    abstract Operations bind(BenchmarkEnvironment environment);
+
+    /**
+     * 一种策略的读写操作
+     */
+    static final class Operations {
+        private final Function<Long, User> reader;
+        private final UnaryOperator<User> writer;
+
+        private Operations(Function<Long, User> reader, UnaryOperator<User> writer) {
+            this.reader = reader;
+            this.writer = writer;
+        }
+
+        User read(long id) {
+            return reader.apply(id);
+        }
+
+        User write(User user) {
+            return writer.apply(user);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.lizhifuabc.redis.bench;
+
+import io.github.lizhifuabc.redis.id.RedisIdGenService;
+import io.github.lizhifuabc.redis.id.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID 生成器吞吐量对比：逐个 INCR、号段模式、雪花算法
+ * <p>
+ * 运行环境与缓存基准测试相同，见 {@link BenchmarkEnvironment}；默认入口只运行缓存基准测试，
+ * 需要显式指定：{@code java -jar target/benchmarks.jar IdGenBenchmark}
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Threads(8)
+@Fork(1)
+public class IdGenBenchmark {
+    private static final String KEY_PREFIX = "bench:id:gen";
+
+    private BenchmarkEnvironment environment;
+    private RedisIdGenService redisIdGenService;
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start(0, Duration.ZERO, Duration.ZERO);
+        redisIdGenService = environment.getBean(RedisIdGenService.class);
+        snowflakeIdGenerator = environment.getBean(SnowflakeIdGenerator.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public long incr() {
+        return redisIdGenService.nextId(KEY_PREFIX);
+    }
+
+    @Benchmark
+    public long segment() {
+        return redisIdGenService.nextSegmentId(KEY_PREFIX);
+    }
+
+    @Benchmark
+    public long snowflake() {
+        return snowflakeIdGenerator.nextId();
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.lizhifuabc.redis.bench;
+
+import io.github.lizhifuabc.redis.cache.model.User;
+import io.github.lizhifuabc.redis.cache.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 注入数据库延迟的 {@link UserRepository}
+ * <p>
+ * 替换原实现中固定的 100~200ms 休眠：每次调用的延迟在 [base, base + jitter) 之间均匀分布，
+ * 批量操作在此基础上按条数增加少量延迟，模拟 IN 查询和批量写入的耗时随数据量增长。
+ * 启动时预置 {@code [0, userCount)} 的用户，与 {@link ZipfianGenerator} 生成的 key 范围一致。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class LatencyUserRepository extends UserRepository {
+    /**
+     * 批量操作每条记录增加的延迟（纳秒）
+     */
+    private static final long PER_ROW_NANOS = 20_000;
+
+    private final Map<Long, User> userStore = new ConcurrentHashMap<>();
+    private final long baseNanos;
+    private final long jitterNanos;
+
+    public LatencyUserRepository(int userCount, Duration base, Duration jitter) {
+        this.baseNanos = base.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        for (long id = 0; id < userCount; id++) {
+            userStore.put(id, new User(id, "user" + id, "user" + id + "@example.com"));
+        }
+    }
+
+    @Override
+    public User findById(Long id) {
+        pause(1);
+        return userStore.get(id);
+    }
+
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        pause(ids.size());
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = userStore.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<Long> findAllIds() {
+        pause(1);
+        return new ArrayList<>(userStore.keySet());
+    }
+
+    @Override
+    public User save(User user) {
+        pause(1);
+        if (user.getCreateTime() == null) {
+            user.setCreateTime(LocalDateTime.now());
+        }
+        user.setUpdateTime(LocalDateTime.now());
+        userStore.put(user.getId(), user);
+        return user;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        pause(1);
+        userStore.remove(id);
+    }
+
+    @Override
+    public void saveAll(Collection<User> users) {
+        pause(users.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (User user : users) {
+            if (user.getCreateTime() == null) {
+                user.setCreateTime(now);
+            }
+            user.setUpdateTime(now);
+            userStore.put(user.getId(), user);
+        }
+    }
+
+    @Override
+    public void deleteAllById(Collection<Long> ids) {
+        pause(ids.size());
+        ids.forEach(userStore::remove);
+    }
+
+    private void pause(int rows) {
+        long jitter = jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos) : 0;
+        long nanos = baseNanos + jitter + (rows > 1 ? rows * PER_ROW_NANOS : 0);
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+}
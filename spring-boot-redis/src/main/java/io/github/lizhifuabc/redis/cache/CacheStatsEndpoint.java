@@ -0,0 +1,152 @@
+package io.github.lizhifuabc.redis.cache;
+
+import io.github.lizhifuabc.redis.cache.near.NearCacheMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存统计端点：/actuator/caches-stats（路径映射见 application.properties）
+ * <p>
+ * 数据全部来自 {@link MeterRegistry} 中已注册的指标，端点本身不额外计数：
+ * <ul>
+ *     <li>caches：按缓存名称（key 前缀）汇总两级缓存命中、回源耗时、编解码耗时和写入字节数</li>
+ *     <li>writeBehind：按引擎汇总队列深度、最早记录等待时间、写入延迟和写入结果</li>
+ *     <li>refreshAhead：按引擎汇总跟踪的 key 数量和提前刷新结果</li>
+ * </ul>
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatsEndpoint {
+    private final MeterRegistry meterRegistry;
+
+    public CacheStatsEndpoint(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> cachesStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("caches", nearCaches());
+        result.put("writeBehind", writeBehindEngines());
+        result.put("refreshAhead", refreshAheadEngines());
+        return result;
+    }
+
+    private Map<String, Object> nearCaches() {
+        TreeSet<String> names = new TreeSet<>();
+        meterRegistry.find(NearCacheMetrics.GETS).counters().forEach(counter -> names.add(counter.getId().getTag("cache")));
+
+        Map<String, Object> caches = new TreeMap<>();
+        for (String name : names) {
+            double localHits = count(NearCacheMetrics.GETS, name, "local", "hit");
+            double localMisses = count(NearCacheMetrics.GETS, name, "local", "miss");
+            double redisHits = count(NearCacheMetrics.GETS, name, "redis", "hit");
+            double redisMisses = count(NearCacheMetrics.GETS, name, "redis", "miss");
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("localHits", (long) localHits);
+            stats.put("localMisses", (long) localMisses);
+            stats.put("redisHits", (long) redisHits);
+            stats.put("redisMisses", (long) redisMisses);
+            stats.put("localHitRate", ratio(localHits, localHits + localMisses));
+            stats.put("hitRate", ratio(localHits + redisHits, localHits + localMisses));
+            stats.put("load", timer(meterRegistry.find(NearCacheMetrics.LOAD).tag("cache", name).timer()));
+            stats.put("encode", timer(meterRegistry.find("cache.codec.encode").tag("cache", name).timer()));
+            stats.put("decode", timer(meterRegistry.find("cache.codec.decode").tag("cache", name).timer()));
+            stats.put("payloadSize", summary(meterRegistry.find("cache.payload.size").tag("cache", name).summary()));
+            caches.put(name, stats);
+        }
+        return caches;
+    }
+
+    private Map<String, Object> writeBehindEngines() {
+        Map<String, Object> engines = new TreeMap<>();
+        for (Gauge pending : meterRegistry.find("cache.write_behind.pending").gauges()) {
+            String engine = pending.getId().getTag("engine");
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("pending", (long) pending.value());
+            stats.put("oldestPendingAgeMillis", (long) gauge("cache.write_behind.oldest.age", engine));
+            stats.put("deadLetters", (long) gauge("cache.write_behind.dead_letters", engine));
+            stats.put("written", (long) writes(engine, "success"));
+            stats.put("failed", (long) writes(engine, "failure"));
+            stats.put("flushLag", timer(meterRegistry.find("cache.write_behind.flush.lag").tag("engine", engine).timer()));
+            engines.put(engine, stats);
+        }
+        return engines;
+    }
+
+    private Map<String, Object> refreshAheadEngines() {
+        Map<String, Object> engines = new TreeMap<>();
+        for (Gauge tracked : meterRegistry.find("cache.refresh_ahead.tracked").gauges()) {
+            String engine = tracked.getId().getTag("engine");
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("tracked", (long) tracked.value());
+            for (String result : new String[]{"success", "failure", "deferred"}) {
+                Counter counter = meterRegistry.find("cache.refresh_ahead.refreshes")
+                        .tag("engine", engine).tag("result", result).counter();
+                stats.put(result, counter == null ? 0L : (long) counter.count());
+            }
+            engines.put(engine, stats);
+        }
+        return engines;
+    }
+
+    private double count(String name, String cache, String tier, String result) {
+        Counter counter = meterRegistry.find(name).tag("cache", cache).tag("tier", tier).tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private double writes(String engine, String result) {
+        Counter counter = meterRegistry.find("cache.write_behind.writes").tag("engine", engine).tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private double gauge(String name, String engine) {
+        Gauge gauge = meterRegistry.find(name).tag("engine", engine).gauge();
+        return gauge == null ? 0 : gauge.value();
+    }
+
+    private static Map<String, Object> timer(Timer timer) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (timer == null) {
+            return stats;
+        }
+        stats.put("count", timer.count());
+        stats.put("meanMillis", timer.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxMillis", timer.max(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+
+    private static Map<String, Object> summary(DistributionSummary summary) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (summary == null) {
+            return stats;
+        }
+        Meter.Id id = summary.getId();
+        stats.put("count", summary.count());
+        stats.put("mean", summary.mean());
+        stats.put("max", summary.max());
+        stats.put("unit", id.getBaseUnit());
+        return stats;
+    }
+
+    private static double ratio(double part, double total) {
+        return total == 0 ? 0 : part / total;
+    }
+}
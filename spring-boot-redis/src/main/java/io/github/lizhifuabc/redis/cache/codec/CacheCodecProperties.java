@@ -0,0 +1,55 @@
+package io.github.lizhifuabc.redis.cache.codec;
+
+import io.github.lizhifuabc.redis.cache.model.User;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 缓存值编解码配置属性
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.codec")
+public class CacheCodecProperties {
+    /**
+     * 编解码格式
+     */
+    private CodecType type = CodecType.SMILE;
+
+    /**
+     * LZ4 压缩阈值（字节），编码结果不小于该值时压缩，小于等于 0 时关闭压缩
+     */
+    private int compressThreshold = 1024;
+
+    /**
+     * Kryo 注册的业务类型，顺序即注册 ID 顺序，集群内必须一致
+     */
+    private List<Class<?>> kryoTypes = new ArrayList<>(List.of(User.class));
+
+    /**
+     * 编解码格式
+     */
+    public enum CodecType {
+        /**
+         * JSON 文本
+         */
+        JSON,
+        /**
+         * Jackson Smile 二进制
+         */
+        SMILE,
+        /**
+         * CBOR 二进制
+         */
+        CBOR,
+        /**
+         * Kryo 二进制，需要注册类型
+         */
+        KRYO
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.lizhifuabc.redis.cache.codec;
+
+/**
+ * 缓存值编解码异常
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class CodecException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CodecException(String message) {
+        super(message);
+    }
+
+    public CodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.lizhifuabc.redis.cache.codec;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LZ4 压缩装饰器
+ * <p>
+ * 编码结果超过阈值时进行 LZ4 压缩，小对象压缩收益低，保持原样。
+ * 输出的第一个字节为格式标记：
+ * <ul>
+ *     <li>{@code 0}：未压缩，后面是原始编码</li>
+ *     <li>{@code 1}：LZ4 压缩，后面 4 字节为原始长度，再后面是压缩数据</li>
+ * </ul>
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class CompressingValueCodec implements ValueCodec {
+    private static final byte RAW = 0;
+    private static final byte LZ4 = 1;
+
+    /**
+     * 压缩格式的头部长度：标记 + 原始长度
+     */
+    private static final int LZ4_HEADER_SIZE = 5;
+
+    private final ValueCodec delegate;
+    private final int threshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    /**
+     * @param delegate  实际的编解码器
+     * @param threshold 压缩阈值（字节），编码结果不小于该值时才压缩
+     */
+    public CompressingValueCodec(ValueCodec delegate, int threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public String name() {
+        return delegate.name() + "+lz4";
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        byte[] raw = delegate.encode(value);
+        if (raw.length >= threshold) {
+            byte[] compressed = new byte[LZ4_HEADER_SIZE + compressor.maxCompressedLength(raw.length)];
+            int length = compressor.compress(raw, 0, raw.length, compressed, LZ4_HEADER_SIZE);
+            // 压缩后没有变小的数据（如已加密或已压缩的内容）按原样存储
+            if (LZ4_HEADER_SIZE + length < raw.length) {
+                ByteBuffer.wrap(compressed).put(LZ4).putInt(raw.length);
+                byte[] result = new byte[LZ4_HEADER_SIZE + length];
+                System.arraycopy(compressed, 0, result, 0, result.length);
+                return result;
+            }
+        }
+        byte[] result = new byte[raw.length + 1];
+        result[0] = RAW;
+        System.arraycopy(raw, 0, result, 1, raw.length);
+        return result;
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        if (bytes.length == 0) {
+            throw new CodecException("缓存数据为空");
+        }
+        if (bytes[0] == RAW) {
+            byte[] raw = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, raw, 0, raw.length);
+            return delegate.decode(raw, type);
+        }
+        if (bytes[0] == LZ4 && bytes.length >= LZ4_HEADER_SIZE) {
+            int rawLength = ByteBuffer.wrap(bytes, 1, 4).getInt();
+            try {
+                byte[] raw = new byte[rawLength];
+                decompressor.decompress(bytes, LZ4_HEADER_SIZE, raw, 0, rawLength);
+                return delegate.decode(raw, type);
+            } catch (LZ4Exception | NegativeArraySizeException e) {
+                throw new CodecException("LZ4 解压失败", e);
+            }
+        }
+        throw new CodecException("未知的缓存数据格式标记: " + bytes[0]);
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.lizhifuabc.redis.cache.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+
+/**
+ * 基于 Jackson 的编解码器，支持 JSON 和二进制的 Smile、CBOR 格式
+ * <p>
+ * 与 {@code GenericJackson2JsonRedisSerializer} 不同，这里不开启默认类型，值中不会写入类名；
+ * Smile 额外开启了属性名回引用，同一个值中重复出现的属性名只写一次。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class JacksonValueCodec implements ValueCodec {
+    private final String name;
+    private final ObjectMapper objectMapper;
+
+    private JacksonValueCodec(String name, JsonFactory factory) {
+        this.name = name;
+        this.objectMapper = new ObjectMapper(factory);
+        // 配置ObjectMapper以支持Java 8日期时间类型
+        this.objectMapper.registerModule(new JavaTimeModule());
+        // 新增字段不影响旧版本读取，便于滚动发布
+        this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * JSON 文本格式，可读性最好
+     */
+    public static JacksonValueCodec json() {
+        return new JacksonValueCodec("json", new JsonFactory());
+    }
+
+    /**
+     * Smile 二进制格式
+     */
+    public static JacksonValueCodec smile() {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .build();
+        return new JacksonValueCodec("smile", factory);
+    }
+
+    /**
+     * CBOR 二进制格式（RFC 8949）
+     */
+    public static JacksonValueCodec cbor() {
+        return new JacksonValueCodec("cbor", new CBORFactory());
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new CodecException(name + " 编码失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        try {
+            return objectMapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new CodecException(name + " 解码失败: " + type.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.lizhifuabc.redis.cache.codec;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.Pool;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 基于 Kryo 的编解码器
+ * <p>
+ * 要求显式注册所有可能出现的类型（{@code registrationRequired=true}），类型以注册 ID 写入，
+ * 不携带类名。注册 ID 由注册顺序决定，集群内所有节点必须使用相同的注册列表。
+ * <p>
+ * Kryo 默认按字段顺序编码，注册类的字段发生变化时，应同时更换缓存 key 前缀或清理旧缓存。
+ * Kryo 实例不是线程安全的，这里通过对象池复用。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class KryoValueCodec implements ValueCodec {
+    /**
+     * 自定义类型的起始注册 ID，之前的 ID 留给 Kryo 内置类型和下面的公共类型
+     */
+    private static final int FIRST_REGISTRATION_ID = 100;
+
+    /**
+     * 输出缓冲区初始大小
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 512;
+
+    /**
+     * 公共类型，按固定顺序注册
+     */
+    private static final List<Class<?>> COMMON_TYPES = List.of(
+            LocalDateTime.class, LocalDate.class, LocalTime.class, Instant.class, Duration.class,
+            ArrayList.class, HashMap.class);
+
+    private final Pool<Kryo> kryoPool;
+    private final Pool<Output> outputPool;
+
+    /**
+     * @param registeredTypes 需要缓存的业务类型，顺序即注册 ID 顺序
+     */
+    public KryoValueCodec(List<Class<?>> registeredTypes) {
+        List<Class<?>> types = List.copyOf(registeredTypes);
+        this.kryoPool = new Pool<>(true, false) {
+            @Override
+            protected Kryo create() {
+                Kryo kryo = new Kryo();
+                kryo.setRegistrationRequired(true);
+                kryo.setReferences(false);
+                int id = FIRST_REGISTRATION_ID - COMMON_TYPES.size();
+                for (Class<?> type : COMMON_TYPES) {
+                    kryo.register(type, id++);
+                }
+                id = FIRST_REGISTRATION_ID;
+                for (Class<?> type : types) {
+                    kryo.register(type, id++);
+                }
+                return kryo;
+            }
+        };
+        this.outputPool = new Pool<>(true, false) {
+            @Override
+            protected Output create() {
+                return new Output(OUTPUT_BUFFER_SIZE, -1);
+            }
+        };
+    }
+
+    @Override
+    public String name() {
+        return "kryo";
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        Kryo kryo = kryoPool.obtain();
+        Output output = outputPool.obtain();
+        try {
+            output.reset();
+            kryo.writeObject(output, value);
+            return output.toBytes();
+        } catch (KryoException e) {
+            throw new CodecException("kryo 编码失败: " + value.getClass().getName(), e);
+        } finally {
+            outputPool.free(output);
+            kryoPool.free(kryo);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        Kryo kryo = kryoPool.obtain();
+        try {
+            return kryo.readObject(new Input(bytes), type);
+        } catch (KryoException e) {
+            throw new CodecException("kryo 解码失败: " + type.getName(), e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+}
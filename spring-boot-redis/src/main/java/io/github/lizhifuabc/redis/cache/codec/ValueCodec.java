@@ -0,0 +1,36 @@
+package io.github.lizhifuabc.redis.cache.codec;
+
+/**
+ * 缓存值编解码器 SPI
+ * <p>
+ * 决定缓存对象在 Redis 中的二进制形式，实现类必须是线程安全的。
+ * 解码时由调用方给出目标类型，因此编码结果中不需要携带类名等类型元数据。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public interface ValueCodec {
+    /**
+     * 编解码器名称，用于指标标签
+     */
+    String name();
+
+    /**
+     * 编码
+     *
+     * @param value 缓存对象
+     * @return 编码后的字节
+     * @throws CodecException 编码失败
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码
+     *
+     * @param bytes 编码后的字节
+     * @param type  目标类型
+     * @return 缓存对象
+     * @throws CodecException 解码失败（包括数据格式与当前编解码器不匹配）
+     */
+    <T> T decode(byte[] bytes, Class<T> type);
+}
@@ -0,0 +1,67 @@
+package io.github.lizhifuabc.redis.cache.consistency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 缓存失效配置属性
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.invalidation")
+public class CacheInvalidationProperties {
+    /**
+     * 延迟双删的间隔，应大于一次回源加载的耗时，小于等于 0 时关闭第二次删除
+     */
+    private Duration doubleDeleteDelay = Duration.ofSeconds(1);
+
+    /**
+     * 失效事件 Stream 配置
+     */
+    private Stream stream = new Stream();
+
+    /**
+     * 失效事件 Stream 配置
+     */
+    @Data
+    public static class Stream {
+        /**
+         * 是否消费失效事件
+         */
+        private boolean enabled = true;
+
+        /**
+         * Stream 的 key
+         */
+        private String key = "cache:invalidation";
+
+        /**
+         * 消费者组，组内每条事件只由一个节点处理，各节点的本地缓存通过 pub/sub 失效
+         */
+        private String group = "cache-invalidator";
+
+        /**
+         * 消费者名称，为空时使用主机名；重启后名称不变才能继续处理上次未确认的事件
+         */
+        private String consumerName;
+
+        /**
+         * Stream 最多保留的事件数（近似裁剪）
+         */
+        private long maxLength = 100_000;
+
+        /**
+         * 单次读取的最大事件数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 阻塞读取的超时时间
+         */
+        private Duration pollTimeout = Duration.ofSeconds(2);
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.lizhifuabc.redis.cache.consistency;
+
+import io.github.lizhifuabc.redis.cache.near.NearCacheManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 基于 Redis Stream 的缓存失效事件
+ * <p>
+ * 用于数据变更不经过缓存服务的场景：数据库变更日志（binlog）的订阅程序、批处理任务、其他语言的服务等
+ * 把变更的缓存 key 写入 Stream，由本组件消费并失效缓存。
+ * <ul>
+ *     <li>事件字段：{@code cache} 缓存名称，{@code key} 缓存 key，{@code version} 可选的新版本号</li>
+ *     <li>使用消费者组，每条事件只由一个节点处理：删除 Redis 中的数据（带版本号时推进版本号），
+ *     再通过 pub/sub 让所有节点失效本地缓存</li>
+ *     <li>处理成功后才确认；启动时先重新处理本消费者上次未确认的事件，失效操作是幂等的</li>
+ * </ul>
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+@Component
+public class CacheInvalidationStream {
+    private static final String FIELD_CACHE = "cache";
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_VERSION = "version";
+
+    private final CacheInvalidationProperties.Stream properties;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final NearCacheManager nearCacheManager;
+    private final String consumerName;
+
+    private StreamMessageListenerContainer<String, MapRecord<String, String, String>> container;
+
+    public CacheInvalidationStream(CacheInvalidationProperties properties, StringRedisTemplate redisTemplate,
+                                   RedisConnectionFactory connectionFactory, NearCacheManager nearCacheManager) {
+        this.properties = properties.getStream();
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.nearCacheManager = nearCacheManager;
+        this.consumerName = this.properties.getConsumerName() != null
+                ? this.properties.getConsumerName() : defaultConsumerName();
+    }
+
+    /**
+     * 发布失效事件
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存 key
+     * @param version   数据的新版本号，为 null 时直接删除
+     * @return 事件ID
+     */
+    public RecordId publish(String cacheName, String key, Long version) {
+        Map<String, String> fields = new HashMap<>(4);
+        fields.put(FIELD_CACHE, cacheName);
+        fields.put(FIELD_KEY, key);
+        if (version != null) {
+            fields.put(FIELD_VERSION, Long.toString(version));
+        }
+        RecordId id = redisTemplate.opsForStream().add(StreamRecords.string(fields).withStreamKey(properties.getKey()));
+        redisTemplate.opsForStream().trim(properties.getKey(), properties.getMaxLength(), true);
+        return id;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        createGroup();
+        replayPending();
+
+        StreamMessageListenerContainer.StreamMessageListenerContainerOptions<String, MapRecord<String, String, String>> options =
+                StreamMessageListenerContainer.StreamMessageListenerContainerOptions.builder()
+                        .batchSize(properties.getBatchSize())
+                        .pollTimeout(properties.getPollTimeout())
+                        .errorHandler(e -> log.warn("读取缓存失效事件失败", e))
+                        .build();
+        container = StreamMessageListenerContainer.create(connectionFactory, options);
+        container.receive(Consumer.from(properties.getGroup(), consumerName),
+                StreamOffset.create(properties.getKey(), ReadOffset.lastConsumed()),
+                this::handle);
+        container.start();
+        log.info("缓存失效事件消费已启动，Stream: {}，消费者组: {}，消费者: {}",
+                properties.getKey(), properties.getGroup(), consumerName);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    private void handle(MapRecord<String, String, String> record) {
+        Map<String, String> fields = record.getValue();
+        String cacheName = fields.get(FIELD_CACHE);
+        String key = fields.get(FIELD_KEY);
+        if (cacheName == null || key == null) {
+            log.warn("忽略格式错误的缓存失效事件: {}", record);
+            acknowledge(record.getId());
+            return;
+        }
+        try {
+            String version = fields.get(FIELD_VERSION);
+            nearCacheManager.invalidate(cacheName, key, version == null ? null : Long.valueOf(version));
+            acknowledge(record.getId());
+            log.debug("处理缓存失效事件，cache: {}, key: {}, version: {}", cacheName, key, version);
+        } catch (Exception e) {
+            // 不确认，重启后重新处理
+            log.warn("处理缓存失效事件失败，id: {}, cache: {}, key: {}", record.getId(), cacheName, key, e);
+        }
+    }
+
+    private void acknowledge(RecordId id) {
+        redisTemplate.opsForStream().acknowledge(properties.getKey(), properties.getGroup(), id);
+    }
+
+    /**
+     * 重新处理本消费者已读取但未确认的事件
+     */
+    private void replayPending() {
+        ReadOffset offset = ReadOffset.from("0");
+        int replayed = 0;
+        while (true) {
+            List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+                    Consumer.from(properties.getGroup(), consumerName),
+                    StreamReadOptions.empty().count(properties.getBatchSize()),
+                    StreamOffset.create(properties.getKey(), offset));
+            if (records == null || records.isEmpty()) {
+                break;
+            }
+            for (MapRecord<String, Object, Object> record : records) {
+                Map<String, String> fields = new HashMap<>();
+                record.getValue().forEach((field, value) -> fields.put(String.valueOf(field), String.valueOf(value)));
+                handle(StreamRecords.string(fields).withStreamKey(properties.getKey()).withId(record.getId()));
+                replayed++;
+            }
+            // 从最后一条之后继续读取，处理失败的事件仍留在待确认列表中
+            offset = ReadOffset.from(records.get(records.size() - 1).getId());
+        }
+        if (replayed > 0) {
+            log.info("重新处理未确认的缓存失效事件，数量: {}", replayed);
+        }
+    }
+
+    /**
+     * 创建消费者组，Stream 不存在时一并创建；组已存在时忽略
+     */
+    private void createGroup() {
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands().xGroupCreate(
+                    properties.getKey().getBytes(StandardCharsets.UTF_8), properties.getGroup(),
+                    ReadOffset.from("0"), true));
+        } catch (Exception e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private static String defaultConsumerName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
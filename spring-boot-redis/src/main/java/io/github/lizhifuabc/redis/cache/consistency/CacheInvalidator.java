@@ -0,0 +1,91 @@
+package io.github.lizhifuabc.redis.cache.consistency;
+
+import io.github.lizhifuabc.redis.cache.near.NearCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存失效：版本号保护 + 延迟双删
+ * <p>
+ * 先更新数据库再删除缓存时，更新前开始的读请求可能在删除之后把旧数据写回缓存，并一直保留到过期：
+ * <ol>
+ *     <li>失效时推进版本号，版本更旧的加载结果无法回填（需要缓存设置了版本号提取函数）</li>
+ *     <li>间隔 doubleDeleteDelay 后再删除一次，兜底没有版本号的缓存，以及失效时恰好在途的写入</li>
+ * </ol>
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(CacheInvalidationProperties.class)
+public class CacheInvalidator {
+    private final CacheInvalidationProperties properties;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cache-double-delete");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CacheInvalidator(CacheInvalidationProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 按版本号失效，并安排第二次删除
+     *
+     * @param cache   缓存
+     * @param key     缓存 key
+     * @param version 更新后数据的版本号
+     */
+    public void invalidate(NearCache<?> cache, String key, long version) {
+        cache.invalidate(key, version);
+        scheduleSecondDelete(cache, key);
+    }
+
+    /**
+     * 删除缓存，并安排第二次删除
+     *
+     * @param cache 缓存
+     * @param key   缓存 key
+     */
+    public void evict(NearCache<?> cache, String key) {
+        cache.evict(key);
+        scheduleSecondDelete(cache, key);
+    }
+
+    /**
+     * 关闭时已安排的第二次删除仍会执行
+     */
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdown();
+    }
+
+    private void scheduleSecondDelete(NearCache<?> cache, String key) {
+        long delay = properties.getDoubleDeleteDelay().toMillis();
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            scheduler.schedule(() -> {
+                try {
+                    cache.evict(key);
+                    log.debug("延迟双删完成，cache: {}, key: {}", cache.getName(), key);
+                } catch (Exception e) {
+                    log.warn("延迟双删失败，cache: {}, key: {}", cache.getName(), key, e);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // 关闭中，第一次删除已经完成
+            log.warn("延迟双删未能安排，cache: {}, key: {}", cache.getName(), key, e);
+        }
+    }
+}
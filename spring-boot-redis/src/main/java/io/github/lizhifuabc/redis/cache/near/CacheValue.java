@@ -0,0 +1,43 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+/**
+ * 本地缓存条目，记录值及其在 Redis 中的过期时间，供提前刷新策略使用
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+final class CacheValue<V> {
+    private final V value;
+
+    /**
+     * 过期时间戳（毫秒），小于等于 0 表示未知
+     */
+    private final long expireAt;
+
+    /**
+     * 值编码后的字节数，用于选择本地缓存的层级，小于等于 0 表示未知
+     */
+    private final int encodedSize;
+
+    CacheValue(V value, long expireAt) {
+        this(value, expireAt, 0);
+    }
+
+    CacheValue(V value, long expireAt, int encodedSize) {
+        this.value = value;
+        this.expireAt = expireAt;
+        this.encodedSize = encodedSize;
+    }
+
+    V getValue() {
+        return value;
+    }
+
+    long getExpireAt() {
+        return expireAt;
+    }
+
+    int getEncodedSize() {
+        return encodedSize;
+    }
+}
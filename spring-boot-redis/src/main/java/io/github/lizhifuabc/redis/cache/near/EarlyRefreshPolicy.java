@@ -0,0 +1,62 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 概率提前刷新策略（XFetch）
+ * <p>
+ * 每次命中时按 {@code now - delta * beta * ln(rand) >= expireAt} 判断是否提前刷新：
+ * <ul>
+ *     <li>delta：一次回源加载的耗时，使用指数加权移动平均估算</li>
+ *     <li>beta：激进程度，1.0 为论文推荐值，越大越早刷新</li>
+ * </ul>
+ * 越接近过期、回源越慢，提前刷新的概率越高，热点 key 会在过期前被某个请求刷新，
+ * 而不是在同一时刻集体失效。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class EarlyRefreshPolicy {
+    /**
+     * 默认激进程度
+     */
+    static final double DEFAULT_BETA = 1.0;
+
+    private final double beta;
+
+    /**
+     * 回源耗时估算（毫秒）
+     */
+    private volatile long deltaMillis;
+
+    EarlyRefreshPolicy(double beta) {
+        this.beta = beta;
+    }
+
+    /**
+     * 是否应当提前刷新
+     *
+     * @param expireAt 过期时间戳（毫秒），小于等于 0 表示未知或永不过期
+     */
+    boolean shouldRefresh(long expireAt) {
+        long delta = deltaMillis;
+        if (beta <= 0 || delta <= 0 || expireAt <= 0) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        // ln(random) 为负数，因此这里是向后偏移当前时间
+        return System.currentTimeMillis() - delta * beta * Math.log(random) >= expireAt;
+    }
+
+    /**
+     * 记录一次回源耗时
+     *
+     * @param elapsedMillis 耗时（毫秒）
+     */
+    void recordLoad(long elapsedMillis) {
+        long sample = Math.max(1, elapsedMillis);
+        long delta = deltaMillis;
+        // 权重 1/8 的指数加权移动平均，首次直接取样本值
+        deltaMillis = delta == 0 ? sample : delta + (sample - delta) / 8;
+    }
+}
@@ -0,0 +1,619 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.lizhifuabc.redis.cache.codec.CodecException;
+import io.github.lizhifuabc.redis.cache.codec.ValueCodec;
+import io.github.lizhifuabc.redis.hotkey.HotKeyRedisReader;
+import io.github.lizhifuabc.redis.local.LocalCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 二级缓存（近端缓存）
+ * <p>
+ * L1 为进程内的 {@link LocalCache}，L2 为 Redis：
+ * <ol>
+ *     <li>读取时先查 L1，未命中再查 Redis，并将结果回填到 L1，热点 key 无需每次都走网络和反序列化</li>
+ *     <li>更新、删除时同步修改 Redis 和本节点的 L1，并通过 Redis pub/sub 通知其他节点失效各自的 L1</li>
+ * </ol>
+ * L1 的过期时间应明显短于 L2，即便失效消息丢失，本地脏数据的存活时间也是有界的。
+ * L1 未命中时对 Redis 的读取经过 {@link HotKeyRedisReader}，多个节点同时读取的热点 key 可以直接使用其本地副本，
+ * 本节点写入或收到失效消息时一并移除该副本。
+ * <p>
+ * 通过 {@link #get(String, Function)} 读取时还会防止缓存击穿：
+ * <ol>
+ *     <li>同一 JVM 内同一 key 只有一个线程回源，其余线程等待同一个加载结果（{@link SingleFlight}）</li>
+ *     <li>设置了租约时间时，跨节点通过 Redis 租约锁保证同一时刻只有一个节点回源</li>
+ *     <li>命中时按 XFetch 策略概率性地在过期前异步刷新，避免热点 key 集中过期</li>
+ * </ol>
+ * <p>
+ * Redis 中的值由 {@link ValueCodec} 编码，不携带类型元数据。每个缓存按名称记录编解码耗时
+ * （{@code cache.codec.encode}、{@code cache.codec.decode}）和写入的字节数（{@code cache.payload.size}），
+ * 读取命中率和回源耗时见 {@link NearCacheMetrics}。
+ * <p>
+ * 设置了版本号提取函数（{@link #setVersionExtractor(ToLongFunction)}）时，写入 Redis 改为按版本号 CAS，
+ * 失效时推进版本号，见 {@link VersionedCacheScripts}。
+ * <p>
+ * 实例由 {@link NearCacheManager} 创建，缓存的 key 即 Redis 中的完整 key。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+public class NearCache<V> {
+    /**
+     * 未抢到租约的节点轮询 Redis 的间隔（毫秒）
+     */
+    private static final long LEASE_POLL_INTERVAL_MILLIS = 20;
+
+    /**
+     * 批量回填时过期时间的最大随机抖动比例
+     */
+    private static final double TTL_JITTER_RATIO = 0.1;
+
+    /**
+     * 缓存名称，用于跨节点失效消息的路由
+     */
+    private final String name;
+
+    private final Class<V> type;
+
+    /**
+     * L1 本地缓存
+     */
+    private final LocalCache<String, CacheValue<V>> localCache;
+
+    /**
+     * L2 缓存的过期时间
+     */
+    private final Duration ttl;
+
+    /**
+     * 读写缓存值的二进制模板
+     */
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final ValueCodec codec;
+    private final NearCacheManager manager;
+    private final HotKeyRedisReader hotKeyReader;
+
+    private final Timer encodeTimer;
+    private final Timer decodeTimer;
+    private final DistributionSummary payloadSize;
+    private final NearCacheMetrics metrics;
+
+    private final SingleFlight<String, V> singleFlight = new SingleFlight<>();
+
+    /**
+     * 提前刷新单独合并：刷新没抢到租约时结果为 null，不能被同步回源的调用者复用
+     */
+    private final SingleFlight<String, V> refreshFlight = new SingleFlight<>();
+    private final RedisLeaseLock leaseLock;
+
+    /**
+     * 异步刷新使用的线程池
+     */
+    private final Executor refreshExecutor;
+
+    /**
+     * 跨节点加载租约时间，为 null 时只做 JVM 内的请求合并
+     */
+    private volatile Duration leaseTime;
+
+    private volatile EarlyRefreshPolicy earlyRefreshPolicy = new EarlyRefreshPolicy(EarlyRefreshPolicy.DEFAULT_BETA);
+
+    /**
+     * 从缓存值中提取版本号，为 null 时不做版本检查
+     */
+    private volatile ToLongFunction<V> versionExtractor;
+
+    NearCache(String name, Class<V> type, LocalCache<String, CacheValue<V>> localCache, Duration ttl,
+              RedisTemplate<String, byte[]> redisTemplate, StringRedisTemplate stringRedisTemplate,
+              ValueCodec codec, MeterRegistry meterRegistry, NearCacheManager manager,
+              HotKeyRedisReader hotKeyReader, Executor refreshExecutor) {
+        this.name = name;
+        this.type = type;
+        this.localCache = localCache;
+        this.ttl = ttl;
+        this.redisTemplate = redisTemplate;
+        this.codec = codec;
+        this.manager = manager;
+        this.hotKeyReader = hotKeyReader;
+        this.refreshExecutor = refreshExecutor;
+        this.leaseLock = new RedisLeaseLock(stringRedisTemplate);
+
+        this.encodeTimer = Timer.builder("cache.codec.encode")
+                .description("缓存值编码耗时")
+                .tag("cache", name)
+                .tag("codec", codec.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.decodeTimer = Timer.builder("cache.codec.decode")
+                .description("缓存值解码耗时")
+                .tag("cache", name)
+                .tag("codec", codec.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.payloadSize = DistributionSummary.builder("cache.payload.size")
+                .description("写入 Redis 的缓存值大小")
+                .baseUnit("bytes")
+                .tag("cache", name)
+                .tag("codec", codec.name())
+                .register(meterRegistry);
+        this.metrics = new NearCacheMetrics(name, meterRegistry);
+    }
+
+    /**
+     * 开启跨节点的加载租约锁
+     *
+     * @param leaseTime 租约时间，应略大于一次回源的耗时；为 null 时关闭
+     */
+    public void setLeaseTime(Duration leaseTime) {
+        this.leaseTime = leaseTime;
+    }
+
+    /**
+     * 设置提前刷新的激进程度
+     *
+     * @param beta XFetch 的 beta 参数，小于等于 0 时关闭提前刷新
+     */
+    public void setEarlyRefreshBeta(double beta) {
+        this.earlyRefreshPolicy = new EarlyRefreshPolicy(beta);
+    }
+
+    /**
+     * 开启版本号检查，之后写入 Redis 时版本更旧的值不会覆盖新值
+     *
+     * @param versionExtractor 从缓存值中提取版本号，版本号随数据更新单调递增（如更新时间戳）
+     */
+    public void setVersionExtractor(ToLongFunction<V> versionExtractor) {
+        this.versionExtractor = versionExtractor;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public NearCacheMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * 获取缓存，先查 L1 再查 L2
+     *
+     * @param key 缓存 key
+     * @return 缓存值，两级缓存都不存在时返回 null
+     */
+    public V get(String key) {
+        CacheValue<V> entry = getEntry(key);
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * 获取缓存，未命中时合并回源加载并回填
+     *
+     * @param key    缓存 key
+     * @param loader 回源加载逻辑，返回 null 表示数据不存在，不会被缓存
+     * @return 缓存值或加载结果
+     */
+    public V get(String key, Function<String, V> loader) {
+        CacheValue<V> entry = getEntry(key);
+        if (entry != null) {
+            if (earlyRefreshPolicy.shouldRefresh(entry.getExpireAt())) {
+                refreshFlight.loadAsync(key, () -> refresh(key, loader), refreshExecutor);
+            }
+            return entry.getValue();
+        }
+        return singleFlight.load(key, () -> loadWithLease(key, loader));
+    }
+
+    /**
+     * 批量获取缓存，未命中的 key 合并为一次回源加载
+     * <ol>
+     *     <li>先查 L1，L1 未命中的 key 在一个管道中读取 Redis</li>
+     *     <li>Redis 也未命中的 key 一次性交给 loader 加载</li>
+     *     <li>加载结果在一个管道中回填，过期时间加入随机抖动，避免同一批 key 同时过期</li>
+     * </ol>
+     * 批量读取不经过请求合并和租约锁，适合列表页等一次读取多条数据的场景
+     *
+     * @param keys   缓存 key
+     * @param loader 批量回源加载逻辑，入参为未命中的 key，返回存在的数据
+     * @return key 到缓存值的映射，不包含两级缓存和数据源中都不存在的 key
+     */
+    public Map<String, V> getAll(Collection<String> keys, Function<List<String>, Map<String, V>> loader) {
+        Map<String, V> result = new HashMap<>();
+        List<String> localMisses = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            CacheValue<V> entry = localCache.getIfPresent(key).orElse(null);
+            if (entry != null) {
+                result.put(key, entry.getValue());
+            } else {
+                localMisses.add(key);
+            }
+        }
+        metrics.recordLocal(result.size(), localMisses.size());
+        if (localMisses.isEmpty()) {
+            return result;
+        }
+
+        Map<String, CacheValue<V>> remote = hotKeyReader.getAll(localMisses, this::readRemoteAll);
+        List<String> misses = new ArrayList<>();
+        for (String key : localMisses) {
+            CacheValue<V> entry = remote.get(key);
+            if (entry != null) {
+                localCache.put(key, entry);
+                result.put(key, entry.getValue());
+            } else {
+                misses.add(key);
+            }
+        }
+        metrics.recordRedis(localMisses.size() - misses.size(), misses.size());
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        long start = System.nanoTime();
+        Map<String, V> loaded = loader.apply(misses);
+        metrics.recordLoad(System.nanoTime() - start);
+        if (loaded != null && !loaded.isEmpty()) {
+            populateAll(loaded);
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    /**
+     * 批量回填缓存：在一个管道中写入 Redis，过期时间加入随机抖动，不广播失效消息
+     *
+     * @param values key 到缓存值的映射
+     */
+    public void populateAll(Map<String, V> values) {
+        long ttlMillis = ttl.toMillis();
+        long maxJitter = (long) (ttlMillis * TTL_JITTER_RATIO);
+        Map<String, byte[]> encoded = new HashMap<>(values.size() * 2);
+        Map<String, Long> ttls = new HashMap<>(values.size() * 2);
+        values.forEach((key, value) -> {
+            try {
+                byte[] bytes = encodeTimer.record(() -> codec.encode(value));
+                payloadSize.record(bytes.length);
+                encoded.put(key, bytes);
+                ttls.put(key, ttlMillis + (maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter) : 0));
+            } catch (CodecException e) {
+                log.error("序列化缓存数据失败，key: {}", key, e);
+            }
+        });
+        if (encoded.isEmpty()) {
+            return;
+        }
+        ToLongFunction<V> extractor = versionExtractor;
+        List<String> keys = new ArrayList<>(encoded.keySet());
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                if (extractor != null) {
+                    VersionedCacheScripts.set(connection, key, encoded.get(key),
+                            extractor.applyAsLong(values.get(key)), ttls.get(key));
+                } else {
+                    connection.stringCommands().set(key.getBytes(StandardCharsets.UTF_8), encoded.get(key),
+                            Expiration.milliseconds(ttls.get(key)), RedisStringCommands.SetOption.upsert());
+                }
+            }
+            return null;
+        });
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < keys.size(); i++) {
+            // 版本检查未通过的条目不回填本地缓存
+            if (extractor == null || Long.valueOf(1).equals(results.get(i))) {
+                String key = keys.get(i);
+                localCache.put(key, new CacheValue<>(values.get(key), now + ttls.get(key), encoded.get(key).length));
+                hotKeyReader.evict(key);
+            }
+        }
+    }
+
+    /**
+     * 回填缓存：写入 Redis 和本地缓存，不广播失效消息
+     * <p>
+     * 用于读取未命中后从数据库加载的场景，此时其他节点不可能持有比它更新的本地副本
+     *
+     * @param key   缓存 key
+     * @param value 缓存值
+     */
+    public void populate(String key, V value) {
+        int size = write(key, value);
+        if (size >= 0) {
+            putLocal(key, value, size);
+        }
+    }
+
+    /**
+     * 更新缓存：写入 Redis 和本地缓存，并通知其他节点失效本地副本
+     *
+     * @param key   缓存 key
+     * @param value 缓存值
+     */
+    public void put(String key, V value) {
+        int size = write(key, value);
+        if (size >= 0) {
+            putLocal(key, value, size);
+        } else {
+            // 序列化失败或已有更新的版本时删除缓存，避免读到旧值
+            redisTemplate.delete(key);
+            removeLocal(key);
+        }
+        manager.publishInvalidation(name, key);
+    }
+
+    /**
+     * 删除缓存：删除 Redis 和本地缓存，并通知其他节点失效本地副本
+     *
+     * @param key 缓存 key
+     */
+    public void evict(String key) {
+        redisTemplate.delete(key);
+        removeLocal(key);
+        manager.publishInvalidation(name, key);
+    }
+
+    /**
+     * 按版本号失效缓存：删除 Redis 和本地缓存，把版本号推进到 version，并通知其他节点失效本地副本
+     * <p>
+     * 之后版本号小于 version 的加载结果无法回填，用于数据更新后防止并发的旧数据覆盖
+     *
+     * @param key     缓存 key
+     * @param version 更新后数据的版本号
+     */
+    public void invalidate(String key, long version) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            VersionedCacheScripts.invalidate(connection, key, version, ttl.toMillis());
+            return null;
+        });
+        removeLocal(key);
+        manager.publishInvalidation(name, key);
+    }
+
+    /**
+     * 仅失效本节点的 L1，由跨节点失效消息触发
+     *
+     * @param key 缓存 key
+     */
+    public void invalidateLocal(String key) {
+        removeLocal(key);
+    }
+
+    /**
+     * 只查询本节点的 L1
+     *
+     * @param key 缓存 key
+     * @return 缓存值，不存在时返回 null
+     */
+    public V getLocal(String key) {
+        CacheValue<V> entry = localCache.getIfPresent(key).orElse(null);
+        metrics.recordLocal(entry != null ? 1 : 0, entry != null ? 0 : 1);
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * 查询本节点 L1 中记录的 Redis 过期时间，不计入读取指标
+     *
+     * @param key 缓存 key
+     * @return 过期时间戳（毫秒），L1 中不存在或未知时返回 0
+     */
+    public long expireAt(String key) {
+        CacheValue<V> entry = localCache.getIfPresent(key).orElse(null);
+        return entry == null ? 0 : Math.max(0, entry.getExpireAt());
+    }
+
+    /**
+     * 只回填本节点的 L1，用于调用方自行读取了 Redis 的场景（如响应式读取）
+     *
+     * @param key   缓存 key
+     * @param value 缓存值
+     */
+    public void populateLocal(String key, V value) {
+        putLocal(key, value, 0);
+    }
+
+    /**
+     * 获取 L1 缓存统计信息
+     */
+    public CacheStats stats() {
+        return localCache.stats();
+    }
+
+    private CacheValue<V> getEntry(String key) {
+        // 1. 查询本地缓存
+        CacheValue<V> entry = localCache.getIfPresent(key).orElse(null);
+        if (entry != null) {
+            metrics.recordLocal(1, 0);
+            return entry;
+        }
+        metrics.recordLocal(0, 1);
+
+        // 2. 查询 Redis（热点 key 可能命中其本地副本），并回填本地缓存
+        entry = hotKeyReader.get(key, this::readRemote);
+        if (entry != null) {
+            localCache.put(key, entry);
+        }
+        metrics.recordRedis(entry != null ? 1 : 0, entry != null ? 0 : 1);
+        return entry;
+    }
+
+    /**
+     * 在一次往返中读取 Redis 中的值及剩余过期时间
+     */
+    private CacheValue<V> readRemote(String key) {
+        return readRemoteAll(List.of(key)).get(key);
+    }
+
+    /**
+     * 在一个管道中读取多个 key 的值及剩余过期时间
+     *
+     * @return 存在且能解码的条目
+     */
+    private Map<String, CacheValue<V>> readRemoteAll(List<String> keys) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+                connection.stringCommands().get(rawKey);
+                connection.keyCommands().pTtl(rawKey);
+            }
+            return null;
+        });
+        Map<String, CacheValue<V>> entries = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] bytes = (byte[]) results.get(i * 2);
+            if (bytes == null) {
+                continue;
+            }
+            try {
+                Long pttl = (Long) results.get(i * 2 + 1);
+                long expireAt = pttl != null && pttl > 0 ? now + pttl : 0;
+                V value = decodeTimer.record(() -> codec.decode(bytes, type));
+                entries.put(keys.get(i), new CacheValue<>(value, expireAt, bytes.length));
+            } catch (CodecException e) {
+                // 格式不匹配（如切换编解码器后的旧数据）按未命中处理，回源后会被覆盖
+                log.error("解析缓存数据失败，key: {}", keys.get(i), e);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 缓存未命中时回源：抢到租约的节点负责加载，其余节点等待缓存被回填
+     */
+    private V loadWithLease(String key, Function<String, V> loader) {
+        Duration lease = leaseTime;
+        if (lease == null) {
+            return loadAndPopulate(key, loader);
+        }
+        String token = leaseLock.tryAcquire(key, lease);
+        if (token == null) {
+            // 其他节点正在加载，等待其回填；超时后自行回源兜底
+            CacheValue<V> entry = awaitRemote(key, lease);
+            return entry != null ? entry.getValue() : loadAndPopulate(key, loader);
+        }
+        try {
+            // 双重检查，获取租约前其他节点可能已经回填
+            CacheValue<V> entry = readRemote(key);
+            if (entry != null) {
+                localCache.put(key, entry);
+                return entry.getValue();
+            }
+            return loadAndPopulate(key, loader);
+        } finally {
+            leaseLock.release(key, token);
+        }
+    }
+
+    /**
+     * 提前刷新：没有抢到租约说明其他节点正在刷新，直接放弃，结果为 null 只表示本次没有刷新
+     */
+    private V refresh(String key, Function<String, V> loader) {
+        Duration lease = leaseTime;
+        if (lease == null) {
+            return loadAndPopulate(key, loader);
+        }
+        String token = leaseLock.tryAcquire(key, lease);
+        if (token == null) {
+            return null;
+        }
+        try {
+            return loadAndPopulate(key, loader);
+        } finally {
+            leaseLock.release(key, token);
+        }
+    }
+
+    private CacheValue<V> awaitRemote(String key, Duration lease) {
+        long deadline = System.currentTimeMillis() + lease.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(LEASE_POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            CacheValue<V> entry = readRemote(key);
+            if (entry != null) {
+                localCache.put(key, entry);
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private V loadAndPopulate(String key, Function<String, V> loader) {
+        long start = System.nanoTime();
+        V value = loader.apply(key);
+        long elapsed = System.nanoTime() - start;
+        metrics.recordLoad(elapsed);
+        earlyRefreshPolicy.recordLoad(TimeUnit.NANOSECONDS.toMillis(elapsed));
+        if (value != null) {
+            populate(key, value);
+        }
+        return value;
+    }
+
+    private void putLocal(String key, V value, int encodedSize) {
+        localCache.put(key, new CacheValue<>(value, System.currentTimeMillis() + ttl.toMillis(), encodedSize));
+        hotKeyReader.evict(key);
+    }
+
+    /**
+     * 移除 L1 和热点 key 的本地副本
+     */
+    private void removeLocal(String key) {
+        localCache.remove(key);
+        hotKeyReader.evict(key);
+    }
+
+    /**
+     * 写入 Redis
+     *
+     * @return 编码后的字节数，序列化失败或已有更新的版本时返回 -1
+     */
+    private int write(String key, V value) {
+        byte[] bytes;
+        try {
+            bytes = encodeTimer.record(() -> codec.encode(value));
+        } catch (CodecException e) {
+            log.error("序列化缓存数据失败，key: {}", key, e);
+            return -1;
+        }
+        payloadSize.record(bytes.length);
+        ToLongFunction<V> extractor = versionExtractor;
+        if (extractor == null) {
+            redisTemplate.opsForValue().set(key, bytes, ttl);
+            return bytes.length;
+        }
+        long version = extractor.applyAsLong(value);
+        Long written = redisTemplate.execute((RedisCallback<Long>) connection ->
+                VersionedCacheScripts.set(connection, key, bytes, version, ttl.toMillis()));
+        if (!Long.valueOf(1).equals(written)) {
+            log.debug("缓存已有更新的版本，放弃写入，key: {}, version: {}", key, version);
+            return -1;
+        }
+        return bytes.length;
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+import io.github.lizhifuabc.redis.cache.codec.ValueCodec;
+import io.github.lizhifuabc.redis.hotkey.HotKeyRedisReader;
+import io.github.lizhifuabc.redis.local.LocalCache;
+import io.github.lizhifuabc.redis.local.LocalCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 二级缓存管理器
+ * <p>
+ * 负责创建 {@link NearCache}，并订阅 Redis 失效频道：
+ * 任一节点更新或删除缓存后会发布一条失效消息，其余节点收到后失效对应的 L1 条目。
+ * <p>
+ * 消息格式：{@code 节点ID|缓存名称|key}，节点会忽略自己发布的消息。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+@Component
+public class NearCacheManager implements MessageListener {
+    /**
+     * 失效消息频道
+     */
+    public static final String INVALIDATE_CHANNEL = "near-cache:invalidate";
+
+    /**
+     * 消息字段分隔符
+     */
+    private static final String SEPARATOR = "|";
+
+    /**
+     * L1 默认过期时间（秒），远小于 L2，用于兜底失效消息丢失的情况
+     */
+    private static final long DEFAULT_LOCAL_EXPIRE_SECONDS = 60;
+
+    /**
+     * L1 在 {@link LocalCacheManager} 中的名称前缀，可通过 {@code cache.local.caches.near:<名称>} 单独配置容量
+     */
+    private static final String LOCAL_CACHE_PREFIX = "near:";
+
+    /**
+     * L1 堆外层在 {@link LocalCacheManager} 中的名称前缀，配置了 {@code cache.local.caches.near-offheap:<名称>.off-heap-capacity}
+     * 时，编码后较大的值放入该堆外缓存，见 {@link TieredLocalCache}
+     */
+    private static final String OFF_HEAP_CACHE_PREFIX = "near-offheap:";
+
+    /**
+     * 本节点没有创建对应缓存时，版本号的默认保留时间
+     */
+    private static final Duration DEFAULT_VERSION_RETENTION = Duration.ofHours(1);
+
+    /**
+     * 当前节点ID，用于过滤自己发布的消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, NearCache<?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 提前刷新使用虚拟线程执行，回源阻塞不会占用平台线程
+     */
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisTemplate<String, byte[]> byteRedisTemplate;
+    private final ValueCodec codec;
+    private final MeterRegistry meterRegistry;
+    private final LocalCacheManager localCacheManager;
+    private final HotKeyRedisReader hotKeyReader;
+
+    public NearCacheManager(StringRedisTemplate redisTemplate,
+                            @Qualifier("byteRedisTemplate") RedisTemplate<String, byte[]> byteRedisTemplate,
+                            ValueCodec codec, MeterRegistry meterRegistry, LocalCacheManager localCacheManager,
+                            HotKeyRedisReader hotKeyReader, RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.byteRedisTemplate = byteRedisTemplate;
+        this.codec = codec;
+        this.meterRegistry = meterRegistry;
+        this.localCacheManager = localCacheManager;
+        this.hotKeyReader = hotKeyReader;
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取或创建二级缓存，L1 使用默认过期时间
+     *
+     * @param name 缓存名称，集群内唯一
+     * @param type 缓存值类型
+     * @param ttl  L2 过期时间
+     */
+    public <V> NearCache<V> getCache(String name, Class<V> type, Duration ttl) {
+        return getCache(name, type, ttl, Duration.ofSeconds(DEFAULT_LOCAL_EXPIRE_SECONDS));
+    }
+
+    /**
+     * 获取或创建二级缓存
+     *
+     * @param name     缓存名称，集群内唯一
+     * @param type     缓存值类型
+     * @param ttl      L2 过期时间
+     * @param localTtl L1 过期时间
+     */
+    @SuppressWarnings("unchecked")
+    public <V> NearCache<V> getCache(String name, Class<V> type, Duration ttl, Duration localTtl) {
+        return (NearCache<V>) caches.computeIfAbsent(name, n -> new NearCache<>(n, type,
+                createLocalCache(n, type, localTtl),
+                ttl, byteRedisTemplate, redisTemplate, codec, meterRegistry, this, hotKeyReader, refreshExecutor));
+    }
+
+    /**
+     * 创建 L1：默认为堆内缓存；配置了堆外容量时，编码后不小于阈值的值放入堆外缓存，不占用堆也不增加 GC 停顿
+     */
+    private <V> LocalCache<String, CacheValue<V>> createLocalCache(String name, Class<V> type, Duration localTtl) {
+        LocalCache<String, CacheValue<V>> heap = localCacheManager.getCache(LOCAL_CACHE_PREFIX + name, localTtl);
+        String offHeapName = OFF_HEAP_CACHE_PREFIX + name;
+        if (!localCacheManager.isOffHeapConfigured(offHeapName)) {
+            return heap;
+        }
+        LocalCache<String, V> offHeap = localCacheManager.getOffHeapCache(offHeapName, type, localTtl);
+        log.info("二级缓存[{}]的 L1 启用堆外层，不小于 {} 字节的值放入堆外缓存[{}]",
+                name, localCacheManager.getLargeValueThreshold(), offHeapName);
+        return new TieredLocalCache<>(heap, offHeap, localCacheManager.getLargeValueThreshold());
+    }
+
+    /**
+     * 按缓存名称失效缓存，用于数据变更来自缓存之外（如数据库变更日志）的场景
+     * <p>
+     * 本节点创建过该缓存时交给对应的 {@link NearCache}；否则只处理 Redis 中的数据并通知其他节点，
+     * 此时版本号的保留时间使用 {@link #DEFAULT_VERSION_RETENTION}
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存 key
+     * @param version   数据的新版本号，为 null 时直接删除，不做版本保护
+     */
+    public void invalidate(String cacheName, String key, Long version) {
+        NearCache<?> cache = caches.get(cacheName);
+        if (cache != null) {
+            if (version != null) {
+                cache.invalidate(key, version);
+            } else {
+                cache.evict(key);
+            }
+            return;
+        }
+        if (version != null) {
+            byteRedisTemplate.execute((RedisCallback<Object>) connection -> {
+                VersionedCacheScripts.invalidate(connection, key, version, DEFAULT_VERSION_RETENTION.toMillis());
+                return null;
+            });
+        } else {
+            byteRedisTemplate.delete(key);
+        }
+        publishInvalidation(cacheName, key);
+    }
+
+    /**
+     * 发布失效消息
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存 key
+     */
+    void publishInvalidation(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+        } catch (Exception e) {
+            // 发布失败不影响主流程，其他节点的 L1 会在过期后自然失效
+            log.warn("发布缓存失效消息失败，cache: {}, key: {}", cacheName, key, e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("忽略格式错误的缓存失效消息: {}", body);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+        NearCache<?> cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts[2]);
+            log.debug("收到缓存失效消息，cache: {}, key: {}", parts[1], parts[2]);
+        }
+    }
+}
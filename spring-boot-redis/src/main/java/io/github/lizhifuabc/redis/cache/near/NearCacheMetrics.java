@@ -0,0 +1,87 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存的访问指标，按缓存名称（即 key 前缀）打标签
+ * <ul>
+ *     <li>{@code near.cache.gets}：读取次数，{@code tier} 为 local / redis，{@code result} 为 hit / miss</li>
+ *     <li>{@code near.cache.load}：回源加载耗时，发布直方图，批量加载按一次记录</li>
+ * </ul>
+ * 替代逐次请求的命中日志，计数只有一次原子加法的开销
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public final class NearCacheMetrics {
+    public static final String GETS = "near.cache.gets";
+    public static final String LOAD = "near.cache.load";
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Timer loadTimer;
+
+    NearCacheMetrics(String name, MeterRegistry meterRegistry) {
+        this.localHits = gets(name, "local", "hit", meterRegistry);
+        this.localMisses = gets(name, "local", "miss", meterRegistry);
+        this.redisHits = gets(name, "redis", "hit", meterRegistry);
+        this.redisMisses = gets(name, "redis", "miss", meterRegistry);
+        this.loadTimer = Timer.builder(LOAD)
+                .description("缓存未命中时回源加载的耗时")
+                .tag("cache", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录本地缓存的读取结果
+     *
+     * @param hits   命中次数
+     * @param misses 未命中次数
+     */
+    public void recordLocal(int hits, int misses) {
+        increment(localHits, hits);
+        increment(localMisses, misses);
+    }
+
+    /**
+     * 记录 Redis 的读取结果，用于调用方自行读取 Redis 的场景（如响应式读取）
+     *
+     * @param hits   命中次数
+     * @param misses 未命中次数
+     */
+    public void recordRedis(int hits, int misses) {
+        increment(redisHits, hits);
+        increment(redisMisses, misses);
+    }
+
+    /**
+     * 记录一次回源加载
+     *
+     * @param nanos 加载耗时（纳秒）
+     */
+    public void recordLoad(long nanos) {
+        loadTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void increment(Counter counter, int amount) {
+        if (amount > 0) {
+            counter.increment(amount);
+        }
+    }
+
+    private static Counter gets(String name, String tier, String result, MeterRegistry meterRegistry) {
+        return Counter.builder(GETS)
+                .description("二级缓存读取次数")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
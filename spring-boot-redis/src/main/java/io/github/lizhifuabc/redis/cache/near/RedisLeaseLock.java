@@ -0,0 +1,61 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * 基于 Redis 的加载租约锁
+ * <p>
+ * 用于跨节点合并缓存加载：同一 key 在租约时间内只有一个节点回源数据库，
+ * 其他节点等待缓存被填充。租约到期自动释放，持有者宕机也不会导致死锁。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class RedisLeaseLock {
+    /**
+     * 锁 key 前缀
+     */
+    private static final String LOCK_KEY_PREFIX = "lease:";
+
+    /**
+     * 释放锁脚本：只有持有者才能删除
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    RedisLeaseLock(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 尝试获取租约
+     *
+     * @param key   缓存 key
+     * @param lease 租约时间
+     * @return 成功时返回持有者令牌，失败返回 null
+     */
+    String tryAcquire(String key, Duration lease) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY_PREFIX + key, token, lease);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    /**
+     * 释放租约
+     *
+     * @param key   缓存 key
+     * @param token 获取时返回的令牌
+     */
+    void release(String key, String token) {
+        redisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(LOCK_KEY_PREFIX + key), token);
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并加载器（single-flight）
+ * <p>
+ * 同一个 key 在同一时刻只允许一次加载，其余并发调用者等待同一个 {@link CompletableFuture}，
+ * 避免热点 key 过期时 N 个并发请求打出 N 次数据库查询。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class SingleFlight<K, V> {
+    /**
+     * 正在进行中的加载任务
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 同步加载，当前线程若抢到加载权则执行 loader，否则等待其他线程的加载结果
+     *
+     * @param key    加载的 key
+     * @param loader 加载逻辑
+     * @return 加载结果
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 异步加载，若该 key 已有加载任务则直接复用
+     *
+     * @param key      加载的 key
+     * @param loader   加载逻辑
+     * @param executor 执行加载的线程池
+     * @return 加载结果的 future
+     */
+    public CompletableFuture<V> loadAsync(K key, Supplier<V> loader, Executor executor) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(loader.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 当前是否有该 key 的加载任务
+     */
+    public boolean isLoading(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
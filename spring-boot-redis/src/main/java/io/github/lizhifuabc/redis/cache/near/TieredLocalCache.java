@@ -0,0 +1,109 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.lizhifuabc.redis.local.LocalCache;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 按值大小分层的 L1：编码后不小于阈值的值放入堆外缓存，其余的值和大小未知的值放入堆内缓存
+ * <p>
+ * 同一个 key 只会存在于其中一层，写入时移除另一层的旧值。堆外缓存只保存值本身，
+ * 从堆外读到的条目不带 Redis 过期时间，不参与提前刷新，L1 的过期时间仍由堆外缓存的 expireAfterWrite 保证。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+final class TieredLocalCache<V> implements LocalCache<String, CacheValue<V>> {
+    private final LocalCache<String, CacheValue<V>> heap;
+    private final LocalCache<String, V> offHeap;
+    private final int threshold;
+
+    /**
+     * @param heap      堆内缓存
+     * @param offHeap   堆外缓存
+     * @param threshold 放入堆外缓存的最小编码字节数
+     */
+    TieredLocalCache(LocalCache<String, CacheValue<V>> heap, LocalCache<String, V> offHeap, int threshold) {
+        this.heap = heap;
+        this.offHeap = offHeap;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public String getName() {
+        return heap.getName();
+    }
+
+    @Override
+    public void put(String key, CacheValue<V> value) {
+        if (value == null) {
+            return;
+        }
+        if (value.getEncodedSize() >= threshold) {
+            offHeap.put(key, value.getValue());
+            heap.remove(key);
+        } else {
+            heap.put(key, value);
+            offHeap.remove(key);
+        }
+    }
+
+    @Override
+    public Optional<CacheValue<V>> getIfPresent(String key) {
+        Optional<CacheValue<V>> entry = heap.getIfPresent(key);
+        if (entry.isPresent()) {
+            return entry;
+        }
+        return offHeap.getIfPresent(key).map(value -> new CacheValue<>(value, 0, threshold));
+    }
+
+    @Override
+    public CacheValue<V> get(String key) {
+        return getIfPresent(key).orElse(null);
+    }
+
+    /**
+     * 未命中时加载并按大小写入对应的层；并发未命中时可能重复加载
+     */
+    @Override
+    public CacheValue<V> get(String key, Function<? super String, ? extends CacheValue<V>> mappingFunction) {
+        Optional<CacheValue<V>> cached = getIfPresent(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        CacheValue<V> value = mappingFunction.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void remove(String key) {
+        heap.remove(key);
+        offHeap.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+        offHeap.clear();
+    }
+
+    @Override
+    public long estimatedSize() {
+        return heap.estimatedSize() + offHeap.estimatedSize();
+    }
+
+    /**
+     * 合并两层的统计：堆内未命中的查询都会再查堆外，因此未命中数以堆外为准
+     */
+    @Override
+    public CacheStats stats() {
+        CacheStats heapStats = heap.stats();
+        CacheStats offHeapStats = offHeap.stats();
+        return CacheStats.of(heapStats.hitCount() + offHeapStats.hitCount(), offHeapStats.missCount(),
+                heapStats.loadSuccessCount(), heapStats.loadFailureCount(), heapStats.totalLoadTime(),
+                heapStats.evictionCount() + offHeapStats.evictionCount(), heapStats.evictionWeight());
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 带版本号的缓存读写脚本
+ * <p>
+ * 每个缓存 key 旁边保存一个版本号 key（{@code 缓存 key + :version}），值为数据的版本（如更新时间戳）：
+ * <ul>
+ *     <li>回填时通过 CAS 脚本比较版本号，版本更旧的加载结果不会覆盖新数据</li>
+ *     <li>失效时删除缓存值，但把版本号推进到新版本并保留，更新前开始的慢查询在更新后回填也会被拒绝</li>
+ * </ul>
+ * 两个 key 需要在同一个槽位，Redis Cluster 下缓存 key 应使用 hash tag。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public final class VersionedCacheScripts {
+    /**
+     * 版本号 key 后缀
+     */
+    public static final String VERSION_KEY_SUFFIX = ":version";
+
+    /**
+     * CAS 写入，KEYS: 缓存 key、版本号 key；ARGV: 缓存值、版本号、过期时间（毫秒）；返回 1 写入成功，0 已有更新的版本
+     */
+    public static final RedisScript<Long> SET_SCRIPT = script("versioned_set");
+
+    /**
+     * 失效，KEYS: 缓存 key、版本号 key；ARGV: 版本号、版本号保留时间（毫秒）
+     */
+    public static final RedisScript<Long> INVALIDATE_SCRIPT = script("versioned_invalidate");
+
+    private static final byte[] SET_SCRIPT_BYTES = SET_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INVALIDATE_SCRIPT_BYTES =
+            INVALIDATE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+
+    private VersionedCacheScripts() {
+    }
+
+    public static String versionKey(String key) {
+        return key + VERSION_KEY_SUFFIX;
+    }
+
+    /**
+     * 在连接上执行 CAS 写入，连接处于管道模式时返回 null，结果在管道结果中
+     */
+    static Long set(RedisConnection connection, String key, byte[] value, long version, long ttlMillis) {
+        return connection.scriptingCommands().eval(SET_SCRIPT_BYTES, ReturnType.INTEGER, 2,
+                bytes(key), bytes(versionKey(key)), value, bytes(Long.toString(version)), bytes(Long.toString(ttlMillis)));
+    }
+
+    /**
+     * 在连接上执行失效
+     */
+    static void invalidate(RedisConnection connection, String key, long version, long retentionMillis) {
+        connection.scriptingCommands().eval(INVALIDATE_SCRIPT_BYTES, ReturnType.INTEGER, 2,
+                bytes(key), bytes(versionKey(key)), bytes(Long.toString(version)), bytes(Long.toString(retentionMillis)));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static RedisScript<Long> script(String name) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/cache/" + name + ".lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
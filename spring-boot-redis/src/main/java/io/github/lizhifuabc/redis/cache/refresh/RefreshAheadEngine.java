@@ -0,0 +1,250 @@
+package io.github.lizhifuabc.redis.cache.refresh;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+
+/**
+ * Refresh-Ahead 提前刷新引擎
+ *
+ * <h2>工作方式</h2>
+ * <ul>
+ *     <li>读取时调用 {@link #recordAccess(Object, long)} 记录 key 的最近访问时间和缓存过期时间</li>
+ *     <li>后台线程每隔 scanInterval 扫描一次：剩余过期时间小于 refreshAhead、且在 accessWindow 内被访问过的 key，
+ *     交给虚拟线程调用刷新函数重新加载；窗口内没有访问的 key 不再跟踪，让缓存自然过期</li>
+ *     <li>每秒发起的刷新次数不超过 refreshBudgetPerSecond，越接近过期的 key 越先刷新，超出预算的推迟到下一轮</li>
+ * </ul>
+ * 只要预算足够，持续被访问的热点 key 总在过期前被刷新，读取方不会遇到同步回源。
+ *
+ * <h2>指标</h2>
+ * 通过 {@link #bindTo(MeterRegistry)} 注册，均以 {@code engine} 标签区分引擎：
+ * {@code cache.refresh_ahead.tracked}（跟踪的 key 数量）、
+ * {@code cache.refresh_ahead.refreshes}（刷新结果，{@code result} 为 success / failure / deferred）
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+public class RefreshAheadEngine<K> implements MeterBinder {
+    private final String name;
+    private final RefreshAheadProperties properties;
+
+    /**
+     * 刷新函数，返回刷新后的过期时间戳（毫秒）；返回值小于等于 0 表示数据已不存在，不再跟踪
+     */
+    private final ToLongFunction<K> refresher;
+
+    private final Map<K, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scanner;
+    private final ExecutorService refreshExecutor;
+
+    /**
+     * 当前一秒窗口的起始时间和已用预算，只在扫描线程中访问
+     */
+    private long budgetWindowStart;
+    private int budgetUsed;
+
+    /**
+     * 指标在注册前为 null
+     */
+    private volatile Counter successes;
+    private volatile Counter failures;
+    private volatile Counter deferred;
+
+    public RefreshAheadEngine(String name, RefreshAheadProperties properties, ToLongFunction<K> refresher) {
+        this.name = name;
+        this.properties = properties;
+        this.refresher = refresher;
+        this.scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "refresh-ahead-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refreshExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("refresh-ahead-" + name + "-", 0).factory());
+    }
+
+    /**
+     * 启动定时扫描
+     */
+    public void start() {
+        long interval = properties.getScanInterval().toMillis();
+        scanner.scheduleWithFixedDelay(this::scanQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Refresh-Ahead 引擎[{}]已启动，提前量: {}ms，访问窗口: {}ms，每秒刷新预算: {}",
+                name, properties.getRefreshAhead().toMillis(), properties.getAccessWindow().toMillis(),
+                properties.getRefreshBudgetPerSecond());
+    }
+
+    /**
+     * 停止扫描，正在进行的刷新会继续完成
+     */
+    public void shutdown() {
+        scanner.shutdownNow();
+        refreshExecutor.shutdown();
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key      key
+     * @param expireAt 缓存过期时间戳（毫秒），小于等于 0 表示未知，沿用之前记录的值
+     */
+    public void recordAccess(K key, long expireAt) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= properties.getMaxTrackedKeys()) {
+                return;
+            }
+            entry = entries.computeIfAbsent(key, k -> new Entry());
+        }
+        entry.lastAccessAt = System.currentTimeMillis();
+        if (expireAt > 0) {
+            entry.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 不再跟踪该 key，用于数据被删除的场景
+     */
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 跟踪的 key 数量
+     */
+    public int trackedCount() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.refresh_ahead.tracked", entries, Map::size)
+                .description("提前刷新跟踪的 key 数量")
+                .tag("engine", name)
+                .register(registry);
+        successes = refreshes(registry, "success");
+        failures = refreshes(registry, "failure");
+        deferred = refreshes(registry, "deferred");
+    }
+
+    private Counter refreshes(MeterRegistry registry, String result) {
+        return Counter.builder("cache.refresh_ahead.refreshes")
+                .description("提前刷新次数")
+                .tag("engine", name)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private void scanQuietly() {
+        try {
+            scan();
+        } catch (Exception e) {
+            log.error("Refresh-Ahead 引擎[{}]扫描异常", name, e);
+        }
+    }
+
+    private void scan() {
+        long now = System.currentTimeMillis();
+        long accessDeadline = now - properties.getAccessWindow().toMillis();
+        long refreshDeadline = now + properties.getRefreshAhead().toMillis();
+
+        // 1. 清理冷 key 和已过期的 key，收集需要刷新的 key
+        List<Map.Entry<K, Entry>> due = new ArrayList<>();
+        Iterator<Map.Entry<K, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry> mapEntry = iterator.next();
+            Entry entry = mapEntry.getValue();
+            if (entry.refreshing.get()) {
+                continue;
+            }
+            long expireAt = entry.expireAt;
+            if (entry.lastAccessAt < accessDeadline || (expireAt > 0 && expireAt <= now)) {
+                // 最近没有访问，或已经过期（下次访问会同步回源）
+                iterator.remove();
+            } else if (expireAt > 0 && expireAt <= refreshDeadline) {
+                due.add(mapEntry);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // 2. 越接近过期越先刷新，预算用完后推迟到下一轮
+        due.sort(Comparator.comparingLong(mapEntry -> mapEntry.getValue().expireAt));
+        int submitted = 0;
+        for (Map.Entry<K, Entry> mapEntry : due) {
+            if (!tryAcquireBudget(now)) {
+                increment(deferred, due.size() - submitted);
+                break;
+            }
+            Entry entry = mapEntry.getValue();
+            if (entry.refreshing.compareAndSet(false, true)) {
+                refreshExecutor.execute(() -> refresh(mapEntry.getKey(), entry));
+                submitted++;
+            }
+        }
+        log.debug("Refresh-Ahead 引擎[{}]待刷新 {} 个 key，本轮提交 {} 个", name, due.size(), submitted);
+    }
+
+    private void refresh(K key, Entry entry) {
+        try {
+            long expireAt = refresher.applyAsLong(key);
+            if (expireAt > 0) {
+                entry.expireAt = expireAt;
+            } else {
+                entries.remove(key, entry);
+            }
+            increment(successes, 1);
+        } catch (Exception e) {
+            // 保留原过期时间，下一轮扫描时重试，直到过期
+            log.warn("Refresh-Ahead 引擎[{}]刷新失败，key: {}", name, key, e);
+            increment(failures, 1);
+        } finally {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private boolean tryAcquireBudget(long now) {
+        if (now - budgetWindowStart >= 1000) {
+            budgetWindowStart = now;
+            budgetUsed = 0;
+        }
+        if (budgetUsed >= properties.getRefreshBudgetPerSecond()) {
+            return false;
+        }
+        budgetUsed++;
+        return true;
+    }
+
+    private static void increment(Counter counter, int amount) {
+        if (counter != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+
+    /**
+     * 跟踪的 key 状态
+     */
+    private static final class Entry {
+        private volatile long lastAccessAt = System.currentTimeMillis();
+        private volatile long expireAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+    }
+}
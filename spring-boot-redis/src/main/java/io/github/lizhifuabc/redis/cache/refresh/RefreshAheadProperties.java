@@ -0,0 +1,41 @@
+package io.github.lizhifuabc.redis.cache.refresh;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Refresh-Ahead 提前刷新配置属性
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.refresh-ahead")
+public class RefreshAheadProperties {
+    /**
+     * 剩余过期时间小于该值时提前刷新，应大于一次回源耗时加上扫描间隔
+     */
+    private Duration refreshAhead = Duration.ofSeconds(10);
+
+    /**
+     * 最近访问窗口，窗口内被访问过的 key 才会被刷新，其余 key 自然过期
+     */
+    private Duration accessWindow = Duration.ofSeconds(60);
+
+    /**
+     * 每秒最多发起的刷新次数，超出的刷新推迟到下一秒，防止压垮数据库
+     */
+    private int refreshBudgetPerSecond = 100;
+
+    /**
+     * 扫描即将过期的 key 的间隔
+     */
+    private Duration scanInterval = Duration.ofMillis(500);
+
+    /**
+     * 最多跟踪的 key 数量，超过后新 key 不再提前刷新
+     */
+    private int maxTrackedKeys = 100_000;
+}
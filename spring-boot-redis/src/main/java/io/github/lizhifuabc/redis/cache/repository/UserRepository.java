@@ -6,8 +6,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * 用户数据访问层
@@ -26,6 +31,11 @@ public class UserRepository {
      */
     private final Map<Long, User> userStore = new ConcurrentHashMap<>();
     
+    /**
+     * 保存监听器，写入成功后收到保存的用户ID，所有缓存策略的写入都经过这里
+     */
+    private final List<Consumer<Collection<Long>>> saveListeners = new CopyOnWriteArrayList<>();
+    
     /**
      * 构造函数，初始化一些测试数据
      */
@@ -52,10 +62,53 @@ public class UserRepository {
             Thread.currentThread().interrupt();
         }
         
-        log.info("从数据库中查询用户，ID: {}", id);
+        log.debug("从数据库中查询用户，ID: {}", id);
         return userStore.get(id);
     }
     
+    /**
+     * 根据ID批量查询用户
+     * 模拟数据库 IN 查询操作，一次往返返回整批数据
+     *
+     * @param ids 用户ID集合
+     * @return 存在的用户，顺序不保证与入参一致
+     */
+    public List<User> findAllById(Collection<Long> ids) {
+        // 模拟数据库查询延迟
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = userStore.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        log.debug("从数据库中批量查询用户，查询数量: {}，命中数量: {}", ids.size(), users.size());
+        return users;
+    }
+    
+    /**
+     * 查询所有用户ID
+     * 模拟数据库只查询主键列的操作，用于预热布隆过滤器
+     *
+     * @return 用户ID集合
+     */
+    public List<Long> findAllIds() {
+        // 模拟数据库查询延迟
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        return new ArrayList<>(userStore.keySet());
+    }
+    
     /**
      * 保存用户
      * 模拟数据库保存操作
@@ -82,11 +135,26 @@ public class UserRepository {
         
         user.setUpdateTime(LocalDateTime.now());
         userStore.put(user.getId(), user);
-        log.info("用户数据保存到数据库，ID: {}", user.getId());
+        log.debug("用户数据保存到数据库，ID: {}", user.getId());
+        notifySaved(List.of(user.getId()));
         
         return user;
     }
     
+    /**
+     * 注册保存监听器，例如把新用户的ID加入布隆过滤器
+     * 监听器在写入之后同步调用，抛出的异常会传给调用方
+     *
+     * @param listener 保存监听器
+     */
+    public void addSaveListener(Consumer<Collection<Long>> listener) {
+        saveListeners.add(listener);
+    }
+    
+    private void notifySaved(Collection<Long> ids) {
+        saveListeners.forEach(listener -> listener.accept(ids));
+    }
+    
     /**
      * 删除用户
      * 模拟数据库删除操作
@@ -102,6 +170,50 @@ public class UserRepository {
         }
         
         userStore.remove(id);
-        log.info("从数据库中删除用户，ID: {}", id);
+        log.debug("从数据库中删除用户，ID: {}", id);
+    }
+    
+    /**
+     * 批量保存用户
+     * 模拟数据库批量写入操作，一次往返写入整批数据
+     *
+     * @param users 用户集合
+     */
+    public void saveAll(Collection<User> users) {
+        // 模拟数据库批量写入延迟
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (User user : users) {
+            if (user.getCreateTime() == null) {
+                user.setCreateTime(now);
+            }
+            user.setUpdateTime(now);
+            userStore.put(user.getId(), user);
+        }
+        log.debug("用户数据批量保存到数据库，数量: {}", users.size());
+        notifySaved(users.stream().map(User::getId).toList());
+    }
+    
+    /**
+     * 批量删除用户
+     * 模拟数据库批量删除操作
+     *
+     * @param ids 用户ID集合
+     */
+    public void deleteAllById(Collection<Long> ids) {
+        // 模拟数据库删除延迟
+        try {
+            Thread.sleep(150);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        ids.forEach(userStore::remove);
+        log.debug("从数据库中批量删除用户，数量: {}", ids.size());
     }
 }
\ No newline at end of file
@@ -1,16 +1,26 @@
 package io.github.lizhifuabc.redis.cache.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.lizhifuabc.redis.cache.consistency.CacheInvalidator;
 import io.github.lizhifuabc.redis.cache.model.User;
+import io.github.lizhifuabc.redis.cache.near.NearCache;
+import io.github.lizhifuabc.redis.cache.near.NearCacheManager;
 import io.github.lizhifuabc.redis.cache.repository.UserRepository;
+import io.github.lizhifuabc.redis.utils.RedisBloomFilter;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Cache-Aside（旁路缓存）策略服务
@@ -18,6 +28,7 @@ import java.time.Duration;
  * 特点：
  * 1. 读取数据时，先查缓存，缓存命中则直接返回；缓存未命中则查询数据库，并将结果放入缓存
  * 2. 更新数据时，先更新数据库，再删除缓存（或更新缓存）
+ * 3. 缓存未命中回源前先经过布隆过滤器，一定不存在的ID直接返回，防止缓存穿透
  * 
  * 适用场景：
  * 1. 读多写少的业务场景
@@ -34,28 +45,68 @@ public class CacheAsideService {
     /**
      * 缓存键前缀
      */
-    private static final String CACHE_KEY_PREFIX = "cache:user:";
+    static final String CACHE_KEY_PREFIX = "cache:user:";
     
     /**
      * 缓存过期时间（秒）
      */
-    private static final long CACHE_EXPIRE_SECONDS = 3600;
+    static final long CACHE_EXPIRE_SECONDS = 3600;
+    
+    /**
+     * 跨节点回源租约时间（毫秒），略大于一次数据库查询的耗时
+     */
+    private static final long LOAD_LEASE_MILLIS = 1000;
+    
+    /**
+     * 用户ID布隆过滤器的 key
+     */
+    private static final String BLOOM_FILTER_KEY = "bloom:user";
+    
+    /**
+     * 布隆过滤器预期元素数量
+     */
+    private static final long BLOOM_EXPECTED_INSERTIONS = 1_000_000;
+    
+    /**
+     * 布隆过滤器误判率
+     */
+    private static final double BLOOM_FPP = 0.01;
     
     private final UserRepository userRepository;
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final NearCache<User> userCache;
+    private final RedisBloomFilter userIdFilter;
+    private final CacheInvalidator cacheInvalidator;
     
-    public CacheAsideService(UserRepository userRepository, StringRedisTemplate redisTemplate) {
+    public CacheAsideService(UserRepository userRepository, NearCacheManager nearCacheManager,
+                             StringRedisTemplate stringRedisTemplate, CacheInvalidator cacheInvalidator) {
         this.userRepository = userRepository;
-        this.redisTemplate = redisTemplate;
-        
-        // 配置ObjectMapper以支持Java 8日期时间类型
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.cacheInvalidator = cacheInvalidator;
+        this.userCache = nearCacheManager.getCache(CACHE_KEY_PREFIX, User.class, Duration.ofSeconds(CACHE_EXPIRE_SECONDS));
+        this.userCache.setLeaseTime(Duration.ofMillis(LOAD_LEASE_MILLIS));
+        // 以更新时间作为版本号，更新前读到的旧数据无法覆盖更新后的失效
+        this.userCache.setVersionExtractor(CacheAsideService::versionOf);
+        this.userIdFilter = RedisBloomFilter.create(stringRedisTemplate, BLOOM_FILTER_KEY,
+                BLOOM_EXPECTED_INSERTIONS, BLOOM_FPP);
+        // 任何策略保存的用户都加入布隆过滤器，否则其他策略新建的用户会被误判为不存在
+        userRepository.addSaveListener(ids -> userIdFilter.putAll(ids.stream().map(String::valueOf).toList()));
+    }
+    
+    /**
+     * 启动时将已有的用户ID加入布隆过滤器，重复添加不影响结果；之后保存的用户由保存监听器加入
+     */
+    @PostConstruct
+    public void init() {
+        List<Long> ids = userRepository.findAllIds();
+        userIdFilter.putAll(ids.stream().map(String::valueOf).toList());
+        log.info("用户ID布隆过滤器预热完成，数量: {}", ids.size());
     }
     
     /**
      * 获取用户信息
+     * <p>
+     * 缓存未命中时，同一 key 只有一个请求回源数据库（JVM 内请求合并 + 跨节点租约锁），
+     * 其余请求等待同一个加载结果；回源前先经过布隆过滤器，判断不存在时直接返回 null。
+     * 热点 key 会在过期前被概率性地异步刷新
      * 
      * @param id 用户ID
      * @return 用户对象，如果不存在返回null
@@ -63,35 +114,75 @@ public class CacheAsideService {
     public User getUser(Long id) {
         String cacheKey = CACHE_KEY_PREFIX + id;
         
-        // 1. 先查询缓存
-        String userJson = redisTemplate.opsForValue().get(cacheKey);
-        
-        // 2. 缓存命中，直接返回
-        if (userJson != null) {
-            log.info("缓存命中，从缓存获取用户，ID: {}", id);
-            try {
-                return objectMapper.readValue(userJson, User.class);
-            } catch (JsonProcessingException e) {
-                log.error("解析缓存中的用户数据失败", e);
+        // 先查询缓存（本地缓存 -> Redis），未命中时合并回源数据库并放入缓存
+        return userCache.get(cacheKey, key -> {
+            // 布隆过滤器只在回源时判断，缓存命中不多一次 Redis 往返
+            if (!mightExist(id)) {
+                log.debug("布隆过滤器拦截不存在的用户，ID: {}", id);
+                return null;
             }
-        }
+            log.debug("缓存未命中，从数据库获取用户，ID: {}", id);
+            return userRepository.findById(id);
+        });
+    }
+    
+    /**
+     * 批量获取用户信息
+     * <p>
+     * 本地缓存未命中的ID在一次 Redis 往返中读取，Redis 也未命中的ID先经过布隆过滤器剔除一定不存在的ID，
+     * 其余合并为一次数据库批量查询，回填缓存时过期时间加入随机抖动
+     *
+     * @param ids 用户ID集合
+     * @return 存在的用户，按入参顺序排列
+     */
+    public List<User> getUsers(Collection<Long> ids) {
+        List<Long> idList = List.copyOf(ids);
         
-        // 3. 缓存未命中，查询数据库
-        log.info("缓存未命中，从数据库获取用户，ID: {}", id);
-        User user = userRepository.findById(id);
+        Map<String, User> users = userCache.getAll(idList.stream().map(id -> CACHE_KEY_PREFIX + id).toList(), keys -> {
+            // 布隆过滤器一次往返判断未命中的ID，一定不存在的ID不查数据库
+            List<Long> missIds = filterMightExist(keys.stream()
+                    .map(key -> Long.valueOf(key.substring(CACHE_KEY_PREFIX.length())))
+                    .toList());
+            if (missIds.isEmpty()) {
+                return Map.of();
+            }
+            log.debug("缓存未命中，从数据库批量获取用户，数量: {}", missIds.size());
+            return userRepository.findAllById(missIds).stream()
+                    .collect(Collectors.toMap(user -> CACHE_KEY_PREFIX + user.getId(), Function.identity()));
+        });
         
-        // 4. 将数据库查询结果放入缓存
-        if (user != null) {
-            try {
-                String json = objectMapper.writeValueAsString(user);
-                redisTemplate.opsForValue().set(cacheKey, json, Duration.ofSeconds(CACHE_EXPIRE_SECONDS));
-                log.info("用户数据已放入缓存，ID: {}", id);
-            } catch (JsonProcessingException e) {
-                log.error("序列化用户数据失败", e);
+        return idList.stream()
+                .map(id -> users.get(CACHE_KEY_PREFIX + id))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    /**
+     * 布隆过滤器判断用户是否可能存在
+     *
+     * @param id 用户ID
+     * @return false 表示一定不存在
+     */
+    public boolean mightExist(Long id) {
+        return userIdFilter.mightContain(String.valueOf(id));
+    }
+    
+    /**
+     * 布隆过滤器一次往返判断整批ID，剔除一定不存在的ID
+     *
+     * @param ids 用户ID集合
+     * @return 可能存在的ID，保持入参顺序
+     */
+    public List<Long> filterMightExist(Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        List<Boolean> mightExist = userIdFilter.mightContainAll(idList.stream().map(String::valueOf).toList());
+        List<Long> candidates = new ArrayList<>(idList.size());
+        for (int i = 0; i < idList.size(); i++) {
+            if (mightExist.get(i)) {
+                candidates.add(idList.get(i));
             }
         }
-        
-        return user;
+        return candidates;
     }
     
     /**
@@ -104,10 +195,10 @@ public class CacheAsideService {
         // 1. 先更新数据库
         User updatedUser = userRepository.save(user);
         
-        // 2. 删除缓存
+        // 2. 按新版本号失效缓存，并延迟再删除一次
         String cacheKey = CACHE_KEY_PREFIX + user.getId();
-        redisTemplate.delete(cacheKey);
-        log.info("用户数据已更新，缓存已删除，ID: {}", user.getId());
+        cacheInvalidator.invalidate(userCache, cacheKey, versionOf(updatedUser));
+        log.debug("用户数据已更新，缓存已删除，ID: {}", user.getId());
         
         return updatedUser;
     }
@@ -121,9 +212,20 @@ public class CacheAsideService {
         // 1. 先删除数据库中的数据
         userRepository.deleteById(id);
         
-        // 2. 删除缓存
+        // 2. 以删除时间作为版本号失效缓存，并延迟再删除一次
         String cacheKey = CACHE_KEY_PREFIX + id;
-        redisTemplate.delete(cacheKey);
-        log.info("用户已删除，缓存已清除，ID: {}", id);
+        cacheInvalidator.invalidate(userCache, cacheKey, System.currentTimeMillis());
+        log.debug("用户已删除，缓存已清除，ID: {}", id);
+    }
+    
+    /**
+     * 用户数据的版本号：更新时间的毫秒数，没有更新时间时为 0
+     *
+     * @param user 用户对象
+     * @return 版本号
+     */
+    static long versionOf(User user) {
+        return user.getUpdateTime() == null ? 0
+                : user.getUpdateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
\ No newline at end of file
@@ -0,0 +1,297 @@
+package io.github.lizhifuabc.redis.cache.service;
+
+import io.github.lizhifuabc.redis.cache.codec.CodecException;
+import io.github.lizhifuabc.redis.cache.codec.ValueCodec;
+import io.github.lizhifuabc.redis.cache.model.User;
+import io.github.lizhifuabc.redis.cache.near.NearCache;
+import io.github.lizhifuabc.redis.cache.near.NearCacheManager;
+import io.github.lizhifuabc.redis.cache.near.VersionedCacheScripts;
+import io.github.lizhifuabc.redis.cache.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 响应式 Cache-Aside（旁路缓存）策略服务
+ * <p>
+ * 与 {@link CacheAsideService} 共用同一份缓存（相同的 key、编码格式和 L1），区别在于：
+ * <ol>
+ *     <li>Redis 读写通过 Lettuce 响应式命令完成，调用方不阻塞线程，一个聚合请求可以用
+ *     {@code Mono.zip} 等方式同时发起多个查询，总耗时接近最慢的一次往返而不是所有往返之和</li>
+ *     <li>数据库查询、布隆过滤器等阻塞调用放到虚拟线程上执行，不占用 Netty 事件循环和平台线程</li>
+ *     <li>同一 JVM 内同一ID的并发回源合并为一次</li>
+ * </ol>
+ * 写操作仍然委托 {@link CacheAsideService} 在虚拟线程上完成，更新数据库、布隆过滤器和跨节点失效的逻辑只有一份。
+ * 同时提供返回 {@link CompletableFuture} 的版本，供非响应式的调用方组合使用。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Service
+public class ReactiveCacheAsideService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCacheAsideService.class);
+    
+    /**
+     * 批量回填时过期时间的最大随机抖动比例
+     */
+    private static final double TTL_JITTER_RATIO = 0.1;
+    
+    private final UserRepository userRepository;
+    private final CacheAsideService cacheAsideService;
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final ValueCodec codec;
+    private final NearCache<User> userCache;
+    private final Duration ttl = Duration.ofSeconds(CacheAsideService.CACHE_EXPIRE_SECONDS);
+    
+    /**
+     * 阻塞调用在虚拟线程上执行，回源等待数据库时不占用平台线程
+     */
+    private final ExecutorService blockingExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Scheduler blockingScheduler = Schedulers.fromExecutorService(blockingExecutor, "reactive-cache-aside");
+    
+    /**
+     * 正在回源的请求，同一ID的并发未命中共享一次加载
+     */
+    private final Map<Long, Mono<User>> inFlightLoads = new ConcurrentHashMap<>();
+    
+    public ReactiveCacheAsideService(UserRepository userRepository, CacheAsideService cacheAsideService,
+                                     @Qualifier("reactiveByteRedisTemplate") ReactiveRedisTemplate<String, byte[]> redisTemplate,
+                                     ValueCodec codec, NearCacheManager nearCacheManager) {
+        this.userRepository = userRepository;
+        this.cacheAsideService = cacheAsideService;
+        this.redisTemplate = redisTemplate;
+        this.codec = codec;
+        // 与 CacheAsideService 同名，取到的是同一个实例
+        this.userCache = nearCacheManager.getCache(CacheAsideService.CACHE_KEY_PREFIX, User.class, ttl);
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        blockingScheduler.dispose();
+    }
+    
+    /**
+     * 获取用户信息：L1 → Redis → 布隆过滤器 + 数据库
+     *
+     * @param id 用户ID
+     * @return 用户对象，不存在时为空
+     */
+    public Mono<User> getUser(Long id) {
+        String cacheKey = CacheAsideService.CACHE_KEY_PREFIX + id;
+        User local = userCache.getLocal(cacheKey);
+        if (local != null) {
+            return Mono.just(local);
+        }
+        return redisTemplate.opsForValue().get(cacheKey)
+                .mapNotNull(bytes -> decode(cacheKey, bytes))
+                .doOnNext(user -> {
+                    userCache.metrics().recordRedis(1, 0);
+                    userCache.populateLocal(cacheKey, user);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    userCache.metrics().recordRedis(0, 1);
+                    return loadShared(id, cacheKey);
+                }));
+    }
+    
+    /**
+     * 批量获取用户信息
+     * <p>
+     * L1 未命中的ID用一次 MGET 读取 Redis，Redis 也未命中的ID经过布隆过滤器后合并为一次数据库批量查询，
+     * 回填时过期时间加入随机抖动
+     *
+     * @param ids 用户ID集合
+     * @return 存在的用户，按入参顺序排列
+     */
+    public Mono<List<User>> getUsers(Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, User> found = new ConcurrentHashMap<>();
+        List<Long> localMisses = new ArrayList<>();
+        for (Long id : idList) {
+            User local = userCache.getLocal(CacheAsideService.CACHE_KEY_PREFIX + id);
+            if (local != null) {
+                found.put(id, local);
+            } else {
+                localMisses.add(id);
+            }
+        }
+        if (localMisses.isEmpty()) {
+            return Mono.just(inOrder(idList, found));
+        }
+        
+        List<String> keys = localMisses.stream().map(id -> CacheAsideService.CACHE_KEY_PREFIX + id).toList();
+        return redisTemplate.opsForValue().multiGet(keys)
+                .flatMap(values -> {
+                    List<Long> misses = new ArrayList<>();
+                    for (int i = 0; i < localMisses.size(); i++) {
+                        byte[] bytes = values.get(i);
+                        User user = bytes == null ? null : decode(keys.get(i), bytes);
+                        if (user != null) {
+                            userCache.populateLocal(keys.get(i), user);
+                            found.put(localMisses.get(i), user);
+                        } else {
+                            misses.add(localMisses.get(i));
+                        }
+                    }
+                    userCache.metrics().recordRedis(localMisses.size() - misses.size(), misses.size());
+                    return misses.isEmpty() ? Mono.just(List.<User>of()) : loadAll(misses);
+                })
+                .map(loaded -> {
+                    loaded.forEach(user -> found.put(user.getId(), user));
+                    return inOrder(idList, found);
+                });
+    }
+    
+    /**
+     * 更新用户信息，在虚拟线程上委托 {@link CacheAsideService#updateUser(User)}
+     */
+    public Mono<User> updateUser(User user) {
+        return Mono.fromCallable(() -> cacheAsideService.updateUser(user)).subscribeOn(blockingScheduler);
+    }
+    
+    /**
+     * 删除用户，在虚拟线程上委托 {@link CacheAsideService#deleteUser(Long)}
+     */
+    public Mono<Void> deleteUser(Long id) {
+        return Mono.<Void>fromRunnable(() -> cacheAsideService.deleteUser(id)).subscribeOn(blockingScheduler);
+    }
+    
+    /**
+     * {@link #getUser(Long)} 的 CompletableFuture 版本，不存在时结果为 null
+     */
+    public CompletableFuture<User> getUserAsync(Long id) {
+        return getUser(id).toFuture();
+    }
+    
+    /**
+     * {@link #getUsers(Collection)} 的 CompletableFuture 版本
+     */
+    public CompletableFuture<List<User>> getUsersAsync(Collection<Long> ids) {
+        return getUsers(ids).toFuture();
+    }
+    
+    /**
+     * {@link #updateUser(User)} 的 CompletableFuture 版本
+     */
+    public CompletableFuture<User> updateUserAsync(User user) {
+        return updateUser(user).toFuture();
+    }
+    
+    /**
+     * 合并同一ID的并发回源
+     */
+    private Mono<User> loadShared(Long id, String cacheKey) {
+        return inFlightLoads.computeIfAbsent(id, key -> load(id, cacheKey)
+                .doFinally(signal -> inFlightLoads.remove(key))
+                .cache());
+    }
+    
+    private Mono<User> load(Long id, String cacheKey) {
+        return Mono.fromCallable(() -> {
+                    if (!cacheAsideService.mightExist(id)) {
+                        log.debug("布隆过滤器拦截不存在的用户，ID: {}", id);
+                        return null;
+                    }
+                    log.debug("缓存未命中，从数据库获取用户，ID: {}", id);
+                    long start = System.nanoTime();
+                    User user = userRepository.findById(id);
+                    userCache.metrics().recordLoad(System.nanoTime() - start);
+                    return user;
+                })
+                .subscribeOn(blockingScheduler)
+                .flatMap(user -> write(cacheKey, user, ttl).thenReturn(user));
+    }
+    
+    private Mono<List<User>> loadAll(List<Long> ids) {
+        return Mono.fromCallable(() -> {
+                    List<Long> candidates = cacheAsideService.filterMightExist(ids);
+                    if (candidates.isEmpty()) {
+                        return List.<User>of();
+                    }
+                    log.debug("缓存未命中，从数据库批量获取用户，数量: {}", candidates.size());
+                    long start = System.nanoTime();
+                    List<User> users = userRepository.findAllById(candidates);
+                    userCache.metrics().recordLoad(System.nanoTime() - start);
+                    return users;
+                })
+                .subscribeOn(blockingScheduler)
+                .flatMap(users -> {
+                    long ttlMillis = ttl.toMillis();
+                    long maxJitter = (long) (ttlMillis * TTL_JITTER_RATIO);
+                    return Flux.fromIterable(users)
+                            .flatMap(user -> write(CacheAsideService.CACHE_KEY_PREFIX + user.getId(), user,
+                                    Duration.ofMillis(ttlMillis + (maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter) : 0))))
+                            .then(Mono.just(users));
+                });
+    }
+    
+    /**
+     * 通过版本号 CAS 回填 Redis，成功后再回填 L1；已有更新版本时放弃回填，
+     * 编码或写入失败只记录日志，不影响返回结果
+     */
+    private Mono<Boolean> write(String cacheKey, User user, Duration expire) {
+        byte[] bytes;
+        try {
+            bytes = codec.encode(user);
+        } catch (CodecException e) {
+            log.error("序列化缓存数据失败，key: {}", cacheKey, e);
+            return Mono.just(false);
+        }
+        List<byte[]> args = List.of(bytes,
+                Long.toString(CacheAsideService.versionOf(user)).getBytes(StandardCharsets.UTF_8),
+                Long.toString(expire.toMillis()).getBytes(StandardCharsets.UTF_8));
+        return redisTemplate.execute(VersionedCacheScripts.SET_SCRIPT,
+                        List.of(cacheKey, VersionedCacheScripts.versionKey(cacheKey)), args)
+                .next()
+                .map(result -> result == 1L)
+                .doOnNext(written -> {
+                    if (written) {
+                        userCache.populateLocal(cacheKey, user);
+                    } else {
+                        log.debug("缓存已有更新的版本，放弃回填，key: {}", cacheKey);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.warn("回填缓存失败，key: {}", cacheKey, e);
+                    return Mono.just(false);
+                });
+    }
+    
+    /**
+     * 解码失败（如切换编解码器后的旧数据）按未命中处理，回源后会被覆盖
+     */
+    private User decode(String cacheKey, byte[] bytes) {
+        try {
+            return codec.decode(bytes, User.class);
+        } catch (CodecException e) {
+            log.error("解析缓存数据失败，key: {}", cacheKey, e);
+            return null;
+        }
+    }
+    
+    private static List<User> inOrder(List<Long> ids, Map<Long, User> users) {
+        return ids.stream().map(users::get).filter(Objects::nonNull).toList();
+    }
+}
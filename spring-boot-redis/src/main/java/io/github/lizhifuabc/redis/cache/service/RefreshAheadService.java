@@ -0,0 +1,154 @@
+package io.github.lizhifuabc.redis.cache.service;
+
+import io.github.lizhifuabc.redis.cache.model.User;
+import io.github.lizhifuabc.redis.cache.near.NearCache;
+import io.github.lizhifuabc.redis.cache.near.NearCacheManager;
+import io.github.lizhifuabc.redis.cache.refresh.RefreshAheadEngine;
+import io.github.lizhifuabc.redis.cache.refresh.RefreshAheadProperties;
+import io.github.lizhifuabc.redis.cache.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Refresh-Ahead（提前刷新）策略服务
+ *
+ * 特点：
+ * 1. 读取数据时，先查缓存，缓存命中则直接返回；缓存未命中则查询数据库，并将结果放入缓存
+ * 2. 每次读取记录 key 的访问时间，最近被访问过的 key 在过期前由后台虚拟线程从数据库重新加载
+ * 3. 每秒刷新次数有上限，不会因为大量 key 同时临近过期而压垮数据库；最近没有访问的 key 自然过期
+ * 4. 更新数据时，同时更新数据库和缓存
+ * 5. 缓存写入按更新时间做版本 CAS，更新前读到的旧数据不会被后台刷新写回
+ *
+ * 适用场景：
+ * 1. 热点数据稳定、不能接受过期瞬间同步回源延迟的场景
+ * 2. 数据允许在一个缓存周期内短暂不一致的场景
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Service
+public class RefreshAheadService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshAheadService.class);
+
+    /**
+     * 缓存键前缀
+     */
+    private static final String CACHE_KEY_PREFIX = "refresh_ahead:user:";
+
+    /**
+     * 缓存过期时间（秒），热点 key 会在过期前被刷新，因此可以比其他策略短
+     */
+    private static final long CACHE_EXPIRE_SECONDS = 300;
+
+    private final UserRepository userRepository;
+    private final NearCache<User> userCache;
+
+    /**
+     * 提前刷新引擎，以用户ID为 key
+     */
+    private final RefreshAheadEngine<Long> refreshEngine;
+
+    public RefreshAheadService(UserRepository userRepository, NearCacheManager nearCacheManager,
+                               RefreshAheadProperties refreshAheadProperties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userCache = nearCacheManager.getCache(CACHE_KEY_PREFIX, User.class, Duration.ofSeconds(CACHE_EXPIRE_SECONDS));
+        // 刷新由引擎按访问记录统一调度，关闭命中时的概率提前刷新
+        this.userCache.setEarlyRefreshBeta(0);
+        // 后台刷新与更新并发时，先读到旧数据的刷新不能覆盖更新写入的新数据
+        this.userCache.setVersionExtractor(CacheAsideService::versionOf);
+        this.refreshEngine = new RefreshAheadEngine<>("user", refreshAheadProperties, this::refresh);
+        this.refreshEngine.bindTo(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        refreshEngine.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshEngine.shutdown();
+    }
+
+    /**
+     * 获取用户信息，并记录访问供提前刷新使用
+     *
+     * @param id 用户ID
+     * @return 用户对象，如果不存在返回null
+     */
+    public User getUser(Long id) {
+        String cacheKey = CACHE_KEY_PREFIX + id;
+
+        // 1. 先查询缓存（本地缓存 -> Redis），未命中时合并回源数据库并放入缓存
+        User user = userCache.get(cacheKey, key -> {
+            log.debug("缓存未命中，从数据库获取用户，ID: {}", id);
+            return userRepository.findById(id);
+        });
+
+        // 2. 记录访问时间和缓存过期时间，不存在的数据不跟踪
+        if (user != null) {
+            refreshEngine.recordAccess(id, userCache.expireAt(cacheKey));
+        }
+        return user;
+    }
+
+    /**
+     * 更新用户信息，同时更新数据库和缓存
+     *
+     * @param user 用户对象
+     * @return 更新后的用户对象
+     */
+    public User updateUser(User user) {
+        // 1. 更新数据库
+        User updatedUser = userRepository.save(user);
+
+        // 2. 同时更新缓存，并通知其他节点失效本地缓存
+        String cacheKey = CACHE_KEY_PREFIX + user.getId();
+        userCache.put(cacheKey, updatedUser);
+        log.debug("用户数据已更新，缓存已同步更新，ID: {}", user.getId());
+
+        return updatedUser;
+    }
+
+    /**
+     * 删除用户
+     *
+     * @param id 用户ID
+     */
+    public void deleteUser(Long id) {
+        // 1. 删除数据库中的数据
+        userRepository.deleteById(id);
+
+        // 2. 以删除时间作为版本号失效缓存，并停止提前刷新；删除前开始的刷新无法回填
+        refreshEngine.remove(id);
+        userCache.invalidate(CACHE_KEY_PREFIX + id, System.currentTimeMillis());
+        log.debug("用户已删除，缓存已清除，ID: {}", id);
+    }
+
+    /**
+     * 后台刷新：重新加载并按版本号回填缓存
+     * <p>
+     * 已有更新的版本时放弃回填，本节点 L1 中没有该 key 时返回 0，之后的访问会重新开始跟踪
+     *
+     * @param id 用户ID
+     * @return 新的过期时间戳，数据已不存在时返回 0
+     */
+    private long refresh(Long id) {
+        String cacheKey = CACHE_KEY_PREFIX + id;
+        User user = userRepository.findById(id);
+        if (user == null) {
+            userCache.invalidate(cacheKey, System.currentTimeMillis());
+            return 0;
+        }
+        userCache.populate(cacheKey, user);
+        log.debug("提前刷新缓存完成，ID: {}", id);
+        return userCache.expireAt(cacheKey);
+    }
+}
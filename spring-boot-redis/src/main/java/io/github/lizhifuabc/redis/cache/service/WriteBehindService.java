@@ -1,29 +1,36 @@
 package io.github.lizhifuabc.redis.cache.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.github.lizhifuabc.redis.cache.model.User;
+import io.github.lizhifuabc.redis.cache.near.NearCache;
+import io.github.lizhifuabc.redis.cache.near.NearCacheManager;
 import io.github.lizhifuabc.redis.cache.repository.UserRepository;
+import io.github.lizhifuabc.redis.cache.writebehind.BatchWriter;
+import io.github.lizhifuabc.redis.cache.writebehind.WriteBehindEngine;
+import io.github.lizhifuabc.redis.cache.writebehind.WriteBehindJournalFactory;
+import io.github.lizhifuabc.redis.cache.writebehind.WriteBehindProperties;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Write-Behind（异步写入）策略服务
  * 
  * 特点：
  * 1. 读取数据时，先查缓存，缓存命中则直接返回；缓存未命中则查询数据库，并将结果放入缓存
- * 2. 更新数据时，先更新缓存，然后异步更新数据库
+ * 2. 更新数据时，写入队列接受后再更新缓存，然后异步更新数据库；队列拒绝时缓存不变，不会出现未持久化的值
+ * 3. 异步写入由 {@link WriteBehindEngine} 完成：按用户ID合并、批量写入、失败退避重试
+ * 4. 每次变更先写入持久化日志，重启后回放日志，已确认的更新不会因进程退出而丢失
  * 
  * 适用场景：
  * 1. 写入频繁但可以接受短暂不一致的场景
@@ -47,27 +54,47 @@ public class WriteBehindService {
      */
     private static final long CACHE_EXPIRE_SECONDS = 3600;
     
+    private final UserRepository userRepository;
+    private final NearCache<User> userCache;
+    
     /**
-     * 写操作队列，存储待写入数据库的操作
+     * 异步写入引擎，存储待写入数据库的更新和删除操作
      */
-    private final Queue<User> writeQueue = new ConcurrentLinkedQueue<>();
+    private final WriteBehindEngine<Long, User> writeEngine;
+    
+    public WriteBehindService(UserRepository userRepository, NearCacheManager nearCacheManager,
+                              WriteBehindProperties writeBehindProperties, WriteBehindJournalFactory journalFactory,
+                              MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userCache = nearCacheManager.getCache(CACHE_KEY_PREFIX, User.class, Duration.ofSeconds(CACHE_EXPIRE_SECONDS));
+        this.writeEngine = new WriteBehindEngine<>("user", writeBehindProperties, new BatchWriter<>() {
+            @Override
+            public void saveAll(Map<Long, User> users) {
+                userRepository.saveAll(users.values());
+            }
+            
+            @Override
+            public void deleteAll(Collection<Long> ids) {
+                userRepository.deleteAllById(ids);
+            }
+        }, journalFactory.create("user", Long.class, User.class));
+        this.writeEngine.bindTo(meterRegistry);
+    }
     
     /**
-     * 删除操作映射，存储待删除的用户ID
+     * 启动时先回放持久化日志中未写入数据库的操作，再接受新的写入
      */
-    private final Map<Long, Boolean> deleteMap = new ConcurrentHashMap<>();
-    
-    private final UserRepository userRepository;
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper;
+    @PostConstruct
+    public void init() {
+        writeEngine.start();
+    }
     
-    public WriteBehindService(UserRepository userRepository, StringRedisTemplate redisTemplate) {
-        this.userRepository = userRepository;
-        this.redisTemplate = redisTemplate;
-        
-        // 配置ObjectMapper以支持Java 8日期时间类型
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+    /**
+     * 应用关闭前将队列中剩余的操作写入数据库
+     */
+    @PreDestroy
+    public void destroy() {
+        writeEngine.shutdown();
     }
     
     /**
@@ -79,125 +106,91 @@ public class WriteBehindService {
     public User getUser(Long id) {
         String cacheKey = CACHE_KEY_PREFIX + id;
         
-        // 1. 先查询缓存
-        String userJson = redisTemplate.opsForValue().get(cacheKey);
-        
-        // 2. 缓存命中，直接返回
-        if (userJson != null) {
-            log.info("缓存命中，从缓存获取用户，ID: {}", id);
-            try {
-                return objectMapper.readValue(userJson, User.class);
-            } catch (JsonProcessingException e) {
-                log.error("解析缓存中的用户数据失败", e);
-            }
-        }
-        
-        // 3. 缓存未命中，查询数据库
-        log.info("缓存未命中，从数据库获取用户，ID: {}", id);
-        User user = userRepository.findById(id);
-        
-        // 4. 将数据库查询结果放入缓存
-        if (user != null) {
-            try {
-                String json = objectMapper.writeValueAsString(user);
-                redisTemplate.opsForValue().set(cacheKey, json, Duration.ofSeconds(CACHE_EXPIRE_SECONDS));
-                log.info("用户数据已放入缓存，ID: {}", id);
-            } catch (JsonProcessingException e) {
-                log.error("序列化用户数据失败", e);
-            }
-        }
+        // 先查询缓存（本地缓存 -> Redis），未命中时合并回源数据库并放入缓存；
+        // 命中率和回源耗时由缓存指标统计，不再逐次记录日志
+        return userCache.get(cacheKey, key -> {
+            log.debug("缓存未命中，从数据库获取用户，ID: {}", id);
+            return userRepository.findById(id);
+        });
+    }
+    
+    /**
+     * 批量获取用户信息
+     * <p>
+     * 本地缓存未命中的ID在一次 Redis 往返中读取，Redis 也未命中的ID合并为一次数据库批量查询，
+     * 回填缓存时过期时间加入随机抖动
+     *
+     * @param ids 用户ID集合
+     * @return 存在的用户，按入参顺序排列
+     */
+    public List<User> getUsers(Collection<Long> ids) {
+        Map<String, User> users = userCache.getAll(ids.stream().map(id -> CACHE_KEY_PREFIX + id).toList(), keys -> {
+            List<Long> missIds = keys.stream()
+                    .map(key -> Long.valueOf(key.substring(CACHE_KEY_PREFIX.length())))
+                    .toList();
+            log.debug("缓存未命中，从数据库批量获取用户，数量: {}", missIds.size());
+            return userRepository.findAllById(missIds).stream()
+                    .collect(Collectors.toMap(user -> CACHE_KEY_PREFIX + user.getId(), Function.identity()));
+        });
         
-        return user;
+        return ids.stream()
+                .map(id -> users.get(CACHE_KEY_PREFIX + id))
+                .filter(Objects::nonNull)
+                .toList();
     }
     
     /**
      * 更新用户信息
-     * 先更新缓存，然后将更新操作放入队列，异步更新数据库
+     * 先将更新操作放入队列，队列接受后再更新缓存，异步更新数据库
      * 
      * @param user 用户对象
      * @return 更新后的用户对象
+     * @throws IllegalStateException 队列已满或引擎未运行，此时缓存不会被修改
      */
     public User updateUser(User user) {
-        // 1. 先更新缓存
-        String cacheKey = CACHE_KEY_PREFIX + user.getId();
-        try {
-            String json = objectMapper.writeValueAsString(user);
-            redisTemplate.opsForValue().set(cacheKey, json, Duration.ofSeconds(CACHE_EXPIRE_SECONDS));
-            log.info("用户数据已更新到缓存，ID: {}", user.getId());
-        } catch (JsonProcessingException e) {
-            log.error("序列化用户数据失败", e);
-        }
+        // 1. 将更新操作放入队列，等待异步处理（队列已满时会阻塞等待，超时抛出异常）
+        writeEngine.save(user.getId(), user);
+        log.debug("用户更新操作已加入队列，等待异步处理，ID: {}", user.getId());
         
-        // 2. 将更新操作放入队列，等待异步处理
-        writeQueue.offer(user);
-        log.info("用户更新操作已加入队列，等待异步处理，ID: {}", user.getId());
+        // 2. 队列接受后再更新缓存，并通知其他节点失效本地缓存
+        String cacheKey = CACHE_KEY_PREFIX + user.getId();
+        userCache.put(cacheKey, user);
+        log.debug("用户数据已更新到缓存，ID: {}", user.getId());
         
         return user;
     }
     
     /**
      * 删除用户
-     * 先从缓存中删除，然后将删除操作放入映射，异步从数据库删除
+     * 先将删除操作放入队列，队列接受后再从缓存中删除，异步从数据库删除
      * 
      * @param id 用户ID
+     * @throws IllegalStateException 队列已满或引擎未运行，此时缓存不会被修改
      */
     public void deleteUser(Long id) {
-        // 1. 先从缓存中删除
-        String cacheKey = CACHE_KEY_PREFIX + id;
-        redisTemplate.delete(cacheKey);
-        log.info("用户已从缓存中删除，ID: {}", id);
+        // 1. 将删除操作放入队列，等待异步处理
+        writeEngine.delete(id);
+        log.debug("用户删除操作已加入队列，等待异步处理，ID: {}", id);
         
-        // 2. 将删除操作放入映射，等待异步处理
-        deleteMap.put(id, true);
-        log.info("用户删除操作已加入队列，等待异步处理，ID: {}", id);
+        // 2. 队列接受后再从缓存中删除
+        String cacheKey = CACHE_KEY_PREFIX + id;
+        userCache.evict(cacheKey);
+        log.debug("用户已从缓存中删除，ID: {}", id);
     }
     
     /**
-     * 定时任务，异步处理写入队列中的操作
-     * 每5秒执行一次
+     * 立即将队列中到期的操作写入数据库
+     *
+     * @return 成功写入的记录数
      */
-    @Scheduled(fixedRate = 5000)
-    public void processWriteQueue() {
-        log.info("开始处理写入队列，当前队列大小: {}", writeQueue.size());
-        
-        int count = 0;
-        User user;
-        while ((user = writeQueue.poll()) != null) {
-            try {
-                userRepository.save(user);
-                count++;
-                log.info("异步更新用户数据到数据库成功，ID: {}", user.getId());
-            } catch (Exception e) {
-                log.error("异步更新用户数据到数据库失败，ID: " + user.getId(), e);
-                // 失败后重新放入队列，等待下次处理
-                writeQueue.offer(user);
-            }
-        }
-        
-        log.info("写入队列处理完成，成功处理 {} 条记录", count);
+    public int flush() {
+        return writeEngine.flush();
     }
     
     /**
-     * 定时任务，异步处理删除映射中的操作
-     * 每5秒执行一次
+     * 待写入数据库的操作数
      */
-    @Scheduled(fixedRate = 5000)
-    public void processDeleteMap() {
-        log.info("开始处理删除映射，当前映射大小: {}", deleteMap.size());
-        
-        int count = 0;
-        for (Long id : deleteMap.keySet()) {
-            try {
-                userRepository.deleteById(id);
-                deleteMap.remove(id);
-                count++;
-                log.info("异步从数据库删除用户成功，ID: {}", id);
-            } catch (Exception e) {
-                log.error("异步从数据库删除用户失败，ID: " + id, e);
-                // 失败后保留在映射中，等待下次处理
-            }
-        }
-        
-        log.info("删除映射处理完成，成功处理 {} 条记录", count);
+    public int pendingCount() {
+        return writeEngine.pendingCount();
     }
 }
\ No newline at end of file
@@ -1,16 +1,20 @@
 package io.github.lizhifuabc.redis.cache.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.github.lizhifuabc.redis.cache.model.User;
+import io.github.lizhifuabc.redis.cache.near.NearCache;
+import io.github.lizhifuabc.redis.cache.near.NearCacheManager;
 import io.github.lizhifuabc.redis.cache.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Write-Through（直写）策略服务
@@ -42,16 +46,11 @@ public class WriteThroughService {
     private static final long CACHE_EXPIRE_SECONDS = 3600;
     
     private final UserRepository userRepository;
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final NearCache<User> userCache;
     
-    public WriteThroughService(UserRepository userRepository, StringRedisTemplate redisTemplate) {
+    public WriteThroughService(UserRepository userRepository, NearCacheManager nearCacheManager) {
         this.userRepository = userRepository;
-        this.redisTemplate = redisTemplate;
-        
-        // 配置ObjectMapper以支持Java 8日期时间类型
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.userCache = nearCacheManager.getCache(CACHE_KEY_PREFIX, User.class, Duration.ofSeconds(CACHE_EXPIRE_SECONDS));
     }
     
     /**
@@ -63,35 +62,37 @@ public class WriteThroughService {
     public User getUser(Long id) {
         String cacheKey = CACHE_KEY_PREFIX + id;
         
-        // 1. 先查询缓存
-        String userJson = redisTemplate.opsForValue().get(cacheKey);
-        
-        // 2. 缓存命中，直接返回
-        if (userJson != null) {
-            log.info("缓存命中，从缓存获取用户，ID: {}", id);
-            try {
-                return objectMapper.readValue(userJson, User.class);
-            } catch (JsonProcessingException e) {
-                log.error("解析缓存中的用户数据失败", e);
-            }
-        }
-        
-        // 3. 缓存未命中，查询数据库
-        log.info("缓存未命中，从数据库获取用户，ID: {}", id);
-        User user = userRepository.findById(id);
-        
-        // 4. 将数据库查询结果放入缓存
-        if (user != null) {
-            try {
-                String json = objectMapper.writeValueAsString(user);
-                redisTemplate.opsForValue().set(cacheKey, json, Duration.ofSeconds(CACHE_EXPIRE_SECONDS));
-                log.info("用户数据已放入缓存，ID: {}", id);
-            } catch (JsonProcessingException e) {
-                log.error("序列化用户数据失败", e);
-            }
-        }
+        // 先查询缓存（本地缓存 -> Redis），未命中时合并回源数据库并放入缓存；
+        // 命中率和回源耗时由缓存指标统计，不再逐次记录日志
+        return userCache.get(cacheKey, key -> {
+            log.debug("缓存未命中，从数据库获取用户，ID: {}", id);
+            return userRepository.findById(id);
+        });
+    }
+    
+    /**
+     * 批量获取用户信息
+     * <p>
+     * 本地缓存未命中的ID在一次 Redis 往返中读取，Redis 也未命中的ID合并为一次数据库批量查询，
+     * 回填缓存时过期时间加入随机抖动
+     *
+     * @param ids 用户ID集合
+     * @return 存在的用户，按入参顺序排列
+     */
+    public List<User> getUsers(Collection<Long> ids) {
+        Map<String, User> users = userCache.getAll(ids.stream().map(id -> CACHE_KEY_PREFIX + id).toList(), keys -> {
+            List<Long> missIds = keys.stream()
+                    .map(key -> Long.valueOf(key.substring(CACHE_KEY_PREFIX.length())))
+                    .toList();
+            log.debug("缓存未命中，从数据库批量获取用户，数量: {}", missIds.size());
+            return userRepository.findAllById(missIds).stream()
+                    .collect(Collectors.toMap(user -> CACHE_KEY_PREFIX + user.getId(), Function.identity()));
+        });
         
-        return user;
+        return ids.stream()
+                .map(id -> users.get(CACHE_KEY_PREFIX + id))
+                .filter(Objects::nonNull)
+                .toList();
     }
     
     /**
@@ -105,18 +106,10 @@ public class WriteThroughService {
         // 1. 更新数据库
         User updatedUser = userRepository.save(user);
         
-        // 2. 同时更新缓存
+        // 2. 同时更新缓存（序列化失败时会删除缓存以保证数据一致性），并通知其他节点失效本地缓存
         String cacheKey = CACHE_KEY_PREFIX + user.getId();
-        try {
-            String json = objectMapper.writeValueAsString(updatedUser);
-            redisTemplate.opsForValue().set(cacheKey, json, Duration.ofSeconds(CACHE_EXPIRE_SECONDS));
-            log.info("用户数据已更新，缓存已同步更新，ID: {}", user.getId());
-        } catch (JsonProcessingException e) {
-            log.error("序列化用户数据失败", e);
-            // 如果缓存更新失败，删除缓存以保证数据一致性
-            redisTemplate.delete(cacheKey);
-            log.info("缓存更新失败，已删除缓存，ID: {}", user.getId());
-        }
+        userCache.put(cacheKey, updatedUser);
+        log.debug("用户数据已更新，缓存已同步更新，ID: {}", user.getId());
         
         return updatedUser;
     }
@@ -132,7 +125,7 @@ public class WriteThroughService {
         
         // 2. 删除缓存
         String cacheKey = CACHE_KEY_PREFIX + id;
-        redisTemplate.delete(cacheKey);
-        log.info("用户已删除，缓存已清除，ID: {}", id);
+        userCache.evict(cacheKey);
+        log.debug("用户已删除，缓存已清除，ID: {}", id);
     }
 }
\ No newline at end of file
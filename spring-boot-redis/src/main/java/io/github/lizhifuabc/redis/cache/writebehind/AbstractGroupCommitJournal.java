@@ -0,0 +1,163 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 组提交（group commit）日志基类
+ * <p>
+ * 写入方在锁内把记录写入缓冲区后等待当前批次完成；后台线程每轮把这段时间内追加的所有记录
+ * 一次性持久化（fsync 或 Redis 管道），再唤醒整批写入方。
+ * 一次持久化的开销被一批写入分摊，吞吐量不再受单次 fsync 延迟限制。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+abstract class AbstractGroupCommitJournal<K, V> implements WriteBehindJournal<K, V> {
+    /**
+     * 没有新记录时后台线程的最长等待时间（毫秒）
+     */
+    private static final long IDLE_WAIT_MILLIS = 100;
+
+    private final String name;
+    private final JournalCodec<K, V> codec;
+
+    protected final ReentrantLock lock = new ReentrantLock();
+    private final Condition dirty = lock.newCondition();
+
+    /**
+     * 当前正在收集记录的批次
+     */
+    private CompletableFuture<Void> openBatch = new CompletableFuture<>();
+    private boolean hasPending;
+    private volatile boolean running;
+    private Thread syncThread;
+
+    protected AbstractGroupCommitJournal(String name, JournalCodec<K, V> codec) {
+        this.name = name;
+        this.codec = codec;
+    }
+
+    protected JournalCodec<K, V> codec() {
+        return codec;
+    }
+
+    /**
+     * 启动后台持久化线程，由子类在回放完成后调用
+     */
+    protected void startSync() {
+        running = true;
+        syncThread = new Thread(this::syncLoop, "write-behind-journal-" + name);
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    @Override
+    public void append(PendingWrite<K, V> write) {
+        // 编码放在锁外，锁内只做缓冲区拷贝
+        byte[] record = codec.encode(write);
+        CompletableFuture<Void> batch;
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Write-Behind 日志[" + name + "]未运行");
+            }
+            write(record, write.getSequence());
+            hasPending = true;
+            batch = openBatch;
+            dirty.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            batch.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Write-Behind 日志[" + name + "]持久化失败", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            dirty.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (syncThread != null) {
+            try {
+                syncThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeResources();
+    }
+
+    private void syncLoop() {
+        while (true) {
+            CompletableFuture<Void> batch;
+            Object syncTarget;
+            lock.lock();
+            try {
+                while (!hasPending && running) {
+                    dirty.await(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (!hasPending) {
+                    return;
+                }
+                // 关闭当前批次，之后追加的记录进入下一批
+                batch = openBatch;
+                openBatch = new CompletableFuture<>();
+                hasPending = false;
+                syncTarget = prepareSync();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                sync(syncTarget);
+                batch.complete(null);
+            } catch (Exception e) {
+                log.error("Write-Behind 日志[{}]持久化失败", name, e);
+                batch.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 在锁内把记录写入缓冲区
+     *
+     * @param record   编码后的记录
+     * @param sequence 记录序号
+     */
+    protected abstract void write(byte[] record, long sequence);
+
+    /**
+     * 在锁内截取本批次需要持久化的内容
+     *
+     * @return 传给 {@link #sync(Object)} 的对象
+     */
+    protected abstract Object prepareSync();
+
+    /**
+     * 在锁外持久化本批次
+     *
+     * @param target {@link #prepareSync()} 的返回值
+     */
+    protected abstract void sync(Object target) throws Exception;
+
+    /**
+     * 释放底层资源
+     */
+    protected abstract void closeResources();
+}
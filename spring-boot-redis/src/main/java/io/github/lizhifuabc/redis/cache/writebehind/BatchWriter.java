@@ -0,0 +1,28 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 批量写入数据源的回调，由 {@link WriteBehindEngine} 在刷新时调用
+ * <p>
+ * 任一方法抛出异常都视为整批失败，批次内的记录会按退避策略重试
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public interface BatchWriter<K, V> {
+    /**
+     * 批量保存
+     *
+     * @param values 待保存的记录，每个 key 只保留最后一次写入
+     */
+    void saveAll(Map<K, V> values);
+
+    /**
+     * 批量删除
+     *
+     * @param keys 待删除的 key
+     */
+    void deleteAll(Collection<K> keys);
+}
@@ -0,0 +1,261 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 基于内存映射文件的 Write-Behind 日志
+ *
+ * <h2>文件结构</h2>
+ * <ul>
+ *     <li>日志按固定大小切分为段文件 {@code segment-<编号>.log}，只追加写入，写满后切换到新段</li>
+ *     <li>每条记录的帧格式为 {@code [长度 int][CRC32C int][内容]}，长度为 0 表示段结束（文件预分配时以 0 填充）</li>
+ *     <li>{@code checkpoint} 文件保存检查点序号，回放时跳过序号更小的记录；所有记录都小于检查点的旧段直接删除</li>
+ * </ul>
+ * 写入通过 {@link MappedByteBuffer} 完成，后台线程以组提交的方式调用 {@link MappedByteBuffer#force()}。
+ * 进程崩溃时，CRC 校验失败的残缺记录及其之后的内容会被忽略。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+public class FileWriteBehindJournal<K, V> extends AbstractGroupCommitJournal<K, V> {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /**
+     * 帧头长度：长度 + CRC
+     */
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    /**
+     * 已写满或回放得到的旧段，按编号升序
+     */
+    private final Deque<Segment> closedSegments = new ArrayDeque<>();
+
+    private MappedByteBuffer current;
+    private Path currentPath;
+    private int writePosition;
+    private long currentMaxSequence;
+    private long nextSegmentIndex;
+
+    FileWriteBehindJournal(String name, JournalCodec<K, V> codec, Path directory, int segmentSize) {
+        super(name, codec);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public long replay(Consumer<PendingWrite<K, V>> consumer) {
+        try {
+            Files.createDirectories(directory);
+            long checkpoint = readCheckpoint();
+            long maxSequence = 0;
+            int replayed = 0;
+            for (Path path : listSegments()) {
+                long segmentMax = 0;
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    int position = 0;
+                    while (position + FRAME_HEADER_SIZE <= buffer.limit()) {
+                        int length = buffer.getInt(position);
+                        if (length <= 0 || position + FRAME_HEADER_SIZE + length > buffer.limit()) {
+                            break;
+                        }
+                        byte[] record = new byte[length];
+                        buffer.get(position + FRAME_HEADER_SIZE, record);
+                        if (crc(record) != buffer.getInt(position + 4)) {
+                            log.warn("Write-Behind 日志记录校验失败，忽略 {} 偏移 {} 之后的内容", path, position);
+                            break;
+                        }
+                        PendingWrite<K, V> write = codec().decode(record);
+                        segmentMax = Math.max(segmentMax, write.getSequence());
+                        if (write.getSequence() >= checkpoint) {
+                            consumer.accept(write);
+                            replayed++;
+                        }
+                        position += FRAME_HEADER_SIZE + length;
+                    }
+                }
+                closedSegments.addLast(new Segment(path, segmentMax));
+                maxSequence = Math.max(maxSequence, segmentMax);
+                nextSegmentIndex = Math.max(nextSegmentIndex, segmentIndex(path) + 1);
+            }
+            log.info("Write-Behind 日志回放完成，目录: {}，检查点: {}，回放记录数: {}", directory, checkpoint, replayed);
+
+            // 回放后总是写入新段，不在可能残缺的旧段上追加
+            openSegment();
+            startSync();
+            return Math.max(maxSequence, checkpoint > 0 ? checkpoint - 1 : 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("回放 Write-Behind 日志失败: " + directory, e);
+        }
+    }
+
+    @Override
+    protected void write(byte[] record, long sequence) {
+        int frameSize = FRAME_HEADER_SIZE + record.length;
+        if (frameSize > segmentSize) {
+            throw new IllegalArgumentException("Write-Behind 日志记录过大: " + record.length + " bytes");
+        }
+        if (writePosition + frameSize > segmentSize) {
+            rollSegment();
+        }
+        current.putInt(writePosition + 4, crc(record));
+        current.put(writePosition + FRAME_HEADER_SIZE, record);
+        // 长度最后写入，保证读到非 0 长度时内容已完整
+        current.putInt(writePosition, record.length);
+        writePosition += frameSize;
+        currentMaxSequence = Math.max(currentMaxSequence, sequence);
+    }
+
+    @Override
+    protected Object prepareSync() {
+        return current;
+    }
+
+    @Override
+    protected void sync(Object target) {
+        ((MappedByteBuffer) target).force();
+    }
+
+    @Override
+    public void checkpoint(long sequence) {
+        try {
+            Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(tmp, Long.toString(sequence), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+            Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("写入 Write-Behind 日志检查点失败，检查点: {}", sequence, e);
+            return;
+        }
+
+        // 删除所有记录都已过期的旧段
+        List<Path> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<Segment> iterator = closedSegments.iterator();
+            while (iterator.hasNext()) {
+                Segment segment = iterator.next();
+                if (segment.maxSequence < sequence) {
+                    expired.add(segment.path);
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Path path : expired) {
+            try {
+                Files.deleteIfExists(path);
+                log.debug("删除已过期的 Write-Behind 日志段: {}", path);
+            } catch (IOException e) {
+                log.warn("删除 Write-Behind 日志段失败: {}", path, e);
+            }
+        }
+    }
+
+    @Override
+    protected void closeResources() {
+        lock.lock();
+        try {
+            if (current != null) {
+                current.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前段写满，同步刷盘后切换到新段（在锁内调用）
+     */
+    private void rollSegment() {
+        current.force();
+        closedSegments.addLast(new Segment(currentPath, currentMaxSequence));
+        try {
+            openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建 Write-Behind 日志段失败", e);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentIndex++, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射在通道关闭后仍然有效
+            current = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        currentPath = path;
+        writePosition = 0;
+        currentMaxSequence = 0;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String fileName = path.getFileName().toString();
+                        return fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        String content = Files.readString(path).trim();
+        return content.isEmpty() ? 0 : Long.parseLong(content);
+    }
+
+    private static long segmentIndex(Path path) {
+        String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int crc(byte[] record) {
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(record);
+        return (int) crc32c.getValue();
+    }
+
+    /**
+     * 旧段信息
+     */
+    private static final class Segment {
+        private final Path path;
+        private final long maxSequence;
+
+        private Segment(Path path, long maxSequence) {
+            this.path = path;
+            this.maxSequence = maxSequence;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 日志记录编解码，记录格式：{@code {"s":序号,"o":操作,"k":key,"v":value}}
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class JournalCodec<K, V> {
+    private final ObjectMapper objectMapper;
+    private final Class<K> keyType;
+    private final Class<V> valueType;
+
+    JournalCodec(ObjectMapper objectMapper, Class<K> keyType, Class<V> valueType) {
+        this.objectMapper = objectMapper;
+        this.keyType = keyType;
+        this.valueType = valueType;
+    }
+
+    byte[] encode(PendingWrite<K, V> write) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("s", write.getSequence());
+        node.put("o", write.getOperation().name());
+        node.set("k", objectMapper.valueToTree(write.getKey()));
+        if (write.getValue() != null) {
+            node.set("v", objectMapper.valueToTree(write.getValue()));
+        }
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException("编码 Write-Behind 日志记录失败", e);
+        }
+    }
+
+    PendingWrite<K, V> decode(byte[] bytes) {
+        try {
+            JsonNode node = objectMapper.readTree(bytes);
+            JsonNode value = node.get("v");
+            return new PendingWrite<>(
+                    objectMapper.treeToValue(node.get("k"), keyType),
+                    PendingWrite.Operation.valueOf(node.get("o").asText()),
+                    value == null || value.isNull() ? null : objectMapper.treeToValue(value, valueType),
+                    node.get("s").asLong());
+        } catch (IOException e) {
+            throw new UncheckedIOException("解码 Write-Behind 日志记录失败", e);
+        }
+    }
+}
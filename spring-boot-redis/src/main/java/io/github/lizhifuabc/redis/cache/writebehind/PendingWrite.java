@@ -0,0 +1,119 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+/**
+ * 待写入的记录，同一个 key 只保留最后一次变更
+ * <p>
+ * 实例不可变，合并、重试都会生成新实例
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public final class PendingWrite<K, V> {
+    /**
+     * 变更类型
+     */
+    public enum Operation {
+        /**
+         * 新增或更新
+         */
+        UPSERT,
+        /**
+         * 删除
+         */
+        DELETE
+    }
+
+    private final K key;
+    private final Operation operation;
+    private final V value;
+
+    /**
+     * 变更序号，单调递增，用于判断新旧
+     */
+    private final long sequence;
+
+    /**
+     * 已失败次数
+     */
+    private final int attempts;
+
+    /**
+     * 下次允许写入的时间戳（毫秒）
+     */
+    private final long nextAttemptAt;
+
+    /**
+     * 该 key 最早一次尚未写入的变更的时间戳（毫秒），合并和重试时保留，用于统计写入延迟
+     */
+    private final long enqueuedAt;
+
+    PendingWrite(K key, Operation operation, V value, long sequence) {
+        this(key, operation, value, sequence, 0, 0, System.currentTimeMillis());
+    }
+
+    private PendingWrite(K key, Operation operation, V value, long sequence, int attempts, long nextAttemptAt,
+                         long enqueuedAt) {
+        this.key = key;
+        this.operation = operation;
+        this.value = value;
+        this.sequence = sequence;
+        this.attempts = attempts;
+        this.nextAttemptAt = nextAttemptAt;
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    /**
+     * 合并一次新的变更，新变更覆盖旧变更，重试状态清零
+     */
+    PendingWrite<K, V> merge(Operation operation, V value, long sequence) {
+        return new PendingWrite<>(key, operation, value, sequence, 0, 0, enqueuedAt);
+    }
+
+    /**
+     * 记录一次失败
+     *
+     * @param delayMillis 退避时间
+     */
+    PendingWrite<K, V> retry(long delayMillis) {
+        return new PendingWrite<>(key, operation, value, sequence, attempts + 1,
+                System.currentTimeMillis() + delayMillis, enqueuedAt);
+    }
+
+    boolean isReady(long now) {
+        return nextAttemptAt <= now;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PendingWrite{" +
+                "key=" + key +
+                ", operation=" + operation +
+                ", sequence=" + sequence +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
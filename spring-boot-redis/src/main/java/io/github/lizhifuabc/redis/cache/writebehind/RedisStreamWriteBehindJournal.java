@@ -0,0 +1,165 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis Stream 的 Write-Behind 日志
+ * <p>
+ * 每条记录 XADD 到 {@code 前缀 + 引擎名称 + : + 节点ID} 的 Stream 中，后台线程把一批记录放在一个管道里提交；
+ * 检查点推进后用 XDEL 删除已过期的记录。持久性取决于 Redis 的 AOF 配置，适合本地磁盘不可靠的部署环境。
+ * <p>
+ * 序号和记录 ID 只在本进程内维护，因此每个节点独占一个 Stream，节点之间不会回放或删除对方的记录；
+ * 节点下线后，用相同的节点ID重新启动即可回放其未写入的记录。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+public class RedisStreamWriteBehindJournal<K, V> extends AbstractGroupCommitJournal<K, V> {
+    /**
+     * 记录内容字段
+     */
+    private static final String RECORD_FIELD = "r";
+
+    /**
+     * 回放和删除时单批处理的记录数
+     */
+    private static final int PAGE_SIZE = 500;
+
+    private final String streamKey;
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 序号到 Stream 记录 ID 的映射，用于按检查点删除
+     */
+    private final NavigableMap<Long, RecordId> recordIds = new ConcurrentSkipListMap<>();
+
+    /**
+     * 等待提交的记录，序号与内容一一对应
+     */
+    private List<Long> bufferedSequences = new ArrayList<>();
+    private List<String> bufferedRecords = new ArrayList<>();
+
+    RedisStreamWriteBehindJournal(String name, JournalCodec<K, V> codec, String streamKey,
+                                  StringRedisTemplate redisTemplate) {
+        super(name, codec);
+        this.streamKey = streamKey;
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public long replay(Consumer<PendingWrite<K, V>> consumer) {
+        long maxSequence = 0;
+        int replayed = 0;
+        Range<String> range = Range.unbounded();
+        while (true) {
+            List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                    .range(streamKey, range, Limit.limit().count(PAGE_SIZE));
+            if (records == null || records.isEmpty()) {
+                break;
+            }
+            for (MapRecord<String, Object, Object> record : records) {
+                Object content = record.getValue().get(RECORD_FIELD);
+                if (content == null) {
+                    continue;
+                }
+                PendingWrite<K, V> write = codec().decode(content.toString().getBytes(StandardCharsets.UTF_8));
+                recordIds.put(write.getSequence(), record.getId());
+                maxSequence = Math.max(maxSequence, write.getSequence());
+                consumer.accept(write);
+                replayed++;
+            }
+            RecordId last = records.get(records.size() - 1).getId();
+            range = Range.rightUnbounded(Range.Bound.exclusive(last.getValue()));
+        }
+        log.info("Write-Behind 日志回放完成，Stream: {}，回放记录数: {}", streamKey, replayed);
+        startSync();
+        return maxSequence;
+    }
+
+    @Override
+    protected void write(byte[] record, long sequence) {
+        bufferedSequences.add(sequence);
+        bufferedRecords.add(new String(record, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected Object prepareSync() {
+        Batch batch = new Batch(bufferedSequences, bufferedRecords);
+        bufferedSequences = new ArrayList<>();
+        bufferedRecords = new ArrayList<>();
+        return batch;
+    }
+
+    @Override
+    protected void sync(Object target) {
+        Batch batch = (Batch) target;
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String record : batch.records) {
+                stringConnection.xAdd(streamKey, Map.of(RECORD_FIELD, record));
+            }
+            return null;
+        });
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) instanceof RecordId recordId) {
+                recordIds.put(batch.sequences.get(i), recordId);
+            }
+        }
+    }
+
+    @Override
+    public void checkpoint(long sequence) {
+        NavigableMap<Long, RecordId> expired = recordIds.headMap(sequence, false);
+        while (!expired.isEmpty()) {
+            List<Long> sequences = new ArrayList<>(PAGE_SIZE);
+            List<RecordId> ids = new ArrayList<>(PAGE_SIZE);
+            for (Map.Entry<Long, RecordId> entry : expired.entrySet()) {
+                sequences.add(entry.getKey());
+                ids.add(entry.getValue());
+                if (ids.size() >= PAGE_SIZE) {
+                    break;
+                }
+            }
+            try {
+                redisTemplate.opsForStream().delete(streamKey, ids.toArray(new RecordId[0]));
+            } catch (Exception e) {
+                log.warn("删除已过期的 Write-Behind 日志记录失败，Stream: {}", streamKey, e);
+                return;
+            }
+            sequences.forEach(recordIds::remove);
+        }
+    }
+
+    @Override
+    protected void closeResources() {
+    }
+
+    /**
+     * 一次管道提交的记录
+     */
+    private static final class Batch {
+        private final List<Long> sequences;
+        private final List<String> records;
+
+        private Batch(List<Long> sequences, List<String> records) {
+            this.sequences = sequences;
+            this.records = records;
+        }
+    }
+}
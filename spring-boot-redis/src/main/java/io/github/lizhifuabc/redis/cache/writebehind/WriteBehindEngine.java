@@ -0,0 +1,561 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-Behind 异步写入引擎
+ *
+ * <h2>特点</h2>
+ * <ul>
+ *     <li>按 key 合并：同一个 key 在刷新前的多次变更只保留最后一次，突发更新不会反复写同一行</li>
+ *     <li>有界容量：待写入（含写入中）的 key 数量受 {@link WriteBehindProperties#getCapacity()} 限制，满了之后写入方阻塞等待</li>
+ *     <li>批量刷新：按时间间隔或数量阈值触发，每批调用一次 {@link BatchWriter}</li>
+ *     <li>失败重试：指数退避，超过最大次数后进入死信列表，不会在一次刷新中死循环</li>
+ *     <li>顺序保证：同一时刻只有一个刷新线程；某个 key 写入失败时若已有更新的变更，旧变更直接丢弃，删除与更新以最后一次为准</li>
+ *     <li>持久化：每次变更先写入 {@link WriteBehindJournal} 再放入待写入表，日志写入失败时变更不会被刷新；
+ *     启动时先回放日志再接受写入，每次刷新后以待写入记录的最小序号推进检查点，已写入的日志被清理</li>
+ * </ul>
+ *
+ * <h2>指标</h2>
+ * 通过 {@link #bindTo(MeterRegistry)} 注册，均以 {@code engine} 标签区分引擎：
+ * <ul>
+ *     <li>{@code cache.write_behind.pending}：待写入的记录数（队列深度）</li>
+ *     <li>{@code cache.write_behind.oldest.age}：最早一条待写入记录已等待的时间（毫秒），持续增长说明写入跟不上</li>
+ *     <li>{@code cache.write_behind.flush.lag}：记录从进入队列到写入数据库的耗时，发布直方图</li>
+ *     <li>{@code cache.write_behind.writes}：写入结果计数，{@code result} 为 success / failure</li>
+ *     <li>{@code cache.write_behind.dead_letters}：死信列表长度</li>
+ * </ul>
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+public class WriteBehindEngine<K, V> implements MeterBinder {
+    /**
+     * 引擎名称，用于日志和线程名
+     */
+    private final String name;
+    private final WriteBehindProperties properties;
+    private final BatchWriter<K, V> writer;
+    private final WriteBehindJournal<K, V> journal;
+
+    /**
+     * 待写入记录，按 key 合并
+     */
+    private final ConcurrentHashMap<K, PendingWrite<K, V>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 容量许可，每个待写入或写入中的记录占用一个，回放日志后创建
+     */
+    private volatile Semaphore permits;
+
+    /**
+     * 变更序号生成器
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 分配序号、写入日志并放入待写入记录的过程持有读锁，计算检查点时持有写锁，
+     * 保证检查点不会越过已分配序号但尚未放入待写入记录的变更
+     */
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    /**
+     * 死信列表，超过最大重试次数的记录，仅保存在内存中
+     */
+    private final Deque<PendingWrite<K, V>> deadLetters = new ConcurrentLinkedDeque<>();
+
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean running;
+
+    /**
+     * 指标在注册前为 null
+     */
+    private volatile Timer flushLag;
+    private volatile Counter writeSuccesses;
+    private volatile Counter writeFailures;
+
+    public WriteBehindEngine(String name, WriteBehindProperties properties, BatchWriter<K, V> writer) {
+        this(name, properties, writer, WriteBehindJournal.noop());
+    }
+
+    public WriteBehindEngine(String name, WriteBehindProperties properties, BatchWriter<K, V> writer,
+                             WriteBehindJournal<K, V> journal) {
+        this.name = name;
+        this.properties = properties;
+        this.writer = writer;
+        this.journal = journal;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "write-behind-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 回放持久化日志并启动定时刷新，返回后才能接受写入
+     */
+    public void start() {
+        // 1. 回放日志，同一 key 以序号最大的记录为准
+        long maxSequence = journal.replay(write -> pending.merge(write.getKey(), write,
+                (old, replayed) -> replayed.getSequence() > old.getSequence() ? replayed : old));
+        sequence.set(maxSequence);
+        // 回放的记录同样占用容量，超出容量时许可数为负，直到写入完成才允许新的 key 进入
+        permits = new Semaphore(properties.getCapacity() - pending.size());
+        if (!pending.isEmpty()) {
+            log.info("Write-Behind 引擎[{}]从日志恢复 {} 条待写入记录", name, pending.size());
+        }
+
+        // 2. 启动定时刷新
+        running = true;
+        long interval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Write-Behind 引擎[{}]已启动，刷新间隔: {}ms，批次大小: {}，容量: {}",
+                name, interval, properties.getBatchSize(), properties.getCapacity());
+    }
+
+    /**
+     * 停止引擎，并对剩余记录做最后一次刷新（忽略退避时间）
+     */
+    public void shutdown() {
+        running = false;
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(properties.getFlushInterval().toMillis() * 2, TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(true);
+        if (!pending.isEmpty()) {
+            log.error("Write-Behind 引擎[{}]关闭时仍有 {} 条记录未写入，将在下次启动时从日志恢复", name, pending.size());
+        }
+        journal.close();
+    }
+
+    /**
+     * 提交一次新增或更新
+     *
+     * @param key   记录 key
+     * @param value 记录值
+     * @throws IllegalStateException 引擎未运行或等待容量超时
+     */
+    public void save(K key, V value) {
+        enqueue(key, PendingWrite.Operation.UPSERT, value);
+    }
+
+    /**
+     * 提交一次删除
+     *
+     * @param key 记录 key
+     * @throws IllegalStateException 引擎未运行或等待容量超时
+     */
+    public void delete(K key) {
+        enqueue(key, PendingWrite.Operation.DELETE, null);
+    }
+
+    /**
+     * 立即刷新所有到期的记录
+     *
+     * @return 成功写入的记录数
+     */
+    public int flush() {
+        return flush(false);
+    }
+
+    /**
+     * 待写入的记录数（不含写入中的记录）
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 最早一条待写入记录已等待的时间
+     *
+     * @return 毫秒，没有待写入记录时返回 0
+     */
+    public long oldestPendingAgeMillis() {
+        long oldest = Long.MAX_VALUE;
+        for (PendingWrite<K, V> write : pending.values()) {
+            oldest = Math.min(oldest, write.getEnqueuedAt());
+        }
+        return oldest == Long.MAX_VALUE ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.write_behind.pending", pending, Map::size)
+                .description("待写入数据库的记录数")
+                .tag("engine", name)
+                .register(registry);
+        Gauge.builder("cache.write_behind.oldest.age", this, WriteBehindEngine::oldestPendingAgeMillis)
+                .description("最早一条待写入记录已等待的时间")
+                .baseUnit("milliseconds")
+                .tag("engine", name)
+                .register(registry);
+        Gauge.builder("cache.write_behind.dead_letters", deadLetters, Deque::size)
+                .description("死信列表长度")
+                .tag("engine", name)
+                .register(registry);
+        writeSuccesses = Counter.builder("cache.write_behind.writes")
+                .tag("engine", name)
+                .tag("result", "success")
+                .register(registry);
+        writeFailures = Counter.builder("cache.write_behind.writes")
+                .tag("engine", name)
+                .tag("result", "failure")
+                .register(registry);
+        flushLag = Timer.builder("cache.write_behind.flush.lag")
+                .description("记录从进入队列到写入数据库的耗时")
+                .tag("engine", name)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * 死信列表快照
+     */
+    public List<PendingWrite<K, V>> getDeadLetters() {
+        return List.copyOf(deadLetters);
+    }
+
+    /**
+     * 将死信重新放回待写入队列；若该 key 已有更新的变更，则死信被丢弃
+     *
+     * @return 重新入队的记录数
+     */
+    public int replayDeadLetters() {
+        int count = 0;
+        PendingWrite<K, V> deadLetter;
+        while ((deadLetter = deadLetters.pollFirst()) != null) {
+            if (pending.containsKey(deadLetter.getKey())) {
+                continue;
+            }
+            acquirePermit();
+            boolean added;
+            try {
+                added = appendIfAbsent(deadLetter);
+            } catch (RuntimeException e) {
+                // 日志写入失败，死信放回原位置，本次重放中止
+                permits.release();
+                deadLetters.addFirst(deadLetter);
+                throw e;
+            }
+            if (added) {
+                count++;
+            } else {
+                permits.release();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 该 key 没有待写入记录时，以新的序号写入日志并放入待写入表
+     *
+     * @return 是否放入了待写入表
+     */
+    private boolean appendIfAbsent(PendingWrite<K, V> deadLetter) {
+        // 与普通写入一样在检查点读锁内分配序号、写入日志并放入待写入表
+        checkpointLock.readLock().lock();
+        try {
+            if (pending.containsKey(deadLetter.getKey())) {
+                return false;
+            }
+            PendingWrite<K, V> fresh = new PendingWrite<>(deadLetter.getKey(), deadLetter.getOperation(),
+                    deadLetter.getValue(), sequence.incrementAndGet());
+            journal.append(fresh);
+            return pending.putIfAbsent(deadLetter.getKey(), fresh) == null;
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    private void enqueue(K key, PendingWrite.Operation operation, V value) {
+        if (!running) {
+            throw new IllegalStateException("Write-Behind 引擎[" + name + "]未运行");
+        }
+
+        // 1. 已有待写入记录时直接合并，不占用新的容量
+        if (!mergeIfPresent(key, operation, value)) {
+            // 2. 新 key 需要先获取容量许可，队列满时阻塞等待
+            acquirePermit();
+            boolean merged;
+            try {
+                merged = appendAndPut(key, operation, value);
+            } catch (RuntimeException e) {
+                // 日志写入失败时变更没有进入待写入表，归还许可
+                permits.release();
+                throw e;
+            }
+            if (merged) {
+                // 并发写入同一个 key 时已被其他线程创建，归还多占的许可
+                permits.release();
+            }
+        }
+
+        // 3. 达到批次大小时立即触发刷新
+        if (pending.size() >= properties.getBatchSize()) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * 合并到已有的待写入记录，先写入日志再合并，日志写入失败时待写入记录保持不变
+     * <p>
+     * 写入日志后该 key 恰好被取出刷新时返回 false，由调用方按新 key 重新分配序号写入，
+     * 日志中多出的一条记录回放时按序号合并，不影响结果
+     *
+     * @return 是否合并成功，不存在待写入记录时返回 false
+     */
+    private boolean mergeIfPresent(K key, PendingWrite.Operation operation, V value) {
+        checkpointLock.readLock().lock();
+        try {
+            if (!pending.containsKey(key)) {
+                return false;
+            }
+            long seq = sequence.incrementAndGet();
+            journal.append(new PendingWrite<>(key, operation, value, seq));
+            return pending.computeIfPresent(key, (k, old) -> merge(old, operation, value, seq)) != null;
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入日志后放入待写入表，日志写入失败时待写入表保持不变
+     *
+     * @return 是否合并到了其他线程并发创建的待写入记录
+     */
+    private boolean appendAndPut(K key, PendingWrite.Operation operation, V value) {
+        boolean[] merged = new boolean[1];
+        checkpointLock.readLock().lock();
+        try {
+            long seq = sequence.incrementAndGet();
+            journal.append(new PendingWrite<>(key, operation, value, seq));
+            pending.compute(key, (k, old) -> {
+                if (old != null) {
+                    merged[0] = true;
+                    return merge(old, operation, value, seq);
+                }
+                return new PendingWrite<>(k, operation, value, seq);
+            });
+            return merged[0];
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 同一 key 的并发写入写完日志的先后顺序可能与序号不一致，以序号大的变更为准，与日志回放的规则相同
+     */
+    private static <K, V> PendingWrite<K, V> merge(PendingWrite<K, V> old, PendingWrite.Operation operation, V value,
+                                                   long seq) {
+        return old.getSequence() > seq ? old : old.merge(operation, value, seq);
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(properties.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Write-Behind 引擎[" + name + "]写入队列已满，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待 Write-Behind 写入队列时被中断", e);
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushRequested.set(false);
+                    flushQuietly();
+                });
+            } catch (RuntimeException e) {
+                // 引擎关闭中，交给关闭时的最后一次刷新
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush(false);
+        } catch (Exception e) {
+            log.error("Write-Behind 引擎[{}]刷新异常", name, e);
+        }
+    }
+
+    private int flush(boolean force) {
+        flushLock.lock();
+        try {
+            int batchSize = properties.getBatchSize();
+            // 限制本轮批次数，避免刷新期间持续写入或失败重试导致一直无法退出
+            int maxBatches = pending.size() / batchSize + 1;
+            int written = 0;
+            boolean drained = false;
+            for (int i = 0; i < maxBatches; i++) {
+                List<PendingWrite<K, V>> batch = drain(batchSize, force);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                drained = true;
+                written += write(batch);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            if (drained) {
+                checkpoint();
+            }
+            if (written > 0) {
+                log.debug("Write-Behind 引擎[{}]刷新完成，写入 {} 条，剩余 {} 条", name, written, pending.size());
+            }
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 以待写入记录的最小序号推进日志检查点（在刷新锁内调用，此时没有写入中的记录）
+     * <p>
+     * 序号更小的变更要么已写入数据库，要么已被同一 key 的新变更覆盖，要么已进入死信列表
+     */
+    private void checkpoint() {
+        long watermark;
+        checkpointLock.writeLock().lock();
+        try {
+            watermark = sequence.get() + 1;
+            for (PendingWrite<K, V> write : pending.values()) {
+                watermark = Math.min(watermark, write.getSequence());
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        journal.checkpoint(watermark);
+    }
+
+    /**
+     * 取出一批到期的记录，取出后该 key 的新变更会形成新的待写入记录
+     */
+    private List<PendingWrite<K, V>> drain(int batchSize, boolean force) {
+        List<PendingWrite<K, V>> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        long now = System.currentTimeMillis();
+        for (Map.Entry<K, PendingWrite<K, V>> entry : pending.entrySet()) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            if (!force && !entry.getValue().isReady(now)) {
+                continue;
+            }
+            PendingWrite<K, V> write = pending.remove(entry.getKey());
+            if (write != null) {
+                batch.add(write);
+            }
+        }
+        return batch;
+    }
+
+    private int write(List<PendingWrite<K, V>> batch) {
+        Map<K, V> upserts = new LinkedHashMap<>();
+        List<K> deletes = new ArrayList<>();
+        for (PendingWrite<K, V> write : batch) {
+            if (write.getOperation() == PendingWrite.Operation.DELETE) {
+                deletes.add(write.getKey());
+            } else {
+                upserts.put(write.getKey(), write.getValue());
+            }
+        }
+        try {
+            if (!deletes.isEmpty()) {
+                writer.deleteAll(deletes);
+            }
+            if (!upserts.isEmpty()) {
+                writer.saveAll(upserts);
+            }
+            permits.release(batch.size());
+            recordWritten(batch);
+            return batch.size();
+        } catch (Exception e) {
+            log.error("Write-Behind 引擎[{}]批量写入失败，批次大小: {}", name, batch.size(), e);
+            Counter failures = writeFailures;
+            if (failures != null) {
+                failures.increment(batch.size());
+            }
+            batch.forEach(this::onFailure);
+            return 0;
+        }
+    }
+
+    private void recordWritten(List<PendingWrite<K, V>> batch) {
+        Timer lag = flushLag;
+        Counter successes = writeSuccesses;
+        if (lag == null || successes == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PendingWrite<K, V> write : batch) {
+            lag.record(Math.max(0, now - write.getEnqueuedAt()), TimeUnit.MILLISECONDS);
+        }
+        successes.increment(batch.size());
+    }
+
+    private void onFailure(PendingWrite<K, V> write) {
+        // 1. 写入期间该 key 已有更新的变更，旧变更无需重试
+        if (pending.containsKey(write.getKey())) {
+            permits.release();
+            return;
+        }
+
+        // 2. 超过最大重试次数，进入死信列表
+        if (write.getAttempts() >= properties.getMaxRetries()) {
+            log.error("Write-Behind 引擎[{}]写入重试次数耗尽，进入死信列表: {}", name, write);
+            deadLetters.addLast(write);
+            while (deadLetters.size() > properties.getDeadLetterCapacity()) {
+                deadLetters.pollFirst();
+            }
+            permits.release();
+            return;
+        }
+
+        // 3. 按指数退避重新放回队列，沿用原有的容量许可
+        long delay = backoff(write.getAttempts());
+        if (pending.putIfAbsent(write.getKey(), write.retry(delay)) != null) {
+            permits.release();
+        }
+    }
+
+    private long backoff(int attempts) {
+        long base = properties.getRetryBaseDelay().toMillis();
+        long max = properties.getRetryMaxDelay().toMillis();
+        return Math.min(max, base * (1L << Math.min(attempts, 20)));
+    }
+}
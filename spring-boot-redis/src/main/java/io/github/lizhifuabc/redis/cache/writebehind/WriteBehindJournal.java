@@ -0,0 +1,67 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import java.util.function.Consumer;
+
+/**
+ * Write-Behind 持久化日志
+ * <p>
+ * 每次变更进入 {@link WriteBehindEngine} 后都会追加一条日志记录，确认持久化后写入方才返回，
+ * 进程重启或 OOM 后通过 {@link #replay(Consumer)} 恢复未写入数据库的变更。
+ * <p>
+ * 序号小于检查点的记录已写入数据库或已被更新的变更覆盖，可以被清理。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public interface WriteBehindJournal<K, V> {
+    /**
+     * 回放日志中尚未写入数据库的记录，必须在 {@link #append(PendingWrite)} 之前调用
+     *
+     * @param consumer 记录消费者，记录按追加顺序回放，同一 key 可能出现多条
+     * @return 日志中出现过的最大序号，日志为空时返回 0
+     */
+    long replay(Consumer<PendingWrite<K, V>> consumer);
+
+    /**
+     * 追加一条记录，返回时记录已持久化
+     *
+     * @param write 变更记录
+     */
+    void append(PendingWrite<K, V> write);
+
+    /**
+     * 推进检查点，序号小于该值的记录都可以被清理
+     *
+     * @param sequence 检查点序号
+     */
+    void checkpoint(long sequence);
+
+    /**
+     * 关闭日志，释放文件或线程资源
+     */
+    void close();
+
+    /**
+     * 不做持久化的空实现
+     */
+    static <K, V> WriteBehindJournal<K, V> noop() {
+        return new WriteBehindJournal<>() {
+            @Override
+            public long replay(Consumer<PendingWrite<K, V>> consumer) {
+                return 0;
+            }
+
+            @Override
+            public void append(PendingWrite<K, V> write) {
+            }
+
+            @Override
+            public void checkpoint(long sequence) {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
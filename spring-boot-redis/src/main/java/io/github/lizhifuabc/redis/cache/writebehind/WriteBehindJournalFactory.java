@@ -0,0 +1,62 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+
+/**
+ * Write-Behind 持久化日志工厂，根据 {@code cache.write-behind.journal.type} 创建对应的日志实现
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Component
+public class WriteBehindJournalFactory {
+    private final WriteBehindProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    public WriteBehindJournalFactory(WriteBehindProperties properties, StringRedisTemplate redisTemplate) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+
+        // 配置ObjectMapper以支持Java 8日期时间类型
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    /**
+     * 创建持久化日志
+     *
+     * @param name      引擎名称，用于区分日志目录或 Stream
+     * @param keyType   key 类型
+     * @param valueType value 类型
+     */
+    public <K, V> WriteBehindJournal<K, V> create(String name, Class<K> keyType, Class<V> valueType) {
+        WriteBehindProperties.Journal journal = properties.getJournal();
+        JournalCodec<K, V> codec = new JournalCodec<>(objectMapper, keyType, valueType);
+        return switch (journal.getType()) {
+            case NONE -> WriteBehindJournal.noop();
+            case FILE -> new FileWriteBehindJournal<>(name, codec,
+                    Path.of(journal.getDirectory(), name), journal.getSegmentSize());
+            case REDIS -> new RedisStreamWriteBehindJournal<>(name, codec,
+                    journal.getStreamKeyPrefix() + name + ":" + nodeId(journal), redisTemplate);
+        };
+    }
+
+    private static String nodeId(WriteBehindProperties.Journal journal) {
+        if (journal.getNodeId() != null && !journal.getNodeId().isBlank()) {
+            return journal.getNodeId();
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("无法获取主机名，请配置 cache.write-behind.journal.node-id", e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Write-Behind 异步写入配置属性
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.write-behind")
+public class WriteBehindProperties {
+    /**
+     * 最多允许多少个不同的 key 处于待写入状态，超过后写入方会被阻塞（背压）
+     */
+    private int capacity = 10000;
+
+    /**
+     * 单批次最多写入的记录数，待写入数量达到该值时立即触发一次刷新
+     */
+    private int batchSize = 100;
+
+    /**
+     * 定时刷新间隔
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 队列已满时写入方最长等待时间，超时后拒绝写入
+     */
+    private Duration offerTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 最大重试次数，超过后进入死信列表
+     */
+    private int maxRetries = 5;
+
+    /**
+     * 重试初始退避时间，每次失败后翻倍
+     */
+    private Duration retryBaseDelay = Duration.ofMillis(500);
+
+    /**
+     * 重试最大退避时间
+     */
+    private Duration retryMaxDelay = Duration.ofSeconds(30);
+
+    /**
+     * 死信列表最多保留的记录数
+     */
+    private int deadLetterCapacity = 1000;
+
+    /**
+     * 持久化日志配置
+     */
+    private Journal journal = new Journal();
+
+    /**
+     * 持久化日志类型
+     */
+    public enum JournalType {
+        /**
+         * 不持久化，重启后未写入数据库的变更会丢失
+         */
+        NONE,
+        /**
+         * 本地内存映射文件
+         */
+        FILE,
+        /**
+         * Redis Stream
+         */
+        REDIS
+    }
+
+    /**
+     * 持久化日志配置
+     */
+    @Data
+    public static class Journal {
+        /**
+         * 日志类型
+         */
+        private JournalType type = JournalType.FILE;
+
+        /**
+         * 文件日志目录，每个引擎使用其中以引擎名称命名的子目录
+         */
+        private String directory = "data/write-behind";
+
+        /**
+         * 文件日志单个段的大小（字节）
+         */
+        private int segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * Redis Stream 日志的 key 前缀
+         */
+        private String streamKeyPrefix = "write_behind:journal:";
+
+        /**
+         * 节点ID，Redis Stream 日志的 key 为 前缀 + 引擎名称 + : + 节点ID，每个节点只回放和删除自己的记录。
+         * 必须在重启后保持不变，否则重启前未写入的记录不会被回放；为空时使用主机名，同一主机部署多个实例时必须显式配置
+         */
+        private String nodeId;
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.lizhifuabc.redis.config;
+
+import io.github.lizhifuabc.redis.cache.codec.CacheCodecProperties;
+import io.github.lizhifuabc.redis.cache.codec.CompressingValueCodec;
+import io.github.lizhifuabc.redis.cache.codec.JacksonValueCodec;
+import io.github.lizhifuabc.redis.cache.codec.KryoValueCodec;
+import io.github.lizhifuabc.redis.cache.codec.ValueCodec;
+import io.github.lizhifuabc.redis.cache.refresh.RefreshAheadProperties;
+import io.github.lizhifuabc.redis.cache.writebehind.WriteBehindProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 缓存策略相关配置
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Configuration
+@EnableConfigurationProperties({WriteBehindProperties.class, RefreshAheadProperties.class, CacheCodecProperties.class})
+public class CacheConfiguration {
+
+    /**
+     * 创建缓存值编解码器，按配置选择格式，并在设置了阈值时套上 LZ4 压缩
+     *
+     * @param properties 编解码配置
+     * @return 编解码器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ValueCodec valueCodec(CacheCodecProperties properties) {
+        ValueCodec codec = switch (properties.getType()) {
+            case JSON -> JacksonValueCodec.json();
+            case SMILE -> JacksonValueCodec.smile();
+            case CBOR -> JacksonValueCodec.cbor();
+            case KRYO -> new KryoValueCodec(properties.getKryoTypes());
+        };
+        if (properties.getCompressThreshold() > 0) {
+            codec = new CompressingValueCodec(codec, properties.getCompressThreshold());
+        }
+        return codec;
+    }
+}
@@ -12,12 +12,18 @@ import com.fasterxml.jackson.datatype.jsr310.deser.LocalTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
+import io.github.lizhifuabc.redis.id.IdGenProperties;
+import io.github.lizhifuabc.redis.id.SnowflakeProperties;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.time.LocalDate;
@@ -33,6 +39,7 @@ import java.time.format.DateTimeFormatter;
  * @since 2025/2/24
  */
 @Configuration
+@EnableConfigurationProperties({IdGenProperties.class, SnowflakeProperties.class})
 public class RedisConfiguration {
     /** 默认日期时间格式 */
     private static final String DEFAULT_DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
@@ -102,4 +109,58 @@ public class RedisConfiguration {
         
         return redisTemplate;
     }
+
+    /**
+     * 创建二进制 RedisTemplate Bean，key 使用字符串序列化，value 原样读写字节数组
+     * <p>
+     * 缓存值由 {@code ValueCodec} 编码后再写入，解码时由调用方指定类型，不需要在值中保存类名
+     *
+     * @param lettuceConnectionFactory Lettuce 连接工厂
+     * @return 二进制 RedisTemplate 实例
+     */
+    @Bean(name = "byteRedisTemplate")
+    @ConditionalOnMissingBean(name = "byteRedisTemplate")
+    public RedisTemplate<String, byte[]> byteRedisTemplate(LettuceConnectionFactory lettuceConnectionFactory) {
+        RedisTemplate<String, byte[]> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(lettuceConnectionFactory);
+        redisTemplate.setKeySerializer(RedisSerializer.string());
+        redisTemplate.setHashKeySerializer(RedisSerializer.string());
+        redisTemplate.setValueSerializer(RedisSerializer.byteArray());
+        redisTemplate.setHashValueSerializer(RedisSerializer.byteArray());
+        redisTemplate.afterPropertiesSet();
+        return redisTemplate;
+    }
+
+    /**
+     * 创建响应式二进制 RedisTemplate Bean，序列化方式与 {@code byteRedisTemplate} 相同
+     * <p>
+     * 命令通过 Lettuce 的响应式 API 发出，调用方不阻塞线程，适合一次请求并发读取多个 key 的场景
+     *
+     * @param lettuceConnectionFactory Lettuce 连接工厂
+     * @return 响应式二进制 RedisTemplate 实例
+     */
+    @Bean(name = "reactiveByteRedisTemplate")
+    @ConditionalOnMissingBean(name = "reactiveByteRedisTemplate")
+    public ReactiveRedisTemplate<String, byte[]> reactiveByteRedisTemplate(LettuceConnectionFactory lettuceConnectionFactory) {
+        RedisSerializationContext<String, byte[]> serializationContext = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.byteArray())
+                .key(RedisSerializer.string())
+                .hashKey(RedisSerializer.string())
+                .build();
+        return new ReactiveRedisTemplate<>(lettuceConnectionFactory, serializationContext);
+    }
+
+    /**
+     * 创建 Redis 消息监听容器，用于订阅 pub/sub 频道（如二级缓存的失效消息）
+     *
+     * @param lettuceConnectionFactory Lettuce 连接工厂
+     * @return 消息监听容器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisMessageListenerContainer redisMessageListenerContainer(LettuceConnectionFactory lettuceConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(lettuceConnectionFactory);
+        return container;
+    }
 }
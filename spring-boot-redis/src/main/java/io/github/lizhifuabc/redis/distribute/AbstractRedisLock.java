@@ -0,0 +1,207 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Redis 分布式锁基类
+ * <p>
+ * 获取和释放都由 Lua 脚本原子完成，锁按线程可重入。获取失败时不轮询 Redis：
+ * 在本地等待队列中阻塞，直到收到锁释放通知，或者到达锁的剩余过期时间（防止通知丢失）后再重试。
+ * <p>
+ * 租约时间小于等于 0 时由看门狗自动续期，持有期间锁不会过期；指定租约时间时到期自动释放。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public abstract class AbstractRedisLock implements Lock {
+    /**
+     * 锁没有过期时间时的重试间隔（毫秒）
+     */
+    private static final long NO_TTL_RETRY_MILLIS = 100;
+
+    protected final RedisLockContext context;
+
+    /**
+     * 等待的锁名称，决定订阅哪些释放通知
+     */
+    private final List<String> lockNames;
+
+    /**
+     * 看门狗任务标识前缀，同一把锁的不同类型（如读锁、写锁）需要区分
+     */
+    private final String watchdogPrefix;
+
+    protected AbstractRedisLock(RedisLockContext context, List<String> lockNames, String watchdogPrefix) {
+        this.context = context;
+        this.lockNames = List.copyOf(lockNames);
+        this.watchdogPrefix = watchdogPrefix;
+    }
+
+    /**
+     * 尝试获取一次
+     *
+     * @param ownerId     持有者ID
+     * @param leaseMillis 租约时间
+     * @return 获取成功返回 null，否则返回阻塞方剩余的过期时间（毫秒）
+     */
+    protected abstract Long tryAcquireOnce(String ownerId, long leaseMillis);
+
+    /**
+     * 释放一次
+     *
+     * @param ownerId 持有者ID
+     * @return 未持有返回 null，否则返回剩余的重入次数
+     */
+    protected abstract Long releaseOnce(String ownerId);
+
+    /**
+     * 续期
+     *
+     * @param ownerId     持有者ID
+     * @param leaseMillis 租约时间
+     * @return 是否仍持有
+     */
+    protected abstract boolean renew(String ownerId, long leaseMillis);
+
+    /**
+     * 阻塞获取锁，由看门狗自动续期；等待期间的中断会被延后到获取成功之后
+     */
+    @Override
+    public void lock() {
+        lock(-1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 阻塞获取锁
+     *
+     * @param leaseTime 租约时间，小于等于 0 时由看门狗自动续期
+     * @param unit      时间单位
+     */
+    public void lock(long leaseTime, TimeUnit unit) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                tryLock(-1, leaseTime, unit);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        tryLock(-1, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean tryLock() {
+        String ownerId = context.ownerId();
+        long leaseMillis = context.watchdogTimeoutMillis();
+        if (tryAcquireOnce(ownerId, leaseMillis) == null) {
+            onAcquired(ownerId, true);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean tryLock(long waitTime, TimeUnit unit) throws InterruptedException {
+        return tryLock(waitTime, -1, unit);
+    }
+
+    /**
+     * 在指定时间内尝试获取锁
+     *
+     * @param waitTime  最长等待时间，小于 0 时一直等待
+     * @param leaseTime 租约时间，小于等于 0 时由看门狗自动续期
+     * @param unit      时间单位
+     * @return 是否获取成功
+     */
+    public boolean tryLock(long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        String ownerId = context.ownerId();
+        boolean watchdog = leaseTime <= 0;
+        long leaseMillis = watchdog ? context.watchdogTimeoutMillis() : unit.toMillis(leaseTime);
+        Long ttl = tryAcquireOnce(ownerId, leaseMillis);
+        if (ttl == null) {
+            onAcquired(ownerId, watchdog);
+            return true;
+        }
+        if (waitTime == 0) {
+            return false;
+        }
+
+        long deadline = waitTime > 0 ? System.nanoTime() + unit.toNanos(waitTime) : Long.MAX_VALUE;
+        LockWaiter waiter = context.pubSub().register(lockNames);
+        try {
+            while (true) {
+                long remaining = waitTime > 0 ? deadline - System.nanoTime() : Long.MAX_VALUE;
+                if (remaining <= 0) {
+                    return false;
+                }
+                long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl > 0 ? ttl : NO_TTL_RETRY_MILLIS);
+                boolean signaled = waiter.await(Math.min(ttlNanos, remaining));
+
+                ttl = tryAcquireOnce(ownerId, leaseMillis);
+                if (ttl == null) {
+                    onAcquired(ownerId, watchdog);
+                    return true;
+                }
+                if (signaled) {
+                    if (lockNames.size() > 1) {
+                        // 多重锁因其他锁被占用而失败时，把这次唤醒让给同一把锁的下一个等待者
+                        waiter.queues().forEach(LockWaitQueue::wakeOne);
+                    }
+                    waiter.requeue();
+                }
+            }
+        } finally {
+            context.pubSub().unregister(waiter, lockNames);
+        }
+    }
+
+    /**
+     * 释放锁，重入时需要释放相同次数
+     *
+     * @throws IllegalMonitorStateException 当前线程未持有锁
+     */
+    @Override
+    public void unlock() {
+        String ownerId = context.ownerId();
+        Long remaining = releaseOnce(ownerId);
+        if (remaining == null) {
+            throw new IllegalMonitorStateException("当前线程未持有锁: " + watchdogPrefix);
+        }
+        if (remaining == 0) {
+            context.watchdog().stop(watchdogId(ownerId));
+        }
+    }
+
+    /**
+     * 不支持条件变量
+     */
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("分布式锁不支持 Condition");
+    }
+
+    private void onAcquired(String ownerId, boolean watchdog) {
+        if (watchdog) {
+            long leaseMillis = context.watchdogTimeoutMillis();
+            context.watchdog().start(watchdogId(ownerId), () -> renew(ownerId, leaseMillis));
+        }
+    }
+
+    private String watchdogId(String ownerId) {
+        return watchdogPrefix + "|" + ownerId;
+    }
+}
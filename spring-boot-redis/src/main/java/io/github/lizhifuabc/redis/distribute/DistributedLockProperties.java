@@ -0,0 +1,31 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 分布式锁配置属性
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Data
+@ConfigurationProperties(prefix = "distribute.lock")
+public class DistributedLockProperties {
+    /**
+     * 锁 key 前缀
+     */
+    private String keyPrefix = "lock:";
+
+    /**
+     * 锁释放通知频道前缀
+     */
+    private String channelPrefix = "lock:channel:";
+
+    /**
+     * 未指定租约时间时使用看门狗续期，锁的过期时间为该值，每隔三分之一续期一次
+     */
+    private Duration watchdogTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,94 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 锁释放通知
+ * <p>
+ * 以模式订阅的方式监听所有锁的释放频道，收到通知后唤醒本节点上对应锁的等待者，
+ * 等待方不需要轮询 Redis。通知丢失时，等待者最迟在锁的剩余过期时间后自行重试。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+class LockPubSub implements MessageListener {
+    /**
+     * 唤醒一个等待者
+     */
+    static final String WAKE_ONE = "0";
+
+    /**
+     * 唤醒全部等待者
+     */
+    static final String WAKE_ALL = "1";
+
+    private final String channelPrefix;
+
+    /**
+     * 锁名称到等待队列的映射，没有等待者时移除
+     */
+    private final Map<String, LockWaitQueue> queues = new ConcurrentHashMap<>();
+
+    LockPubSub(String channelPrefix, RedisMessageListenerContainer listenerContainer) {
+        this.channelPrefix = channelPrefix;
+        listenerContainer.addMessageListener(this, new PatternTopic(channelPrefix + "*"));
+    }
+
+    String channel(String lockName) {
+        return channelPrefix + lockName;
+    }
+
+    /**
+     * 注册等待者，多重锁同时在每把锁的队列中排队
+     *
+     * @param lockNames 锁名称
+     * @return 等待者
+     */
+    LockWaiter register(List<String> lockNames) {
+        List<LockWaitQueue> waitQueues = new ArrayList<>(lockNames.size());
+        LockWaiter waiter = new LockWaiter(waitQueues);
+        for (String lockName : lockNames) {
+            queues.compute(lockName, (name, queue) -> {
+                LockWaitQueue target = queue != null ? queue : new LockWaitQueue();
+                target.register(waiter);
+                waitQueues.add(target);
+                return target;
+            });
+        }
+        return waiter;
+    }
+
+    /**
+     * 注销等待者，没有等待者时移除队列
+     */
+    void unregister(LockWaiter waiter, List<String> lockNames) {
+        for (String lockName : lockNames) {
+            queues.computeIfPresent(lockName, (name, queue) -> queue.unregister(waiter) ? null : queue);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        LockWaitQueue queue = queues.get(channel.substring(channelPrefix.length()));
+        if (queue == null) {
+            return;
+        }
+        if (WAKE_ALL.equals(new String(message.getBody(), StandardCharsets.UTF_8))) {
+            queue.wakeAll();
+        } else {
+            queue.wakeOne();
+        }
+    }
+}
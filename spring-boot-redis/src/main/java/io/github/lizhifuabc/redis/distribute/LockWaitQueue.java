@@ -0,0 +1,61 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * 同一把锁在本节点上的等待队列
+ * <p>
+ * 锁释放时按先来先得的顺序唤醒：独占锁释放只唤醒队首的一个等待者，
+ * 被唤醒的等待者在获取失败后回到队首；写锁释放时唤醒全部等待者，以便读锁并发获取。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class LockWaitQueue {
+    private final Deque<LockWaiter> waiters = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 已注册的等待者数量，被唤醒而暂时出队的等待者仍计算在内，只在注册表的锁内修改
+     */
+    private int registrations;
+
+    /**
+     * 注册等待者（在注册表的锁内调用）
+     */
+    void register(LockWaiter waiter) {
+        registrations++;
+        waiters.addLast(waiter);
+    }
+
+    /**
+     * 注销等待者（在注册表的锁内调用）
+     *
+     * @return 是否已没有注册的等待者
+     */
+    boolean unregister(LockWaiter waiter) {
+        registrations--;
+        waiters.remove(waiter);
+        return registrations == 0;
+    }
+
+    void requeue(LockWaiter waiter) {
+        if (!waiters.contains(waiter)) {
+            waiters.addFirst(waiter);
+        }
+    }
+
+    void wakeOne() {
+        LockWaiter waiter = waiters.pollFirst();
+        if (waiter != null) {
+            waiter.signal();
+        }
+    }
+
+    void wakeAll() {
+        LockWaiter waiter;
+        while ((waiter = waiters.pollFirst()) != null) {
+            waiter.signal();
+        }
+    }
+}
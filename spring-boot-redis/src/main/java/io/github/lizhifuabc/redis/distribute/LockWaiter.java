@@ -0,0 +1,57 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地等待者
+ * <p>
+ * 每个等待获取锁的线程对应一个等待者，通过 {@link Semaphore} 阻塞，
+ * 虚拟线程阻塞时会让出载体线程，不会占用平台线程。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class LockWaiter {
+    private final Semaphore signal = new Semaphore(0);
+
+    /**
+     * 所在的等待队列，多重锁的等待者同时位于多个队列中
+     */
+    private final List<LockWaitQueue> queues;
+
+    LockWaiter(List<LockWaitQueue> queues) {
+        this.queues = queues;
+    }
+
+    List<LockWaitQueue> queues() {
+        return queues;
+    }
+
+    void signal() {
+        signal.release();
+    }
+
+    /**
+     * 等待唤醒
+     *
+     * @param timeoutNanos 最长等待时间
+     * @return 是否被唤醒
+     */
+    boolean await(long timeoutNanos) throws InterruptedException {
+        boolean signaled = signal.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        // 合并等待期间收到的多次唤醒
+        signal.drainPermits();
+        return signaled;
+    }
+
+    /**
+     * 被唤醒后仍未获取到锁，回到各队列队首，保持先来先得的顺序
+     */
+    void requeue() {
+        for (LockWaitQueue queue : queues) {
+            queue.requeue(this);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 锁看门狗
+ * <p>
+ * 未指定租约时间的锁以看门狗超时时间作为过期时间，持有期间每隔三分之一超时时间续期一次；
+ * 进程宕机后停止续期，锁最迟在超时时间后自动释放。续期返回失败（锁已不属于自己）时停止续期。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+class LockWatchdog {
+    private final long intervalMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "redis-lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 续期任务，key 为 锁名称 + 持有者ID
+     */
+    private final Map<String, ScheduledFuture<?>> renewals = new ConcurrentHashMap<>();
+
+    LockWatchdog(Duration timeout) {
+        this.intervalMillis = Math.max(1, timeout.toMillis() / 3);
+    }
+
+    /**
+     * 开始续期，重入时不重复创建任务
+     *
+     * @param id      锁名称 + 持有者ID
+     * @param renewer 续期操作，返回 false 表示锁已不属于自己
+     */
+    void start(String id, BooleanSupplier renewer) {
+        renewals.computeIfAbsent(id, key -> scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (!renewer.getAsBoolean()) {
+                    log.warn("锁已不再持有，停止续期: {}", key);
+                    stop(key);
+                }
+            } catch (Exception e) {
+                // Redis 暂时不可用时继续尝试，锁在过期前仍然有效
+                log.warn("锁续期失败: {}", key, e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS));
+    }
+
+    void stop(String id) {
+        ScheduledFuture<?> future = renewals.remove(id);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        renewals.clear();
+    }
+}
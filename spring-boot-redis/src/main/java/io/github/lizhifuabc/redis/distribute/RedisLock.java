@@ -0,0 +1,65 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * 可重入的 Redis 分布式锁
+ * <p>
+ * 锁是一个 hash：field 为持有者ID（节点ID + 线程ID），value 为重入次数。
+ * 完全释放时通过 pub/sub 通知等待方，本节点的等待者按先来先得的顺序被唤醒。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class RedisLock extends AbstractRedisLock {
+    private static final RedisScript<Long> LOCK_SCRIPT = RedisLockContext.script("lock");
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisLockContext.script("unlock");
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisLockContext.script("renew");
+
+    private final String name;
+    private final String key;
+    private final String channel;
+
+    RedisLock(RedisLockContext context, String name) {
+        super(context, List.of(name), name);
+        this.name = name;
+        this.key = context.key(name);
+        this.channel = context.channel(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 锁是否被任意持有者持有
+     */
+    public boolean isLocked() {
+        return Boolean.TRUE.equals(context.redisTemplate().hasKey(key));
+    }
+
+    /**
+     * 锁是否由当前线程持有
+     */
+    public boolean isHeldByCurrentThread() {
+        return context.redisTemplate().opsForHash().hasKey(key, context.ownerId());
+    }
+
+    @Override
+    protected Long tryAcquireOnce(String ownerId, long leaseMillis) {
+        return context.redisTemplate().execute(LOCK_SCRIPT, List.of(key), String.valueOf(leaseMillis), ownerId);
+    }
+
+    @Override
+    protected Long releaseOnce(String ownerId) {
+        return context.redisTemplate().execute(UNLOCK_SCRIPT, List.of(key, channel), ownerId, LockPubSub.WAKE_ONE);
+    }
+
+    @Override
+    protected boolean renew(String ownerId, long leaseMillis) {
+        Long result = context.redisTemplate().execute(RENEW_SCRIPT, List.of(key), String.valueOf(leaseMillis), ownerId);
+        return result != null && result == 1;
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.util.UUID;
+
+/**
+ * 分布式锁共享的组件
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+final class RedisLockContext {
+    private final StringRedisTemplate redisTemplate;
+    private final LockPubSub pubSub;
+    private final LockWatchdog watchdog;
+    private final DistributedLockProperties properties;
+
+    /**
+     * 当前节点ID，与线程ID组成持有者ID
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    RedisLockContext(StringRedisTemplate redisTemplate, LockPubSub pubSub, LockWatchdog watchdog,
+                     DistributedLockProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.pubSub = pubSub;
+        this.watchdog = watchdog;
+        this.properties = properties;
+    }
+
+    /**
+     * 加载 {@code lua/lock} 目录下的脚本
+     */
+    static RedisScript<Long> script(String name) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/lock/" + name + ".lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    StringRedisTemplate redisTemplate() {
+        return redisTemplate;
+    }
+
+    LockPubSub pubSub() {
+        return pubSub;
+    }
+
+    LockWatchdog watchdog() {
+        return watchdog;
+    }
+
+    String key(String lockName) {
+        return properties.getKeyPrefix() + lockName;
+    }
+
+    String channel(String lockName) {
+        return pubSub.channel(lockName);
+    }
+
+    long watchdogTimeoutMillis() {
+        return properties.getWatchdogTimeout().toMillis();
+    }
+
+    /**
+     * 当前线程的持有者ID，虚拟线程同样拥有唯一的线程ID
+     */
+    String ownerId() {
+        return nodeId + ":" + Thread.currentThread().threadId();
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多重锁：在一个 Lua 脚本中同时获取多把可重入锁，要么全部获取，要么一把都不获取
+ * <p>
+ * 与按顺序逐个加锁相比，不会出现持有部分锁时等待其余锁的情况，也就不存在死锁和部分加锁后的回滚。
+ * 每把锁的 key 与 {@link RedisLock} 相同，可以与单独的锁互斥。
+ * 集群模式下脚本涉及的 key 必须位于同一个槽，锁名称需要使用相同的 hash tag，如 {@code {order}:1}。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class RedisMultiLock extends AbstractRedisLock {
+    private static final RedisScript<Long> MULTI_LOCK_SCRIPT = RedisLockContext.script("multi_lock");
+    private static final RedisScript<Long> MULTI_UNLOCK_SCRIPT = RedisLockContext.script("multi_unlock");
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisLockContext.script("renew");
+
+    private final List<String> keys;
+
+    /**
+     * 前一半为锁的 key，后一半为对应的释放通知频道
+     */
+    private final List<String> keysAndChannels;
+
+    RedisMultiLock(RedisLockContext context, List<String> names) {
+        super(context, names, String.join(",", names));
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("多重锁至少需要一把锁");
+        }
+        this.keys = names.stream().map(context::key).toList();
+        List<String> all = new ArrayList<>(keys);
+        names.forEach(name -> all.add(context.channel(name)));
+        this.keysAndChannels = List.copyOf(all);
+    }
+
+    @Override
+    protected Long tryAcquireOnce(String ownerId, long leaseMillis) {
+        return context.redisTemplate().execute(MULTI_LOCK_SCRIPT, keys, String.valueOf(leaseMillis), ownerId);
+    }
+
+    @Override
+    protected Long releaseOnce(String ownerId) {
+        return context.redisTemplate().execute(MULTI_UNLOCK_SCRIPT, keysAndChannels, ownerId, LockPubSub.WAKE_ONE);
+    }
+
+    @Override
+    protected boolean renew(String ownerId, long leaseMillis) {
+        String lease = String.valueOf(leaseMillis);
+        boolean held = true;
+        for (String key : keys) {
+            Long result = context.redisTemplate().execute(RENEW_SCRIPT, List.of(key), lease, ownerId);
+            held &= result != null && result == 1;
+        }
+        return held;
+    }
+}
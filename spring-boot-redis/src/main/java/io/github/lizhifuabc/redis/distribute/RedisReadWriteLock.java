@@ -0,0 +1,129 @@
+package io.github.lizhifuabc.redis.distribute;
+
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * 可重入的 Redis 读写锁
+ * <p>
+ * 锁是一个 hash：{@code mode} 为当前模式（read / write），其余 field 为各持有者的读锁或写锁重入次数。
+ * <ul>
+ *     <li>读锁共享，写锁独占</li>
+ *     <li>持有写锁的线程可以再获取读锁，之后释放写锁即完成锁降级；不支持读锁升级为写锁</li>
+ *     <li>写锁释放时唤醒本节点全部等待者，使等待的读锁可以同时获取</li>
+ * </ul>
+ * 所有读锁共用一个过期时间，由各持有者的看门狗共同续期。读锁持有者异常退出时，
+ * 它的重入计数会保留到其他读锁全部释放、锁 key 过期为止。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class RedisReadWriteLock implements ReadWriteLock {
+    private static final RedisScript<Long> READ_LOCK_SCRIPT = RedisLockContext.script("read_lock");
+    private static final RedisScript<Long> READ_UNLOCK_SCRIPT = RedisLockContext.script("read_unlock");
+    private static final RedisScript<Long> WRITE_LOCK_SCRIPT = RedisLockContext.script("write_lock");
+    private static final RedisScript<Long> WRITE_UNLOCK_SCRIPT = RedisLockContext.script("write_unlock");
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisLockContext.script("renew");
+
+    /**
+     * 读写锁名称前缀，与普通锁区分 key 空间
+     */
+    private static final String NAME_PREFIX = "rw:";
+
+    private final ReadLock readLock;
+    private final WriteLock writeLock;
+
+    RedisReadWriteLock(RedisLockContext context, String name) {
+        String lockName = NAME_PREFIX + name;
+        String key = context.key(lockName);
+        String channel = context.channel(lockName);
+        this.readLock = new ReadLock(context, lockName, key, channel);
+        this.writeLock = new WriteLock(context, lockName, key, channel);
+    }
+
+    @Override
+    public AbstractRedisLock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public AbstractRedisLock writeLock() {
+        return writeLock;
+    }
+
+    private static String readField(String ownerId) {
+        return ownerId + ":read";
+    }
+
+    private static String writeField(String ownerId) {
+        return ownerId + ":write";
+    }
+
+    /**
+     * 读锁
+     */
+    private static final class ReadLock extends AbstractRedisLock {
+        private final String key;
+        private final String channel;
+
+        private ReadLock(RedisLockContext context, String lockName, String key, String channel) {
+            super(context, List.of(lockName), lockName + ":read");
+            this.key = key;
+            this.channel = channel;
+        }
+
+        @Override
+        protected Long tryAcquireOnce(String ownerId, long leaseMillis) {
+            return context.redisTemplate().execute(READ_LOCK_SCRIPT, List.of(key),
+                    String.valueOf(leaseMillis), readField(ownerId), writeField(ownerId));
+        }
+
+        @Override
+        protected Long releaseOnce(String ownerId) {
+            return context.redisTemplate().execute(READ_UNLOCK_SCRIPT, List.of(key, channel),
+                    readField(ownerId), LockPubSub.WAKE_ONE);
+        }
+
+        @Override
+        protected boolean renew(String ownerId, long leaseMillis) {
+            Long result = context.redisTemplate().execute(RENEW_SCRIPT, List.of(key),
+                    String.valueOf(leaseMillis), readField(ownerId));
+            return result != null && result == 1;
+        }
+    }
+
+    /**
+     * 写锁
+     */
+    private static final class WriteLock extends AbstractRedisLock {
+        private final String key;
+        private final String channel;
+
+        private WriteLock(RedisLockContext context, String lockName, String key, String channel) {
+            super(context, List.of(lockName), lockName + ":write");
+            this.key = key;
+            this.channel = channel;
+        }
+
+        @Override
+        protected Long tryAcquireOnce(String ownerId, long leaseMillis) {
+            return context.redisTemplate().execute(WRITE_LOCK_SCRIPT, List.of(key),
+                    String.valueOf(leaseMillis), writeField(ownerId));
+        }
+
+        @Override
+        protected Long releaseOnce(String ownerId) {
+            return context.redisTemplate().execute(WRITE_UNLOCK_SCRIPT, List.of(key, channel),
+                    writeField(ownerId), LockPubSub.WAKE_ALL);
+        }
+
+        @Override
+        protected boolean renew(String ownerId, long leaseMillis) {
+            Long result = context.redisTemplate().execute(RENEW_SCRIPT, List.of(key),
+                    String.valueOf(leaseMillis), writeField(ownerId));
+            return result != null && result == 1;
+        }
+    }
+}
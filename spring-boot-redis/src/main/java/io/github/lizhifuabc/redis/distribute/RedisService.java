@@ -1,20 +1,112 @@
 package io.github.lizhifuabc.redis.distribute;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 /**
- * redis
+ * redis 分布式锁服务
+ *
+ * <h2>提供的锁</h2>
+ * <ul>
+ *     <li>{@link #getLock(String)}：可重入独占锁</li>
+ *     <li>{@link #getReadWriteLock(String)}：可重入读写锁，支持写锁降级为读锁</li>
+ *     <li>{@link #getMultiLock(String...)}：在一个脚本中原子地获取多把锁</li>
+ * </ul>
+ *
+ * <h2>特点</h2>
+ * <ul>
+ *     <li>加锁、解锁、续期均由 Lua 脚本完成，只有持有者本人才能释放</li>
+ *     <li>未指定租约时间时由看门狗自动续期，进程宕机后锁在超时时间内自动释放</li>
+ *     <li>等待方通过 pub/sub 接收释放通知，本节点的等待者按先来先得的顺序唤醒，不轮询 Redis</li>
+ *     <li>等待基于 {@code java.util.concurrent}，不使用 synchronized，虚拟线程阻塞时不会占用载体线程</li>
+ * </ul>
+ * 锁对象本身是无状态的，持有关系按线程区分，可以在多个线程间共享同一个锁对象。
  *
  * @author lizhifu
  * @since 2025/3/3
  */
 @Service
 @Slf4j
+@EnableConfigurationProperties(DistributedLockProperties.class)
 public class RedisService {
+    private final RedisLockContext context;
+
+    public RedisService(StringRedisTemplate stringRedisTemplate, RedisMessageListenerContainer listenerContainer,
+                        DistributedLockProperties properties) {
+        LockPubSub pubSub = new LockPubSub(properties.getChannelPrefix(), listenerContainer);
+        LockWatchdog watchdog = new LockWatchdog(properties.getWatchdogTimeout());
+        this.context = new RedisLockContext(stringRedisTemplate, pubSub, watchdog, properties);
+    }
+
+    /**
+     * 获取可重入独占锁
+     *
+     * @param name 锁名称
+     * @return 锁对象
+     */
+    public RedisLock getLock(String name) {
+        return new RedisLock(context, name);
+    }
+
+    /**
+     * 获取可重入读写锁
+     *
+     * @param name 锁名称
+     * @return 读写锁对象
+     */
+    public RedisReadWriteLock getReadWriteLock(String name) {
+        return new RedisReadWriteLock(context, name);
+    }
+
+    /**
+     * 获取多重锁，全部获取成功才算加锁成功
+     *
+     * @param names 锁名称，重复的名称只计一次
+     * @return 多重锁对象
+     */
+    public RedisMultiLock getMultiLock(String... names) {
+        List<String> distinct = Arrays.stream(names).distinct().toList();
+        return new RedisMultiLock(context, distinct);
+    }
 
+    /**
+     * 在锁内执行操作，等待超时后抛出异常
+     *
+     * @param name     锁名称
+     * @param waitTime 最长等待时间
+     * @param action   需要互斥执行的操作
+     * @return 操作结果
+     * @throws IllegalStateException 等待超时或等待期间被中断
+     */
+    public <T> T executeWithLock(String name, Duration waitTime, Supplier<T> action) {
+        RedisLock lock = getLock(name);
+        try {
+            if (!lock.tryLock(waitTime.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("获取锁超时: " + name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待锁时被中断: " + name, e);
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
 
+    @PreDestroy
+    public void destroy() {
+        context.watchdog().shutdown();
+    }
 }
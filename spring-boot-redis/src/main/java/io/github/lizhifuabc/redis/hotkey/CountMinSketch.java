@@ -0,0 +1,74 @@
+package io.github.lizhifuabc.redis.hotkey;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch 频率估算
+ * <p>
+ * depth 行计数器，每行用一个哈希函数把 key 映射到一个计数器，估算值取各行的最小值，
+ * 只会高估不会低估。内存占用固定为 depth * width 个 long，与 key 的数量无关。
+ * 各行的位置由一次 128 位 murmur3 哈希通过双重哈希得到。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class CountMinSketch {
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counters;
+
+    CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    /**
+     * 计算 key 的哈希，同一个 key 在多个窗口中计数时只需计算一次
+     */
+    static long hash(String key) {
+        return Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * 计数 +1
+     *
+     * @param hash {@link #hash(String)} 的返回值
+     */
+    void add(long hash) {
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 0; i < depth; i++) {
+            counters.incrementAndGet(i * width + index(hash1, hash2, i));
+        }
+    }
+
+    /**
+     * 估算访问次数
+     *
+     * @param hash {@link #hash(String)} 的返回值
+     */
+    long estimate(long hash) {
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            min = Math.min(min, counters.get(i * width + index(hash1, hash2, i)));
+        }
+        return min;
+    }
+
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private int index(int hash1, int hash2, int row) {
+        int combined = hash1 + row * hash2;
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+}
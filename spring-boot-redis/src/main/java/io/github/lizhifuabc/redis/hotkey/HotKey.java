@@ -0,0 +1,37 @@
+package io.github.lizhifuabc.redis.hotkey;
+
+/**
+ * 访问次数排名靠前的 key
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public final class HotKey {
+    private final String key;
+    private final long count;
+    private final boolean hot;
+
+    HotKey(String key, long count, boolean hot) {
+        this.key = key;
+        this.count = count;
+        this.hot = hot;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 统计周期内的估算访问次数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 是否已提升到本地缓存
+     */
+    public boolean isHot() {
+        return hot;
+    }
+}
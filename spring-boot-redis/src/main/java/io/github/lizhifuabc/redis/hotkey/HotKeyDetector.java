@@ -0,0 +1,218 @@
+package io.github.lizhifuabc.redis.hotkey;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 热点 key 探测器
+ *
+ * <h2>统计方式</h2>
+ * <ul>
+ *     <li>每个时间窗口一个 {@link CountMinSketch}，多个窗口组成环形的滑动窗口，
+ *     窗口到期时清空最旧的一个并作为当前窗口，key 的访问次数为所有窗口估算值之和</li>
+ *     <li>按采样率抽样计数，估算值按采样率还原，访问量大时可降低采样率减少开销</li>
+ *     <li>估算值超过当前第 K 名的 key 进入候选集合，窗口切换时重新估算，用小顶堆选出 top-K，其余候选丢弃，
+ *     内存占用与 key 的总数无关</li>
+ * </ul>
+ *
+ * <h2>提升与降级</h2>
+ * 访问次数达到 threshold 时标记为热点 key；窗口切换时，访问次数降到 threshold * coolRatio 以下的热点 key
+ * 被降级，并通知注册的监听器（例如从本地缓存中移除）。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(HotKeyProperties.class)
+public class HotKeyDetector {
+    private final HotKeyProperties properties;
+    private final CountMinSketch[] windows;
+    private final long coolThreshold;
+
+    /**
+     * 当前计数的窗口下标
+     */
+    private volatile int current;
+
+    /**
+     * top-K 候选，value 为最近一次的估算值
+     */
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+
+    /**
+     * 上次窗口切换时第 K 名的访问次数，不超过该值的 key 不进入候选
+     */
+    private volatile long admissionFloor;
+
+    private volatile List<HotKey> topKeys = List.of();
+
+    private final Set<String> hotKeys = ConcurrentHashMap.newKeySet();
+
+    private final List<Consumer<String>> coolListeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "hot-key-window");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HotKeyDetector(HotKeyProperties properties) {
+        if (properties.getSampleRate() <= 0 || properties.getSampleRate() > 1) {
+            throw new IllegalArgumentException("采样率必须在 (0, 1] 之间: " + properties.getSampleRate());
+        }
+        this.properties = properties;
+        this.windows = new CountMinSketch[Math.max(1, properties.getWindowCount())];
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = new CountMinSketch(properties.getSketchDepth(), properties.getSketchWidth());
+        }
+        this.coolThreshold = (long) (properties.getThreshold() * properties.getCoolRatio());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long interval = properties.getWindow().toMillis();
+        scheduler.scheduleAtFixedRate(this::rotateQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("热点 key 探测已启动，统计周期: {}ms，阈值: {}，采样率: {}",
+                interval * windows.length, properties.getThreshold(), properties.getSampleRate());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @return 该 key 当前是否为热点 key
+     */
+    public boolean record(String key) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        double sampleRate = properties.getSampleRate();
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return hotKeys.contains(key);
+        }
+        long hash = CountMinSketch.hash(key);
+        windows[current].add(hash);
+        long count = estimate(hash);
+        if (count > admissionFloor) {
+            candidates.put(key, count);
+        }
+        if (count >= properties.getThreshold() && hotKeys.add(key)) {
+            log.info("发现热点 key: {}，估算访问次数: {}", key, count);
+        }
+        return hotKeys.contains(key);
+    }
+
+    public boolean isHot(String key) {
+        return hotKeys.contains(key);
+    }
+
+    /**
+     * 当前的热点 key
+     */
+    public Set<String> hotKeys() {
+        return Set.copyOf(hotKeys);
+    }
+
+    /**
+     * 上次窗口切换时访问次数最多的 K 个 key，按访问次数降序
+     */
+    public List<HotKey> topKeys() {
+        return topKeys;
+    }
+
+    /**
+     * 注册热点 key 降级监听器
+     */
+    public void addCoolListener(Consumer<String> listener) {
+        coolListeners.add(listener);
+    }
+
+    /**
+     * 滑动窗口内的估算访问次数（已按采样率还原）
+     */
+    private long estimate(long hash) {
+        long sum = 0;
+        for (CountMinSketch window : windows) {
+            sum += window.estimate(hash);
+        }
+        return Math.round(sum / properties.getSampleRate());
+    }
+
+    private void rotateQuietly() {
+        try {
+            rotate();
+        } catch (Exception e) {
+            log.error("热点 key 窗口切换失败", e);
+        }
+    }
+
+    /**
+     * 切换窗口：清空最旧的窗口作为当前窗口，重新选出 top-K，并降级已冷却的热点 key
+     * <p>
+     * 由定时任务调用，包内可见便于测试
+     */
+    void rotate() {
+        int next = (current + 1) % windows.length;
+        windows[next].clear();
+        current = next;
+
+        int k = Math.max(1, properties.getTopK());
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(k + 1, Map.Entry.comparingByValue());
+        for (String key : candidates.keySet()) {
+            long count = estimate(CountMinSketch.hash(key));
+            if (count == 0) {
+                candidates.remove(key);
+                continue;
+            }
+            heap.offer(Map.entry(key, count));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        admissionFloor = heap.size() < k ? 0 : heap.peek().getValue();
+
+        for (String key : hotKeys) {
+            long count = estimate(CountMinSketch.hash(key));
+            if (count < coolThreshold && hotKeys.remove(key)) {
+                log.info("热点 key 已冷却: {}，估算访问次数: {}", key, count);
+                coolListeners.forEach(listener -> listener.accept(key));
+            }
+        }
+
+        Set<String> retained = new HashSet<>(heap.size() * 2);
+        List<HotKey> ranking = new ArrayList<>(heap.size());
+        for (Map.Entry<String, Long> entry : heap) {
+            retained.add(entry.getKey());
+            ranking.add(new HotKey(entry.getKey(), entry.getValue(), hotKeys.contains(entry.getKey())));
+        }
+        candidates.keySet().retainAll(retained);
+        ranking.sort(Comparator.comparingLong(HotKey::getCount).reversed());
+        topKeys = List.copyOf(ranking);
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.lizhifuabc.redis.hotkey;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 热点 key 监控端点：/actuator/hotkeys
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Component
+@Endpoint(id = "hotkeys")
+public class HotKeyEndpoint {
+    private final HotKeyDetector detector;
+    private final HotKeyRedisReader reader;
+
+    public HotKeyEndpoint(HotKeyDetector detector, HotKeyRedisReader reader) {
+        this.detector = detector;
+        this.reader = reader;
+    }
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hotKeys", detector.hotKeys());
+        result.put("topKeys", detector.topKeys());
+        result.put("localSize", reader.localSize());
+        result.put("localHitRate", reader.stats().hitRate());
+        return result;
+    }
+}
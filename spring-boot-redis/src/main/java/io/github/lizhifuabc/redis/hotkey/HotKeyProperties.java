@@ -0,0 +1,66 @@
+package io.github.lizhifuabc.redis.hotkey;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 热点 key 探测配置属性
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.hot-key")
+public class HotKeyProperties {
+    /**
+     * 是否开启热点探测和本地提升
+     */
+    private boolean enabled = true;
+
+    /**
+     * 采样率，取值 (0, 1]，访问量很大时降低采样率以减少统计开销，估算值会按采样率还原
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 单个时间窗口的长度
+     */
+    private Duration window = Duration.ofSeconds(1);
+
+    /**
+     * 滑动窗口包含的时间窗口数，统计周期为 window * windowCount
+     */
+    private int windowCount = 10;
+
+    /**
+     * 统计周期内访问次数达到该值时提升为热点 key
+     */
+    private long threshold = 1000;
+
+    /**
+     * 访问次数降到 threshold 的该比例以下时取消热点，避免在阈值附近反复提升和降级
+     */
+    private double coolRatio = 0.5;
+
+    /**
+     * 保留的访问次数最多的 key 的数量
+     */
+    private int topK = 100;
+
+    /**
+     * 热点 key 在本地缓存中的过期时间，也是本地副本可能不一致的最长时间
+     */
+    private Duration localTtl = Duration.ofSeconds(5);
+
+    /**
+     * Count-Min Sketch 的行数（哈希函数个数）
+     */
+    private int sketchDepth = 4;
+
+    /**
+     * Count-Min Sketch 每行的计数器个数
+     */
+    private int sketchWidth = 4096;
+}
@@ -0,0 +1,134 @@
+package io.github.lizhifuabc.redis.hotkey;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.lizhifuabc.redis.local.LocalCache;
+import io.github.lizhifuabc.redis.local.LocalCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 带热点 key 本地提升的 Redis 读取
+ * <p>
+ * 每次读取都交给 {@link HotKeyDetector} 计数，热点 key 的值放入过期时间很短的本地缓存 {@code hotkey}，
+ * 之后的读取直接命中本地，不再访问 Redis；热点 key 冷却后从本地缓存移除。
+ * 本地副本不会随 Redis 的写入更新，最多在 localTtl 内读到旧值，写入方可以调用 {@link #evict(String)} 提前移除。
+ * <p>
+ * {@link #get(String, Function)}、{@link #getAll(List, Function)} 由调用方负责实际的 Redis 读取和解码，
+ * 本地副本保存解码后的对象，二级缓存的 L2 读取即经过这里。同一个 key 应当始终以同一种类型读取。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Component
+public class HotKeyRedisReader {
+    private static final String LOCAL_CACHE_NAME = "hotkey";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final HotKeyDetector detector;
+    private final LocalCache<String, Object> hotCache;
+
+    public HotKeyRedisReader(StringRedisTemplate stringRedisTemplate, HotKeyDetector detector,
+                             HotKeyProperties properties, LocalCacheManager localCacheManager) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.detector = detector;
+        this.hotCache = localCacheManager.getCache(LOCAL_CACHE_NAME, properties.getLocalTtl());
+        detector.addCoolListener(hotCache::remove);
+    }
+
+    /**
+     * 读取字符串值
+     */
+    public String get(String key) {
+        return get(key, k -> stringRedisTemplate.opsForValue().get(k));
+    }
+
+    /**
+     * 读取一个 key，热点 key 优先使用本地副本
+     *
+     * @param key    Redis key
+     * @param remote 实际的 Redis 读取，返回 null 表示不存在
+     * @return 读取结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Function<String, T> remote) {
+        // 本地命中也要计数，否则热点 key 会因为不再访问 Redis 而被误判为冷却
+        boolean hot = detector.record(key);
+        if (hot) {
+            Optional<Object> local = hotCache.getIfPresent(key);
+            if (local.isPresent()) {
+                return (T) local.get();
+            }
+        }
+        T value = remote.apply(key);
+        if (hot && value != null) {
+            hotCache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 批量读取，热点 key 优先使用本地副本，其余 key 一次交给 remote 读取
+     *
+     * @param keys   Redis key
+     * @param remote 实际的 Redis 批量读取，返回存在的 key
+     * @return key 到读取结果的映射，不包含不存在的 key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(List<String> keys, Function<List<String>, Map<String, T>> remote) {
+        Map<String, T> result = new HashMap<>();
+        Set<String> hot = new HashSet<>();
+        List<String> misses = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (detector.record(key)) {
+                hot.add(key);
+                Optional<Object> local = hotCache.getIfPresent(key);
+                if (local.isPresent()) {
+                    result.put(key, (T) local.get());
+                    continue;
+                }
+            }
+            misses.add(key);
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+        Map<String, T> loaded = remote.apply(misses);
+        loaded.forEach((key, value) -> {
+            if (hot.contains(key)) {
+                hotCache.put(key, value);
+            }
+        });
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * 移除本地副本，写入 Redis 后调用
+     */
+    public void evict(String key) {
+        hotCache.remove(key);
+    }
+
+    /**
+     * 本地缓存统计信息
+     */
+    public CacheStats stats() {
+        return hotCache.stats();
+    }
+
+    /**
+     * 本地缓存的条目数
+     */
+    public long localSize() {
+        return hotCache.estimatedSize();
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.lizhifuabc.redis.id;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 号段模式 ID 生成配置属性
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Data
+@ConfigurationProperties(prefix = "id-gen.segment")
+public class IdGenProperties {
+    /**
+     * 号段最小长度，也是初始长度
+     */
+    private int minStep = 1000;
+
+    /**
+     * 号段最大长度
+     */
+    private int maxStep = 1_000_000;
+
+    /**
+     * 当前号段使用到该比例时异步预取下一个号段
+     */
+    private double prefetchRatio = 0.8;
+
+    /**
+     * 期望一个号段的使用时长，实际时长低于一半时号段长度翻倍，超过两倍时减半
+     */
+    private Duration targetDuration = Duration.ofSeconds(30);
+}
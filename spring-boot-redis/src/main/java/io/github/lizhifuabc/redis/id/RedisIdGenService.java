@@ -1,14 +1,26 @@
 package io.github.lizhifuabc.redis.id;
 
+import jakarta.annotation.PreDestroy;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 全局 ID 生成器
+ * <p>
+ * ID 结构：高 32 位为相对 {@link #BEGIN_TIMESTAMP} 的秒数，低 32 位为按日期自增的序列号。提供两种模式：
+ * <ul>
+ *     <li>{@link #nextId(String)}：每个 ID 执行一次 {@code INCR}，序列号严格连续</li>
+ *     <li>{@link #nextSegmentId(String)}：号段模式，批量申请序列号后在本地分配，吞吐量不受 Redis 往返限制</li>
+ * </ul>
+ * 两种模式共用同一个计数 key，可以混用而不会产生重复 ID。
  *
  * @author lizhifu
  * @since 2025/3/13
@@ -24,10 +36,26 @@ public class RedisIdGenService {
     // 序列号最大值 (2^32)-1
     private static final long MAX_COUNT = (1L << COUNT_BITS) - 1;
 
+    // 日期格式，DateTimeFormatter 是线程安全的，无需每次创建
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy:MM:dd");
+
+    private static final long SECONDS_PER_DAY = 86400L;
+
     private final StringRedisTemplate stringRedisTemplate;
+    private final IdGenProperties idGenProperties;
+
+    // 号段缓冲，按业务前缀区分
+    private final Map<String, SegmentIdBuffer> segmentBuffers = new ConcurrentHashMap<>();
 
-    public RedisIdGenService(StringRedisTemplate stringRedisTemplate) {
+    // 号段预取使用虚拟线程执行，等待 Redis 响应时不占用平台线程
+    private final ExecutorService prefetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // 最近一次格式化的日期，同一天内直接复用
+    private volatile CachedDate cachedDate = new CachedDate(-1, null);
+
+    public RedisIdGenService(StringRedisTemplate stringRedisTemplate, IdGenProperties idGenProperties) {
         this.stringRedisTemplate = stringRedisTemplate;
+        this.idGenProperties = idGenProperties;
     }
 
     // 获取下一个自动生成的 id
@@ -38,7 +66,7 @@ public class RedisIdGenService {
         long timestamp = nowSecond - BEGIN_TIMESTAMP;
 
         // 2.获取当前日期
-        String date = now.format(DateTimeFormatter.ofPattern("yyyy:MM:dd"));
+        String date = formatDate(now, nowSecond);
         
         // 3.获取自增长值：生成一个递增计数值
         long count = stringRedisTemplate.opsForValue().increment("icr:" + keyPrefix + ":" + date);
@@ -51,4 +79,42 @@ public class RedisIdGenService {
         // 5.拼接并返回
         return timestamp << COUNT_BITS | count;
     }
+
+    // 号段模式获取下一个 id，大部分调用只在本地分配，不访问 Redis
+    public long nextSegmentId(String keyPrefix) {
+        LocalDateTime now = LocalDateTime.now();
+        long nowSecond = now.toEpochSecond(ZoneOffset.UTC);
+        long timestamp = nowSecond - BEGIN_TIMESTAMP;
+
+        SegmentIdBuffer buffer = segmentBuffers.computeIfAbsent(keyPrefix,
+                prefix -> new SegmentIdBuffer(prefix, MAX_COUNT, idGenProperties, stringRedisTemplate, prefetchExecutor));
+        long count = buffer.nextSequence(formatDate(now, nowSecond));
+        return timestamp << COUNT_BITS | count;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        prefetchExecutor.shutdown();
+    }
+
+    private String formatDate(LocalDateTime now, long nowSecond) {
+        long day = nowSecond / SECONDS_PER_DAY;
+        CachedDate cached = cachedDate;
+        if (cached.day != day) {
+            cached = new CachedDate(day, now.format(DATE_FORMATTER));
+            cachedDate = cached;
+        }
+        return cached.date;
+    }
+
+    // 按天缓存的日期字符串
+    private static final class CachedDate {
+        private final long day;
+        private final String date;
+
+        private CachedDate(long day, String date) {
+            this.day = day;
+            this.date = date;
+        }
+    }
 }
@@ -0,0 +1,192 @@
+package io.github.lizhifuabc.redis.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 号段双缓冲
+ * <p>
+ * 每次通过 {@code INCRBY step} 从 Redis 申请一段连续的序列号，在本地用 {@link AtomicLong} 分配：
+ * <ol>
+ *     <li>当前号段使用到预取比例时，异步申请下一个号段，用完后直接切换，分配线程不会等待网络</li>
+ *     <li>号段用完而预取尚未完成时，在锁内同步申请，只有一个线程访问 Redis</li>
+ *     <li>每次申请时根据上一个号段的实际使用时长调整号段长度，使申请频率稳定在期望值附近</li>
+ * </ol>
+ * 序列号按日期分 key，日期变化后丢弃旧号段。节点重启或切换日期时未用完的序列号会被跳过，
+ * 因此 ID 全局唯一、单节点内趋势递增，但不保证连续。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+class SegmentIdBuffer {
+    private final String keyPrefix;
+    private final long maxCount;
+    private final IdGenProperties properties;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Executor prefetchExecutor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean prefetching = new AtomicBoolean();
+
+    private volatile Segment current;
+    private volatile Segment next;
+
+    /**
+     * 下一次申请的号段长度
+     */
+    private volatile long step;
+
+    /**
+     * 上一次申请号段的时间，用于估算消耗速度
+     */
+    private volatile long lastFetchMillis;
+
+    SegmentIdBuffer(String keyPrefix, long maxCount, IdGenProperties properties,
+                    StringRedisTemplate stringRedisTemplate, Executor prefetchExecutor) {
+        this.keyPrefix = keyPrefix;
+        this.maxCount = maxCount;
+        this.properties = properties;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.prefetchExecutor = prefetchExecutor;
+        this.step = properties.getMinStep();
+    }
+
+    /**
+     * 分配下一个序列号
+     *
+     * @param date 当前日期，格式 {@code yyyy:MM:dd}
+     * @return 序列号
+     */
+    long nextSequence(String date) {
+        while (true) {
+            Segment segment = current;
+            if (segment == null || !segment.date.equals(date)) {
+                switchSegment(segment, date);
+                continue;
+            }
+            long value = segment.value.getAndIncrement();
+            if (value <= segment.max) {
+                if (value == segment.prefetchAt) {
+                    prefetch(date);
+                }
+                return value;
+            }
+            switchSegment(segment, date);
+        }
+    }
+
+    /**
+     * 当前号段用完或日期变化时切换号段，优先使用预取好的号段
+     */
+    private void switchSegment(Segment exhausted, String date) {
+        lock.lock();
+        try {
+            if (current != exhausted) {
+                // 其他线程已经切换
+                return;
+            }
+            Segment prefetched = next;
+            next = null;
+            if (prefetched != null && prefetched.date.equals(date)) {
+                current = prefetched;
+            } else {
+                current = fetch(date);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void prefetch(String date) {
+        if (next != null || !prefetching.compareAndSet(false, true)) {
+            return;
+        }
+        prefetchExecutor.execute(() -> {
+            try {
+                Segment segment = fetch(date);
+                lock.lock();
+                try {
+                    if (next == null) {
+                        next = segment;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } catch (Exception e) {
+                // 预取失败不影响分配，号段用完时会同步重试
+                log.warn("预取号段失败，keyPrefix: {}", keyPrefix, e);
+            } finally {
+                prefetching.set(false);
+            }
+        });
+    }
+
+    /**
+     * 从 Redis 申请号段
+     */
+    private Segment fetch(String date) {
+        long size = adjustStep();
+        Long end = stringRedisTemplate.opsForValue().increment("icr:" + keyPrefix + ":" + date, size);
+        if (end == null) {
+            throw new IllegalStateException("申请号段失败，keyPrefix: " + keyPrefix);
+        }
+        long start = end - size + 1;
+        if (start > maxCount) {
+            throw new RuntimeException("序列号超出上限，请联系管理员处理");
+        }
+        Segment segment = new Segment(date, start, Math.min(end, maxCount), properties.getPrefetchRatio());
+        log.debug("申请号段，keyPrefix: {}，区间: [{}, {}]", keyPrefix, segment.start, segment.max);
+        return segment;
+    }
+
+    /**
+     * 根据距上次申请的时间调整号段长度
+     */
+    private synchronized long adjustStep() {
+        long now = System.currentTimeMillis();
+        long target = properties.getTargetDuration().toMillis();
+        if (lastFetchMillis > 0) {
+            long elapsed = now - lastFetchMillis;
+            if (elapsed < target / 2) {
+                step = Math.min(step * 2, properties.getMaxStep());
+            } else if (elapsed > target * 2) {
+                step = Math.max(step / 2, properties.getMinStep());
+            }
+        }
+        lastFetchMillis = now;
+        return step;
+    }
+
+    /**
+     * 号段
+     */
+    private static final class Segment {
+        private final String date;
+        private final long start;
+        private final long max;
+
+        /**
+         * 分配到该值时触发预取
+         */
+        private final long prefetchAt;
+
+        /**
+         * 下一个待分配的值
+         */
+        private final AtomicLong value;
+
+        private Segment(String date, long start, long max, double prefetchRatio) {
+            this.date = date;
+            this.start = start;
+            this.max = max;
+            this.prefetchAt = start + (long) ((max - start + 1) * prefetchRatio);
+            this.value = new AtomicLong(start);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package io.github.lizhifuabc.redis.id;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 雪花算法 ID 生成器
+ * <p>
+ * ID 结构：1 位符号位 + 41 位毫秒时间戳 + 10 位工作节点ID + 12 位序列号，生成过程完全在本地完成，
+ * Redis 只负责分配和续约工作节点ID（{@link WorkerIdLease}），热点路径上没有网络访问和锁。
+ * <p>
+ * 时间戳和序列号打包在一个 {@link AtomicLong} 中通过 CAS 更新，时间戳是只增不减的逻辑时钟：
+ * <ol>
+ *     <li>同一毫秒内序列号用完时，逻辑时钟提前进入下一毫秒（借用未来的序列号）</li>
+ *     <li>时钟回拨不超过借用阈值时，继续沿用逻辑时钟分配序列号，不阻塞</li>
+ *     <li>时钟回拨超过借用阈值时等待系统时钟追上，超过最大回拨时间时拒绝生成</li>
+ * </ol>
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+@Component
+public class SnowflakeIdGenerator {
+    // 开始时间戳（毫秒），与 RedisIdGenService 相同
+    private static final long EPOCH_MILLIS = 1640995200000L;
+
+    // 时间戳的位数
+    private static final int TIMESTAMP_BITS = 41;
+
+    // 工作节点ID的位数
+    private static final int WORKER_ID_BITS = 10;
+
+    // 序列号的位数
+    private static final int SEQUENCE_BITS = 12;
+
+    // 时间戳最大值 (2^41)-1，约 69 年
+    private static final long MAX_TIMESTAMP = (1L << TIMESTAMP_BITS) - 1;
+
+    // 工作节点ID最大值 (2^10)-1
+    static final int MAX_WORKER_ID = (1 << WORKER_ID_BITS) - 1;
+
+    // 序列号最大值 (2^12)-1
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final SnowflakeProperties properties;
+    private final WorkerIdLease lease;
+
+    /**
+     * 逻辑时钟与序列号：高位为时间戳，低 {@link #SEQUENCE_BITS} 位为该时间戳下最后分配的序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "snowflake-worker-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 当前持有的工作节点ID，小于 0 表示未持有
+     */
+    private volatile int workerId = -1;
+
+    /**
+     * 租约到期时间，超过后不再生成 ID，避免与接手该工作节点ID的其他节点重复
+     */
+    private volatile long leaseExpireAt;
+
+    public SnowflakeIdGenerator(StringRedisTemplate stringRedisTemplate, SnowflakeProperties properties) {
+        this.properties = properties;
+        this.lease = new WorkerIdLease(stringRedisTemplate, properties.getWorkerKeyPrefix(), MAX_WORKER_ID,
+                properties.getLeaseTime());
+    }
+
+    @PostConstruct
+    public void init() {
+        acquireWorkerId(-1);
+        long interval = properties.getHeartbeatInterval().toMillis();
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        heartbeatExecutor.shutdownNow();
+        int current = workerId;
+        if (current >= 0) {
+            workerId = -1;
+            try {
+                lease.release(current);
+            } catch (Exception e) {
+                log.warn("释放工作节点ID失败，workerId: {}", current, e);
+            }
+        }
+    }
+
+    /**
+     * 获取下一个 ID
+     *
+     * @return ID
+     */
+    public long nextId() {
+        int currentWorkerId = workerId;
+        if (currentWorkerId < 0 || System.currentTimeMillis() > leaseExpireAt) {
+            throw new IllegalStateException("工作节点ID租约已失效，暂时无法生成ID");
+        }
+        long borrowThreshold = properties.getBorrowThreshold().toMillis();
+        long maxClockBackward = properties.getMaxClockBackward().toMillis();
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long sequence = current & MAX_SEQUENCE;
+
+            long timestamp;
+            long nextSequence;
+            if (now > lastTimestamp) {
+                timestamp = now;
+                nextSequence = 0;
+            } else {
+                // 同一毫秒、时钟回拨或逻辑时钟领先，都沿用逻辑时钟
+                long backward = lastTimestamp - now;
+                if (backward > borrowThreshold) {
+                    if (backward > maxClockBackward) {
+                        throw new IllegalStateException("时钟回拨 " + backward + "ms，超过允许的最大值，拒绝生成ID");
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    continue;
+                }
+                if (sequence < MAX_SEQUENCE) {
+                    timestamp = lastTimestamp;
+                    nextSequence = sequence + 1;
+                } else {
+                    timestamp = lastTimestamp + 1;
+                    nextSequence = 0;
+                }
+            }
+
+            // 检查时间戳是否溢出
+            if (timestamp > MAX_TIMESTAMP) {
+                throw new RuntimeException("时间戳超出上限，请联系管理员处理");
+            }
+            if (state.compareAndSet(current, timestamp << SEQUENCE_BITS | nextSequence)) {
+                return timestamp << (WORKER_ID_BITS + SEQUENCE_BITS)
+                        | (long) currentWorkerId << SEQUENCE_BITS
+                        | nextSequence;
+            }
+        }
+    }
+
+    /**
+     * 当前持有的工作节点ID
+     */
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    private void heartbeat() {
+        int current = workerId;
+        try {
+            // 在续约请求发出前取时间，Redis 中的租约从收到请求时开始计算，不会早于该时间
+            long now = System.currentTimeMillis();
+            if (current >= 0 && lease.renew(current)) {
+                leaseExpireAt = localLeaseExpireAt(now);
+                return;
+            }
+            // 租约已被释放或过期，立即停止生成，优先重新抢占原来的ID
+            log.error("工作节点ID租约丢失，workerId: {}，重新申请", current);
+            workerId = -1;
+            acquireWorkerId(current);
+        } catch (Exception e) {
+            // Redis 暂时不可用时保留租约，直到到期时间前都可以继续生成
+            log.warn("工作节点ID续约失败，workerId: {}", current, e);
+        }
+    }
+
+    private void acquireWorkerId(int preferred) {
+        long now = System.currentTimeMillis();
+        int acquired = lease.acquire(preferred);
+        leaseExpireAt = localLeaseExpireAt(now);
+        workerId = acquired;
+        log.info("获取工作节点ID: {}", acquired);
+    }
+
+    /**
+     * 本地租约到期时间：从请求发出前的时间算起，并提前安全余量失效，保证早于 Redis 中的租约过期
+     *
+     * @param requestedAt 续约或申请请求发出前的时间
+     */
+    private long localLeaseExpireAt(long requestedAt) {
+        return requestedAt + properties.getLeaseTime().toMillis() - properties.getLeaseSafetyMargin().toMillis();
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.lizhifuabc.redis.id;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 雪花算法 ID 生成配置属性
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Data
+@ConfigurationProperties(prefix = "id-gen.snowflake")
+public class SnowflakeProperties {
+    /**
+     * 工作节点租约 key 前缀，不同应用使用不同前缀即可拥有各自的工作节点ID空间
+     */
+    private String workerKeyPrefix = "snowflake:worker:";
+
+    /**
+     * 工作节点租约时间，节点宕机后其 ID 最长经过该时间才能被其他节点复用
+     */
+    private Duration leaseTime = Duration.ofSeconds(30);
+
+    /**
+     * 本地租约提前失效的时间，抵消 Redis 往返耗时和节点间的时钟偏差，保证本地租约早于 Redis 中的租约过期
+     */
+    private Duration leaseSafetyMargin = Duration.ofSeconds(2);
+
+    /**
+     * 续约间隔，应明显小于租约时间
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+    /**
+     * 时钟回拨不超过该值时继续沿用上一个时间戳并借用序列号，不阻塞
+     */
+    private Duration borrowThreshold = Duration.ofMillis(100);
+
+    /**
+     * 时钟回拨超过借用阈值、但不超过该值时等待时钟追上；超过该值时拒绝生成
+     */
+    private Duration maxClockBackward = Duration.ofSeconds(5);
+}
@@ -0,0 +1,100 @@
+package io.github.lizhifuabc.redis.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于 Redis 的工作节点ID租约
+ * <p>
+ * 每个工作节点ID对应一个 key，节点通过 {@code SET NX PX} 抢占，之后定期续约；
+ * 续约和释放都先校验持有者令牌，避免误操作其他节点的租约。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+class WorkerIdLease {
+    /**
+     * 续约脚本：仅在租约仍由自己持有时延长过期时间
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+                    "else return 0 end", Long.class);
+
+    /**
+     * 释放脚本：仅在租约仍由自己持有时删除
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('del', KEYS[1]) " +
+                    "else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final int maxWorkerId;
+    private final Duration leaseTime;
+
+    /**
+     * 持有者令牌，区分不同进程
+     */
+    private final String token = UUID.randomUUID().toString();
+
+    WorkerIdLease(StringRedisTemplate redisTemplate, String keyPrefix, int maxWorkerId, Duration leaseTime) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.maxWorkerId = maxWorkerId;
+        this.leaseTime = leaseTime;
+    }
+
+    /**
+     * 抢占一个空闲的工作节点ID，从随机位置开始查找，减少多个节点同时启动时的冲突
+     *
+     * @param preferred 优先尝试的ID，小于 0 时不指定
+     * @return 工作节点ID
+     */
+    int acquire(int preferred) {
+        if (preferred >= 0 && tryAcquire(preferred)) {
+            return preferred;
+        }
+        int start = ThreadLocalRandom.current().nextInt(maxWorkerId + 1);
+        for (int i = 0; i <= maxWorkerId; i++) {
+            int workerId = (start + i) % (maxWorkerId + 1);
+            if (tryAcquire(workerId)) {
+                return workerId;
+            }
+        }
+        throw new RuntimeException("工作节点ID已用完，请联系管理员处理");
+    }
+
+    /**
+     * 续约
+     *
+     * @return 租约是否仍由自己持有
+     */
+    boolean renew(int workerId) {
+        Long result = redisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(key(workerId)),
+                token, Long.toString(leaseTime.toMillis()));
+        return result != null && result > 0;
+    }
+
+    void release(int workerId) {
+        redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(key(workerId)), token);
+    }
+
+    private boolean tryAcquire(int workerId) {
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(key(workerId), token, leaseTime);
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    private String key(int workerId) {
+        return keyPrefix + workerId;
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.lizhifuabc.redis.local;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 基于 Caffeine 的本地缓存
+ * <p>
+ * 设置了容量上限时，Caffeine 使用 W-TinyLFU 策略：新条目先进入一个小的 LRU 窗口，
+ * 淘汰时与主区域的候选比较访问频率，频率更低的一方被淘汰，偶发的一次性访问不会把热点数据挤出缓存。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+public class CaffeineLocalCache<K, V> implements LocalCache<K, V> {
+    private final String name;
+    private final Cache<K, V> cache;
+
+    CaffeineLocalCache(String name, Cache<K, V> cache) {
+        this.name = name;
+        this.cache = cache;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key != null && value != null) {
+            cache.put(key, value);
+            log.debug("LocalCache[{}] put key={}", name, key);
+        }
+    }
+
+    @Override
+    public Optional<V> getIfPresent(K key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        if (cache instanceof LoadingCache<K, V> loadingCache) {
+            return loadingCache.get(key);
+        }
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null) {
+            return null;
+        }
+        return cache.get(key, mappingFunction);
+    }
+
+    @Override
+    public void remove(K key) {
+        if (key != null) {
+            cache.invalidate(key);
+            log.debug("LocalCache[{}] remove key={}", name, key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+        log.debug("LocalCache[{}] clear all", name);
+    }
+
+    @Override
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.lizhifuabc.redis.local;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 本地缓存
+ * <p>
+ * 实例由 {@link LocalCacheManager} 按名称创建，容量、过期和刷新策略来自配置，
+ * 命中率等统计通过 Micrometer 发布，标签 {@code cache} 为缓存名称。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public interface LocalCache<K, V> {
+
+    /**
+     * 缓存名称
+     */
+    String getName();
+
+    /**
+     * 将数据放入缓存
+     */
+    void put(K key, V value);
+
+    /**
+     * 从缓存获取数据
+     */
+    Optional<V> getIfPresent(K key);
+
+    /**
+     * 从缓存获取数据，未命中时使用创建缓存时指定的加载器加载；没有加载器时等同于 {@code getIfPresent(key).orElse(null)}
+     */
+    V get(K key);
+
+    /**
+     * 从缓存获取数据，未命中时调用 mappingFunction 加载，同一 key 并发未命中时只加载一次
+     */
+    V get(K key, Function<? super K, ? extends V> mappingFunction);
+
+    /**
+     * 从缓存中移除数据
+     */
+    void remove(K key);
+
+    /**
+     * 清空缓存
+     */
+    void clear();
+
+    /**
+     * 缓存条目数的估算值
+     */
+    long estimatedSize();
+
+    /**
+     * 累计统计信息
+     */
+    CacheStats stats();
+}
@@ -0,0 +1,192 @@
+package io.github.lizhifuabc.redis.local;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import io.github.lizhifuabc.redis.cache.codec.ValueCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 本地缓存管理器
+ * <p>
+ * 按名称创建并复用 {@link LocalCache}，每个缓存的容量、过期和刷新策略来自 {@link LocalCacheProperties}，
+ * 创建时向 Micrometer 注册 {@code cache.gets}、{@code cache.evictions} 等指标。
+ * 异步刷新和淘汰回调在虚拟线程中执行，加载器阻塞不会占用公共线程池。
+ * <p>
+ * 体积较大的值可以通过 {@link #getOffHeapCache(String, Class)} 放入堆外缓存，接口相同；
+ * 二级缓存的 L1 在配置了堆外容量后会把编码后不小于 {@link #getLargeValueThreshold()} 的值放入堆外缓存，见 {@code NearCacheManager}。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(LocalCacheProperties.class)
+public class LocalCacheManager {
+    private final LocalCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ValueCodec codec;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, LocalCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    public LocalCacheManager(LocalCacheProperties properties, MeterRegistry meterRegistry, ValueCodec codec) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.codec = codec;
+    }
+
+    /**
+     * 获取或创建本地缓存，使用配置中的策略
+     *
+     * @param name 缓存名称
+     */
+    public <K, V> LocalCache<K, V> getCache(String name) {
+        return getCache(name, null, null, null);
+    }
+
+    /**
+     * 获取或创建本地缓存
+     *
+     * @param name             缓存名称
+     * @param expireAfterWrite 写入后过期时间，配置中指定了该缓存的过期时间时以配置为准
+     */
+    public <K, V> LocalCache<K, V> getCache(String name, Duration expireAfterWrite) {
+        LocalCacheProperties.Spec spec = new LocalCacheProperties.Spec();
+        spec.setExpireAfterWrite(expireAfterWrite);
+        return getCache(name, spec, null, null);
+    }
+
+    /**
+     * 获取或创建本地缓存，同名缓存已存在时直接返回，忽略其余参数
+     *
+     * @param name    缓存名称
+     * @param spec    代码中指定的策略，可以为 null，优先级低于配置中该缓存的策略、高于默认策略
+     * @param weigher 条目权重计算，设置了 maximumWeight 时必须指定
+     * @param loader  加载器，设置了 refreshAfterWrite 时必须指定
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> LocalCache<K, V> getCache(String name, LocalCacheProperties.Spec spec,
+                                            Weigher<? super K, ? super V> weigher, CacheLoader<K, V> loader) {
+        return (LocalCache<K, V>) caches.computeIfAbsent(name, n -> create(n, spec, weigher, loader));
+    }
+
+    /**
+     * 获取或创建堆外缓存，值以 {@link ValueCodec} 编码后存放在直接内存中
+     * <p>
+     * 需要在配置中指定 {@code cache.local.caches.<名称>.off-heap-capacity}；过期时间取 expireAfterWrite，
+     * 容量、权重、刷新相关的配置不生效。
+     *
+     * @param name 缓存名称，与堆内缓存共用命名空间
+     * @param type 值类型，用于解码
+     */
+    public <K, V> LocalCache<K, V> getOffHeapCache(String name, Class<V> type) {
+        return getOffHeapCache(name, type, null);
+    }
+
+    /**
+     * 获取或创建堆外缓存，同名缓存已存在时直接返回
+     *
+     * @param name             缓存名称，与堆内缓存共用命名空间
+     * @param type             值类型，用于解码
+     * @param expireAfterWrite 写入后过期时间，配置中指定了该缓存的过期时间时以配置为准
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> LocalCache<K, V> getOffHeapCache(String name, Class<V> type, Duration expireAfterWrite) {
+        return (LocalCache<K, V>) caches.computeIfAbsent(name, n -> createOffHeap(n, type, expireAfterWrite));
+    }
+
+    /**
+     * 配置中是否为该缓存指定了 {@code off-heap-capacity}，用于按配置决定是否启用堆外缓存
+     *
+     * @param name 缓存名称
+     */
+    public boolean isOffHeapConfigured(String name) {
+        LocalCacheProperties.Spec spec = properties.getCaches().get(name);
+        return spec != null && spec.getOffHeapCapacity() != null;
+    }
+
+    /**
+     * 放入堆外缓存的最小编码字节数
+     */
+    public int getLargeValueThreshold() {
+        return (int) properties.getOffHeap().getLargeValueThreshold().toBytes();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <K, V> LocalCache<K, V> create(String name, LocalCacheProperties.Spec codeSpec,
+                                           Weigher<? super K, ? super V> weigher, CacheLoader<K, V> loader) {
+        LocalCacheProperties.Spec spec = properties.getDefaults()
+                .overrideWith(codeSpec)
+                .overrideWith(properties.getCaches().get(name));
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .executor(executor)
+                .recordStats();
+        if (spec.getInitialCapacity() != null) {
+            builder.initialCapacity(spec.getInitialCapacity());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        if (spec.getRefreshAfterWrite() != null) {
+            if (loader == null) {
+                throw new IllegalStateException("本地缓存[" + name + "]配置了 refreshAfterWrite，但没有指定加载器");
+            }
+            builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+        }
+        if (spec.getMaximumWeight() != null) {
+            if (weigher == null) {
+                throw new IllegalStateException("本地缓存[" + name + "]配置了 maximumWeight，但没有指定 weigher");
+            }
+            builder.maximumWeight(spec.getMaximumWeight()).weigher(weigher);
+        } else if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+
+        Cache<K, V> cache = loader == null ? builder.build() : builder.build(loader);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        log.info("创建本地缓存[{}]，配置: {}", name, spec);
+        return new CaffeineLocalCache<>(name, cache);
+    }
+
+    private <K, V> LocalCache<K, V> createOffHeap(String name, Class<V> type, Duration expireAfterWrite) {
+        LocalCacheProperties.Spec codeSpec = new LocalCacheProperties.Spec();
+        codeSpec.setExpireAfterWrite(expireAfterWrite);
+        LocalCacheProperties.Spec spec = properties.getDefaults()
+                .overrideWith(codeSpec)
+                .overrideWith(properties.getCaches().get(name));
+        if (spec.getOffHeapCapacity() == null) {
+            throw new IllegalStateException("堆外缓存[" + name + "]没有配置 off-heap-capacity");
+        }
+        LocalCacheProperties.OffHeap offHeap = properties.getOffHeap();
+        int pageSize = (int) offHeap.getPageSize().toBytes();
+        SlabClasses classes = new SlabClasses((int) offHeap.getMinChunkSize().toBytes(),
+                offHeap.getGrowthFactor(), pageSize);
+        OffHeapLocalCache<K, V> cache = new OffHeapLocalCache<>(name, type, codec,
+                spec.getOffHeapCapacity().toBytes(), offHeap.getSegments(), pageSize, classes,
+                spec.getExpireAfterWrite());
+        cache.bindTo(meterRegistry);
+        log.info("创建堆外缓存[{}]，容量: {}，页大小: {}，slab 规格数: {}",
+                name, spec.getOffHeapCapacity(), offHeap.getPageSize(), classes.count());
+        return cache;
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.lizhifuabc.redis.local;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 本地缓存配置属性
+ * <p>
+ * 每个缓存的配置按 {@code caches.<名称>}、代码中创建缓存时指定的值、{@code defaults} 的顺序取第一个设置了的值。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.local")
+public class LocalCacheProperties {
+    /**
+     * 所有本地缓存的默认配置
+     */
+    private Spec defaults = Spec.defaults();
+
+    /**
+     * 按缓存名称覆盖的配置
+     */
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    /**
+     * 堆外缓存的公共配置
+     */
+    private OffHeap offHeap = new OffHeap();
+
+    /**
+     * 堆外缓存的公共配置
+     */
+    @Data
+    public static class OffHeap {
+        /**
+         * 每个缓存的分段数，向上取整为 2 的幂
+         */
+        private int segments = 16;
+
+        /**
+         * 页大小，也是单个值的最大长度
+         */
+        private DataSize pageSize = DataSize.ofMegabytes(1);
+
+        /**
+         * 最小的 slab 块大小
+         */
+        private DataSize minChunkSize = DataSize.ofBytes(64);
+
+        /**
+         * slab 块大小的增长因子
+         */
+        private double growthFactor = 1.25;
+
+        /**
+         * 二级缓存的 L1 配置了堆外容量时，编码后不小于该值的缓存值放入堆外缓存
+         */
+        private DataSize largeValueThreshold = DataSize.ofKilobytes(4);
+    }
+
+    /**
+     * 单个本地缓存的配置，未设置的项为 null
+     */
+    @Data
+    public static class Spec {
+        /**
+         * 初始容量，避免在容量不足时频繁扩容
+         */
+        private Integer initialCapacity;
+
+        /**
+         * 最大条目数
+         */
+        private Long maximumSize;
+
+        /**
+         * 最大总权重，设置后优先于 maximumSize，需要在创建缓存时指定 weigher
+         */
+        private Long maximumWeight;
+
+        /**
+         * 写入后过期时间
+         */
+        private Duration expireAfterWrite;
+
+        /**
+         * 访问后过期时间
+         */
+        private Duration expireAfterAccess;
+
+        /**
+         * 写入后多久在下次访问时异步刷新，刷新期间仍返回旧值，需要在创建缓存时指定加载器
+         */
+        private Duration refreshAfterWrite;
+
+        /**
+         * 堆外缓存的直接内存容量，只对通过 {@link LocalCacheManager#getOffHeapCache} 创建的缓存生效
+         */
+        private DataSize offHeapCapacity;
+
+        static Spec defaults() {
+            Spec spec = new Spec();
+            spec.setInitialCapacity(200);
+            spec.setMaximumSize(10_000L);
+            spec.setExpireAfterWrite(Duration.ofSeconds(300));
+            return spec;
+        }
+
+        /**
+         * 用 other 中设置了的项覆盖当前配置
+         *
+         * @return 新的配置对象，other 为 null 时返回当前配置的副本
+         */
+        Spec overrideWith(Spec other) {
+            Spec merged = new Spec();
+            merged.setInitialCapacity(pick(other == null ? null : other.initialCapacity, initialCapacity));
+            merged.setMaximumSize(pick(other == null ? null : other.maximumSize, maximumSize));
+            merged.setMaximumWeight(pick(other == null ? null : other.maximumWeight, maximumWeight));
+            merged.setExpireAfterWrite(pick(other == null ? null : other.expireAfterWrite, expireAfterWrite));
+            merged.setExpireAfterAccess(pick(other == null ? null : other.expireAfterAccess, expireAfterAccess));
+            merged.setRefreshAfterWrite(pick(other == null ? null : other.refreshAfterWrite, refreshAfterWrite));
+            merged.setOffHeapCapacity(pick(other == null ? null : other.offHeapCapacity, offHeapCapacity));
+            return merged;
+        }
+
+        private static <T> T pick(T preferred, T fallback) {
+            return preferred != null ? preferred : fallback;
+        }
+    }
+}
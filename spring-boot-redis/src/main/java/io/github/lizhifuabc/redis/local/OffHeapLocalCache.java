@@ -0,0 +1,251 @@
+package io.github.lizhifuabc.redis.local;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.lizhifuabc.redis.cache.codec.CodecException;
+import io.github.lizhifuabc.redis.cache.codec.ValueCodec;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 堆外本地缓存
+ * <p>
+ * 适合体积较大的值（几 KB 以上的用户资料、树快照等）：值以 {@link ValueCodec} 编码后的二进制形式存放在直接内存中，
+ * 不占用堆，也不会被 GC 扫描和复制，堆上只保留 key 和块地址。命中时的代价是一次内存拷贝加一次解码，不访问 Redis。
+ * <p>
+ * 按 key 的哈希分成多个 {@link OffHeapSegment}，每个分段独立加锁、分配和淘汰，容量平均分给各分段。
+ * 超过页大小的值不缓存。总容量受 {@code -XX:MaxDirectMemorySize} 限制，需要相应调大。
+ * 每个分段至少要能分到一页，否则创建时直接失败；每段的页数少于 slab 规格数时，各规格只能靠页的重新分配轮流使用内存，
+ * 创建时打印警告。
+ * <p>
+ * 发布的指标（标签 {@code cache} 为缓存名称）：
+ * <ul>
+ *     <li>{@code cache.gets}（result=hit/miss）、{@code cache.evictions}、{@code cache.size}</li>
+ *     <li>{@code cache.offheap.reassignments}：页被重新分配给其他规格的次数</li>
+ *     <li>{@code cache.offheap.hit.ratio}：命中率</li>
+ *     <li>{@code cache.offheap.bytes.used}、{@code cache.offheap.bytes.allocated}：已存储的值的字节数、已分配的直接内存</li>
+ *     <li>{@code cache.offheap.fragmentation}：已分配内存中未被值占用的比例，包括块内剩余空间和空闲块</li>
+ * </ul>
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+public class OffHeapLocalCache<K, V> implements LocalCache<K, V> {
+    private final String name;
+    private final Class<V> type;
+    private final ValueCodec codec;
+    private final Duration expireAfterWrite;
+    private final OffHeapSegment<K>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * @param capacity         直接内存总容量（字节）
+     * @param segmentCount     分段数，向上取整为 2 的幂
+     * @param pageSize         页大小（字节），也是可缓存的最大值
+     * @param classes          slab 规格
+     * @param expireAfterWrite 写入后过期时间，null 表示不过期
+     */
+    @SuppressWarnings("unchecked")
+    OffHeapLocalCache(String name, Class<V> type, ValueCodec codec, long capacity, int segmentCount, int pageSize,
+                      SlabClasses classes, Duration expireAfterWrite) {
+        this.name = name;
+        this.type = type;
+        this.codec = codec;
+        this.expireAfterWrite = expireAfterWrite;
+        int count = segmentCount <= 1 ? 1 : Integer.highestOneBit((segmentCount - 1) << 1);
+        long pagesPerSegment = capacity / count / pageSize;
+        if (pagesPerSegment < 1) {
+            throw new IllegalArgumentException("堆外缓存[" + name + "]容量不足，每个分段至少需要一页: capacity="
+                    + capacity + ", segments=" + count + ", pageSize=" + pageSize);
+        }
+        if (pagesPerSegment < classes.count()) {
+            log.warn("堆外缓存[{}]每个分段只有 {} 页，少于 slab 规格数 {}，建议容量不低于 {} 字节或减少分段数",
+                    name, pagesPerSegment, classes.count(), (long) classes.count() * count * pageSize);
+        }
+        int maxPages = (int) Math.min(Integer.MAX_VALUE, pagesPerSegment);
+        this.segments = new OffHeapSegment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new OffHeapSegment<>(classes, pageSize, maxPages);
+        }
+    }
+
+    /**
+     * 注册指标
+     */
+    void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", this, OffHeapLocalCache::evictions)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("cache.offheap.reassignments", this, OffHeapLocalCache::reassignments)
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.size", this, OffHeapLocalCache::estimatedSize)
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.offheap.hit.ratio", this, c -> c.stats().hitRate())
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.offheap.bytes.used", this, OffHeapLocalCache::usedBytes)
+                .tag("cache", name).baseUnit("bytes").register(registry);
+        Gauge.builder("cache.offheap.bytes.allocated", this, OffHeapLocalCache::allocatedBytes)
+                .tag("cache", name).baseUnit("bytes").register(registry);
+        Gauge.builder("cache.offheap.fragmentation", this, OffHeapLocalCache::fragmentation)
+                .tag("cache", name).register(registry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            return;
+        }
+        byte[] bytes = codec.encode(value);
+        long now = System.currentTimeMillis();
+        long expireAt = expireAfterWrite == null ? Long.MAX_VALUE : now + expireAfterWrite.toMillis();
+        if (!segmentFor(key).put(key, bytes, expireAt, now)) {
+            rejections.increment();
+            log.debug("OffHeapCache[{}] reject key={}, size={}", name, key, bytes.length);
+        }
+    }
+
+    @Override
+    public Optional<V> getIfPresent(K key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        OffHeapSegment<K> segment = segmentFor(key);
+        byte[] bytes = segment.get(key, System.currentTimeMillis());
+        if (bytes == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        try {
+            V value = codec.decode(bytes, type);
+            hits.increment();
+            return Optional.ofNullable(value);
+        } catch (CodecException e) {
+            // 编解码器变更后旧数据无法解码，按未命中处理
+            log.warn("OffHeapCache[{}] 解码失败，移除 key={}", name, key, e);
+            segment.remove(key);
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 堆外缓存不支持加载器，等同于 {@code getIfPresent(key).orElse(null)}
+     */
+    @Override
+    public V get(K key) {
+        return getIfPresent(key).orElse(null);
+    }
+
+    /**
+     * 未命中时调用 mappingFunction 加载并写入；并发未命中时可能重复加载
+     */
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        Optional<V> cached = getIfPresent(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        V value = mappingFunction.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void remove(K key) {
+        if (key != null) {
+            segmentFor(key).remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (OffHeapSegment<K> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public long estimatedSize() {
+        long size = 0;
+        for (OffHeapSegment<K> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return CacheStats.of(hits.sum(), misses.sum(), 0, 0, 0, evictions(), 0);
+    }
+
+    /**
+     * 因值过大或没有可淘汰的条目而未能写入的次数
+     */
+    public long rejections() {
+        return rejections.sum();
+    }
+
+    public long usedBytes() {
+        long used = 0;
+        for (OffHeapSegment<K> segment : segments) {
+            used += segment.usedBytes();
+        }
+        return used;
+    }
+
+    public long allocatedBytes() {
+        long allocated = 0;
+        for (OffHeapSegment<K> segment : segments) {
+            allocated += segment.allocatedBytes();
+        }
+        return allocated;
+    }
+
+    /**
+     * 已分配内存中未被值占用的比例
+     */
+    public double fragmentation() {
+        long allocated = allocatedBytes();
+        return allocated == 0 ? 0 : 1 - (double) usedBytes() / allocated;
+    }
+
+    private long evictions() {
+        long evictions = 0;
+        for (OffHeapSegment<K> segment : segments) {
+            evictions += segment.evictions();
+        }
+        return evictions;
+    }
+
+    private long reassignments() {
+        long reassignments = 0;
+        for (OffHeapSegment<K> segment : segments) {
+            reassignments += segment.reassignments();
+        }
+        return reassignments;
+    }
+
+    private OffHeapSegment<K> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+}
@@ -0,0 +1,406 @@
+package io.github.lizhifuabc.redis.local;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外缓存的一个分段
+ *
+ * <h2>存储</h2>
+ * 值存放在按页分配的直接内存（{@link ByteBuffer#allocateDirect(int)}）中，页在首次使用时划给某个 slab 规格，
+ * 切成等长的块放入该规格的空闲列表。块地址编码为 {@code 页号 << 32 | 页内偏移}，key 到块地址的索引留在堆上。
+ *
+ * <h2>淘汰</h2>
+ * 每个规格一个 CLOCK 队列：读取时置访问位；需要空间时从队首开始扫描，访问位为 1 的清零后放回队尾，
+ * 为 0 或已过期的淘汰。淘汰只在同一规格内进行。
+ *
+ * <h2>页的重新分配</h2>
+ * 页全部分配完后，值大小的分布变化会让某些规格长期缺页。与 memcached 的 slab_reassign 类似，
+ * 规格没有页、或者自上次调整以来淘汰的条目已超过一页时，从每页命中次数最少的规格中取出存活条目最少的一页，
+ * 淘汰其中的条目后重新切分给缺页的规格；只有对方每页的命中次数更少时才调整，命中计数在每次调整后减半。
+ * <p>
+ * 分段内所有操作都在分段锁内完成，锁内只做索引查找和内存拷贝，编解码由调用方在锁外完成。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+final class OffHeapSegment<K> {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SlabClasses classes;
+    private final int pageSize;
+    private final int maxPages;
+
+    private final List<ByteBuffer> pages = new ArrayList<>();
+
+    /**
+     * 每页所属的规格，下标为页号
+     */
+    private final int[] pageClasses;
+
+    /**
+     * 各规格拥有的页数
+     */
+    private final int[] pageCounts;
+
+    /**
+     * 各规格的命中次数，每次调整页后减半
+     */
+    private final long[] hits;
+
+    /**
+     * 各规格自上次调整页以来淘汰的条目数
+     */
+    private final long[] pressure;
+    private final Map<K, Entry<K>> index = new HashMap<>();
+    private final long[][] freeChunks;
+    private final int[] freeCounts;
+    private final ArrayDeque<Entry<K>>[] clocks;
+
+    /**
+     * 各规格 CLOCK 队列中已删除、等待清理的条目数
+     */
+    private final int[] deadCounts;
+
+    /**
+     * 以下统计只在锁内修改，指标在锁外读取
+     */
+    private volatile long usedBytes;
+    private volatile long evictions;
+    private volatile long reassignments;
+
+    @SuppressWarnings("unchecked")
+    OffHeapSegment(SlabClasses classes, int pageSize, int maxPages) {
+        this.classes = classes;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.pageClasses = new int[maxPages];
+        this.pageCounts = new int[classes.count()];
+        this.hits = new long[classes.count()];
+        this.pressure = new long[classes.count()];
+        this.freeChunks = new long[classes.count()][];
+        this.freeCounts = new int[classes.count()];
+        this.clocks = new ArrayDeque[classes.count()];
+        this.deadCounts = new int[classes.count()];
+        for (int i = 0; i < classes.count(); i++) {
+            freeChunks[i] = new long[16];
+            clocks[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * 读取值的二进制形式
+     *
+     * @return 未命中或已过期时返回 null
+     */
+    byte[] get(K key, long now) {
+        lock.lock();
+        try {
+            Entry<K> entry = index.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expired(now)) {
+                remove(entry);
+                return null;
+            }
+            entry.referenced = true;
+            hits[entry.slabClass]++;
+            byte[] bytes = new byte[entry.length];
+            pages.get(page(entry.address)).get(offset(entry.address), bytes);
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入值的二进制形式
+     *
+     * @param expireAt 过期时间戳，Long.MAX_VALUE 表示不过期
+     * @return 值超过页大小或该规格没有可淘汰的条目时返回 false，此时该 key 的旧值也已移除
+     */
+    boolean put(K key, byte[] value, long expireAt, long now) {
+        int slabClass = classes.classOf(value.length);
+        lock.lock();
+        try {
+            Entry<K> old = index.get(key);
+            if (old != null) {
+                remove(old);
+            }
+            if (slabClass < 0) {
+                return false;
+            }
+            long address = allocate(slabClass, now);
+            if (address < 0) {
+                return false;
+            }
+            pages.get(page(address)).put(offset(address), value);
+            Entry<K> entry = new Entry<>(key, address, value.length, slabClass, expireAt);
+            index.put(key, entry);
+            clocks[slabClass].addLast(entry);
+            usedBytes += value.length;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(K key) {
+        lock.lock();
+        try {
+            Entry<K> entry = index.get(key);
+            if (entry != null) {
+                remove(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空分段并释放所有页，直接内存在页对象被回收时归还
+     */
+    void clear() {
+        lock.lock();
+        try {
+            index.clear();
+            pages.clear();
+            for (int i = 0; i < classes.count(); i++) {
+                freeCounts[i] = 0;
+                deadCounts[i] = 0;
+                pageCounts[i] = 0;
+                hits[i] = 0;
+                pressure[i] = 0;
+                clocks[i].clear();
+            }
+            usedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 已存储的值的字节数
+     */
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * 已分配的直接内存字节数
+     */
+    long allocatedBytes() {
+        lock.lock();
+        try {
+            return (long) pages.size() * pageSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long evictions() {
+        return evictions;
+    }
+
+    /**
+     * 页被重新分配给其他规格的次数
+     */
+    long reassignments() {
+        return reassignments;
+    }
+
+    /**
+     * 分配一个块：空闲列表 → 新页 → 从其他规格调整一页 → CLOCK 淘汰
+     *
+     * @return 块地址，无法分配时返回 -1
+     */
+    private long allocate(int slabClass, long now) {
+        if (freeCounts[slabClass] == 0 && pages.size() < maxPages) {
+            pages.add(ByteBuffer.allocateDirect(pageSize));
+            carvePage(slabClass, pages.size() - 1);
+        }
+        if (freeCounts[slabClass] == 0 && (pageCounts[slabClass] == 0
+                || pressure[slabClass] >= chunksPerPage(slabClass))) {
+            reassign(slabClass);
+        }
+        if (freeCounts[slabClass] == 0) {
+            evict(slabClass, now);
+        }
+        if (freeCounts[slabClass] == 0) {
+            return -1;
+        }
+        return freeChunks[slabClass][--freeCounts[slabClass]];
+    }
+
+    private void carvePage(int slabClass, int pageIndex) {
+        pageClasses[pageIndex] = slabClass;
+        pageCounts[slabClass]++;
+        int chunkSize = classes.chunkSize(slabClass);
+        for (int offset = 0; offset + chunkSize <= pageSize; offset += chunkSize) {
+            pushFree(slabClass, ((long) pageIndex << 32) | offset);
+        }
+    }
+
+    /**
+     * CLOCK 扫描，淘汰一个条目；每个条目最多被跳过一次，扫描最多两轮
+     */
+    private void evict(int slabClass, long now) {
+        ArrayDeque<Entry<K>> clock = clocks[slabClass];
+        Entry<K> entry;
+        while ((entry = clock.pollFirst()) != null) {
+            if (entry.dead) {
+                deadCounts[slabClass]--;
+                continue;
+            }
+            if (entry.referenced && !entry.expired(now)) {
+                entry.referenced = false;
+                clock.addLast(entry);
+                continue;
+            }
+            // 已出队，直接释放，不再计入待清理条目
+            entry.dead = true;
+            release(entry);
+            evictions++;
+            pressure[slabClass]++;
+            return;
+        }
+    }
+
+    /**
+     * 从每页命中次数最少的规格取一页给 slabClass；没有合适的页时只重置淘汰计数，之后在同规格内淘汰
+     */
+    private void reassign(int slabClass) {
+        pressure[slabClass] = 0;
+        int donor = -1;
+        for (int i = 0; i < pageCounts.length; i++) {
+            // 比较每页命中次数 hits / pageCounts，交叉相乘避免除法
+            if (i != slabClass && pageCounts[i] > 0
+                    && (donor < 0 || hits[i] * pageCounts[donor] < hits[donor] * pageCounts[i])) {
+                donor = i;
+            }
+        }
+        if (donor < 0 || (pageCounts[slabClass] > 0
+                && hits[donor] * pageCounts[slabClass] >= hits[slabClass] * pageCounts[donor])) {
+            return;
+        }
+
+        // 选存活条目最少的页，淘汰的条目最少
+        int[] live = new int[pages.size()];
+        for (Entry<K> entry : clocks[donor]) {
+            if (!entry.dead) {
+                live[page(entry.address)]++;
+            }
+        }
+        int page = -1;
+        for (int i = 0; i < pages.size(); i++) {
+            if (pageClasses[i] == donor && (page < 0 || live[i] < live[page])) {
+                page = i;
+            }
+        }
+
+        // 淘汰该页上的条目，块不放回 donor 的空闲列表
+        for (Entry<K> entry : clocks[donor]) {
+            if (!entry.dead && page(entry.address) == page) {
+                entry.dead = true;
+                index.remove(entry.key, entry);
+                usedBytes -= entry.length;
+                evictions++;
+            }
+        }
+        clocks[donor].removeIf(entry -> entry.dead);
+        deadCounts[donor] = 0;
+        long[] stack = freeChunks[donor];
+        int count = 0;
+        for (int i = 0; i < freeCounts[donor]; i++) {
+            if (page(stack[i]) != page) {
+                stack[count++] = stack[i];
+            }
+        }
+        freeCounts[donor] = count;
+        pageCounts[donor]--;
+
+        carvePage(slabClass, page);
+        reassignments++;
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] >>>= 1;
+        }
+    }
+
+    private int chunksPerPage(int slabClass) {
+        return pageSize / classes.chunkSize(slabClass);
+    }
+
+    private void remove(Entry<K> entry) {
+        entry.dead = true;
+        release(entry);
+        // 删除的条目留在 CLOCK 队列中，数量超过一半时整体清理一次
+        int slabClass = entry.slabClass;
+        if (++deadCounts[slabClass] > clocks[slabClass].size() / 2) {
+            clocks[slabClass].removeIf(e -> e.dead);
+            deadCounts[slabClass] = 0;
+        }
+    }
+
+    private void release(Entry<K> entry) {
+        index.remove(entry.key, entry);
+        pushFree(entry.slabClass, entry.address);
+        usedBytes -= entry.length;
+    }
+
+    private void pushFree(int slabClass, long address) {
+        long[] stack = freeChunks[slabClass];
+        if (freeCounts[slabClass] == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+            freeChunks[slabClass] = stack;
+        }
+        stack[freeCounts[slabClass]++] = address;
+    }
+
+    private static int page(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * 索引条目
+     */
+    private static final class Entry<K> {
+        private final K key;
+        private final long address;
+        private final int length;
+        private final int slabClass;
+        private final long expireAt;
+        private boolean referenced;
+        private boolean dead;
+
+        private Entry(K key, long address, int length, int slabClass, long expireAt) {
+            this.key = key;
+            this.address = address;
+            this.length = length;
+            this.slabClass = slabClass;
+            this.expireAt = expireAt;
+        }
+
+        private boolean expired(long now) {
+            return expireAt <= now;
+        }
+    }
+}
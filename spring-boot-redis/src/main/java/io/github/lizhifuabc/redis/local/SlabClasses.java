@@ -0,0 +1,63 @@
+package io.github.lizhifuabc.redis.local;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 堆外缓存的 slab 规格
+ * <p>
+ * 与 memcached 相同，从最小块开始按增长因子逐级放大，直到页大小。
+ * 每个值放入能容纳它的最小规格的块中，块内剩余的空间即内部碎片，增长因子越小碎片越少、规格越多。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+final class SlabClasses {
+    /**
+     * 块大小按 8 字节对齐
+     */
+    private static final int ALIGNMENT = 8;
+
+    private final int[] chunkSizes;
+
+    SlabClasses(int minChunkSize, double growthFactor, int pageSize) {
+        if (growthFactor <= 1) {
+            throw new IllegalArgumentException("增长因子必须大于 1: " + growthFactor);
+        }
+        List<Integer> sizes = new ArrayList<>();
+        int size = align(Math.max(ALIGNMENT, minChunkSize));
+        while (size < pageSize) {
+            sizes.add(size);
+            size = Math.max(size + ALIGNMENT, align((int) Math.ceil(size * growthFactor)));
+        }
+        sizes.add(pageSize);
+        this.chunkSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    int count() {
+        return chunkSizes.length;
+    }
+
+    int chunkSize(int slabClass) {
+        return chunkSizes[slabClass];
+    }
+
+    /**
+     * 能容纳指定长度的最小规格
+     *
+     * @return 规格下标，超过页大小时返回 -1
+     */
+    int classOf(int length) {
+        int index = Arrays.binarySearch(chunkSizes, length);
+        if (index >= 0) {
+            return index;
+        }
+        int insertion = -index - 1;
+        return insertion < chunkSizes.length ? insertion : -1;
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
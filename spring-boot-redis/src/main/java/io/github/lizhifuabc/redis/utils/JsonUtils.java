@@ -1,15 +1,30 @@
 package io.github.lizhifuabc.redis.utils;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * JSON工具类
+ * <p>
+ * 按目标类型缓存 {@link ObjectReader} / {@link ObjectWriter}，避免每次调用重新查找序列化器；
+ * Redis、HTTP 等本身就是字节的场景使用 byte[] 和流的重载，不经过中间字符串。
+ * 超大数组使用 {@link #readValues(InputStream, Class)} 或 {@link #forEach(InputStream, Class, Consumer)}
+ * 逐个元素解析，内存占用与单个元素相当，而不是整个列表。
  *
  * @author lizhifu
  */
@@ -18,6 +33,10 @@ import java.util.List;
 public class JsonUtils {
     private final ObjectMapper objectMapper;
 
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectReader> listReaders = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
     public JsonUtils(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
     }
@@ -27,8 +46,32 @@ public class JsonUtils {
      */
     public String toJsonStr(Object value) {
         try {
-            return objectMapper.writeValueAsString(value);
-        } catch (JsonProcessingException e) {
+            return writer(value).writeValueAsString(value);
+        } catch (IOException e) {
+            log.error("JSON序列化失败", e);
+            throw new RuntimeException("JSON序列化失败", e);
+        }
+    }
+
+    /**
+     * 序列化对象为UTF-8字节数组
+     */
+    public byte[] toJsonBytes(Object value) {
+        try {
+            return writer(value).writeValueAsBytes(value);
+        } catch (IOException e) {
+            log.error("JSON序列化失败", e);
+            throw new RuntimeException("JSON序列化失败", e);
+        }
+    }
+
+    /**
+     * 序列化对象并直接写入输出流，不关闭输出流
+     */
+    public void writeTo(Object value, OutputStream out) {
+        try {
+            writer(value).writeValue(new NonClosingOutputStream(out), value);
+        } catch (IOException e) {
             log.error("JSON序列化失败", e);
             throw new RuntimeException("JSON序列化失败", e);
         }
@@ -39,8 +82,32 @@ public class JsonUtils {
      */
     public <T> T toBean(String json, Class<T> type) {
         try {
-            return objectMapper.readValue(json, type);
-        } catch (JsonProcessingException e) {
+            return reader(type).readValue(json);
+        } catch (IOException e) {
+            log.error("JSON反序列化失败", e);
+            throw new RuntimeException("JSON反序列化失败", e);
+        }
+    }
+
+    /**
+     * 反序列化UTF-8字节数组为对象
+     */
+    public <T> T toBean(byte[] json, Class<T> type) {
+        try {
+            return reader(type).readValue(json);
+        } catch (IOException e) {
+            log.error("JSON反序列化失败", e);
+            throw new RuntimeException("JSON反序列化失败", e);
+        }
+    }
+
+    /**
+     * 从输入流反序列化对象，不关闭输入流
+     */
+    public <T> T toBean(InputStream in, Class<T> type) {
+        try {
+            return reader(type).readValue(new NonClosingInputStream(in));
+        } catch (IOException e) {
             log.error("JSON反序列化失败", e);
             throw new RuntimeException("JSON反序列化失败", e);
         }
@@ -51,11 +118,121 @@ public class JsonUtils {
      */
     public <T> List<T> toBeanList(String json, Class<T> type) {
         try {
-            JavaType javaType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
-            return objectMapper.readValue(json, javaType);
-        } catch (JsonProcessingException e) {
+            return listReader(type).readValue(json);
+        } catch (IOException e) {
             log.error("JSON反序列化失败", e);
             throw new RuntimeException("JSON反序列化失败", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 反序列化UTF-8字节数组为List
+     */
+    public <T> List<T> toBeanList(byte[] json, Class<T> type) {
+        try {
+            return listReader(type).readValue(json);
+        } catch (IOException e) {
+            log.error("JSON反序列化失败", e);
+            throw new RuntimeException("JSON反序列化失败", e);
+        }
+    }
+
+    /**
+     * 从输入流反序列化为List，不关闭输入流
+     */
+    public <T> List<T> toBeanList(InputStream in, Class<T> type) {
+        try {
+            return listReader(type).readValue(new NonClosingInputStream(in));
+        } catch (IOException e) {
+            log.error("JSON反序列化失败", e);
+            throw new RuntimeException("JSON反序列化失败", e);
+        }
+    }
+
+    /**
+     * 逐个元素读取JSON数组（根节点也可以是以空白分隔的多个对象）
+     * <p>
+     * 基于流式解析，每次只反序列化一个元素；调用方负责关闭返回的迭代器，关闭时不关闭输入流
+     *
+     * @param in   输入流
+     * @param type 元素类型
+     * @return 元素迭代器
+     */
+    public <T> MappingIterator<T> readValues(InputStream in, Class<T> type) {
+        try {
+            return reader(type).readValues(new NonClosingInputStream(in));
+        } catch (IOException e) {
+            log.error("JSON反序列化失败", e);
+            throw new RuntimeException("JSON反序列化失败", e);
+        }
+    }
+
+    /**
+     * 逐个元素处理JSON数组，处理完的元素即可被回收
+     *
+     * @param in       输入流，不会被关闭
+     * @param type     元素类型
+     * @param consumer 元素处理逻辑
+     * @return 处理的元素数量
+     */
+    public <T> long forEach(InputStream in, Class<T> type, Consumer<? super T> consumer) {
+        long count = 0;
+        try (MappingIterator<T> iterator = readValues(in, type)) {
+            while (iterator.hasNextValue()) {
+                consumer.accept(iterator.nextValue());
+                count++;
+            }
+        } catch (IOException e) {
+            log.error("JSON反序列化失败", e);
+            throw new RuntimeException("JSON反序列化失败", e);
+        }
+        return count;
+    }
+
+    private ObjectReader reader(Class<?> type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    private ObjectReader listReader(Class<?> type) {
+        return listReaders.computeIfAbsent(type, key -> {
+            JavaType javaType = objectMapper.getTypeFactory().constructCollectionType(List.class, key);
+            return objectMapper.readerFor(javaType);
+        });
+    }
+
+    private ObjectWriter writer(Object value) {
+        if (value == null) {
+            return objectMapper.writer();
+        }
+        return writers.computeIfAbsent(value.getClass(), objectMapper::writerFor);
+    }
+
+    /**
+     * Jackson 默认在读写结束时关闭流，调用方传入的流由调用方管理
+     */
+    private static final class NonClosingInputStream extends FilterInputStream {
+        private NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package io.github.lizhifuabc.redis.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Redis BitMap 本地镜像
+ *
+ * <h2>背景</h2>
+ * {@link RedisBitMapUtils#bitOp} 在 Redis 端执行 BITOP，key 较大时单次操作耗时可达数百毫秒，
+ * 期间会阻塞同一实例上的其他请求。DAU、留存等分析类查询对实时性要求不高，
+ * 可以把 BitMap 拉到本地，以 RoaringBitmap 的压缩形式保存，在进程内完成位运算和计数。
+ *
+ * <h2>加载与刷新</h2>
+ * <ul>
+ *     <li>首次访问时按 {@link #CHUNK_SIZE} 分块执行 GETRANGE，避免单个大响应占用 Redis 和网络</li>
+ *     <li>{@link #refresh(String, long, long)} 只重新拉取指定的字节区间，适合已知变更范围的场景</li>
+ *     <li>{@link #refreshAppended(String)} 只拉取上次加载后新增的字节（以及可能被修改的最后一个字节）</li>
+ * </ul>
+ * 所有 GETRANGE 都在锁外执行，不会占用 {@link ConcurrentHashMap} 的桶锁：首次加载完成后用 putIfAbsent 放入，
+ * 并发的首次访问可能重复加载，只保留先放入的一份。同一 key 的刷新串行执行，拉取到的增量在写锁内原地应用到镜像上，
+ * 不复制整个 bitmap；计数和位运算在读锁内执行，{@link #get(String)} 返回副本。
+ *
+ * <h2>位序</h2>
+ * Redis 中 offset 0 对应第一个字节的最高位，镜像中的位置与 Redis 的 offset 一致，
+ * 可表示 [0, 2^32) 的全部 offset（RoaringBitmap 按无符号整数处理）。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@Slf4j
+@Component
+public class RedisBitMapMirror {
+    /**
+     * 单次 GETRANGE 拉取的字节数
+     */
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 已加载的镜像，key 为 Redis key
+     */
+    private final Map<String, Mirror> snapshots = new ConcurrentHashMap<>();
+
+    public RedisBitMapMirror(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 获取镜像的副本，未加载时从 Redis 全量加载
+     * <p>
+     * 需要复制整个 bitmap，计数和位运算应当使用 {@link #bitCount(String)}、{@link #bitOp} 等方法
+     *
+     * @param key bitmap 的 key
+     * @return 副本，调用方可以修改
+     */
+    public RoaringBitmap get(String key) {
+        Mirror mirror = mirror(key);
+        mirror.lock.readLock().lock();
+        try {
+            return mirror.bitmap.clone();
+        } finally {
+            mirror.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从 Redis 全量重新加载，加载完成后整体替换
+     *
+     * @param key bitmap 的 key
+     */
+    public void reload(String key) {
+        snapshots.put(key, load(key));
+    }
+
+    /**
+     * 重新拉取指定字节区间，区间外的位保持不变
+     *
+     * @param key       bitmap 的 key
+     * @param startByte 起始字节（包含）
+     * @param endByte   结束字节（包含）
+     */
+    public void refresh(String key, long startByte, long endByte) {
+        Mirror mirror = snapshots.get(key);
+        if (mirror == null) {
+            mirror(key);
+            return;
+        }
+        // 同一 key 的刷新串行执行，避免先拉取的旧数据覆盖后拉取的新数据
+        mirror.refreshLock.lock();
+        try {
+            long length = strlen(key);
+            // length 只在持有刷新锁时修改，这里不需要读锁
+            // 区间与已加载部分之间有空隙时一并拉取，保证已加载的始终是连续的前缀
+            long start = Math.min(startByte, mirror.length);
+            long end = Math.min(endByte, length - 1);
+            RoaringBitmap delta = start <= end ? loadRange(key, start, end) : new RoaringBitmap();
+            mirror.lock.writeLock().lock();
+            try {
+                // 先清空区间内的旧值，再写入新值
+                mirror.bitmap.remove(start * 8, (endByte + 1) * 8);
+                mirror.bitmap.or(delta);
+                mirror.length = Math.max(mirror.length, end + 1);
+            } finally {
+                mirror.lock.writeLock().unlock();
+            }
+        } finally {
+            mirror.refreshLock.unlock();
+        }
+    }
+
+    /**
+     * 拉取上次加载后新增的字节
+     * <p>
+     * 上次加载的最后一个字节可能已被 SETBIT 修改，一并重新拉取
+     *
+     * @param key bitmap 的 key
+     */
+    public void refreshAppended(String key) {
+        Mirror mirror = snapshots.get(key);
+        if (mirror == null) {
+            mirror(key);
+            return;
+        }
+        long loaded = mirror.length();
+        long length = strlen(key);
+        if (length < loaded) {
+            // key 被截断或重建，全量加载
+            reload(key);
+            return;
+        }
+        refresh(key, Math.max(0, loaded - 1), length - 1);
+    }
+
+    /**
+     * 移除本地镜像
+     *
+     * @param key bitmap 的 key
+     */
+    public void evict(String key) {
+        snapshots.remove(key);
+    }
+
+    /**
+     * 统计值为 1 的数量，对应 BITCOUNT
+     *
+     * @param key bitmap 的 key
+     * @return value等于1的数量
+     */
+    public long bitCount(String key) {
+        Mirror mirror = mirror(key);
+        mirror.lock.readLock().lock();
+        try {
+            return mirror.bitmap.getLongCardinality();
+        } finally {
+            mirror.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在本地对一个或多个 bitmap 做位运算，对应 BITOP，结果不写回 Redis
+     * <p>
+     * NOT 只取第一个 key，按其长度（字节对齐）取反，与 Redis 的行为一致
+     *
+     * @param op   位运算类型
+     * @param keys 参与运算的 key
+     * @return 运算结果
+     */
+    public RoaringBitmap bitOp(RedisStringCommands.BitOperation op, String... keys) {
+        return read(keys, mirrors -> {
+            RoaringBitmap[] bitmaps = new RoaringBitmap[mirrors.length];
+            for (int i = 0; i < mirrors.length; i++) {
+                bitmaps[i] = mirrors[i].bitmap;
+            }
+            return switch (op) {
+                case AND -> FastAggregation.and(bitmaps);
+                case OR -> FastAggregation.or(bitmaps);
+                case XOR -> FastAggregation.xor(bitmaps);
+                case NOT -> RoaringBitmap.flip(bitmaps[0], 0L, mirrors[0].length * 8);
+            };
+        });
+    }
+
+    /**
+     * 在本地做位运算并返回结果中值为 1 的数量，对应 {@link RedisBitMapUtils#bitOpResult}
+     *
+     * @param op   位运算类型
+     * @param keys 参与运算的 key
+     * @return 结果中value=1的数量
+     */
+    public long bitOpCount(RedisStringCommands.BitOperation op, String... keys) {
+        if (op == RedisStringCommands.BitOperation.AND && keys.length == 2) {
+            // 两个 bitmap 求交集数量时不需要生成中间结果
+            return read(keys, mirrors -> RoaringBitmap.andCardinality(mirrors[0].bitmap, mirrors[1].bitmap));
+        }
+        return bitOp(op, keys).getLongCardinality();
+    }
+
+    /**
+     * 持有所有 key 的读锁执行计算
+     * <p>
+     * 按 key 排序加锁，避免与等待中的刷新互相等待
+     */
+    private <T> T read(String[] keys, Function<Mirror[], T> reader) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("至少需要一个key");
+        }
+        // TreeMap 按 key 排序，重复的 key 只加一次锁
+        Map<String, Mirror> sorted = new TreeMap<>();
+        for (String key : keys) {
+            sorted.computeIfAbsent(key, this::mirror);
+        }
+        Mirror[] mirrors = new Mirror[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            mirrors[i] = sorted.get(keys[i]);
+        }
+        List<Lock> locked = new ArrayList<>(sorted.size());
+        try {
+            for (Mirror mirror : sorted.values()) {
+                Lock lock = mirror.lock.readLock();
+                lock.lock();
+                locked.add(lock);
+            }
+            return reader.apply(mirrors);
+        } finally {
+            for (int i = locked.size() - 1; i >= 0; i--) {
+                locked.get(i).unlock();
+            }
+        }
+    }
+
+    private Mirror mirror(String key) {
+        Mirror mirror = snapshots.get(key);
+        if (mirror != null) {
+            return mirror;
+        }
+        // 在 map 外加载，不阻塞同一个桶上的其他 key
+        Mirror loaded = load(key);
+        Mirror existing = snapshots.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Mirror load(String key) {
+        long start = System.currentTimeMillis();
+        long length = strlen(key);
+        RoaringBitmap bitmap = length == 0 ? new RoaringBitmap() : loadRange(key, 0, length - 1);
+        log.debug("加载 BitMap 镜像，key: {}，字节数: {}，基数: {}，耗时: {}ms",
+                key, length, bitmap.getLongCardinality(), System.currentTimeMillis() - start);
+        return new Mirror(bitmap, length);
+    }
+
+    /**
+     * 按块拉取 [startByte, endByte] 区间并转换为 RoaringBitmap
+     */
+    private RoaringBitmap loadRange(String key, long startByte, long endByte) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        // 按 offset 升序写入，RoaringBitmapWriter 可以直接追加到末尾容器
+        RoaringBitmapWriter<RoaringBitmap> writer = RoaringBitmapWriter.writer().get();
+        for (long chunkStart = startByte; chunkStart <= endByte; chunkStart += CHUNK_SIZE) {
+            long chunkEnd = Math.min(chunkStart + CHUNK_SIZE - 1, endByte);
+            long from = chunkStart;
+            byte[] bytes = stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().getRange(rawKey, from, chunkEnd));
+            if (bytes == null) {
+                break;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                int value = bytes[i] & 0xFF;
+                if (value == 0) {
+                    continue;
+                }
+                long base = (from + i) * 8;
+                for (int bit = 0; bit < 8; bit++) {
+                    if ((value & (0x80 >>> bit)) != 0) {
+                        writer.add((int) (base + bit));
+                    }
+                }
+            }
+        }
+        return writer.get();
+    }
+
+    private long strlen(String key) {
+        Long length = stringRedisTemplate.opsForValue().size(key);
+        return length == null ? 0 : length;
+    }
+
+    /**
+     * 一个 key 的本地镜像
+     */
+    private static final class Mirror {
+        /**
+         * bitmap 和 length 的读写锁，写锁只在应用增量时持有
+         */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * 刷新锁，串行化同一 key 的拉取和应用
+         */
+        private final Lock refreshLock = new ReentrantLock();
+
+        private final RoaringBitmap bitmap;
+
+        /**
+         * 已加载的字节数
+         */
+        private long length;
+
+        private Mirror(RoaringBitmap bitmap, long length) {
+            this.bitmap = bitmap;
+            this.length = length;
+        }
+
+        private long length() {
+            lock.readLock().lock();
+            try {
+                return length;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
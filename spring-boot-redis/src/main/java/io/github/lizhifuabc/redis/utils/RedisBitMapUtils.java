@@ -58,6 +58,7 @@ public class RedisBitMapUtils {
      * @param param 要设置偏移的key，该key会经过hash运算。
      * @param value true：即该位设置为1，否则设置为0
      * @return 返回设置该value之前的值。
+     * @see RedisBloomFilter 只使用一个哈希位置，不能作为布隆过滤器使用
      */
     public static Boolean setBit(String key, String param, boolean value) {
         return stringRedisTemplate.opsForValue().setBit(key, hash(param), value);
@@ -69,6 +70,7 @@ public class RedisBitMapUtils {
      * @param key   bitmap结构的key
      * @param param 要移除偏移的key，该key会经过hash运算。
      * @return 若偏移位上的值为1，那么返回true。
+     * @see RedisBloomFilter 只使用一个哈希位置，不能作为布隆过滤器使用
      */
     public static boolean getBit(String key, String param) {
         return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().getBit(key, hash(param)));
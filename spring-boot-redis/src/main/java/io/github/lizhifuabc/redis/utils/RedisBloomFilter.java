@@ -0,0 +1,214 @@
+package io.github.lizhifuabc.redis.utils;
+
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 基于 Redis BitMap 的布隆过滤器
+ *
+ * <h2>参数计算</h2>
+ * 根据预期元素数量 n 和误判率 p 计算位数组长度与哈希函数个数：
+ * <ul>
+ *     <li>m = -n * ln(p) / (ln2)^2</li>
+ *     <li>k = m / n * ln2</li>
+ * </ul>
+ * Redis 单个 BitMap 最多 2^32 位，超过时需要按业务拆分多个过滤器。
+ *
+ * <h2>哈希</h2>
+ * 与 Guava BloomFilter 相同，对元素计算一次 128 位 murmur3，取高低 64 位作为 h1、h2，
+ * 第 i 个位置为 {@code (h1 + i * h2) mod m}（Kirsch–Mitzenmacher 双重哈希），k 个位置只需一次哈希计算。
+ *
+ * <h2>网络</h2>
+ * 一个元素的 k 次 SETBIT / GETBIT 放在一个管道中发送，批量操作时所有元素共用一个管道，
+ * 无论 k 和元素数量多少都只有一次网络往返。
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+public class RedisBloomFilter {
+    /**
+     * Redis BitMap 的最大位数
+     */
+    private static final long MAX_BITS = 1L << 32;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String key;
+    private final byte[] rawKey;
+
+    /**
+     * 位数组长度
+     */
+    private final long numBits;
+
+    /**
+     * 哈希函数个数
+     */
+    private final int numHashFunctions;
+
+    private RedisBloomFilter(StringRedisTemplate stringRedisTemplate, String key, long numBits, int numHashFunctions) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.key = key;
+        this.rawKey = key.getBytes(StandardCharsets.UTF_8);
+        this.numBits = numBits;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    /**
+     * 创建布隆过滤器
+     * <p>
+     * 同一个 key 的所有使用方必须使用相同的参数，否则计算出的位置不一致
+     *
+     * @param stringRedisTemplate Redis 模板
+     * @param key                 BitMap 的 key
+     * @param expectedInsertions  预期元素数量
+     * @param fpp                 期望误判率，取值 (0, 1)
+     * @return 布隆过滤器
+     */
+    public static RedisBloomFilter create(StringRedisTemplate stringRedisTemplate, String key,
+                                          long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("预期元素数量必须大于0: " + expectedInsertions);
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("误判率必须在(0, 1)之间: " + fpp);
+        }
+        long numBits = optimalNumOfBits(expectedInsertions, fpp);
+        if (numBits > MAX_BITS) {
+            throw new IllegalArgumentException("布隆过滤器需要 " + numBits + " 位，超过 Redis BitMap 上限");
+        }
+        return new RedisBloomFilter(stringRedisTemplate, key, numBits, optimalNumOfHashFunctions(expectedInsertions, numBits));
+    }
+
+    /**
+     * 添加元素
+     *
+     * @param element 元素
+     * @return 至少有一位由 0 变为 1 时返回 true，即该元素之前一定不存在
+     */
+    public boolean put(String element) {
+        List<Object> results = executeBits(List.of(element), true);
+        return results.stream().anyMatch(Boolean.FALSE::equals);
+    }
+
+    /**
+     * 批量添加元素，一次网络往返
+     *
+     * @param elements 元素集合
+     */
+    public void putAll(Collection<String> elements) {
+        if (!elements.isEmpty()) {
+            executeBits(elements, true);
+        }
+    }
+
+    /**
+     * 判断元素是否可能存在
+     *
+     * @param element 元素
+     * @return false 表示一定不存在；true 表示可能存在
+     */
+    public boolean mightContain(String element) {
+        List<Object> results = executeBits(List.of(element), false);
+        return results.stream().allMatch(Boolean.TRUE::equals);
+    }
+
+    /**
+     * 批量判断元素是否可能存在，一次网络往返
+     *
+     * @param elements 元素集合
+     * @return 与输入顺序一致的判断结果
+     */
+    public List<Boolean> mightContainAll(Collection<String> elements) {
+        List<Boolean> contains = new ArrayList<>(elements.size());
+        if (elements.isEmpty()) {
+            return contains;
+        }
+        List<Object> results = executeBits(elements, false);
+        for (int i = 0; i < elements.size(); i++) {
+            boolean all = true;
+            for (int j = i * numHashFunctions; j < (i + 1) * numHashFunctions; j++) {
+                if (!Boolean.TRUE.equals(results.get(j))) {
+                    all = false;
+                    break;
+                }
+            }
+            contains.add(all);
+        }
+        return contains;
+    }
+
+    /**
+     * 删除整个过滤器
+     */
+    public void delete() {
+        stringRedisTemplate.delete(key);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    /**
+     * 在一个管道中对所有元素的 k 个位置执行 SETBIT 或 GETBIT
+     *
+     * @return 每个元素依次 k 个结果，SETBIT 返回设置前的值
+     */
+    private List<Object> executeBits(Collection<String> elements, boolean set) {
+        long[] offsets = new long[elements.size() * numHashFunctions];
+        int index = 0;
+        for (String element : elements) {
+            index = offsets(element, offsets, index);
+        }
+        return stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long offset : offsets) {
+                if (set) {
+                    connection.stringCommands().setBit(rawKey, offset, true);
+                } else {
+                    connection.stringCommands().getBit(rawKey, offset);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 计算元素的 k 个位置，写入 offsets 从 start 开始的位置
+     *
+     * @return 下一个写入位置
+     */
+    private int offsets(String element, long[] offsets, int start) {
+        byte[] bytes = Hashing.murmur3_128().hashString(element, StandardCharsets.UTF_8).asBytes();
+        long hash1 = Longs.fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
+        long hash2 = Longs.fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
+        long combinedHash = hash1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            // 去掉符号位，保证取模结果非负
+            offsets[start + i] = (combinedHash & Long.MAX_VALUE) % numBits;
+            combinedHash += hash2;
+        }
+        return start + numHashFunctions;
+    }
+
+    private static long optimalNumOfBits(long n, double p) {
+        return (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+    }
+
+    private static int optimalNumOfHashFunctions(long n, long m) {
+        return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+}
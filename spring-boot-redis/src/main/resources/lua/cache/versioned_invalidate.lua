@@ -0,0 +1,16 @@
+--1. 参数列表
+--KEYS[1] 缓存 key
+--KEYS[2] 版本号 key
+--ARGV[1] 版本号
+--ARGV[2] 版本号保留时间（毫秒）
+--返回：1
+
+--2. 版本号只增不减，之后版本更旧的加载结果无法回填
+local current = redis.call('get', KEYS[2])
+if not current or tonumber(current) < tonumber(ARGV[1]) then
+    redis.call('set', KEYS[2], ARGV[1], 'px', ARGV[2])
+end
+
+--3. 删除缓存值
+redis.call('del', KEYS[1])
+return 1
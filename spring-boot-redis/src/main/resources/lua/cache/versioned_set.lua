@@ -0,0 +1,18 @@
+--1. 参数列表
+--KEYS[1] 缓存 key
+--KEYS[2] 版本号 key
+--ARGV[1] 缓存值
+--ARGV[2] 版本号
+--ARGV[3] 过期时间（毫秒）
+--返回：写入成功返回 1，已有更新的版本返回 0
+
+--2. 版本更旧的加载结果不覆盖新数据，版本相同时允许写入
+local current = redis.call('get', KEYS[2])
+if current and tonumber(current) > tonumber(ARGV[2]) then
+    return 0
+end
+
+--3. 写入缓存值并记录版本号
+redis.call('set', KEYS[1], ARGV[1], 'px', ARGV[3])
+redis.call('set', KEYS[2], ARGV[2], 'px', ARGV[3])
+return 1
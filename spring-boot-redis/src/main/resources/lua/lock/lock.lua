@@ -0,0 +1,15 @@
+--1. 参数列表
+--KEYS[1] 锁的 key（hash，field 为持有者，value 为重入次数）
+--ARGV[1] 租约时间（毫秒）
+--ARGV[2] 持有者ID
+--返回：获取成功返回 nil，否则返回锁的剩余过期时间（毫秒）
+
+--2. 锁不存在或已由自己持有：重入次数 +1 并重置过期时间
+if (redis.call('exists', KEYS[1]) == 0) or (redis.call('hexists', KEYS[1], ARGV[2]) == 1) then
+    redis.call('hincrby', KEYS[1], ARGV[2], 1)
+    redis.call('pexpire', KEYS[1], ARGV[1])
+    return nil
+end
+
+--3. 被其他持有者占用
+return redis.call('pttl', KEYS[1])
@@ -0,0 +1,19 @@
+--1. 参数列表
+--KEYS    所有锁的 key，集群模式下需要使用相同的 hash tag
+--ARGV[1] 租约时间（毫秒）
+--ARGV[2] 持有者ID
+--返回：全部获取成功返回 nil，否则返回第一个被占用的锁的剩余过期时间（毫秒），不会只获取一部分
+
+--2. 检查所有锁是否可获取
+for _, key in ipairs(KEYS) do
+    if redis.call('exists', key) == 1 and redis.call('hexists', key, ARGV[2]) == 0 then
+        return redis.call('pttl', key)
+    end
+end
+
+--3. 一次性获取全部锁
+for _, key in ipairs(KEYS) do
+    redis.call('hincrby', key, ARGV[2], 1)
+    redis.call('pexpire', key, ARGV[1])
+end
+return nil
@@ -0,0 +1,27 @@
+--1. 参数列表
+--KEYS    前一半为锁的 key，后一半为对应的释放通知频道
+--ARGV[1] 持有者ID
+--ARGV[2] 释放通知内容
+--返回：未持有返回 nil，否则返回释放后剩余的重入次数（所有锁总是一起获取，次数相同）
+
+local n = #KEYS / 2
+
+--2. 必须持有全部锁
+for i = 1, n do
+    if redis.call('hexists', KEYS[i], ARGV[1]) == 0 then
+        return nil
+    end
+end
+
+--3. 逐个释放，重入次数归零的锁删除并通知等待方
+local remaining = 0
+for i = 1, n do
+    local count = redis.call('hincrby', KEYS[i], ARGV[1], -1)
+    if count > 0 then
+        remaining = count
+    else
+        redis.call('del', KEYS[i])
+        redis.call('publish', KEYS[n + i], ARGV[2])
+    end
+end
+return remaining
@@ -0,0 +1,29 @@
+--1. 参数列表
+--KEYS[1] 读写锁的 key（hash，mode 为当前模式，其余 field 为各持有者的重入次数）
+--ARGV[1] 租约时间（毫秒）
+--ARGV[2] 读锁持有者 field
+--ARGV[3] 同一持有者的写锁 field
+--返回：获取成功返回 nil，否则返回锁的剩余过期时间（毫秒）
+
+local mode = redis.call('hget', KEYS[1], 'mode')
+
+--2. 无人持有：进入读模式
+if mode == false then
+    redis.call('hset', KEYS[1], 'mode', 'read')
+    redis.call('hset', KEYS[1], ARGV[2], 1)
+    redis.call('pexpire', KEYS[1], ARGV[1])
+    return nil
+end
+
+--3. 读模式下读锁共享；写锁持有者可以再获取读锁（锁降级）
+if (mode == 'read') or (mode == 'write' and redis.call('hexists', KEYS[1], ARGV[3]) == 1) then
+    redis.call('hincrby', KEYS[1], ARGV[2], 1)
+    --只延长不缩短，避免覆盖其他持有者更长的租约
+    if redis.call('pttl', KEYS[1]) < tonumber(ARGV[1]) then
+        redis.call('pexpire', KEYS[1], ARGV[1])
+    end
+    return nil
+end
+
+--4. 其他持有者持有写锁
+return redis.call('pttl', KEYS[1])
@@ -0,0 +1,27 @@
+--1. 参数列表
+--KEYS[1] 读写锁的 key
+--KEYS[2] 释放通知频道
+--ARGV[1] 读锁持有者 field
+--ARGV[2] 释放通知内容
+--返回：未持有返回 nil，否则返回该持有者释放后剩余的重入次数
+
+if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then
+    return nil
+end
+
+--2. 重入次数 -1，归零时移除该持有者
+local count = redis.call('hincrby', KEYS[1], ARGV[1], -1)
+if count > 0 then
+    return count
+end
+redis.call('hdel', KEYS[1], ARGV[1])
+
+--3. 除 mode 外仍有持有者（其他读锁或写锁）
+if redis.call('hlen', KEYS[1]) > 1 then
+    return 0
+end
+
+--4. 完全释放，通知等待的写锁
+redis.call('del', KEYS[1])
+redis.call('publish', KEYS[2], ARGV[2])
+return 0
@@ -0,0 +1,11 @@
+--1. 参数列表
+--KEYS[1] 锁的 key
+--ARGV[1] 租约时间（毫秒）
+--ARGV[2] 持有者在 hash 中的 field
+--返回：仍持有返回 1，否则返回 0
+
+if redis.call('hexists', KEYS[1], ARGV[2]) == 1 then
+    redis.call('pexpire', KEYS[1], ARGV[1])
+    return 1
+end
+return 0
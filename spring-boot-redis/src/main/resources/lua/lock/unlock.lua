@@ -0,0 +1,22 @@
+--1. 参数列表
+--KEYS[1] 锁的 key
+--KEYS[2] 释放通知频道
+--ARGV[1] 持有者ID
+--ARGV[2] 释放通知内容
+--返回：未持有返回 nil，否则返回释放后剩余的重入次数
+
+--2. 不是自己持有的锁
+if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then
+    return nil
+end
+
+--3. 重入次数 -1，仍大于 0 时保持原有过期时间
+local count = redis.call('hincrby', KEYS[1], ARGV[1], -1)
+if count > 0 then
+    return count
+end
+
+--4. 完全释放，通知等待方
+redis.call('del', KEYS[1])
+redis.call('publish', KEYS[2], ARGV[2])
+return 0
@@ -0,0 +1,25 @@
+--1. 参数列表
+--KEYS[1] 读写锁的 key
+--ARGV[1] 租约时间（毫秒）
+--ARGV[2] 写锁持有者 field
+--返回：获取成功返回 nil，否则返回锁的剩余过期时间（毫秒）
+
+local mode = redis.call('hget', KEYS[1], 'mode')
+
+--2. 无人持有：进入写模式
+if mode == false then
+    redis.call('hset', KEYS[1], 'mode', 'write')
+    redis.call('hset', KEYS[1], ARGV[2], 1)
+    redis.call('pexpire', KEYS[1], ARGV[1])
+    return nil
+end
+
+--3. 写锁重入
+if mode == 'write' and redis.call('hexists', KEYS[1], ARGV[2]) == 1 then
+    redis.call('hincrby', KEYS[1], ARGV[2], 1)
+    redis.call('pexpire', KEYS[1], ARGV[1])
+    return nil
+end
+
+--4. 被读锁或其他写锁占用
+return redis.call('pttl', KEYS[1])
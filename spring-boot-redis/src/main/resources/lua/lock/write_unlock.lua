@@ -0,0 +1,28 @@
+--1. 参数列表
+--KEYS[1] 读写锁的 key
+--KEYS[2] 释放通知频道
+--ARGV[1] 写锁持有者 field
+--ARGV[2] 释放通知内容
+--返回：未持有返回 nil，否则返回释放后剩余的重入次数
+
+if redis.call('hget', KEYS[1], 'mode') ~= 'write' or redis.call('hexists', KEYS[1], ARGV[1]) == 0 then
+    return nil
+end
+
+--2. 重入次数 -1，仍大于 0 时保持原有过期时间
+local count = redis.call('hincrby', KEYS[1], ARGV[1], -1)
+if count > 0 then
+    return count
+end
+redis.call('hdel', KEYS[1], ARGV[1])
+
+--3. 仍持有降级得到的读锁时切换为读模式，否则删除
+if redis.call('hlen', KEYS[1]) > 1 then
+    redis.call('hset', KEYS[1], 'mode', 'read')
+else
+    redis.call('del', KEYS[1])
+end
+
+--4. 写锁释放后所有等待的读锁都可以获取，通知全部等待方
+redis.call('publish', KEYS[2], ARGV[2])
+return 0
@@ -0,0 +1,146 @@
+package io.github.lizhifuabc.redis.cache.near;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.lizhifuabc.redis.local.LocalCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TieredLocalCache 分层测试类
+ * <p>
+ * 两层都用内存实现代替，只验证按大小分层和两层之间的一致性
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class TieredLocalCacheTest {
+
+    private static final int THRESHOLD = 1024;
+
+    private final MapLocalCache<CacheValue<String>> heap = new MapLocalCache<>();
+    private final MapLocalCache<String> offHeap = new MapLocalCache<>();
+    private final TieredLocalCache<String> cache = new TieredLocalCache<>(heap, offHeap, THRESHOLD);
+
+    @Test
+    void testRouteBySize() {
+        cache.put("small", new CacheValue<>("s", 100, 10));
+        cache.put("unknown", new CacheValue<>("u", 100));
+        cache.put("large", new CacheValue<>("l", 100, THRESHOLD));
+
+        assertTrue(heap.map.containsKey("small"));
+        assertTrue(heap.map.containsKey("unknown"), "大小未知的值应该放入堆内");
+        assertEquals("l", offHeap.map.get("large"), "不小于阈值的值应该放入堆外");
+        assertFalse(heap.map.containsKey("large"));
+        assertEquals(3, cache.estimatedSize());
+
+        assertEquals(100, cache.getIfPresent("small").orElseThrow().getExpireAt());
+        CacheValue<String> large = cache.getIfPresent("large").orElseThrow();
+        assertEquals("l", large.getValue());
+        assertEquals(0, large.getExpireAt(), "堆外层不保存过期时间，不参与提前刷新");
+    }
+
+    @Test
+    void testReplaceMovesBetweenTiers() {
+        cache.put("key", new CacheValue<>("large", 100, THRESHOLD * 2));
+        cache.put("key", new CacheValue<>("small", 100, 10));
+
+        assertFalse(offHeap.map.containsKey("key"), "值变小后应该移除堆外的旧值");
+        assertEquals("small", cache.get("key").getValue());
+
+        cache.put("key", new CacheValue<>("large", 100, THRESHOLD * 2));
+        assertFalse(heap.map.containsKey("key"), "值变大后应该移除堆内的旧值");
+        assertEquals("large", cache.get("key").getValue());
+    }
+
+    @Test
+    void testRemoveBothTiers() {
+        cache.put("small", new CacheValue<>("s", 100, 10));
+        cache.put("large", new CacheValue<>("l", 100, THRESHOLD));
+
+        cache.remove("large");
+        assertTrue(cache.getIfPresent("large").isEmpty());
+
+        cache.clear();
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    void testStats() {
+        cache.put("small", new CacheValue<>("s", 100, 10));
+        cache.put("large", new CacheValue<>("l", 100, THRESHOLD));
+
+        cache.getIfPresent("small");
+        cache.getIfPresent("large");
+        cache.getIfPresent("missing");
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(1, stats.missCount(), "堆内未命中、堆外命中不应该计为未命中");
+    }
+
+    /**
+     * 统计命中和未命中的内存缓存
+     */
+    private static final class MapLocalCache<V> implements LocalCache<String, V> {
+        private final Map<String, V> map = new HashMap<>();
+        private long hits;
+        private long misses;
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public void put(String key, V value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public Optional<V> getIfPresent(String key) {
+            V value = map.get(key);
+            if (value == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return Optional.ofNullable(value);
+        }
+
+        @Override
+        public V get(String key) {
+            return getIfPresent(key).orElse(null);
+        }
+
+        @Override
+        public V get(String key, Function<? super String, ? extends V> mappingFunction) {
+            return map.computeIfAbsent(key, mappingFunction);
+        }
+
+        @Override
+        public void remove(String key) {
+            map.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public long estimatedSize() {
+            return map.size();
+        }
+
+        @Override
+        public CacheStats stats() {
+            return CacheStats.of(hits, misses, 0, 0, 0, 0, 0);
+        }
+    }
+}
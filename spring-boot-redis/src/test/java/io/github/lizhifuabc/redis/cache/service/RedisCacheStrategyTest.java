@@ -1,13 +1,26 @@
 package io.github.lizhifuabc.redis.cache.service;
 
+import io.github.lizhifuabc.redis.cache.CacheStatsEndpoint;
+import io.github.lizhifuabc.redis.cache.consistency.CacheInvalidationProperties;
 import io.github.lizhifuabc.redis.cache.model.User;
+import io.github.lizhifuabc.redis.cache.near.VersionedCacheScripts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +44,18 @@ class RedisCacheStrategyTest {
     @Autowired
     private WriteBehindService writeBehindService;
 
+    @Autowired
+    private ReactiveCacheAsideService reactiveCacheAsideService;
+    
+    @Autowired
+    private RefreshAheadService refreshAheadService;
+
+    @Autowired
+    private CacheStatsEndpoint cacheStatsEndpoint;
+
+    @Autowired
+    private CacheInvalidationProperties cacheInvalidationProperties;
+    
     @Autowired
     private StringRedisTemplate redisTemplate;
 
@@ -43,6 +68,7 @@ class RedisCacheStrategyTest {
         redisTemplate.delete(redisTemplate.keys("cache:user:*"));
         redisTemplate.delete(redisTemplate.keys("write_through:user:*"));
         redisTemplate.delete(redisTemplate.keys("write_behind:user:*"));
+        redisTemplate.delete(redisTemplate.keys("refresh_ahead:user:*"));
         log.info("测试前清理Redis缓存完成");
     }
 
@@ -405,4 +431,191 @@ class RedisCacheStrategyTest {
         
         log.info("并发情况下的缓存一致性测试完成");
     }
-}
\ No newline at end of file
+    
+    /**
+     * 测试批量获取用户
+     * 1. 结果按入参顺序返回，不存在的ID被跳过
+     * 2. 第二次批量读取全部命中缓存，不再访问数据库
+     */
+    @Test
+    void testBatchGetUsers() {
+        log.info("开始测试批量获取用户");
+        List<Long> ids = List.of(3L, 999L, 1L, 2L);
+        List<Long> expectedIds = List.of(3L, 1L, 2L);
+        
+        for (String strategy : List.of("Cache-Aside", "Write-Through", "Write-Behind")) {
+            Function<Collection<Long>, List<User>> getUsers = switch (strategy) {
+                case "Cache-Aside" -> cacheAsideService::getUsers;
+                case "Write-Through" -> writeThroughService::getUsers;
+                default -> writeBehindService::getUsers;
+            };
+            
+            long startTime = System.currentTimeMillis();
+            List<User> users = getUsers.apply(ids);
+            long firstReadTime = System.currentTimeMillis() - startTime;
+            assertEquals(expectedIds, users.stream().map(User::getId).toList(), strategy + "结果应按入参顺序返回");
+            
+            startTime = System.currentTimeMillis();
+            List<User> cachedUsers = getUsers.apply(ids);
+            long secondReadTime = System.currentTimeMillis() - startTime;
+            assertEquals(expectedIds, cachedUsers.stream().map(User::getId).toList(), strategy + "缓存读取结果应一致");
+            
+            log.info("{}批量读取，第一次耗时: {}ms, 第二次耗时: {}ms", strategy, firstReadTime, secondReadTime);
+            // 数据库批量查询模拟了100ms的延迟，缓存读取应明显更快
+            assertTrue(secondReadTime < 100, strategy + "第二次批量读取应该全部命中缓存");
+        }
+        
+        log.info("批量获取用户测试完成");
+    }
+    
+    /**
+     * 测试响应式读取
+     * 1. 多个单条查询并发发起，结果与阻塞版本一致，不存在的ID为空
+     * 2. 批量查询按入参顺序返回
+     */
+    @Test
+    void testReactiveGetUsers() {
+        log.info("开始测试响应式读取");
+        
+        long startTime = System.currentTimeMillis();
+        List<User> users = Mono.zip(
+                        reactiveCacheAsideService.getUser(1L),
+                        reactiveCacheAsideService.getUser(2L),
+                        reactiveCacheAsideService.getUser(3L))
+                .map(tuple -> List.of(tuple.getT1(), tuple.getT2(), tuple.getT3()))
+                .block();
+        long concurrentReadTime = System.currentTimeMillis() - startTime;
+        assertNotNull(users);
+        assertEquals(List.of("user1", "user2", "user3"), users.stream().map(User::getUsername).toList());
+        assertNull(reactiveCacheAsideService.getUser(999L).block(), "不存在的用户应该为空");
+        log.info("并发读取3个用户耗时: {}ms", concurrentReadTime);
+        
+        List<User> batch = reactiveCacheAsideService.getUsersAsync(List.of(3L, 999L, 1L, 2L)).join();
+        assertEquals(List.of(3L, 1L, 2L), batch.stream().map(User::getId).toList(), "结果应按入参顺序返回");
+        
+        log.info("响应式读取测试完成");
+    }
+    
+    /**
+     * 测试布隆过滤器覆盖所有策略的写入
+     * 通过其他策略新建的用户，Cache-Aside 读取时不应该被布隆过滤器判为不存在
+     */
+    @Test
+    void testBloomFilterCoversAllStrategies() {
+        log.info("开始测试布隆过滤器覆盖所有策略的写入");
+        
+        // 布隆过滤器保存在 Redis 中，使用随机ID避免与之前运行写入的ID重复
+        long base = ThreadLocalRandom.current().nextLong(1_000_000_000L, 2_000_000_000L);
+        Long writeThroughId = base;
+        Long writeBehindId = base + 1;
+        Long refreshAheadId = base + 2;
+        
+        writeThroughService.updateUser(new User(writeThroughId, "write_through_new", "wt@example.com"));
+        writeBehindService.updateUser(new User(writeBehindId, "write_behind_new", "wb@example.com"));
+        writeBehindService.flush();
+        refreshAheadService.updateUser(new User(refreshAheadId, "refresh_ahead_new", "ra@example.com"));
+        
+        for (Long id : List.of(writeThroughId, writeBehindId, refreshAheadId)) {
+            assertTrue(cacheAsideService.mightExist(id), "其他策略保存的用户应该加入布隆过滤器，ID: " + id);
+            assertNotNull(cacheAsideService.getUser(id), "其他策略保存的用户应该能通过 Cache-Aside 读取，ID: " + id);
+            assertNotNull(reactiveCacheAsideService.getUser(id).block(), "响应式读取也应该能读到，ID: " + id);
+        }
+        assertEquals(List.of(writeThroughId, writeBehindId, refreshAheadId),
+                cacheAsideService.getUsers(List.of(writeThroughId, writeBehindId, refreshAheadId)).stream()
+                        .map(User::getId).toList(), "批量读取也不应该被布隆过滤器拦截");
+        
+        log.info("布隆过滤器覆盖所有策略的写入测试完成");
+    }
+    
+    /**
+     * 测试版本号保护
+     * 1. 更新前读到的旧数据在更新之后回填，应该被拒绝
+     * 2. 再次读取应该得到更新后的数据
+     */
+    @Test
+    void testStalePopulateRejected() throws InterruptedException {
+        log.info("开始测试版本号保护");
+        
+        User user = cacheAsideService.getUser(3L);
+        assertNotNull(user, "用户不应该为空");
+        // 慢查询读到的旧快照，更新时间显式设置在更新之前，保证版本号严格有序
+        user.setUpdateTime(LocalDateTime.now().minusMinutes(1));
+        long staleVersion = CacheAsideService.versionOf(user);
+        
+        user.setUsername("user3_versioned");
+        User updatedUser = cacheAsideService.updateUser(user);
+        assertTrue(CacheAsideService.versionOf(updatedUser) > staleVersion, "版本号应该递增");
+        
+        // 等延迟双删完成后再读取，把新数据回填到 Redis
+        Thread.sleep(cacheInvalidationProperties.getDoubleDeleteDelay().toMillis() + 500);
+        String cacheKey = "cache:user:3";
+        assertEquals("user3_versioned", cacheAsideService.getUser(3L).getUsername());
+        byte[] newer = getRaw(cacheKey);
+        assertNotNull(newer, "更新后的读取应该回填 Redis");
+        
+        // 模拟更新前开始的慢查询在更新之后回填旧数据
+        Long result = redisTemplate.execute(VersionedCacheScripts.SET_SCRIPT,
+                List.of(cacheKey, VersionedCacheScripts.versionKey(cacheKey)),
+                "stale", Long.toString(staleVersion), "60000");
+        assertEquals(0L, result, "旧版本的回填应该被拒绝");
+        assertArrayEquals(newer, getRaw(cacheKey), "旧版本的回填不应该覆盖 Redis 中的新数据");
+        
+        User userAfterUpdate = cacheAsideService.getUser(3L);
+        assertEquals("user3_versioned", userAfterUpdate.getUsername(), "应该读取到更新后的数据");
+        
+        log.info("版本号保护测试完成");
+    }
+    
+    /**
+     * 测试缓存统计端点
+     * 读取后按缓存前缀统计命中和未命中次数
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCachesStats() {
+        log.info("开始测试缓存统计端点");
+        
+        writeThroughService.getUser(1L);
+        writeThroughService.getUser(1L);
+        
+        Map<String, Object> caches = (Map<String, Object>) cacheStatsEndpoint.cachesStats().get("caches");
+        Map<String, Object> stats = (Map<String, Object>) caches.get("write_through:user:");
+        assertNotNull(stats, "应该包含 Write-Through 缓存的统计");
+        assertTrue((Long) stats.get("localHits") >= 1, "第二次读取应该命中本地缓存");
+        assertTrue((Long) stats.get("localHits") + (Long) stats.get("localMisses") >= 2, "应该统计每一次读取");
+        
+        Map<String, Object> writeBehind = (Map<String, Object>) cacheStatsEndpoint.cachesStats().get("writeBehind");
+        assertTrue(writeBehind.containsKey("user"), "应该包含 Write-Behind 引擎的统计");
+        
+        log.info("缓存统计端点测试完成");
+    }
+    
+    /**
+     * 测试Refresh-Ahead策略的读取和更新操作
+     * 1. 第一次读取从数据库获取并缓存，第二次读取从缓存获取
+     * 2. 更新后读取到最新数据
+     */
+    @Test
+    void testRefreshAheadReadAndUpdate() {
+        log.info("开始测试Refresh-Ahead策略");
+        
+        User user = refreshAheadService.getUser(3L);
+        assertNotNull(user, "用户不应该为空");
+        assertNotNull(refreshAheadService.getUser(3L), "第二次读取应该命中缓存");
+        assertNull(refreshAheadService.getUser(999L), "不存在的用户应该为空");
+        
+        user.setUsername("user3_refresh_ahead");
+        refreshAheadService.updateUser(user);
+        assertEquals("user3_refresh_ahead", refreshAheadService.getUser(3L).getUsername(), "更新后的用户名应该匹配");
+        
+        log.info("Refresh-Ahead策略测试完成");
+    }
+
+    /**
+     * 读取 Redis 中的原始值，不经过本地缓存
+     */
+    private byte[] getRaw(String key) {
+        return redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(key.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FileWriteBehindJournal 测试类
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class FileWriteBehindJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private FileWriteBehindJournal<Long, String> open(int segmentSize) {
+        return new FileWriteBehindJournal<>("test", new JournalCodec<>(new ObjectMapper(), Long.class, String.class),
+                directory, segmentSize);
+    }
+
+    private static PendingWrite<Long, String> upsert(long key, String value, long sequence) {
+        return new PendingWrite<>(key, PendingWrite.Operation.UPSERT, value, sequence);
+    }
+
+    @Test
+    void testAppendAndReplay() {
+        FileWriteBehindJournal<Long, String> journal = open(4096);
+        assertEquals(0, journal.replay(write -> fail("空日志不应该回放记录")));
+        journal.append(upsert(1L, "v1", 1));
+        journal.append(new PendingWrite<>(2L, PendingWrite.Operation.DELETE, null, 2));
+        journal.append(upsert(1L, "v2", 3));
+        journal.close();
+
+        List<PendingWrite<Long, String>> replayed = new ArrayList<>();
+        FileWriteBehindJournal<Long, String> reopened = open(4096);
+        assertEquals(3, reopened.replay(replayed::add));
+        reopened.close();
+
+        assertEquals(List.of(1L, 2L, 3L), replayed.stream().map(PendingWrite::getSequence).toList(), "记录应该按追加顺序回放");
+        assertEquals("v2", replayed.get(2).getValue());
+        assertEquals(PendingWrite.Operation.DELETE, replayed.get(1).getOperation());
+        assertNull(replayed.get(1).getValue());
+    }
+
+    @Test
+    void testCheckpointSkipsAndDeletesSegments() throws IOException {
+        FileWriteBehindJournal<Long, String> journal = open(256);
+        journal.replay(write -> {
+        });
+        for (long seq = 1; seq <= 40; seq++) {
+            journal.append(upsert(seq, "v" + seq, seq));
+        }
+        int before = segmentCount();
+        journal.checkpoint(30);
+        assertTrue(segmentCount() < before, "所有记录都小于检查点的旧段应该被删除");
+        journal.close();
+
+        List<PendingWrite<Long, String>> replayed = new ArrayList<>();
+        FileWriteBehindJournal<Long, String> reopened = open(256);
+        assertEquals(40, reopened.replay(replayed::add));
+        reopened.close();
+
+        assertEquals(11, replayed.size(), "只回放序号不小于检查点的记录");
+        assertEquals(30, replayed.get(0).getSequence());
+    }
+
+    @Test
+    void testReplayAfterCheckpointOnly() {
+        FileWriteBehindJournal<Long, String> journal = open(4096);
+        journal.replay(write -> {
+        });
+        journal.append(upsert(1L, "v1", 1));
+        journal.checkpoint(2);
+        journal.close();
+
+        FileWriteBehindJournal<Long, String> reopened = open(4096);
+        assertEquals(1, reopened.replay(write -> fail("检查点之前的记录不应该回放")), "新的序号应该从检查点继续");
+        reopened.close();
+    }
+
+    @Test
+    void testTornRecordIgnored() throws IOException {
+        FileWriteBehindJournal<Long, String> journal = open(4096);
+        journal.replay(write -> {
+        });
+        for (long seq = 1; seq <= 3; seq++) {
+            journal.append(upsert(seq, "v", seq));
+        }
+        journal.close();
+
+        // 模拟崩溃时最后一条记录只写入了一部分：长度相同的记录，破坏第三条记录的内容
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        int frameSize = 8 + ByteBuffer.wrap(bytes).getInt(0);
+        bytes[2 * frameSize + 8] ^= 0x7F;
+        Files.write(segment, bytes);
+
+        List<PendingWrite<Long, String>> replayed = new ArrayList<>();
+        FileWriteBehindJournal<Long, String> reopened = open(4096);
+        reopened.replay(replayed::add);
+        // 回放后在新段追加，不会覆盖残缺的旧段
+        reopened.append(upsert(4L, "v", 4));
+        reopened.close();
+
+        assertEquals(List.of(1L, 2L), replayed.stream().map(PendingWrite::getSequence).toList(), "校验失败的记录应该被忽略");
+        assertEquals(2, segmentCount());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("segment-")).sorted().toList();
+        }
+    }
+
+    private int segmentCount() throws IOException {
+        return segments().size();
+    }
+}
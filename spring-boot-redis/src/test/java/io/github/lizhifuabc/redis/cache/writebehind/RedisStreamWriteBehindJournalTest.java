@@ -0,0 +1,70 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RedisStreamWriteBehindJournal 测试类
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+@SpringBootTest
+class RedisStreamWriteBehindJournalTest {
+
+    private static final String STREAM_KEY = "write_behind:journal:test:journal-test";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void tearDown() {
+        redisTemplate.delete(STREAM_KEY);
+    }
+
+    private RedisStreamWriteBehindJournal<Long, String> open() {
+        return new RedisStreamWriteBehindJournal<>("test",
+                new JournalCodec<>(new ObjectMapper(), Long.class, String.class), STREAM_KEY, redisTemplate);
+    }
+
+    private static PendingWrite<Long, String> upsert(long key, String value, long sequence) {
+        return new PendingWrite<>(key, PendingWrite.Operation.UPSERT, value, sequence);
+    }
+
+    @Test
+    void testAppendReplayAndCheckpoint() {
+        redisTemplate.delete(STREAM_KEY);
+        RedisStreamWriteBehindJournal<Long, String> journal = open();
+        assertEquals(0, journal.replay(write -> fail("空日志不应该回放记录")));
+        journal.append(upsert(1L, "v1", 1));
+        journal.append(new PendingWrite<>(2L, PendingWrite.Operation.DELETE, null, 2));
+        journal.append(upsert(1L, "v2", 3));
+        assertEquals(3, redisTemplate.opsForStream().size(STREAM_KEY), "append 返回时记录应该已写入 Stream");
+
+        journal.checkpoint(2);
+        assertEquals(2, redisTemplate.opsForStream().size(STREAM_KEY), "序号小于检查点的记录应该被删除");
+        journal.close();
+
+        // 模拟重启：新实例回放同一个 Stream
+        List<PendingWrite<Long, String>> replayed = new ArrayList<>();
+        RedisStreamWriteBehindJournal<Long, String> reopened = open();
+        assertEquals(3, reopened.replay(replayed::add));
+        assertEquals(List.of(2L, 3L), replayed.stream().map(PendingWrite::getSequence).toList());
+        assertEquals(PendingWrite.Operation.DELETE, replayed.get(0).getOperation());
+        assertEquals("v2", replayed.get(1).getValue());
+
+        // 回放得到的记录同样可以按检查点删除
+        reopened.checkpoint(4);
+        assertEquals(0, redisTemplate.opsForStream().size(STREAM_KEY));
+        reopened.close();
+    }
+}
@@ -0,0 +1,260 @@
+package io.github.lizhifuabc.redis.cache.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WriteBehindEngine 测试类
+ * <p>
+ * 定时刷新间隔设置得足够长，刷新全部由测试手动触发
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class WriteBehindEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private final RecordingWriter writer = new RecordingWriter();
+    private final List<WriteBehindEngine<Long, String>> engines = new ArrayList<>();
+    private WriteBehindProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WriteBehindProperties();
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setOfferTimeout(Duration.ofMillis(100));
+        properties.setCapacity(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.failing = false;
+        engines.forEach(WriteBehindEngine::shutdown);
+    }
+
+    private WriteBehindEngine<Long, String> start(WriteBehindJournal<Long, String> journal) {
+        WriteBehindEngine<Long, String> engine = new WriteBehindEngine<>("test", properties, writer, journal);
+        engine.start();
+        engines.add(engine);
+        return engine;
+    }
+
+    private FileWriteBehindJournal<Long, String> fileJournal() {
+        return new FileWriteBehindJournal<>("test", new JournalCodec<>(new ObjectMapper(), Long.class, String.class),
+                directory, 4096);
+    }
+
+    @Test
+    void testMergeSameKey() {
+        WriteBehindEngine<Long, String> engine = start(new FailingJournal());
+
+        engine.save(1L, "v1");
+        engine.save(1L, "v2");
+        engine.save(2L, "v1");
+        engine.delete(2L);
+
+        assertEquals(2, engine.pendingCount(), "同一个 key 的多次变更应该合并为一条");
+        assertEquals(2, engine.flush());
+        assertEquals(Map.of(1L, "v2"), writer.saved);
+        assertEquals(List.of(2L), writer.deleted, "删除在更新之后时以删除为准");
+        assertEquals(0, engine.pendingCount());
+    }
+
+    @Test
+    void testAppendFailureLeavesNewKeyOut() {
+        FailingJournal journal = new FailingJournal();
+        WriteBehindEngine<Long, String> engine = start(journal);
+
+        journal.failing = true;
+        assertThrows(IllegalStateException.class, () -> engine.save(1L, "v1"));
+
+        assertEquals(0, engine.pendingCount(), "日志写入失败的变更不应该进入待写入表");
+        assertEquals(0, engine.flush());
+        assertTrue(writer.saved.isEmpty());
+
+        // 失败时归还了许可，容量仍然可以放下两个新 key
+        journal.failing = false;
+        engine.save(2L, "v2");
+        engine.save(3L, "v3");
+        assertEquals(2, engine.pendingCount());
+    }
+
+    @Test
+    void testAppendFailureKeepsPendingValue() {
+        FailingJournal journal = new FailingJournal();
+        WriteBehindEngine<Long, String> engine = start(journal);
+        engine.save(1L, "v1");
+
+        journal.failing = true;
+        assertThrows(IllegalStateException.class, () -> engine.save(1L, "v2"));
+        assertThrows(IllegalStateException.class, () -> engine.delete(1L));
+
+        engine.flush();
+        assertEquals(Map.of(1L, "v1"), writer.saved, "日志写入失败的变更不应该覆盖已有的待写入记录");
+        assertTrue(writer.deleted.isEmpty());
+    }
+
+    @Test
+    void testReplayAfterCrash() {
+        FileWriteBehindJournal<Long, String> journal = fileJournal();
+        WriteBehindEngine<Long, String> engine = new WriteBehindEngine<>("test", properties, writer, journal);
+        engine.start();
+        engine.save(1L, "v1");
+        engine.flush();
+        engine.save(2L, "v1");
+        engine.save(2L, "v2");
+        engine.delete(3L);
+        // 模拟进程崩溃：不做最后一次刷新，只关闭日志文件
+        journal.close();
+        writer.saved.clear();
+
+        WriteBehindEngine<Long, String> restarted = start(fileJournal());
+
+        assertEquals(2, restarted.pendingCount(), "检查点之后的变更应该被回放");
+        restarted.flush();
+        assertEquals(Map.of(2L, "v2"), writer.saved, "同一个 key 应该以最后一次变更为准，检查点之前的变更不应该重复写入");
+        assertEquals(List.of(3L), writer.deleted);
+    }
+
+    @Test
+    void testReplayedWritesContinueSequence() {
+        FileWriteBehindJournal<Long, String> journal = fileJournal();
+        WriteBehindEngine<Long, String> engine = new WriteBehindEngine<>("test", properties, writer, journal);
+        engine.start();
+        engine.save(1L, "v1");
+        journal.close();
+
+        WriteBehindEngine<Long, String> restarted = start(fileJournal());
+        restarted.save(1L, "v2");
+        restarted.flush();
+
+        assertEquals(Map.of(1L, "v2"), writer.saved, "重启后的变更序号应该大于回放的记录");
+    }
+
+    @Test
+    void testCapacityIncludesReplayedWrites() {
+        FileWriteBehindJournal<Long, String> journal = fileJournal();
+        WriteBehindEngine<Long, String> engine = new WriteBehindEngine<>("test", properties, writer, journal);
+        engine.start();
+        engine.save(1L, "v1");
+        engine.save(2L, "v2");
+        journal.close();
+
+        WriteBehindEngine<Long, String> restarted = start(fileJournal());
+
+        assertThrows(IllegalStateException.class, () -> restarted.save(3L, "v3"), "回放的记录同样占用容量");
+        restarted.flush();
+        restarted.save(3L, "v3");
+        assertEquals(1, restarted.pendingCount());
+    }
+
+    @Test
+    void testDeadLetterReplay() {
+        properties.setMaxRetries(0);
+        WriteBehindEngine<Long, String> engine = start(new FailingJournal());
+        engine.save(1L, "v1");
+        engine.save(2L, "v2");
+
+        writer.failing = true;
+        assertEquals(0, engine.flush());
+        assertEquals(2, engine.getDeadLetters().size(), "重试次数耗尽后应该进入死信列表");
+        assertEquals(0, engine.pendingCount());
+
+        // 死信的 key 已有更新的变更时，死信被丢弃
+        writer.failing = false;
+        engine.save(2L, "v3");
+        assertEquals(1, engine.replayDeadLetters());
+        engine.flush();
+        assertEquals(Map.of(1L, "v1", 2L, "v3"), writer.saved);
+        assertTrue(engine.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void testDeadLetterReplayAppendFailure() {
+        properties.setMaxRetries(0);
+        FailingJournal journal = new FailingJournal();
+        WriteBehindEngine<Long, String> engine = start(journal);
+        engine.save(1L, "v1");
+        writer.failing = true;
+        engine.flush();
+
+        writer.failing = false;
+        journal.failing = true;
+        assertThrows(IllegalStateException.class, engine::replayDeadLetters);
+
+        assertEquals(1, engine.getDeadLetters().size(), "日志写入失败时死信应该保留");
+        assertEquals(0, engine.pendingCount());
+        journal.failing = false;
+        assertEquals(1, engine.replayDeadLetters());
+        engine.save(2L, "v2");
+        assertEquals(2, engine.pendingCount(), "失败时应该归还许可");
+    }
+
+    /**
+     * 记录写入内容的批量写入实现
+     */
+    private static final class RecordingWriter implements BatchWriter<Long, String> {
+        private final Map<Long, String> saved = new LinkedHashMap<>();
+        private final List<Long> deleted = new ArrayList<>();
+        private volatile boolean failing;
+
+        @Override
+        public void saveAll(Map<Long, String> values) {
+            if (failing) {
+                throw new IllegalStateException("数据库不可用");
+            }
+            saved.putAll(values);
+        }
+
+        @Override
+        public void deleteAll(Collection<Long> keys) {
+            if (failing) {
+                throw new IllegalStateException("数据库不可用");
+            }
+            deleted.addAll(keys);
+        }
+    }
+
+    /**
+     * 可以模拟写入失败的内存日志
+     */
+    private static final class FailingJournal implements WriteBehindJournal<Long, String> {
+        private volatile boolean failing;
+
+        @Override
+        public long replay(Consumer<PendingWrite<Long, String>> consumer) {
+            return 0;
+        }
+
+        @Override
+        public void append(PendingWrite<Long, String> write) {
+            if (failing) {
+                throw new IllegalStateException("磁盘已满");
+            }
+        }
+
+        @Override
+        public void checkpoint(long sequence) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.lizhifuabc.redis.hotkey;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CountMinSketch 测试类
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class CountMinSketchTest {
+
+    @Test
+    void testEstimateSingleKey() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        long hash = CountMinSketch.hash("user:1");
+        assertEquals(0, sketch.estimate(hash), "未计数的 key 估算值应该为0");
+
+        for (int i = 0; i < 100; i++) {
+            sketch.add(hash);
+        }
+        assertEquals(100, sketch.estimate(hash), "没有冲突时估算值应该等于实际次数");
+    }
+
+    @Test
+    void testNeverUnderestimate() {
+        // 宽度很小，制造大量冲突
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        Map<String, Integer> actual = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            String key = "key:" + i;
+            int count = i % 17 + 1;
+            actual.put(key, count);
+            long hash = CountMinSketch.hash(key);
+            for (int j = 0; j < count; j++) {
+                sketch.add(hash);
+            }
+        }
+
+        actual.forEach((key, count) -> assertTrue(sketch.estimate(CountMinSketch.hash(key)) >= count,
+                "估算值不应该小于实际次数，key: " + key));
+    }
+
+    @Test
+    void testErrorBound() {
+        // 误差上界 e / width * 总次数，以 1 - e^-depth 的概率成立
+        int width = 2048;
+        CountMinSketch sketch = new CountMinSketch(4, width);
+        int total = 0;
+        for (int i = 0; i < 10000; i++) {
+            long hash = CountMinSketch.hash("key:" + i);
+            sketch.add(hash);
+            total++;
+        }
+        long bound = (long) Math.ceil(Math.E / width * total);
+
+        int exceeded = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (sketch.estimate(CountMinSketch.hash("key:" + i)) - 1 > bound) {
+                exceeded++;
+            }
+        }
+        assertTrue(exceeded < 10000 * 0.05, "超出误差上界的 key 过多: " + exceeded);
+    }
+
+    @Test
+    void testClear() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        long hash = CountMinSketch.hash("user:1");
+        sketch.add(hash);
+        sketch.add(hash);
+
+        sketch.clear();
+
+        assertEquals(0, sketch.estimate(hash), "清空后估算值应该为0");
+    }
+}
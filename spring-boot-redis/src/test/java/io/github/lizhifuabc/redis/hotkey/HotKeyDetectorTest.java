@@ -0,0 +1,133 @@
+package io.github.lizhifuabc.redis.hotkey;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HotKeyDetector 测试类
+ * <p>
+ * 不调用 start()，窗口切换由测试直接调用 rotate() 触发
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class HotKeyDetectorTest {
+
+    private static HotKeyProperties properties() {
+        HotKeyProperties properties = new HotKeyProperties();
+        properties.setWindowCount(3);
+        properties.setThreshold(100);
+        properties.setCoolRatio(0.5);
+        properties.setTopK(2);
+        return properties;
+    }
+
+    private static void record(HotKeyDetector detector, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            detector.record(key);
+        }
+    }
+
+    @Test
+    void testPromoteAtThreshold() {
+        HotKeyDetector detector = new HotKeyDetector(properties());
+
+        record(detector, "user:1", 99);
+        assertFalse(detector.isHot("user:1"), "未达到阈值时不应该是热点 key");
+
+        assertTrue(detector.record("user:1"), "达到阈值的那次访问应该返回热点");
+        assertTrue(detector.isHot("user:1"));
+        assertEquals(1, detector.hotKeys().size());
+    }
+
+    @Test
+    void testTopK() {
+        HotKeyDetector detector = new HotKeyDetector(properties());
+        record(detector, "a", 300);
+        record(detector, "b", 200);
+        record(detector, "c", 50);
+        record(detector, "d", 10);
+
+        detector.rotate();
+
+        List<HotKey> topKeys = detector.topKeys();
+        assertEquals(2, topKeys.size(), "只保留 topK 个 key");
+        assertEquals("a", topKeys.get(0).getKey(), "按访问次数降序排列");
+        assertEquals("b", topKeys.get(1).getKey());
+        assertTrue(topKeys.get(0).getCount() >= 300, "估算值不应该小于实际次数");
+        assertTrue(topKeys.get(0).isHot());
+        assertTrue(topKeys.get(1).isHot());
+    }
+
+    @Test
+    void testAdmissionAfterRotate() {
+        HotKeyDetector detector = new HotKeyDetector(properties());
+        record(detector, "a", 300);
+        record(detector, "b", 200);
+        detector.rotate();
+
+        // 超过第 K 名后进入候选，下次窗口切换时挤掉原来的第 K 名
+        record(detector, "c", 250);
+        detector.rotate();
+
+        List<String> keys = detector.topKeys().stream().map(HotKey::getKey).toList();
+        assertEquals(List.of("a", "c"), keys);
+    }
+
+    @Test
+    void testCoolDownAfterWindowsExpire() {
+        HotKeyDetector detector = new HotKeyDetector(properties());
+        List<String> cooled = new ArrayList<>();
+        detector.addCoolListener(cooled::add);
+        record(detector, "user:1", 100);
+        assertTrue(detector.isHot("user:1"));
+
+        // 计数所在的窗口被清空之前仍然是热点 key
+        detector.rotate();
+        detector.rotate();
+        assertTrue(detector.isHot("user:1"), "滑动窗口内仍有访问记录时不应该降级");
+        assertTrue(cooled.isEmpty());
+
+        detector.rotate();
+        assertFalse(detector.isHot("user:1"), "所有窗口都没有访问记录时应该降级");
+        assertEquals(List.of("user:1"), cooled, "降级时应该通知监听器");
+        assertTrue(detector.topKeys().isEmpty(), "没有访问记录的 key 应该移出候选");
+    }
+
+    @Test
+    void testStayHotAboveCoolThreshold() {
+        HotKeyDetector detector = new HotKeyDetector(properties());
+        record(detector, "user:1", 100);
+        detector.rotate();
+
+        // 降级阈值为 threshold * coolRatio = 50，每个窗口 60 次时始终保持热点
+        for (int i = 0; i < 5; i++) {
+            record(detector, "user:1", 60);
+            detector.rotate();
+            assertTrue(detector.isHot("user:1"), "访问次数高于降级阈值时不应该降级");
+        }
+    }
+
+    @Test
+    void testDisabled() {
+        HotKeyProperties properties = properties();
+        properties.setEnabled(false);
+        HotKeyDetector detector = new HotKeyDetector(properties);
+
+        record(detector, "user:1", 1000);
+
+        assertFalse(detector.isHot("user:1"), "关闭时不应该计数");
+    }
+
+    @Test
+    void testInvalidSampleRate() {
+        HotKeyProperties properties = properties();
+        properties.setSampleRate(0);
+
+        assertThrows(IllegalArgumentException.class, () -> new HotKeyDetector(properties));
+    }
+}
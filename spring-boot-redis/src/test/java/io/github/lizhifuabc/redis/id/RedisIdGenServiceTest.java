@@ -10,9 +10,11 @@ import org.springframework.data.redis.core.StringRedisTemplate;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,6 +34,9 @@ class RedisIdGenServiceTest {
     
     @Autowired
     private RedisIdGenService redisIdGenService;
+
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
     
     private final String TEST_KEY_PREFIX = "test:id:gen";
     
@@ -141,4 +146,91 @@ class RedisIdGenServiceTest {
         
         log.info("不同前缀ID生成测试通过");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSegmentIdUniqueness() throws InterruptedException {
+        // 号段模式下并发生成的ID也必须唯一，且与逐个INCR的模式混用时不重复
+        int threadCount = 20;
+        int idsPerThread = 5000;
+        // 号段缓冲在容器内常驻，计数 key 被清理后会与残留号段重叠，
+        // 因此使用不在 TEST_KEY_PREFIX 之下的前缀，setUp 不会清理它的计数 key
+        String prefix = "test:id:segment";
+        log.info("开始测试号段模式ID唯一性，线程数={}, 每线程ID数={}", threadCount, idsPerThread);
+
+        Set<Long> ids = ConcurrentHashMap.newKeySet(threadCount * idsPerThread + 1);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+
+        long startTime = System.currentTimeMillis();
+
+        for (int i = 0; i < threadCount; i++) {
+            executorService.submit(() -> {
+                try {
+                    for (int j = 0; j < idsPerThread; j++) {
+                        ids.add(redisIdGenService.nextSegmentId(prefix));
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executorService.shutdown();
+        ids.add(redisIdGenService.nextId(prefix));
+
+        long endTime = System.currentTimeMillis();
+        log.info("号段模式ID生成完成，耗时={}ms，预期ID数={}, 实际ID数={}",
+                (endTime - startTime), threadCount * idsPerThread + 1, ids.size());
+
+        assertEquals(threadCount * idsPerThread + 1, ids.size(), "所有生成的ID应该是唯一的");
+        log.info("号段模式ID唯一性测试通过");
+    }
+
+    @Test
+    void testSnowflakeIdUniqueness() throws InterruptedException {
+        // 雪花算法完全在本地生成，并发下ID唯一且单线程内严格递增
+        int threadCount = 20;
+        int idsPerThread = 10000;
+        log.info("开始测试雪花算法ID唯一性，workerId={}, 线程数={}, 每线程ID数={}",
+                snowflakeIdGenerator.getWorkerId(), threadCount, idsPerThread);
+
+        Set<Long> ids = ConcurrentHashMap.newKeySet(threadCount * idsPerThread);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        AtomicBoolean ordered = new AtomicBoolean(true);
+
+        long startTime = System.currentTimeMillis();
+
+        for (int i = 0; i < threadCount; i++) {
+            executorService.submit(() -> {
+                try {
+                    long last = 0;
+                    for (int j = 0; j < idsPerThread; j++) {
+                        long id = snowflakeIdGenerator.nextId();
+                        if (id <= last) {
+                            ordered.set(false);
+                        }
+                        last = id;
+                        ids.add(id);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executorService.shutdown();
+
+        long endTime = System.currentTimeMillis();
+        log.info("雪花算法ID生成完成，耗时={}ms，预期ID数={}, 实际ID数={}",
+                (endTime - startTime), threadCount * idsPerThread, ids.size());
+
+        assertEquals(threadCount * idsPerThread, ids.size(), "所有生成的ID应该是唯一的");
+        assertTrue(ordered.get(), "同一线程内生成的ID应该严格递增");
+        long workerId = (ids.iterator().next() >> 12) & 0x3FF;
+        assertEquals(snowflakeIdGenerator.getWorkerId(), workerId, "ID中应包含当前工作节点ID");
+        log.info("雪花算法ID唯一性测试通过");
+    }
+}
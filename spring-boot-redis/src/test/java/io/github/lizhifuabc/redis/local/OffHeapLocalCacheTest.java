@@ -0,0 +1,33 @@
+package io.github.lizhifuabc.redis.local;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapLocalCache 容量校验测试类
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class OffHeapLocalCacheTest {
+
+    private static final int PAGE_SIZE = 4096;
+
+    private static final SlabClasses CLASSES = new SlabClasses(64, 2.0, PAGE_SIZE);
+
+    @Test
+    void testCapacityBelowOnePagePerSegment() {
+        // 16 个分段至少需要 16 页
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapLocalCache<>("test", String.class, null,
+                15L * PAGE_SIZE, 16, PAGE_SIZE, CLASSES, null));
+    }
+
+    @Test
+    void testCapacityOnePagePerSegment() {
+        OffHeapLocalCache<String, String> cache = new OffHeapLocalCache<>("test", String.class, null,
+                16L * PAGE_SIZE, 16, PAGE_SIZE, CLASSES, null);
+
+        assertEquals(0, cache.allocatedBytes());
+    }
+}
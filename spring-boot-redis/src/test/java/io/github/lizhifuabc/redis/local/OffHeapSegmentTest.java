@@ -0,0 +1,200 @@
+package io.github.lizhifuabc.redis.local;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapSegment 测试类
+ * <p>
+ * 页大小 4KB，规格为 64、128、256、512、1024、2048、4096 字节
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class OffHeapSegmentTest {
+
+    private static final int PAGE_SIZE = 4096;
+
+    private static final SlabClasses CLASSES = new SlabClasses(64, 2.0, PAGE_SIZE);
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private static byte[] value(int length, int seed) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) seed);
+        return bytes;
+    }
+
+    @Test
+    void testPutAndGet() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 4);
+        byte[] bytes = value(100, 1);
+
+        assertTrue(segment.put("a", bytes, NEVER, 0));
+
+        assertArrayEquals(bytes, segment.get("a", 0));
+        assertNull(segment.get("b", 0), "未写入的 key 应该未命中");
+        assertEquals(1, segment.size());
+        assertEquals(100, segment.usedBytes());
+        assertEquals(PAGE_SIZE, segment.allocatedBytes(), "首次写入应该只分配一页");
+    }
+
+    @Test
+    void testOverwrite() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 4);
+        segment.put("a", value(100, 1), NEVER, 0);
+
+        assertTrue(segment.put("a", value(1000, 2), NEVER, 0));
+
+        assertArrayEquals(value(1000, 2), segment.get("a", 0));
+        assertEquals(1, segment.size());
+        assertEquals(1000, segment.usedBytes(), "旧值占用的空间应该已释放");
+    }
+
+    @Test
+    void testRemoveFreesChunk() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 1);
+        // 一页正好切成 64 个 64 字节的块
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 64; i++) {
+                assertTrue(segment.put("key:" + i, value(50, i), NEVER, 0));
+            }
+            for (int i = 0; i < 64; i++) {
+                segment.remove("key:" + i);
+            }
+        }
+
+        assertEquals(0, segment.evictions(), "删除后的块应该被复用，不需要淘汰");
+        assertEquals(0, segment.size());
+        assertEquals(0, segment.usedBytes());
+        assertEquals(PAGE_SIZE, segment.allocatedBytes());
+        assertNull(segment.get("key:0", 0));
+    }
+
+    @Test
+    void testValueLargerThanPage() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 4);
+        segment.put("a", value(100, 1), NEVER, 0);
+
+        assertFalse(segment.put("a", value(PAGE_SIZE + 1, 2), NEVER, 0), "超过页大小的值不应该写入");
+
+        assertNull(segment.get("a", 0), "写入失败时旧值也应该移除");
+        assertEquals(0, segment.usedBytes());
+    }
+
+    @Test
+    void testExpired() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 4);
+        segment.put("a", value(100, 1), 10, 0);
+
+        assertNotNull(segment.get("a", 9));
+        assertNull(segment.get("a", 10), "到达过期时间后应该未命中");
+        assertEquals(0, segment.size());
+    }
+
+    @Test
+    void testClassExhaustionEvictsWithinClass() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 1);
+        for (int i = 0; i < 64; i++) {
+            segment.put("key:" + i, value(50, i), NEVER, 0);
+        }
+        // 被访问过的条目在 CLOCK 扫描中会被跳过一次
+        segment.get("key:0", 0);
+
+        assertTrue(segment.put("key:64", value(50, 64), NEVER, 0));
+
+        assertEquals(1, segment.evictions());
+        assertEquals(64, segment.size());
+        assertNotNull(segment.get("key:0", 0), "被访问过的条目不应该被淘汰");
+        assertNull(segment.get("key:1", 0), "最早写入且未被访问的条目应该被淘汰");
+        assertEquals(0, segment.reassignments(), "同一规格内淘汰即可，不应该调整页");
+    }
+
+    @Test
+    void testReassignPageToEmptyClass() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 1);
+        for (int i = 0; i < 64; i++) {
+            segment.put("key:" + i, value(50, i), NEVER, 0);
+        }
+
+        // 唯一的一页已经划给 64 字节的规格，4KB 的规格没有页
+        assertTrue(segment.put("large", value(3000, 1), NEVER, 0), "没有页的规格应该能从其他规格取得一页");
+
+        assertEquals(1, segment.reassignments());
+        assertEquals(64, segment.evictions(), "被取走的页上的条目应该全部淘汰");
+        assertEquals(1, segment.size());
+        assertArrayEquals(value(3000, 1), segment.get("large", 0));
+        assertEquals(3000, segment.usedBytes());
+        assertEquals(PAGE_SIZE, segment.allocatedBytes(), "调整页不应该分配新的内存");
+    }
+
+    @Test
+    void testReassignFromColdClass() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 2);
+        // 第一页给 64 字节的规格，写入后不再访问
+        for (int i = 0; i < 64; i++) {
+            segment.put("small:" + i, value(50, i), NEVER, 0);
+        }
+        // 第二页给 1KB 的规格，一页 4 块，频繁访问
+        for (int i = 0; i < 4; i++) {
+            segment.put("hot:" + i, value(1000, i), NEVER, 0);
+            for (int j = 0; j < 10; j++) {
+                segment.get("hot:" + i, 0);
+            }
+        }
+
+        // 前 4 次在规格内淘汰，淘汰数达到一页后第 5 次从冷规格取页
+        for (int i = 0; i < 5; i++) {
+            assertTrue(segment.put("new:" + i, value(1000, i), NEVER, 0));
+        }
+
+        assertEquals(1, segment.reassignments());
+        for (int i = 0; i < 64; i++) {
+            assertNull(segment.get("small:" + i, 0), "冷规格被取走的页上的条目应该淘汰");
+        }
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(segment.get("new:" + i, 0));
+        }
+        assertEquals(2 * PAGE_SIZE, segment.allocatedBytes());
+    }
+
+    @Test
+    void testNoReassignFromHotterClass() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 2);
+        // 64 字节的规格频繁访问，1KB 的规格不访问
+        for (int i = 0; i < 64; i++) {
+            segment.put("small:" + i, value(50, i), NEVER, 0);
+            segment.get("small:" + i, 0);
+        }
+        for (int i = 0; i < 4; i++) {
+            segment.put("cold:" + i, value(1000, i), NEVER, 0);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(segment.put("new:" + i, value(1000, i), NEVER, 0));
+        }
+
+        assertEquals(0, segment.reassignments(), "对方每页的命中次数更多时不应该调整页");
+        assertEquals(20, segment.evictions(), "只应该在规格内淘汰");
+        for (int i = 0; i < 64; i++) {
+            assertNotNull(segment.get("small:" + i, 0));
+        }
+    }
+
+    @Test
+    void testClear() {
+        OffHeapSegment<String> segment = new OffHeapSegment<>(CLASSES, PAGE_SIZE, 2);
+        segment.put("a", value(50, 1), NEVER, 0);
+        segment.put("b", value(1000, 2), NEVER, 0);
+
+        segment.clear();
+
+        assertEquals(0, segment.size());
+        assertEquals(0, segment.allocatedBytes());
+        assertTrue(segment.put("c", value(3000, 3), NEVER, 0), "清空后页应该可以重新分配");
+        assertEquals(0, segment.reassignments());
+    }
+}
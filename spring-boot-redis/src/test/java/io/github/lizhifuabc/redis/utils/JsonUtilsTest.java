@@ -0,0 +1,143 @@
+package io.github.lizhifuabc.redis.utils;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.lizhifuabc.redis.cache.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonUtils 测试类
+ *
+ * @author lizhifu
+ * @since 2025/3/13
+ */
+class JsonUtilsTest {
+
+    private final JsonUtils jsonUtils = new JsonUtils(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    private static List<User> users(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> new User(id, "user" + id, "user" + id + "@example.com"))
+                .toList();
+    }
+
+    private static void assertUser(User expected, User actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getUsername(), actual.getUsername());
+        assertEquals(expected.getEmail(), actual.getEmail());
+        assertEquals(expected.getCreateTime(), actual.getCreateTime());
+        assertEquals(expected.getUpdateTime(), actual.getUpdateTime());
+    }
+
+    @Test
+    void testBytesRoundTrip() {
+        User user = users(1).get(0);
+
+        byte[] json = jsonUtils.toJsonBytes(user);
+
+        assertArrayEquals(jsonUtils.toJsonStr(user).getBytes(StandardCharsets.UTF_8), json,
+                "字节数组应该是字符串的 UTF-8 编码");
+        assertUser(user, jsonUtils.toBean(json, User.class));
+
+        List<User> users = users(3);
+        List<User> decoded = jsonUtils.toBeanList(jsonUtils.toJsonBytes(users), User.class);
+        assertEquals(3, decoded.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertUser(users.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    void testStreamRoundTrip() {
+        List<User> users = users(2);
+        TrackingOutputStream out = new TrackingOutputStream();
+
+        // 同一个输出流连续写入多个值，写入后不应该被关闭
+        jsonUtils.writeTo(users.get(0), out);
+        jsonUtils.writeTo(users.get(1), out);
+        assertFalse(out.closed, "writeTo 不应该关闭调用方的输出流");
+
+        TrackingInputStream in = new TrackingInputStream(out.toByteArray());
+        List<User> decoded = new ArrayList<>();
+        try (MappingIterator<User> iterator = jsonUtils.readValues(in, User.class)) {
+            iterator.forEachRemaining(decoded::add);
+        } catch (IOException e) {
+            fail(e);
+        }
+        assertFalse(in.closed, "关闭迭代器不应该关闭调用方的输入流");
+        assertEquals(2, decoded.size());
+        assertUser(users.get(0), decoded.get(0));
+        assertUser(users.get(1), decoded.get(1));
+
+        TrackingInputStream single = new TrackingInputStream(jsonUtils.toJsonBytes(users.get(0)));
+        assertUser(users.get(0), jsonUtils.toBean(single, User.class));
+        assertFalse(single.closed, "toBean 不应该关闭调用方的输入流");
+
+        TrackingInputStream list = new TrackingInputStream(jsonUtils.toJsonBytes(users));
+        assertEquals(2, jsonUtils.toBeanList(list, User.class).size());
+        assertFalse(list.closed, "toBeanList 不应该关闭调用方的输入流");
+    }
+
+    @Test
+    void testForEachStreamsWithoutClosing() {
+        int count = 10_000;
+        byte[] json = jsonUtils.toJsonBytes(users(count));
+        TrackingInputStream in = new TrackingInputStream(json);
+        int[] readAtFirst = new int[1];
+        long[] nextId = {1};
+
+        long processed = jsonUtils.forEach(in, User.class, user -> {
+            if (user.getId() == 1) {
+                readAtFirst[0] = in.position();
+            }
+            assertEquals(nextId[0]++, user.getId(), "元素应该按数组顺序逐个处理");
+        });
+
+        assertEquals(count, processed);
+        assertTrue(readAtFirst[0] < json.length / 10, "处理第一个元素时只应该读取了输入的开头，实际已读取: " + readAtFirst[0]);
+        assertFalse(in.closed, "forEach 不应该关闭调用方的输入流");
+    }
+
+    /**
+     * 记录是否被关闭的输出流
+     */
+    private static final class TrackingOutputStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * 记录是否被关闭、已读取位置的输入流
+     */
+    private static final class TrackingInputStream extends ByteArrayInputStream {
+        private boolean closed;
+
+        private TrackingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        int position() {
+            return pos;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}